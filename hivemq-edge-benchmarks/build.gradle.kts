@@ -0,0 +1,55 @@
+plugins {
+    id("java")
+    id("com.github.sgtsilvio.gradle.utf8")
+    id("me.champeau.jmh")
+}
+
+group = "com.hivemq"
+
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(11))
+    }
+}
+
+repositories {
+    mavenCentral()
+    exclusiveContent {
+        forRepository {
+            maven {
+                url = uri("https://jitpack.io")
+            }
+        }
+        filter {
+            includeGroup("com.github.simon622.mqtt-sn")
+            includeGroup("com.github.simon622")
+        }
+    }
+}
+
+dependencies {
+    jmh("com.hivemq:hivemq-edge")
+    jmh("io.netty:netty-codec:${property("netty.version")}")
+    jmh("io.dropwizard.metrics:metrics-core:${property("metrics.version")}")
+    jmh("com.google.guava:guava:${property("guava.version")}") {
+        exclude("org.checkerframework", "checker-qual")
+        exclude("com.google.errorprone", "error_prone_annotations")
+    }
+    jmh("com.fasterxml.jackson.core:jackson-databind:${property("jackson.version")}")
+    jmh("com.hivemq:hivemq-mqtt-client:${property("hivemq-mqtt-client.version")}")
+    jmh("org.mockito:mockito-core:${property("mockito.version")}")
+}
+
+/*
+ * Run all benchmarks with `./gradlew jmh`, a subset with `./gradlew jmh -Pjmh.includes=<regex>`.
+ */
+jmh {
+    jmhVersion.set("${property("jmh.version")}")
+    includes.set(listOfNotNull(findProperty("jmh.includes")?.toString()).ifEmpty { listOf(".*") })
+    resultFormat.set("JSON")
+    jvmArgs.addAll(
+        "--add-opens", "java.base/java.nio=ALL-UNNAMED",
+        "--add-opens", "java.base/sun.nio.ch=ALL-UNNAMED",
+        "-Dio.netty.tryReflectionSetAccessible=true"
+    )
+}
@@ -0,0 +1,10 @@
+rootProject.name = "hivemq-edge-benchmarks"
+
+pluginManagement {
+    plugins {
+        id("com.github.sgtsilvio.gradle.utf8") version "${extra["plugin.utf8.version"]}"
+        id("me.champeau.jmh") version "${extra["plugin.jmh.version"]}"
+    }
+}
+
+includeBuild("../hivemq-edge")
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.mqtt;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.hivemq.bridge.config.CustomUserProperty;
+import com.hivemq.bridge.config.LocalSubscription;
+import com.hivemq.bridge.config.MqttBridge;
+import com.hivemq.bridge.metrics.PerBridgeMetrics;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
+import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Measures the forwarding of a local PUBLISH to the remote broker of a bridge.
+ * <p>
+ * This covers the topic rewrite, the user property handling and the conversion to the PUBLISH of the MQTT client. The
+ * remote client is a stub that completes every publish immediately.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RemoteMqttForwarderBenchmark {
+
+    private static final String QUEUE_ID = "queue";
+
+    @Param({"{#}", "edge/${bridge.name}/all", "prefix/{1}/{2}/suffix"})
+    public String destination;
+
+    @Param({"true", "false"})
+    public boolean loopPrevention;
+
+    private RemoteMqttForwarder forwarder;
+    private ExecutorService executorService;
+    private PUBLISH publish;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final LocalSubscription localSubscription = new LocalSubscription(List.of("#"),
+                destination,
+                List.of(),
+                List.of(CustomUserProperty.of("origin", "edge")),
+                false,
+                2);
+        final MqttBridge bridge = new MqttBridge.Builder().withId("bridge")
+                .withHost("localhost")
+                .withClientId("bridge-client")
+                .withLocalSubscriptions(List.of(localSubscription))
+                .withLoopPreventionEnabled(loopPrevention)
+                .withLoopPreventionHopCount(2)
+                .build();
+
+        final Mqtt5AsyncClient mqtt5Client = mock(Mqtt5AsyncClient.class, withSettings().stubOnly());
+        when(mqtt5Client.toAsync()).thenReturn(mqtt5Client);
+        when(mqtt5Client.publish(any())).thenReturn(CompletableFuture.completedFuture(null));
+        final BridgeMqttClient bridgeMqttClient = mock(BridgeMqttClient.class, withSettings().stubOnly());
+        when(bridgeMqttClient.isConnected()).thenReturn(true);
+        when(bridgeMqttClient.getMqtt5Client()).thenReturn(mqtt5Client);
+
+        forwarder = new RemoteMqttForwarder("forwarder",
+                bridge,
+                localSubscription,
+                bridgeMqttClient,
+                new PerBridgeMetrics("bridge", new MetricRegistry()),
+                new PassThroughInterceptorHandler());
+        executorService = MoreExecutors.newDirectExecutorService();
+        forwarder.setExecutorService(executorService);
+        forwarder.setCallback((message, queueId, cancelled) -> {
+        });
+        forwarder.start();
+
+        publish = new PUBLISHFactory.Mqtt5Builder().withHivemqId("hivemqId")
+                .withTopic("site/berlin/line/7/sensor/temperature")
+                .withQoS(QoS.AT_LEAST_ONCE)
+                .withOnwardQos(QoS.AT_LEAST_ONCE)
+                .withPayload(new byte[64])
+                .withContentType("application/json")
+                .withUserProperties(Mqtt5UserProperties.of(MqttUserProperty.of("unit", "celsius"),
+                        MqttUserProperty.of("device", "sensor-7")))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        forwarder.stop();
+        executorService.shutdown();
+    }
+
+    @Benchmark
+    public int onMessage() {
+        forwarder.onMessage(publish, QUEUE_ID);
+        return forwarder.getInflightCount();
+    }
+
+    private static class PassThroughInterceptorHandler implements BridgeInterceptorHandler {
+
+        @Override
+        public ListenableFuture<PublishReturnCode> interceptOrDelegateInbound(
+                final PUBLISH publish, final ExecutorService executorService, final MqttBridge bridge) {
+            return Futures.immediateFuture(PublishReturnCode.DELIVERED);
+        }
+
+        @Override
+        public ListenableFuture<InterceptorResult> interceptOrDelegateOutbound(
+                final PUBLISH publish, final ExecutorService executorService, final MqttBridge bridge) {
+            return Futures.immediateFuture(new InterceptorResult(InterceptorOutcome.SUCCESS, publish));
+        }
+    }
+}
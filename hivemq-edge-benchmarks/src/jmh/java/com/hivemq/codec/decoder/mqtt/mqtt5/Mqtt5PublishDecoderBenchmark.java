@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec.decoder.mqtt.mqtt5;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.bootstrap.ClientConnection;
+import com.hivemq.codec.decoder.mqtt.TopicInterner;
+import com.hivemq.configuration.HivemqId;
+import com.hivemq.configuration.service.ConfigurationService;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.configuration.service.impl.ApiConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.BridgeConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.ConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.DataGovernanceConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.GatewayConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.MqttConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.MqttsnConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.PersistenceConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.ProtocolAdapterConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.RestrictionsConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.SecurityConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.UnsConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.UsageTrackingConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.listener.ListenerConfigurationServiceImpl;
+import com.hivemq.limitation.TopicAliasLimiterImpl;
+import com.hivemq.logging.EventLog;
+import com.hivemq.mqtt.handler.disconnect.MqttServerDisconnectorImpl;
+import com.hivemq.mqtt.message.ProtocolVersion;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5PUBLISH;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decoding of an MQTT 5 PUBLISH, which covers the topic and property decoding of the
+ * {@link com.hivemq.codec.decoder.mqtt.AbstractMqttDecoder}.
+ * <p>
+ * The encoded PUBLISH (variable header and payload, as handed to the decoder after the fixed header) is created once,
+ * every invocation decodes a duplicate of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Mqtt5PublishDecoderBenchmark {
+
+    /* fixed header of a QoS 1 PUBLISH */
+    private static final byte HEADER = 0b0011_0010;
+
+    @Param({"0", "4"})
+    public int userPropertyCount;
+
+    @Param({"64", "4096"})
+    public int payloadSize;
+
+    @Param({"true", "false"})
+    public boolean internTopics;
+
+    private Mqtt5PublishDecoder decoder;
+    private ClientConnection clientConnection;
+    private EmbeddedChannel channel;
+    private ByteBuf encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InternalConfigurations.TOPIC_INTERNER_ENABLED.set(internTopics);
+        decoder = new Mqtt5PublishDecoder(new MqttServerDisconnectorImpl(new EventLog()),
+                new HivemqId(),
+                createConfigurationService(),
+                new TopicAliasLimiterImpl(),
+                new TopicInterner(new MetricRegistry()));
+
+        channel = new EmbeddedChannel();
+        clientConnection = new ClientConnection(channel, null);
+        clientConnection.setProtocolVersion(ProtocolVersion.MQTTv5);
+        clientConnection.setTopicAliasMapping(new String[0]);
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).set(clientConnection);
+
+        encoded = Unpooled.unreleasableBuffer(Unpooled.directBuffer().writeBytes(encodePublish()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.close();
+    }
+
+    @Benchmark
+    public Mqtt5PUBLISH decode() {
+        return decoder.decode(clientConnection, encoded.duplicate(), HEADER);
+    }
+
+    private byte[] encodePublish() {
+        final ByteBuf properties = Unpooled.buffer();
+        // payload format indicator
+        properties.writeByte(0x01).writeByte(0);
+        // message expiry interval
+        properties.writeByte(0x02).writeInt(3600);
+        writeString(properties.writeByte(0x03), "application/octet-stream");
+        for (int i = 0; i < userPropertyCount; i++) {
+            writeString(properties.writeByte(0x26), "key-" + i);
+            writeString(properties, "value-" + i);
+        }
+
+        final ByteBuf buf = Unpooled.buffer();
+        writeString(buf, "site/berlin/line/7/sensor/temperature");
+        buf.writeShort(1);
+        writeVariableByteInteger(buf, properties.readableBytes());
+        buf.writeBytes(properties);
+        buf.writeBytes(new byte[payloadSize]);
+
+        final byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+
+    private static void writeString(final ByteBuf buf, final String string) {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        buf.writeShort(bytes.length).writeBytes(bytes);
+    }
+
+    private static void writeVariableByteInteger(final ByteBuf buf, int value) {
+        do {
+            int encodedByte = value & 0x7F;
+            value >>>= 7;
+            if (value > 0) {
+                encodedByte |= 0x80;
+            }
+            buf.writeByte(encodedByte);
+        } while (value > 0);
+    }
+
+    private static ConfigurationService createConfigurationService() {
+        return new ConfigurationServiceImpl(new ListenerConfigurationServiceImpl(),
+                new MqttConfigurationServiceImpl(),
+                new RestrictionsConfigurationServiceImpl(),
+                new SecurityConfigurationServiceImpl(),
+                new PersistenceConfigurationServiceImpl(),
+                new MqttsnConfigurationServiceImpl(),
+                new BridgeConfigurationServiceImpl(),
+                new ApiConfigurationServiceImpl(),
+                new UnsConfigurationServiceImpl(),
+                new DataGovernanceConfigurationServiceImpl(),
+                new GatewayConfigurationServiceImpl(),
+                new UsageTrackingConfigurationServiceImpl(),
+                new ProtocolAdapterConfigurationServiceImpl());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.common.topic;
+
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares applying a destination modifier with the interpreter of {@link TopicFilterProcessor}, which parses the
+ * modifier for every message, to applying the compiled {@link TopicTemplate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicTemplateBenchmark {
+
+    private static final Map<String, String> TOKENS = Map.of("bridge.name", "bridge");
+
+    @Param({
+            "edge/${bridge.name}/all",
+            "prefix/{2}/{4}/suffix",
+            "prefix/{2-3}/{5-#}",
+            "${bridge.name}/{#}",
+            "site/$ENV{HOSTNAME}/{3}"})
+    public String destination;
+
+    private MqttTopic topic;
+    private TopicTemplate template;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        topic = MqttTopic.of("site/berlin/line/7/sensor/temperature");
+        template = TopicTemplate.compile(destination, Map.of());
+    }
+
+    @Benchmark
+    public MqttTopic interpreted() {
+        return TopicFilterProcessor.interpret(topic, destination, TOKENS);
+    }
+
+    @Benchmark
+    public MqttTopic compiled() {
+        return template.apply(topic, TOKENS);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.adapters.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.edge.modules.adapters.ProtocolAdapterException;
+import com.hivemq.edge.modules.adapters.data.ProtocolAdapterDataSample;
+import com.hivemq.edge.modules.adapters.model.ProtocolAdapterStartOutput;
+import com.hivemq.edge.modules.config.impl.AbstractProtocolAdapterConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the wrapping of a polled data sample into the JSON envelope that the protocol adapters publish.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtocolAdapterJsonBenchmark {
+
+    @Param({"scalar", "tags"})
+    public String sampleType;
+
+    private BenchmarkProtocolAdapter adapter;
+    private ProtocolAdapterDataSample sample;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final AbstractProtocolAdapterConfig config = new AbstractProtocolAdapterConfig();
+        config.setId("benchmark-adapter");
+        adapter = new BenchmarkProtocolAdapter(config);
+
+        final Object data;
+        if ("scalar".equals(sampleType)) {
+            data = 21.5D;
+        } else {
+            final Map<String, Object> tags = new LinkedHashMap<>();
+            for (int i = 0; i < 32; i++) {
+                tags.put("tag-" + i, Map.of("value", i * 1.5D, "quality", "GOOD"));
+            }
+            data = tags;
+        }
+        sample = new ProtocolAdapterDataSample(data, "site/berlin/line/7/sensors", 1);
+        sample.setTimestamp(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public byte[] convertToJson() throws ProtocolAdapterException {
+        return adapter.convertToJson(sample);
+    }
+
+    private static class BenchmarkProtocolAdapter extends AbstractProtocolAdapter<AbstractProtocolAdapterConfig> {
+
+        BenchmarkProtocolAdapter(final AbstractProtocolAdapterConfig adapterConfig) {
+            super(new BenchmarkProtocolAdapterInformation(), adapterConfig, new MetricRegistry());
+        }
+
+        @Override
+        protected CompletableFuture<ProtocolAdapterStartOutput> startInternal(final ProtocolAdapterStartOutput output) {
+            return CompletableFuture.completedFuture(output);
+        }
+
+        @Override
+        protected CompletableFuture<Void> stopInternal() {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private static class BenchmarkProtocolAdapterInformation extends AbstractProtocolAdapterInformation {
+
+        @Override
+        public String getProtocolName() {
+            return "Benchmark";
+        }
+
+        @Override
+        public String getProtocolId() {
+            return "benchmark";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Benchmark Adapter";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Adapter used by the benchmarks";
+        }
+    }
+}
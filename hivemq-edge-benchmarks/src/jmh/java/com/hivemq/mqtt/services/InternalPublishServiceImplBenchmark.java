@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.services;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.primitives.ImmutableIntArray;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+import com.hivemq.mqtt.handler.publish.PublishStatus;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
+import com.hivemq.mqtt.topic.SubscriptionFlag;
+import com.hivemq.mqtt.topic.tree.LocalTopicTree;
+import com.hivemq.persistence.retained.RetainedMessagePersistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures the publish path from the internal publish service to the handover to the publish distributor.
+ * <p>
+ * The distributor completes immediately, so the benchmark covers the topic tree lookup, the subscriber filtering and
+ * the future handling of the publish service. The PUBLISH is not retained, so the retained message persistence is not
+ * involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InternalPublishServiceImplBenchmark {
+
+    private static final String TOPIC = "site/berlin/line/7/sensor/temperature";
+
+    @Param({"1", "100"})
+    public int subscriberCount;
+
+    private InternalPublishServiceImpl publishService;
+    private ExecutorService executorService;
+    private PUBLISH publish;
+    private PUBLISH publishWithoutSubscribers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final LocalTopicTree topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+        final byte flags = SubscriptionFlag.getDefaultFlags(false, false, false);
+        for (int i = 0; i < subscriberCount; i++) {
+            topicTree.addTopic("client-" + i, new Topic(TOPIC, QoS.AT_LEAST_ONCE), flags, null);
+        }
+
+        publishService = new InternalPublishServiceImpl(mock(RetainedMessagePersistence.class),
+                topicTree,
+                new CompletingPublishDistributor());
+        executorService = MoreExecutors.newDirectExecutorService();
+
+        publish = createPublish(TOPIC);
+        publishWithoutSubscribers = createPublish("site/berlin/line/7/sensor/pressure");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorService.shutdown();
+    }
+
+    @Benchmark
+    public ListenableFuture<PublishReturnCode> publish() {
+        return publishService.publish(publish, executorService, "sender");
+    }
+
+    @Benchmark
+    public ListenableFuture<PublishReturnCode> publishWithoutSubscribers() {
+        return publishService.publish(publishWithoutSubscribers, executorService, "sender");
+    }
+
+    private static PUBLISH createPublish(final String topic) {
+        return new PUBLISHFactory.Mqtt5Builder().withHivemqId("hivemqId")
+                .withTopic(topic)
+                .withQoS(QoS.AT_LEAST_ONCE)
+                .withOnwardQos(QoS.AT_LEAST_ONCE)
+                .withPayload(new byte[64])
+                .build();
+    }
+
+    private static class CompletingPublishDistributor implements PublishDistributor {
+
+        @Override
+        public ListenableFuture<Void> distributeToNonSharedSubscribers(
+                final Map<String, SubscriberWithIdentifiers> subscribers,
+                final PUBLISH publish,
+                final ExecutorService executorService) {
+            return Futures.immediateVoidFuture();
+        }
+
+        @Override
+        public ListenableFuture<Void> distributeToSharedSubscribers(
+                final Set<String> sharedSubscriptions,
+                final PUBLISH publish,
+                final ExecutorService executorService) {
+            return Futures.immediateVoidFuture();
+        }
+
+        @Override
+        public ListenableFuture<PublishStatus> sendMessageToSubscriber(
+                final PUBLISH publish,
+                final String clientId,
+                final int subscriptionQos,
+                final boolean sharedSubscription,
+                final boolean retainAsPublished,
+                final ImmutableIntArray subscriptionIdentifier) {
+            return Futures.immediateFuture(PublishStatus.DELIVERED);
+        }
+    }
+}
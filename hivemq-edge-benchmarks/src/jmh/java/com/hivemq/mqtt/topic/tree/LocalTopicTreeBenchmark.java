@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import com.hivemq.mqtt.topic.SubscriptionFlag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookup of the subscribers for a published topic in the topic tree.
+ * <p>
+ * Every client subscribes to its own sensor topic, every tenth client additionally subscribes to a wildcard filter
+ * of its site. The published topics hit exactly one sensor, so every lookup walks the exact and the wildcard
+ * branches of the tree.
+ * <p>
+ * The lookups are measured for the {@link LocalTopicTree} and the {@link CopyOnWriteTopicTree}, with and without the
+ * cache of topic subscribers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalTopicTreeBenchmark {
+
+    private static final int SITES = 16;
+    private static final int LINES = 64;
+    private static final int PUBLISHED_TOPICS = 1024;
+
+    @Param({"100", "10000", "100000"})
+    public int subscriberCount;
+
+    @Param({"local", "copy-on-write"})
+    public String implementation;
+
+    @Param({"0", "10000"})
+    public int cacheSize;
+
+    private TopicTree topicTree;
+    private String[] topics;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InternalConfigurations.TOPIC_TREE_SUBSCRIBERS_CACHE_SIZE.set(cacheSize);
+        final MetricsHolder metricsHolder = new MetricsHolder(new MetricRegistry());
+        topicTree = "local".equals(implementation) ?
+                new LocalTopicTree(metricsHolder) :
+                new CopyOnWriteTopicTree(metricsHolder);
+        final byte flags = SubscriptionFlag.getDefaultFlags(false, false, false);
+
+        for (int i = 0; i < subscriberCount; i++) {
+            final String clientId = "client-" + i;
+            topicTree.addTopic(clientId, new Topic(sensorTopic(i), QoS.AT_LEAST_ONCE), flags, null);
+            if (i % 10 == 0) {
+                topicTree.addTopic(clientId,
+                        new Topic("site/" + (i % SITES) + "/+/+/sensor/#", QoS.AT_MOST_ONCE),
+                        flags,
+                        null);
+            }
+        }
+
+        topics = new String[PUBLISHED_TOPICS];
+        for (int i = 0; i < PUBLISHED_TOPICS; i++) {
+            topics[i] = sensorTopic((int) ((long) i * subscriberCount / PUBLISHED_TOPICS));
+        }
+    }
+
+    @Benchmark
+    public TopicSubscribers findTopicSubscribers() {
+        final String topic = topics[index++ & (PUBLISHED_TOPICS - 1)];
+        return topicTree.findTopicSubscribers(topic);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public TopicSubscribers findTopicSubscribersConcurrently() {
+        final String topic = topics[ThreadLocalRandom.current().nextInt(PUBLISHED_TOPICS)];
+        return topicTree.findTopicSubscribers(topic);
+    }
+
+    @Benchmark
+    public TopicSubscribers findTopicSubscribersWithoutMatch() {
+        return topicTree.findTopicSubscribers("unknown/site/line/sensor/value");
+    }
+
+    private static String sensorTopic(final int client) {
+        return "site/" + (client % SITES) + "/line/" + (client % LINES) + "/sensor/" + client;
+    }
+}
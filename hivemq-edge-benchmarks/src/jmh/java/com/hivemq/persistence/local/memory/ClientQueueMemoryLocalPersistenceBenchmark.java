@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.memory;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.configuration.service.MqttConfigurationService.QueuedMessagesStrategy;
+import com.hivemq.logging.EventLog;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.dropping.MessageDroppedServiceImpl;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import com.hivemq.persistence.payload.PublishPayloadNoopPersistenceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures adding messages to and reading new messages from a client queue of the in-memory persistence.
+ * <p>
+ * The persistence is called directly on the benchmark thread, like the single writer would do for one bucket. Every
+ * invocation adds a message and reads (and for QoS 1 acknowledges) one message, so the queue keeps its depth. QoS 0
+ * and QoS 1 messages are queued for different clients, as a mixed queue would hand out a QoS 0 message along with
+ * every QoS 1 message.
+ * <p>
+ * The in-flight benchmark keeps half of the queue (at most the packet identifier range) in-flight and acknowledges
+ * the oldest in-flight message before reading the next one, like a client which uses its whole receive maximum.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientQueueMemoryLocalPersistenceBenchmark {
+
+    private static final String QOS_0_QUEUE_ID = "qos0-client";
+    private static final String QOS_1_QUEUE_ID = "qos1-client";
+    private static final String IN_FLIGHT_QUEUE_ID = "in-flight-client";
+    private static final int BUCKET_INDEX = 0;
+    private static final ImmutableIntArray PACKET_IDS = ImmutableIntArray.of(1);
+
+    @Param({"10", "1000", "100000"})
+    public int queueDepth;
+
+    private ClientQueueMemoryLocalPersistence persistence;
+    private PUBLISH qos0Publish;
+    private PUBLISH qos1Publish;
+    private int inFlightWindow;
+    private int nextAck;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        persistence = new ClientQueueMemoryLocalPersistence(new PublishPayloadNoopPersistenceImpl(),
+                new MessageDroppedServiceImpl(new MetricsHolder(metricRegistry), new EventLog()),
+                metricRegistry);
+
+        qos0Publish = createPublish(QoS.AT_MOST_ONCE);
+        qos1Publish = createPublish(QoS.AT_LEAST_ONCE);
+
+        for (int i = 0; i < queueDepth; i++) {
+            persistence.add(QOS_0_QUEUE_ID, false, qos0Publish, Long.MAX_VALUE, QueuedMessagesStrategy.DISCARD,
+                    false, BUCKET_INDEX);
+            persistence.add(QOS_1_QUEUE_ID, false, qos1Publish, Long.MAX_VALUE, QueuedMessagesStrategy.DISCARD,
+                    false, BUCKET_INDEX);
+            persistence.add(IN_FLIGHT_QUEUE_ID, false, qos1Publish, Long.MAX_VALUE,
+                    QueuedMessagesStrategy.DISCARD, false, BUCKET_INDEX);
+        }
+
+        inFlightWindow = Math.max(1, Math.min(queueDepth / 2, 65535));
+        final ImmutableIntArray.Builder packetIds = ImmutableIntArray.builder(inFlightWindow);
+        for (int i = 1; i <= inFlightWindow; i++) {
+            packetIds.add(i);
+        }
+        persistence.readNew(IN_FLIGHT_QUEUE_ID, false, packetIds.build(), Long.MAX_VALUE, BUCKET_INDEX);
+        nextAck = 1;
+    }
+
+    @Benchmark
+    public ImmutableList<PUBLISH> addAndReadNewQos0() {
+        persistence.add(QOS_0_QUEUE_ID, false, qos0Publish, Long.MAX_VALUE, QueuedMessagesStrategy.DISCARD, false,
+                BUCKET_INDEX);
+        return persistence.readNew(QOS_0_QUEUE_ID, false, PACKET_IDS, Long.MAX_VALUE, BUCKET_INDEX);
+    }
+
+    @Benchmark
+    public String addReadNewAndRemoveQos1() {
+        persistence.add(QOS_1_QUEUE_ID, false, qos1Publish, Long.MAX_VALUE, QueuedMessagesStrategy.DISCARD, false,
+                BUCKET_INDEX);
+        persistence.readNew(QOS_1_QUEUE_ID, false, PACKET_IDS, Long.MAX_VALUE, BUCKET_INDEX);
+        return persistence.remove(QOS_1_QUEUE_ID, PACKET_IDS.get(0), BUCKET_INDEX);
+    }
+
+    @Benchmark
+    public ImmutableList<PUBLISH> addAcknowledgeAndReadNewInFlight() {
+        persistence.add(IN_FLIGHT_QUEUE_ID, false, qos1Publish, Long.MAX_VALUE, QueuedMessagesStrategy.DISCARD,
+                false, BUCKET_INDEX);
+        final int packetId = nextAck;
+        nextAck = (nextAck % inFlightWindow) + 1;
+        persistence.remove(IN_FLIGHT_QUEUE_ID, packetId, BUCKET_INDEX);
+        return persistence.readNew(IN_FLIGHT_QUEUE_ID, false, ImmutableIntArray.of(packetId), Long.MAX_VALUE,
+                BUCKET_INDEX);
+    }
+
+    private static PUBLISH createPublish(final QoS qos) {
+        return new PUBLISHFactory.Mqtt5Builder().withHivemqId("hivemqId")
+                .withTopic("benchmark/topic")
+                .withQoS(qos)
+                .withOnwardQos(qos)
+                .withPayload(new byte[64])
+                .build();
+    }
+}
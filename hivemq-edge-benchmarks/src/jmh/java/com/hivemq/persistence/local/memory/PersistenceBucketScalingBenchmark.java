@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.memory;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.configuration.service.MqttConfigurationService.QueuedMessagesStrategy;
+import com.hivemq.logging.EventLog;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.dropping.MessageDroppedServiceImpl;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import com.hivemq.persistence.InMemorySingleWriter;
+import com.hivemq.persistence.ProducerQueues;
+import com.hivemq.persistence.payload.PublishPayloadNoopPersistenceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the in-memory client queue persistence behind the single writer for different bucket
+ * counts. Every bucket is worked on by at most one thread at a time, so the throughput only scales with the cores as
+ * long as there are at least as many buckets as threads.
+ * <p>
+ * The benchmark runs with one thread per core. The scaling with the core count can be shown by limiting the threads,
+ * e.g. {@code -t 1}, {@code -t 2}, {@code -t 4}, ... when running the benchmark jar directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class PersistenceBucketScalingBenchmark {
+
+    private static final int CLIENT_COUNT = 1024;
+
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    public int bucketCount;
+
+    private ProducerQueues queuedMessagesQueue;
+    private ClientQueueMemoryLocalPersistence persistence;
+    private PUBLISH publish;
+    private final String[] clientIds = new String[CLIENT_COUNT];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(bucketCount);
+
+        queuedMessagesQueue = new InMemorySingleWriter().getQueuedMessagesQueue();
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        persistence = new ClientQueueMemoryLocalPersistence(new PublishPayloadNoopPersistenceImpl(),
+                new MessageDroppedServiceImpl(new MetricsHolder(metricRegistry), new EventLog()),
+                metricRegistry);
+
+        publish = new PUBLISHFactory.Mqtt5Builder().withHivemqId("hivemqId")
+                .withTopic("benchmark/topic")
+                .withQoS(QoS.AT_MOST_ONCE)
+                .withOnwardQos(QoS.AT_MOST_ONCE)
+                .withPayload(new byte[64])
+                .build();
+
+        for (int i = 0; i < CLIENT_COUNT; i++) {
+            clientIds[i] = "client-" + i;
+        }
+    }
+
+    @Benchmark
+    public Object addAndRemove() throws Exception {
+        final String clientId = clientIds[ThreadLocalRandom.current().nextInt(CLIENT_COUNT)];
+        // waiting for the result keeps the queues of the single writer bounded
+        return queuedMessagesQueue.submit(clientId, bucketIndex -> {
+            persistence.add(clientId, false, publish, 1000, QueuedMessagesStrategy.DISCARD, false, bucketIndex);
+            persistence.removeAllQos0Messages(clientId, false, bucketIndex);
+            return null;
+        }).get();
+    }
+}
@@ -111,6 +111,8 @@ dependencies {
     implementation("io.netty:netty-common:${property("netty.version")}")
     implementation("io.netty:netty-handler:${property("netty.version")}")
     implementation("io.netty:netty-transport:${property("netty.version")}")
+    implementation("io.netty:netty-transport-native-epoll:${property("netty.version")}:linux-x86_64")
+    implementation("io.netty:netty-transport-native-epoll:${property("netty.version")}:linux-aarch_64")
 
     // logging
     implementation("org.slf4j:slf4j-api:${property("slf4j.version")}")
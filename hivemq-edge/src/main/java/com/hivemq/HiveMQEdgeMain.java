@@ -27,6 +27,7 @@ import com.hivemq.configuration.info.SystemInformation;
 import com.hivemq.configuration.info.SystemInformationImpl;
 import com.hivemq.configuration.service.ApiConfigurationService;
 import com.hivemq.configuration.service.ConfigurationService;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.embedded.EmbeddedExtension;
 import com.hivemq.exceptions.HiveMQEdgeStartupException;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
@@ -96,6 +97,11 @@ public class HiveMQEdgeMain {
         log.trace("Cleaning up temporary folders");
         deleteTmpFolder(systemInformation.getDataFolder());
 
+        // all persistences and the single writer read the bucket count when they are created
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(
+                configService.persistenceConfigurationService().getBucketCount());
+        InternalConfigurations.QOS_0_OFF_HEAP_ENABLED.set(configService.mqttConfiguration().qos0OffHeapEnabled());
+
         log.trace("Initializing injector");
         final long startDagger = System.currentTimeMillis();
         injector = DaggerInjector.builder()
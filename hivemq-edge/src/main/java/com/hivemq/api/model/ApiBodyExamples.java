@@ -390,6 +390,19 @@ public interface ApiBodyExamples {
             "    \"value\": 0\n" +
             "}";
 
+    String EXAMPLE_DATAPOINT_LIST_JSON = "{\n" +
+            "    \"items\": [\n" +
+            "        {\n" +
+            "            \"sampleTime\": \"2023-06-28T11:39:00.000+01\",\n" +
+            "            \"value\": 120\n" +
+            "        },\n" +
+            "        {\n" +
+            "            \"sampleTime\": \"2023-06-28T11:40:00.000+01\",\n" +
+            "            \"value\": 184\n" +
+            "        }\n" +
+            "    ]\n" +
+            "}";
+
     String EXAMPLE_ADAPTER = "{\n" +
             "    \"id\": \"test-simulation-server\",\n" +
             "    \"type\": \"simulation\",\n" +
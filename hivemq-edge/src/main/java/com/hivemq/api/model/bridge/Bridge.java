@@ -140,6 +140,11 @@ public class Bridge {
     @Schema(description = "tlsConfiguration associated with the bridge", nullable = true)
     private final @Nullable TlsConfiguration tlsConfiguration;
 
+    @JsonProperty("outboundBuffer")
+    @Schema(description = "The limits of the buffer that holds the forwarded messages while the remote broker is not connected, no buffer is used if not set",
+            nullable = true)
+    private final @Nullable OutboundBuffer outboundBuffer;
+
     @JsonProperty("status")
     @Schema(description = "status associated with the bridge", nullable = true)
     private final @Nullable Status status;
@@ -161,6 +166,7 @@ public class Bridge {
             @NotNull @JsonProperty("remoteSubscriptions") final List<BridgeSubscription> remoteSubscriptions,
             @NotNull @JsonProperty("localSubscriptions") final List<LocalBridgeSubscription> localSubscriptions,
             @Nullable @JsonProperty("tlsConfiguration") final TlsConfiguration tlsConfiguration,
+            @Nullable @JsonProperty("outboundBuffer") final OutboundBuffer outboundBuffer,
             @Nullable @JsonProperty("status") final Status status) {
         this.id = id;
         this.host = host;
@@ -176,6 +182,7 @@ public class Bridge {
         this.remoteSubscriptions = remoteSubscriptions;
         this.localSubscriptions = localSubscriptions;
         this.tlsConfiguration = tlsConfiguration;
+        this.outboundBuffer = outboundBuffer;
         this.status = status;
     }
 
@@ -239,6 +246,10 @@ public class Bridge {
         return tlsConfiguration;
     }
 
+    public OutboundBuffer getOutboundBuffer() {
+        return outboundBuffer;
+    }
+
     public static class BridgeSubscription {
 
         @JsonProperty("filters")
@@ -359,6 +370,39 @@ public class Bridge {
         }
     }
 
+    public static class OutboundBuffer {
+
+        @JsonProperty("maxSizeBytes")
+        @Schema(description = "The max size of the buffered messages in bytes, the oldest messages are dropped first",
+                required = true,
+                minimum = "1",
+                format = "integer")
+        private final long maxSizeBytes;
+
+        @JsonProperty("maxAgeSeconds")
+        @Schema(description = "The max time a message is buffered in seconds",
+                required = true,
+                minimum = "1",
+                format = "integer")
+        private final long maxAgeSeconds;
+
+        @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
+        public OutboundBuffer(
+                @JsonProperty("maxSizeBytes") final long maxSizeBytes,
+                @JsonProperty("maxAgeSeconds") final long maxAgeSeconds) {
+            this.maxSizeBytes = maxSizeBytes;
+            this.maxAgeSeconds = maxAgeSeconds;
+        }
+
+        public long getMaxSizeBytes() {
+            return maxSizeBytes;
+        }
+
+        public long getMaxAgeSeconds() {
+            return maxAgeSeconds;
+        }
+    }
+
     public static Bridge convert(MqttBridge mqttBridge, Status status) {
 
         Bridge bridge = new Bridge(mqttBridge.getId(),
@@ -380,7 +424,8 @@ public class Bridge {
                         .stream()
                         .map(m -> convertLocalSubscription(m))
                         .collect(Collectors.toList()),
-                convertTls(mqttBridge.getBridgeTls()), status);
+                convertTls(mqttBridge.getBridgeTls()),
+                convertOutboundBuffer(mqttBridge.getOutboundBuffer()), status);
         return bridge;
     }
 
@@ -442,4 +487,11 @@ public class Bridge {
                 tls.getHandshakeTimeout());
         return tlsConfiguration;
     }
+
+    public static OutboundBuffer convertOutboundBuffer(BridgeOutboundBuffer outboundBuffer) {
+        if (outboundBuffer == null) {
+            return null;
+        }
+        return new OutboundBuffer(outboundBuffer.getMaxSizeBytes(), outboundBuffer.getMaxAgeSeconds());
+    }
 }
@@ -17,6 +17,7 @@ package com.hivemq.api.resources;
 
 import com.hivemq.api.model.ApiBodyExamples;
 import com.hivemq.api.model.metrics.DataPoint;
+import com.hivemq.api.model.metrics.DataPointList;
 import com.hivemq.api.model.metrics.MetricList;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import io.swagger.v3.oas.annotations.Operation;
@@ -34,6 +35,7 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -94,4 +96,36 @@ public interface MetricsApi {
                                                  in = ParameterIn.PATH)
                        @PathParam("metricName") String prefix);
 
+    @GET
+    @Path("/{metricName}/history")
+    @Operation(summary = "Obtain the recorded samples for the metric requested",
+               operationId = "getHistory",
+               description = "Obtain the recorded samples between two points in time, at most one sample per step.",
+               tags = {"Metrics"},
+               responses = {
+                       @ApiResponse(responseCode = "200",
+                                    description = "Success",
+                                    content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                                       schema = @Schema(implementation = DataPointList.class),
+                                                       examples = {
+                                                               @ExampleObject(description = "Example response with recorded samples.",
+                                                                              name = "metric-history",
+                                                                              summary = "Metric History",
+                                                                              value = ApiBodyExamples.EXAMPLE_DATAPOINT_LIST_JSON)
+                                                       }))})
+    Response getHistory(final @NotNull @Parameter(name = "metricName",
+                                                  description = "The metric to search for.",
+                                                  required = true,
+                                                  in = ParameterIn.PATH)
+                        @PathParam("metricName") String metricName,
+                        @Parameter(name = "from",
+                                   description = "The epoch of the oldest sample, defaults to 5 minutes before 'to'.",
+                                   in = ParameterIn.QUERY) @QueryParam("from") Long from,
+                        @Parameter(name = "to",
+                                   description = "The epoch of the newest sample, defaults to now.",
+                                   in = ParameterIn.QUERY) @QueryParam("to") Long to,
+                        @Parameter(name = "step",
+                                   description = "The interval between two samples in milliseconds, defaults to the resolution of the recorded samples.",
+                                   in = ParameterIn.QUERY) @QueryParam("step") Long step);
+
 }
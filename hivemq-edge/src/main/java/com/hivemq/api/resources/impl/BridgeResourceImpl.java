@@ -36,6 +36,7 @@ import com.hivemq.configuration.service.ConfigurationService;
 import com.hivemq.edge.HiveMQEdgeConstants;
 import com.hivemq.exceptions.UnrecoverableException;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 
 import javax.inject.Inject;
 import javax.ws.rs.core.Response;
@@ -283,6 +284,19 @@ public class BridgeResourceImpl extends AbstractApi implements BridgeApi {
                    1, 100);
        }
 
+        if (bridge.getOutboundBuffer() != null) {
+            if (bridge.getOutboundBuffer().getMaxSizeBytes() <= 0) {
+                ApiErrorUtils.addValidationError(errorMessages,
+                        "outboundBuffer.maxSizeBytes",
+                        "Max size of the outbound buffer must be greater than 0");
+            }
+            if (bridge.getOutboundBuffer().getMaxAgeSeconds() <= 0) {
+                ApiErrorUtils.addValidationError(errorMessages,
+                        "outboundBuffer.maxAgeSeconds",
+                        "Max age of the outbound buffer must be greater than 0");
+            }
+        }
+
         bridge.getLocalSubscriptions()
                 .stream().forEach(s ->
                         validateValidSubscribeTopicField(errorMessages, "local-filters", s.getFilters()));
@@ -334,10 +348,18 @@ public class BridgeResourceImpl extends AbstractApi implements BridgeApi {
                                 .map(f -> unconvertRemote(f))
                                 .collect(Collectors.toList()) :
                         List.of())
-                .withBridgeTls(convertTls(bridge.getTlsConfiguration()));
+                .withBridgeTls(convertTls(bridge.getTlsConfiguration()))
+                .withOutboundBuffer(unconvertOutboundBuffer(bridge.getOutboundBuffer()));
         return builder.build();
     }
 
+    private static @Nullable BridgeOutboundBuffer unconvertOutboundBuffer(final @Nullable Bridge.OutboundBuffer outboundBuffer) {
+        if (outboundBuffer == null) {
+            return null;
+        }
+        return new BridgeOutboundBuffer(outboundBuffer.getMaxSizeBytes(), outboundBuffer.getMaxAgeSeconds());
+    }
+
     private static LocalSubscription unconvertLocal(final @NotNull Bridge.LocalBridgeSubscription subscription) {
 
         return new LocalSubscription(subscription.getFilters(),
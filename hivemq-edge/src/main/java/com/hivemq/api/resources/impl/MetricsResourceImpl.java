@@ -16,23 +16,25 @@
 package com.hivemq.api.resources.impl;
 
 import com.codahale.metrics.Counter;
-import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.hivemq.api.AbstractApi;
 import com.hivemq.api.model.ApiErrorMessages;
 import com.hivemq.api.model.metrics.DataPoint;
+import com.hivemq.api.model.metrics.DataPointList;
 import com.hivemq.api.model.metrics.Metric;
 import com.hivemq.api.model.metrics.MetricList;
 import com.hivemq.api.resources.MetricsApi;
 import com.hivemq.api.utils.ApiErrorUtils;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.history.MetricSeries;
+import com.hivemq.metrics.history.MetricsHistory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.ws.rs.core.Response;
 import java.util.Iterator;
-import java.util.SortedMap;
+import java.util.List;
 
 /**
  * @author Simon L Johnson
@@ -40,11 +42,16 @@ import java.util.SortedMap;
 @Singleton
 public class MetricsResourceImpl extends AbstractApi implements MetricsApi {
 
+    static final long DEFAULT_HISTORY_RANGE = 5 * MetricSeries.MINUTE;
+
     private final @NotNull MetricRegistry metricsRegistry;
+    private final @NotNull MetricsHistory metricsHistory;
 
     @Inject
-    public MetricsResourceImpl(final @NotNull MetricRegistry metricsRegistry) {
+    public MetricsResourceImpl(
+            final @NotNull MetricRegistry metricsRegistry, final @NotNull MetricsHistory metricsHistory) {
         this.metricsRegistry = metricsRegistry;
+        this.metricsHistory = metricsHistory;
     }
 
     @Override
@@ -66,10 +73,10 @@ public class MetricsResourceImpl extends AbstractApi implements MetricsApi {
             return ApiErrorUtils.badRequest(messages);
         } else {
             logger.trace("Metrics API obtaining latest sample for {} at {}", metricName, System.currentTimeMillis());
-            SortedMap<String, Counter> metrics = metricsRegistry.getCounters(MetricFilter.contains(metricName));
-            Counter counter = metrics.get(metricName);
-            if(counter != null){
-                DataPoint dataPoint = new DataPoint(System.currentTimeMillis(), counter.getCount());
+            //-- direct lookup, filtering the registry copies all metrics on every poll
+            Object metric = metricsRegistry.getMetrics().get(metricName);
+            if(metric instanceof Counter){
+                DataPoint dataPoint = new DataPoint(System.currentTimeMillis(), ((Counter) metric).getCount());
                 return Response.status(200).entity(dataPoint).build();
             } else {
                 DataPoint dataPoint = new DataPoint(System.currentTimeMillis(), 0L);
@@ -78,4 +85,25 @@ public class MetricsResourceImpl extends AbstractApi implements MetricsApi {
             }
         }
     }
+
+    @Override
+    public Response getHistory(final String metricName, final Long from, final Long to, final Long step) {
+        ApiErrorMessages messages = ApiErrorUtils.createErrorContainer();
+        ApiErrorUtils.validateRequiredField(messages, "metricName", metricName, false);
+        final long toTimestamp = to == null ? System.currentTimeMillis() : to;
+        final long fromTimestamp = from == null ? toTimestamp - DEFAULT_HISTORY_RANGE : from;
+        if (fromTimestamp > toTimestamp) {
+            ApiErrorUtils.addValidationError(messages, "from", "must not be after 'to'");
+        }
+        if (step != null && step <= 0) {
+            ApiErrorUtils.addValidationError(messages, "step", "must be positive");
+        }
+        if(ApiErrorUtils.hasRequestErrors(messages)){
+            return ApiErrorUtils.badRequest(messages);
+        }
+        logger.trace("Metrics API obtaining history for {} from {} to {}", metricName, fromTimestamp, toTimestamp);
+        final List<DataPoint> dataPoints =
+                metricsHistory.query(metricName, fromTimestamp, toTimestamp, step == null ? 0 : step);
+        return Response.status(200).entity(new DataPointList(dataPoints == null ? List.of() : dataPoints)).build();
+    }
 }
@@ -257,7 +257,9 @@ public class HiveMQEdgeNettyBootstrap {
                 .childHandler(channelInitializerFactory.getChannelInitializer(listener))
 //                .channel(UdpServerChannel.class)
                 .channelFactory(() -> {
-                    UdpServerChannel serverChannel = new UdpServerChannel(workerGroup);
+                    UdpServerChannel serverChannel = new UdpServerChannel(workerGroup,
+                            nettyUdpConfiguration.getServerSocketChannelClass(),
+                            nettyUdpConfiguration.isReusePort());
                     return serverChannel;
                 })
                 .option(ChannelOption.AUTO_CLOSE, true)
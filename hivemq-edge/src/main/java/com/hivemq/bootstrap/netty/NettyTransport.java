@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bootstrap.netty;
+
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The transports Netty can use for the listeners. The native transports are only available on Linux and need the
+ * according native library, so {@link #select()} falls back to NIO whenever a native transport can not be used.
+ */
+public enum NettyTransport {
+
+    EPOLL {
+        @Override
+        public @NotNull EventLoopGroup createEventLoopGroup(
+                final int threads, final @NotNull ThreadFactory threadFactory) {
+            return new EpollEventLoopGroup(threads, threadFactory);
+        }
+
+        @Override
+        public @NotNull Class<? extends ServerSocketChannel> getServerSocketChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+
+        @Override
+        public @NotNull Class<? extends DatagramChannel> getDatagramChannelClass() {
+            return EpollDatagramChannel.class;
+        }
+    },
+
+    NIO {
+        @Override
+        public @NotNull EventLoopGroup createEventLoopGroup(
+                final int threads, final @NotNull ThreadFactory threadFactory) {
+            return new NioEventLoopGroup(threads, threadFactory);
+        }
+
+        @Override
+        public @NotNull Class<? extends ServerSocketChannel> getServerSocketChannelClass() {
+            return NioServerSocketChannel.class;
+        }
+
+        @Override
+        public @NotNull Class<? extends DatagramChannel> getDatagramChannelClass() {
+            return NioDatagramChannel.class;
+        }
+
+        @Override
+        public boolean isNative() {
+            return false;
+        }
+    };
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(NettyTransport.class);
+
+    /**
+     * Creates an event loop group of this transport.
+     *
+     * @param threads       the amount of threads, 0 for the Netty default
+     * @param threadFactory the factory for the threads of the event loops
+     * @return the event loop group
+     */
+    public abstract @NotNull EventLoopGroup createEventLoopGroup(int threads, @NotNull ThreadFactory threadFactory);
+
+    public abstract @NotNull Class<? extends ServerSocketChannel> getServerSocketChannelClass();
+
+    public abstract @NotNull Class<? extends DatagramChannel> getDatagramChannelClass();
+
+    /**
+     * @return true if this transport is a native transport, which supports SO_REUSEPORT.
+     */
+    public boolean isNative() {
+        return true;
+    }
+
+    /**
+     * Selects the transport to use. epoll is used whenever it is available and native transports are enabled via
+     * {@link InternalConfigurations#NETTY_NATIVE_TRANSPORT_ENABLED}.
+     *
+     * @return the transport to use
+     */
+    public static @NotNull NettyTransport select() {
+        if (!InternalConfigurations.NETTY_NATIVE_TRANSPORT_ENABLED.get()) {
+            return NIO;
+        }
+        if (isEpollAvailable()) {
+            return EPOLL;
+        }
+        log.debug("No native transport is available, using NIO instead.");
+        return NIO;
+    }
+
+    private static boolean isEpollAvailable() {
+        try {
+            if (!Epoll.isAvailable()) {
+                log.trace("epoll is unavailable", Epoll.unavailabilityCause());
+                return false;
+            }
+            return true;
+        } catch (final LinkageError e) {
+            log.trace("epoll is unavailable", e);
+            return false;
+        }
+    }
+}
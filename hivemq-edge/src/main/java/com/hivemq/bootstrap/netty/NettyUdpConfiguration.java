@@ -35,10 +35,24 @@ public class NettyUdpConfiguration {
     private final EventLoopGroup parentEventLoopGroup;
     private final EventLoopGroup childEventLoopGroup;
 
+    private final boolean reusePort;
+
 
     public NettyUdpConfiguration(final Class<? extends DatagramChannel> serverSocketChannelClass,
                                  final EventLoopGroup parentEventLoopGroup,
                                  final EventLoopGroup childEventLoopGroup) {
+        this(serverSocketChannelClass, parentEventLoopGroup, childEventLoopGroup, false);
+    }
+
+    /**
+     * @param reusePort true if one datagram channel per child event loop should be bound to the same port with
+     *                  SO_REUSEPORT, so the kernel spreads the incoming datagrams over all event loops. Only supported
+     *                  by the native transports.
+     */
+    public NettyUdpConfiguration(final Class<? extends DatagramChannel> serverSocketChannelClass,
+                                 final EventLoopGroup parentEventLoopGroup,
+                                 final EventLoopGroup childEventLoopGroup,
+                                 final boolean reusePort) {
 
         checkNotNull(serverSocketChannelClass, "Server Socket Channel Class must not be null");
         checkNotNull(parentEventLoopGroup, "Parent Event Loop Group must not be null");
@@ -47,6 +61,7 @@ public class NettyUdpConfiguration {
         this.serverSocketChannelClass = serverSocketChannelClass;
         this.parentEventLoopGroup = parentEventLoopGroup;
         this.childEventLoopGroup = childEventLoopGroup;
+        this.reusePort = reusePort;
     }
 
     public Class<? extends DatagramChannel> getServerSocketChannelClass() {
@@ -60,4 +75,8 @@ public class NettyUdpConfiguration {
     public EventLoopGroup getParentEventLoopGroup() {
         return parentEventLoopGroup;
     }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
 }
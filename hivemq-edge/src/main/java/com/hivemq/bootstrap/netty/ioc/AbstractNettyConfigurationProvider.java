@@ -16,9 +16,9 @@
 package com.hivemq.bootstrap.netty.ioc;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.hivemq.bootstrap.netty.NettyTransport;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 
 import java.util.concurrent.ThreadFactory;
 
@@ -26,27 +26,41 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 public abstract class AbstractNettyConfigurationProvider {
 
+    protected final @NotNull NettyTransport transport;
+
+    protected AbstractNettyConfigurationProvider() {
+        this(NettyTransport.select());
+    }
+
+    protected AbstractNettyConfigurationProvider(final @NotNull NettyTransport transport) {
+        this.transport = transport;
+    }
+
     /**
-     * Creates the Parent Eventloop. Creates either a NIO Eventloop or a native Epoll Eventloop with a preference
-     * for native Epoll.
+     * Creates the Parent Eventloop. Creates either a NIO Eventloop or a native Eventloop with a preference
+     * for native transports.
      *
      * @return the Boss EventLoopGroup
      */
     @NotNull
     protected EventLoopGroup createParentEventLoop() {
-        return new NioEventLoopGroup(1, createThreadFactory("hivemq-eventloop-parent-%d"));
+        return transport.createEventLoopGroup(1, createThreadFactory(threadNamePrefix() + "-parent-%d"));
     }
 
     /**
-     * Creates the Child Eventloop. Creates either a NIO Eventloop or a native Epoll Eventloop with a preference
-     * for native Epoll.
+     * Creates the Child Eventloop. Creates either a NIO Eventloop or a native Eventloop with a preference
+     * for native transports.
      *
      * @return the Boss EventLoopGroup
      */
     @NotNull
     protected EventLoopGroup createChildEventLoop() {
         //Default Netty Threads.
-        return new NioEventLoopGroup(0, createThreadFactory("hivemq-eventloop-child-%d"));
+        return transport.createEventLoopGroup(0, createThreadFactory(threadNamePrefix() + "-child-%d"));
+    }
+
+    private @NotNull String threadNamePrefix() {
+        return transport.isNative() ? "hivemq-native-eventloop" : "hivemq-eventloop";
     }
 
     /**
@@ -18,7 +18,6 @@ package com.hivemq.bootstrap.netty.ioc;
 import com.hivemq.bootstrap.netty.NettyTcpConfiguration;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -44,6 +43,6 @@ public class NettyTcpConfigurationProvider extends AbstractNettyConfigurationPro
         final EventLoopGroup parentGroup = createParentEventLoop();
         final EventLoopGroup childGroup = createChildEventLoop();
 
-        return new NettyTcpConfiguration(NioServerSocketChannel.class, parentGroup, childGroup);
+        return new NettyTcpConfiguration(transport.getServerSocketChannelClass(), parentGroup, childGroup);
     }
 }
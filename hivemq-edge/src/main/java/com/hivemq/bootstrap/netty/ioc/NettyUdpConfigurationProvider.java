@@ -18,7 +18,6 @@ package com.hivemq.bootstrap.netty.ioc;
 import com.hivemq.bootstrap.netty.NettyUdpConfiguration;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.socket.nio.NioDatagramChannel;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -41,7 +40,10 @@ public class NettyUdpConfigurationProvider extends AbstractNettyConfigurationPro
         final EventLoopGroup parentEventLoop = createParentEventLoop();
         final EventLoopGroup childEventLoop = createChildEventLoop();
 
-        return new NettyUdpConfiguration(NioDatagramChannel.class, parentEventLoop, childEventLoop);
+        return new NettyUdpConfiguration(transport.getDatagramChannelClass(),
+                parentEventLoop,
+                childEventLoop,
+                transport.isNative());
     }
 
 }
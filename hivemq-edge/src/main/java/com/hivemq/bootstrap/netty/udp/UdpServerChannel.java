@@ -22,7 +22,8 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.*;
 import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.DatagramPacket;
-import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.unix.UnixChannelOption;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.internal.RecyclableArrayList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,9 +52,17 @@ public class UdpServerChannel extends AbstractServerChannel {
 
     protected volatile boolean open = true;
 
-    public UdpServerChannel(final @NotNull EventLoopGroup group) {
+    /**
+     * @param group     the event loop group the datagram channels are registered on
+     * @param channel   the datagram channel class of the transport of the event loop group
+     * @param reusePort true to bind one datagram channel per event loop to the same port with SO_REUSEPORT, so
+     *                  the kernel spreads the incoming datagrams over all event loops. Needs a native transport.
+     */
+    public UdpServerChannel(
+            final @NotNull EventLoopGroup group,
+            final @NotNull Class<? extends DatagramChannel> channel,
+            final boolean reusePort) {
         this.group = group;
-        Class<? extends DatagramChannel> channel = NioDatagramChannel.class;
         ChannelInitializer<Channel> initializer = new ChannelInitializer<>() {
             final ReadRouteChannelHandler ioReadRoute = new ReadRouteChannelHandler();
             @Override
@@ -62,11 +71,25 @@ public class UdpServerChannel extends AbstractServerChannel {
             }
         };
 
-        Bootstrap ioBootstrap = new Bootstrap().group(group).
-                channel(channel).handler(initializer);
-        ioBootstraps.add(ioBootstrap);
+        final int ioChannelCount = reusePort ? eventLoopCount(group) : 1;
+        for (int i = 0; i < ioChannelCount; i++) {
+            final Bootstrap ioBootstrap = new Bootstrap().group(group).channel(channel).handler(initializer);
+            if (reusePort) {
+                ioBootstrap.option(UnixChannelOption.SO_REUSEPORT, true);
+            }
+            ioBootstraps.add(ioBootstrap);
+        }
+    }
+
+    private static int eventLoopCount(final @NotNull EventLoopGroup group) {
+        int count = 0;
+        for (final EventExecutor ignored : group) {
+            count++;
+        }
+        return Math.max(1, count);
     }
 
+    @ChannelHandler.Sharable
     protected class ReadRouteChannelHandler extends SimpleChannelInboundHandler<DatagramPacket> {
         @Override
         protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket p) throws Exception {
@@ -90,7 +113,7 @@ public class UdpServerChannel extends AbstractServerChannel {
     }
 
     protected void doWrite(RecyclableArrayList list, InetSocketAddress remote) {
-        Channel ioChannel = ioChannels.get(remote.hashCode() & (ioChannels.size() - 1));
+        Channel ioChannel = ioChannels.get(Math.floorMod(remote.hashCode(), ioChannels.size()));
         ioChannel.eventLoop().execute(() -> {
             try {
                 for (Object buf : list) {
@@ -146,7 +169,10 @@ public class UdpServerChannel extends AbstractServerChannel {
     @Override
     protected void doBind(SocketAddress local) throws Exception {
         for (Bootstrap bootstrap : ioBootstraps) {
-            ioChannels.add(bootstrap.bind(local).sync().channel());
+            final Channel ioChannel = bootstrap.bind(local).sync().channel();
+            ioChannels.add(ioChannel);
+            // all channels must share the port, even if the first one was bound to an ephemeral port
+            local = ioChannel.localAddress();
         }
         ioBootstraps.clear();
     }
@@ -15,20 +15,25 @@
  */
 package com.hivemq.bridge;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.MoreExecutors;
+import com.hivemq.bridge.metrics.PerBridgeMetrics;
 import com.hivemq.configuration.HivemqId;
 import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
 import com.hivemq.mqtt.message.subscribe.Topic;
 import com.hivemq.mqtt.topic.SubscriptionFlag;
-import com.hivemq.mqtt.topic.tree.LocalTopicTree;
+import com.hivemq.mqtt.topic.tree.TopicTree;
 import com.hivemq.persistence.SingleWriterService;
 import com.hivemq.persistence.clientqueue.ClientQueuePersistence;
 import com.hivemq.persistence.util.FutureUtils;
@@ -39,12 +44,13 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.*;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.hivemq.configuration.service.InternalConfigurations.FORWARDER_POLL_THRESHOLD_MESSAGES;
 import static com.hivemq.configuration.service.InternalConfigurations.PUBLISH_POLL_BATCH_SIZE_BYTES;
@@ -55,28 +61,42 @@ public class MessageForwarderImpl implements MessageForwarder {
     private static final Logger log = LoggerFactory.getLogger(MessageForwarderImpl.class);
 
     public static final String FORWARDER_PREFIX = "forwarder#";
+    public static final String FORWARDER_METRICS_PREFIX = PerBridgeMetrics.BRIDGE_PREFIX + ".forwarder";
 
-    private final @NotNull LocalTopicTree topicTree;
+    private final @NotNull TopicTree topicTree;
     private final @NotNull HivemqId hivemqId;
     private final @NotNull Lazy<ClientQueuePersistence> queuePersistence;
     private final @NotNull SingleWriterService singleWriterService;
-    private final @NotNull Set<String> notEmptyQueues = new ConcurrentSkipListSet<>();
+    private final @NotNull Map<String, QueueState> queues = new ConcurrentHashMap<>();
     private final @NotNull Map<String, MqttForwarder> forwarders = new ConcurrentHashMap<>(0);
     private final @NotNull Map<String, Set<String>> queueIdsForForwarder = new ConcurrentHashMap<>(0);
+    private final @NotNull Map<String, AtomicInteger> inflightForForwarder = new ConcurrentHashMap<>(0);
     private final @NotNull ExecutorService executorService =
             Executors.newScheduledThreadPool(InternalConfigurations.BRIDGE_MESSAGE_FORWARDER_POOL_THREADS_COUNT.get(),
                     ThreadFactoryUtil.create("bridge-message-forwarder-%d"));
+    private final @NotNull Counter pollCounter;
+    private final @NotNull Counter emptyPollCounter;
+    private final @NotNull Counter polledMessagesCounter;
+    private final @NotNull Histogram messagesPerPollHistogram;
 
     @Inject
     public MessageForwarderImpl(
-            final @NotNull LocalTopicTree topicTree,
+            final @NotNull TopicTree topicTree,
             final @NotNull HivemqId hivemqId,
             final @NotNull Lazy<ClientQueuePersistence> queuePersistence,
-            final @NotNull SingleWriterService singleWriterService) {
+            final @NotNull SingleWriterService singleWriterService,
+            final @NotNull MetricRegistry metricRegistry) {
         this.topicTree = topicTree;
         this.hivemqId = hivemqId;
         this.queuePersistence = queuePersistence;
         this.singleWriterService = singleWriterService;
+        pollCounter = metricRegistry.counter(MetricRegistry.name(FORWARDER_METRICS_PREFIX, "poll", "count"));
+        emptyPollCounter =
+                metricRegistry.counter(MetricRegistry.name(FORWARDER_METRICS_PREFIX, "poll.empty", "count"));
+        polledMessagesCounter =
+                metricRegistry.counter(MetricRegistry.name(FORWARDER_METRICS_PREFIX, "poll.messages", "count"));
+        messagesPerPollHistogram =
+                metricRegistry.histogram(MetricRegistry.name(FORWARDER_METRICS_PREFIX, "poll.messages-per-poll"));
     }
 
     @Override
@@ -100,11 +120,17 @@ public class MessageForwarderImpl implements MessageForwarder {
                 forwarderId,
                 queueId,
                 cancelled));
+        final AtomicInteger inflight = new AtomicInteger();
         forwarders.put(forwarderId, mqttForwarder);
         queueIdsForForwarder.put(forwarderId, queueIds);
-        notEmptyQueues.addAll(queueIds);
+        inflightForForwarder.put(forwarderId, inflight);
         mqttForwarder.start();
-        checkBuffers();
+        //the queues can still hold messages from before a restart
+        for (final String queueId : queueIds) {
+            final QueueState queueState = new QueueState(queueId, mqttForwarder, inflight);
+            queues.put(queueId, queueState);
+            markReady(queueState);
+        }
     }
 
     @Override
@@ -114,10 +140,11 @@ public class MessageForwarderImpl implements MessageForwarder {
         for (String topic : mqttForwarder.getTopics()) {
             topicTree.removeSubscriber(clientId, topic, FORWARDER_PREFIX + forwarderId);
             final String queueId = createQueueId(forwarderId, topic);
-            notEmptyQueues.remove(queueId);
+            queues.remove(queueId);
             queuePersistence.get().clear(queueId, true); //clear up queue
         }
         queueIdsForForwarder.remove(forwarderId);
+        inflightForForwarder.remove(forwarderId);
         forwarders.get(forwarderId).stop();
         forwarders.remove(forwarderId);
 
@@ -135,23 +162,37 @@ public class MessageForwarderImpl implements MessageForwarder {
                 FutureUtils.addExceptionLogger(queuePersistence.get()
                         .removeShared(queueId, message.getUniqueId()));
             }
-            continueForwarding(queueId, forwarders.get(forwarderId));
+            final AtomicInteger inflight = inflightForForwarder.get(forwarderId);
+            if (inflight != null) {
+                inflight.decrementAndGet();
+            }
+            continueForwarding(forwarderId);
         });
     }
 
-    private void continueForwarding(final @NotNull String queueId, final @NotNull MqttForwarder mqttForwarder) {
-        notEmptyQueues.add(queueId);
-        if (mqttForwarder.getInflightCount() < FORWARDER_POLL_THRESHOLD_MESSAGES) {
-            checkBuffers();
+    /**
+     * A message of the forwarder was processed, so it has in-flight credit again. Only the queues of this forwarder
+     * that are flagged ready and were held back for missing credit are polled.
+     */
+    private void continueForwarding(final @NotNull String forwarderId) {
+        final Set<String> queueIds = queueIdsForForwarder.get(forwarderId);
+        if (queueIds == null) {
+            return;
+        }
+        for (final String queueId : queueIds) {
+            final QueueState queueState = queues.get(queueId);
+            if (queueState != null && queueState.ready) {
+                schedulePoll(queueState);
+            }
         }
     }
 
     @Override
     public void messageAvailable(final @NotNull String queueId) {
-        singleWriterService.callbackExecutor(queueId).execute(() -> {
-            notEmptyQueues.add(queueId);
-            checkBuffers();
-        });
+        final QueueState queueState = queues.get(queueId);
+        if (queueState != null) {
+            markReady(queueState);
+        }
     }
 
     @NotNull
@@ -159,118 +200,150 @@ public class MessageForwarderImpl implements MessageForwarder {
         return FORWARDER_PREFIX + forwarderId + "/" + topic;
     }
 
-    @NotNull
-    private final Lock pollLock = new ReentrantLock();
-    private boolean polling = false;
-    private boolean pollAgain = false;
-
     @Override
     public void checkBuffers() {
-
-        pollLock.lock();
-        try {
-            if (polling) {
-                pollAgain = true;
-                return;
-            } else {
-                polling = true;
+        for (final QueueState queueState : queues.values()) {
+            if (queueState.ready) {
+                schedulePoll(queueState);
             }
-        } finally {
-            pollLock.unlock();
         }
-        checkBuffersAfterLock();
     }
 
-    private void checkBuffersAfterLock() {
-        if (notEmptyQueues.isEmpty()) {
-            polling = false;
+    private void markReady(final @NotNull QueueState queueState) {
+        queueState.ready = true;
+        schedulePoll(queueState);
+    }
+
+    /**
+     * Polls the queue if it is flagged ready, no poll for it is running and its forwarder has in-flight credit left.
+     * A queue that is flagged ready while its poll is running is polled again when the running poll completes.
+     */
+    private void schedulePoll(final @NotNull QueueState queueState) {
+        while (queueState.ready) {
+            if (!queueState.polling.compareAndSet(false, true)) {
+                return;
+            }
+            if (!queueState.ready) {
+                //the flag was consumed by a poll that completed in between
+                queueState.polling.set(false);
+                continue;
+            }
+            final int credit = reserveCredit(queueState.inflight);
+            if (credit <= 0) {
+                queueState.polling.set(false);
+                if (queueState.inflight.get() < FORWARDER_POLL_THRESHOLD_MESSAGES) {
+                    //credit was released in between, but the releasing thread saw this queue as polling
+                    continue;
+                }
+                //stays ready, polled again when the forwarder has processed some of its messages
+                return;
+            }
+            queueState.ready = false;
+            pollForQueue(queueState, credit);
             return;
         }
-        final ImmutableList.Builder<ListenableFuture<Boolean>> pollFuturesBuilder = ImmutableList.builder();
-        for (MqttForwarder forwarder : forwarders.values()) {
-            final List<ListenableFuture<Boolean>> singlePollFuture = pollForBuffer(forwarder);
-            pollFuturesBuilder.addAll(singlePollFuture);
+    }
+
+    /**
+     * Reserves all in-flight credit the forwarder has left for one poll. The credit is shared by all queues of the
+     * forwarder and reserved with a compare-and-set, so concurrent polls of its queues can not exceed the threshold.
+     * Messages are counted from the poll until they are processed, credit that the poll did not use is released
+     * when it completes.
+     *
+     * @return the reserved credit, 0 if the forwarder has no credit left
+     */
+    private static int reserveCredit(final @NotNull AtomicInteger inflight) {
+        while (true) {
+            final int current = inflight.get();
+            if (current >= FORWARDER_POLL_THRESHOLD_MESSAGES) {
+                return 0;
+            }
+            if (inflight.compareAndSet(current, FORWARDER_POLL_THRESHOLD_MESSAGES)) {
+                return FORWARDER_POLL_THRESHOLD_MESSAGES - current;
+            }
         }
-        final ImmutableList<ListenableFuture<Boolean>> pollFutures = pollFuturesBuilder.build();
-        final ListenableFuture<List<Boolean>> pollFuture = Futures.allAsList(pollFutures);
+    }
+
+    private void pollForQueue(final @NotNull QueueState queueState, final int credit) {
+        final ListenableFuture<ImmutableList<PUBLISH>> pollFuture =
+                queuePersistence.get().readShared(queueState.queueId, credit, PUBLISH_POLL_BATCH_SIZE_BYTES);
         Futures.addCallback(pollFuture, new FutureCallback<>() {
             @Override
-            public void onSuccess(final @NotNull List<Boolean> result) {
-                for (final Boolean queueNotEmpty : result) {
-                    if (queueNotEmpty) {
-                        // At least one queue was not empty and not over the threshold
-                        checkBuffersAfterLock();
-                        return;
-                    }
-                }
-
-                pollLock.lock();
-                try {
-                    //we don't need to poll again
-                    if (!pollAgain) {
-                        polling = false;
-                        return;
+            public void onSuccess(final @Nullable ImmutableList<PUBLISH> publishes) {
+                pollCounter.inc();
+                final int messageCount = publishes == null ? 0 : publishes.size();
+                messagesPerPollHistogram.update(messageCount);
+                if (messageCount == 0) {
+                    emptyPollCounter.inc();
+                } else {
+                    polledMessagesCounter.inc(messageCount);
+                    for (final PUBLISH publish : publishes) {
+                        queueState.forwarder.onMessage(withHeapPayload(publish), queueState.queueId);
                     }
-                    //we need to poll again
-                    pollAgain = false;
-                } finally {
-                    pollLock.unlock();
+                    //the poll might have been limited by the credit or the byte limit, so the queue can have more
+                    queueState.ready = true;
                 }
-                checkBuffersAfterLock();
+                pollCompleted(queueState, credit - messageCount);
             }
 
             @Override
             public void onFailure(final @NotNull Throwable throwable) {
-                log.error("An exception was thrown while polling messages for an extension consumer.", throwable);
-
-                //we need to reset the polling flag and re-schedule a poll here
-                pollLock.lock();
-                try {
-                    polling = false;
-                } finally {
-                    pollLock.unlock();
-                }
-
-                //which callback executor does not matter, but it must be scheduled to prevent a stack-overflow if multiple errors occur back-to-back
-                final Executor callbackExecutor = singleWriterService.callbackExecutor("forwarder");
-                callbackExecutor.execute(() -> {
-                    checkBuffers();
-                });
+                log.error("An exception was thrown while polling messages for bridge queue {}.",
+                        queueState.queueId,
+                        throwable);
+                queueState.ready = true;
+                //it must be scheduled to prevent a stack-overflow if multiple errors occur back-to-back
+                singleWriterService.callbackExecutor(queueState.queueId)
+                        .execute(() -> pollCompleted(queueState, credit));
             }
-        }, MoreExecutors.directExecutor());
+        }, executorService);
     }
 
-    @NotNull
-    private List<ListenableFuture<Boolean>> pollForBuffer(final @NotNull MqttForwarder mqttForwarder) {
-        final ImmutableList.Builder<ListenableFuture<Boolean>> pollFuturesBuilder = ImmutableList.builder();
-
-        final Set<String> forwarderNonEmptyQueue = queueIdsForForwarder.get(mqttForwarder.getId());
-        if (forwarderNonEmptyQueue != null) {
-            for (final String queueId : forwarderNonEmptyQueue) {
-                if (mqttForwarder.getInflightCount() <= FORWARDER_POLL_THRESHOLD_MESSAGES) {
-                    final ListenableFuture<Boolean> pollFuture = pollForQueue(queueId, mqttForwarder);
-                    pollFuturesBuilder.add(pollFuture);
-                }
-            }
+    /**
+     * The publishes are not written to a channel, so a payload that is queued in a direct buffer is copied to the heap
+     * and the buffer is released right away.
+     */
+    private static @NotNull PUBLISH withHeapPayload(final @NotNull PUBLISH publish) {
+        if (publish.getPayloadBuffer() == null) {
+            return publish;
         }
-        return pollFuturesBuilder.build();
+        final PUBLISH heapPublish =
+                new PUBLISHFactory.Mqtt5Builder().fromPublish(publish).withPayload(publish.getPayload()).build();
+        publish.releasePayloadBuffer();
+        return heapPublish;
     }
 
-    @NotNull
-    private ListenableFuture<Boolean> pollForQueue(
-            final @NotNull String queueId, final @NotNull MqttForwarder mqttForwarder) {
-        final ListenableFuture<ImmutableList<PUBLISH>> pollFuture = queuePersistence.get()
-                .readShared(queueId, FORWARDER_POLL_THRESHOLD_MESSAGES, PUBLISH_POLL_BATCH_SIZE_BYTES);
-        return Futures.transformAsync(pollFuture, publishes -> {
-            if (publishes == null) {
-                notEmptyQueues.remove(queueId);
-                return Futures.immediateFuture(false);
-            }
-            for (final PUBLISH publish : publishes) {
-                mqttForwarder.onMessage(publish, queueId);
-            }
-            return Futures.immediateFuture(!publishes.isEmpty());
-        }, executorService);
+    private void pollCompleted(final @NotNull QueueState queueState, final int unusedCredit) {
+        if (unusedCredit > 0) {
+            queueState.inflight.addAndGet(-unusedCredit);
+        }
+        queueState.polling.set(false);
+        if (queues.get(queueState.queueId) != queueState) {
+            return;
+        }
+        if (unusedCredit > 0) {
+            //the released credit can be used by the other queues of the forwarder as well
+            continueForwarding(queueState.forwarder.getId());
+        } else {
+            schedulePoll(queueState);
+        }
     }
 
+    private static class QueueState {
+
+        private final @NotNull String queueId;
+        private final @NotNull MqttForwarder forwarder;
+        private final @NotNull AtomicInteger inflight;
+        private final @NotNull AtomicBoolean polling = new AtomicBoolean();
+        private volatile boolean ready;
+
+        private QueueState(
+                final @NotNull String queueId,
+                final @NotNull MqttForwarder forwarder,
+                final @NotNull AtomicInteger inflight) {
+            this.queueId = queueId;
+            this.forwarder = forwarder;
+            this.inflight = inflight;
+        }
+    }
 }
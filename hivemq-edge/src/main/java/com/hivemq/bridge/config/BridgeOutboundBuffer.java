@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.config;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+
+/**
+ * The limits of the durable buffer that holds the forwarded messages of a bridge while the remote broker is not
+ * connected.
+ */
+public class BridgeOutboundBuffer {
+
+    public static final long DEFAULT_MAX_SIZE_BYTES = 100 * 1024 * 1024;
+    public static final long DEFAULT_MAX_AGE_SECONDS = 7 * 24 * 60 * 60;
+
+    private final long maxSizeBytes;
+    private final long maxAgeSeconds;
+
+    public BridgeOutboundBuffer(final long maxSizeBytes, final long maxAgeSeconds) {
+        this.maxSizeBytes = maxSizeBytes;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    public long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    public long getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BridgeOutboundBuffer)) return false;
+
+        BridgeOutboundBuffer that = (BridgeOutboundBuffer) o;
+
+        if (maxSizeBytes != that.maxSizeBytes) return false;
+        return maxAgeSeconds == that.maxAgeSeconds;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(maxSizeBytes);
+        result = 31 * result + Long.hashCode(maxAgeSeconds);
+        return result;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "BridgeOutboundBuffer{" + "maxSizeBytes=" + maxSizeBytes + ", maxAgeSeconds=" + maxAgeSeconds + '}';
+    }
+}
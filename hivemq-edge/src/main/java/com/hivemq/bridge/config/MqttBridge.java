@@ -37,6 +37,7 @@ public class MqttBridge {
     private final @NotNull List<LocalSubscription> localSubscriptions;
     private final boolean loopPreventionEnabled;
     private final int loopPreventionHopCount;
+    private final @Nullable BridgeOutboundBuffer outboundBuffer;
 
     private MqttBridge(
             final @NotNull String id,
@@ -52,7 +53,8 @@ public class MqttBridge {
             final @NotNull List<RemoteSubscription> remoteSubscriptions,
             final @NotNull List<LocalSubscription> localSubscriptions,
             final boolean loopPreventionEnabled,
-            final int loopPreventionHopCount) {
+            final int loopPreventionHopCount,
+            final @Nullable BridgeOutboundBuffer outboundBuffer) {
         this.id = id;
         this.host = host;
         this.port = port;
@@ -67,6 +69,7 @@ public class MqttBridge {
         this.localSubscriptions = localSubscriptions;
         this.loopPreventionEnabled = loopPreventionEnabled;
         this.loopPreventionHopCount = loopPreventionHopCount;
+        this.outboundBuffer = outboundBuffer;
     }
 
     public @NotNull String getId() {
@@ -125,6 +128,14 @@ public class MqttBridge {
         return loopPreventionHopCount;
     }
 
+    /**
+     * @return the limits of the durable outbound buffer, or null if forwarded messages are not buffered while the
+     *         remote broker is not connected
+     */
+    public @Nullable BridgeOutboundBuffer getOutboundBuffer() {
+        return outboundBuffer;
+    }
+
     public static class Builder {
         private @Nullable String id;
         private @Nullable String host;
@@ -140,6 +151,7 @@ public class MqttBridge {
         private @NotNull List<LocalSubscription> localSubscriptions = List.of();
         private boolean loopPreventionEnabled = true;
         private int loopPreventionHopCount = 1;
+        private @Nullable BridgeOutboundBuffer outboundBuffer = null;
 
         public @NotNull Builder withId(@NotNull String id) {
             this.id = id;
@@ -211,6 +223,11 @@ public class MqttBridge {
             return this;
         }
 
+        public @NotNull Builder withOutboundBuffer(final @Nullable BridgeOutboundBuffer outboundBuffer) {
+            this.outboundBuffer = outboundBuffer;
+            return this;
+        }
+
         public @NotNull MqttBridge build() {
             return new MqttBridge(Objects.requireNonNull(id),
                     Objects.requireNonNull(host),
@@ -225,7 +242,8 @@ public class MqttBridge {
                     remoteSubscriptions,
                     localSubscriptions,
                     loopPreventionEnabled,
-                    loopPreventionHopCount);
+                    loopPreventionHopCount,
+                    outboundBuffer);
         }
     }
 
@@ -279,6 +297,9 @@ public class MqttBridge {
         if (!remoteSubscriptions.equals(that.remoteSubscriptions)) {
             return false;
         }
+        if (!Objects.equals(outboundBuffer, that.outboundBuffer)) {
+            return false;
+        }
         return localSubscriptions.equals(that.localSubscriptions);
     }
 
@@ -298,6 +319,7 @@ public class MqttBridge {
         result = 31 * result + localSubscriptions.hashCode();
         result = 31 * result + (loopPreventionEnabled ? 1 : 0);
         result = 31 * result + loopPreventionHopCount;
+        result = 31 * result + (outboundBuffer != null ? outboundBuffer.hashCode() : 0);
         return result;
     }
 
@@ -318,6 +340,7 @@ public class MqttBridge {
         sb.append(", localSubscriptions=").append(localSubscriptions);
         sb.append(", loopPreventionEnabled=").append(loopPreventionEnabled);
         sb.append(", loopPreventionHopCount=").append(loopPreventionHopCount);
+        sb.append(", outboundBuffer=").append(outboundBuffer);
         sb.append('}');
         return sb.toString();
     }
@@ -34,6 +34,8 @@ public class PerBridgeMetrics {
     private final @NotNull Counter remotePublishExcludedCounter;
     private final @NotNull Counter loopPreventionForwardDropCounter;
     private final @NotNull Counter loopPreventionRemoteDropCounter;
+    private final @NotNull Counter publishBufferedCounter;
+    private final @NotNull Counter publishBufferDrainedCounter;
 
     public PerBridgeMetrics(final @NotNull String bridgeName, final @NotNull MetricRegistry metricRegistry) {
 
@@ -82,6 +84,16 @@ public class PerBridgeMetrics {
                 bridgeName,
                 "remote.publish.loop-hops-exceeded",
                 "count"));
+
+        publishBufferedCounter = metricRegistry.counter(MetricRegistry.name(BRIDGE_PREFIX,
+                bridgeName,
+                "forward.publish.buffered",
+                "count"));
+
+        publishBufferDrainedCounter = metricRegistry.counter(MetricRegistry.name(BRIDGE_PREFIX,
+                bridgeName,
+                "forward.publish.buffer-drained",
+                "count"));
     }
 
     public @NotNull Counter getPublishForwardSuccessCounter() {
@@ -123,4 +135,12 @@ public class PerBridgeMetrics {
     public @NotNull Counter getLoopPreventionRemoteDropCounter() {
         return loopPreventionRemoteDropCounter;
     }
+
+    public @NotNull Counter getPublishBufferedCounter() {
+        return publishBufferedCounter;
+    }
+
+    public @NotNull Counter getPublishBufferDrainedCounter() {
+        return publishBufferDrainedCounter;
+    }
 }
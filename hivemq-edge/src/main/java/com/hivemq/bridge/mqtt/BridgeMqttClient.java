@@ -22,6 +22,7 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 import com.hivemq.bridge.MqttForwarder;
+import com.hivemq.bridge.config.BridgeOutboundBuffer;
 import com.hivemq.bridge.config.BridgeTls;
 import com.hivemq.bridge.config.LocalSubscription;
 import com.hivemq.bridge.config.MqttBridge;
@@ -32,6 +33,10 @@ import com.hivemq.client.mqtt.MqttClientSslConfigBuilder;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
 import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
 import com.hivemq.client.mqtt.datatypes.MqttUtf8String;
+import com.hivemq.client.mqtt.exceptions.ConnectionClosedException;
+import com.hivemq.client.mqtt.exceptions.ConnectionFailedException;
+import com.hivemq.client.mqtt.exceptions.MqttClientStateException;
+import com.hivemq.client.mqtt.exceptions.MqttSessionExpiredException;
 import com.hivemq.client.mqtt.lifecycle.MqttClientReconnector;
 import com.hivemq.client.mqtt.lifecycle.MqttDisconnectSource;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
@@ -54,18 +59,25 @@ import com.hivemq.edge.modules.api.events.EventUtils;
 import com.hivemq.edge.modules.api.events.model.Event;
 import com.hivemq.edge.utils.HiveMQEdgeEnvironmentUtils;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.message.publish.PUBLISH;
 import com.hivemq.security.ssl.SslUtil;
+import com.hivemq.util.LocalPersistenceFileUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.TrustManagerFactory;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -78,6 +90,9 @@ public class BridgeMqttClient {
 
     private static final Logger log = LoggerFactory.getLogger(BridgeMqttClient.class);
 
+    public static final String OUTBOUND_BUFFER_FOLDER = "bridge-outbound";
+    private static final int OUTBOUND_BUFFER_DRAIN_BATCH_SIZE = 256;
+
     private final @NotNull MqttBridge bridge;
     private final @NotNull BridgeInterceptorHandler bridgeInterceptorHandler;
     private final @NotNull SystemInformation systemInformation;
@@ -88,6 +103,8 @@ public class BridgeMqttClient {
     private final @NotNull EventService eventService;
     private final AtomicBoolean connected = new AtomicBoolean(false);
     private final AtomicBoolean stopped = new AtomicBoolean(false);
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private volatile @Nullable BridgeOutboundLog outboundLog;
     private List<MqttForwarder> forwarders = Collections.synchronizedList(new ArrayList<>());
 
     public BridgeMqttClient(
@@ -120,6 +137,7 @@ public class BridgeMqttClient {
         builder.addConnectedListener(context -> {
             log.debug("Bridge {} connected", bridge.getId());
             connected.set(true);
+            drainOutboundBuffer();
         });
 
         builder.addConnectedListener(context -> eventService.fireEvent(
@@ -213,6 +231,7 @@ public class BridgeMqttClient {
 
         final SettableFuture<Void> resultFuture = SettableFuture.create();
         stopped.set(false);
+        openOutboundBuffer();
 
         final Mqtt5UserPropertiesBuilder mqtt5UserPropertiesBuilder = Mqtt5UserProperties.builder();
         mqtt5UserPropertiesBuilder.add(HiveMQEdgeConstants.CLIENT_AGENT_PROPERTY,
@@ -284,6 +303,150 @@ public class BridgeMqttClient {
     public void stop() {
         stopped.set(true);
         mqtt5Client.toAsync().disconnect();
+        final BridgeOutboundLog outboundLog = this.outboundLog;
+        if (outboundLog != null) {
+            this.outboundLog = null;
+            outboundLog.close();
+        }
+    }
+
+    private void openOutboundBuffer() {
+        final BridgeOutboundBuffer outboundBuffer = bridge.getOutboundBuffer();
+        if (outboundBuffer == null || outboundLog != null) {
+            return;
+        }
+        final File directory = new File(new File(systemInformation.getDataFolder(),
+                LocalPersistenceFileUtil.PERSISTENCE_SUBFOLDER_NAME),
+                OUTBOUND_BUFFER_FOLDER + File.separator + bridge.getId());
+        try {
+            outboundLog = new BridgeOutboundLog(directory,
+                    outboundBuffer.getMaxSizeBytes(),
+                    TimeUnit.SECONDS.toMillis(outboundBuffer.getMaxAgeSeconds()));
+        } catch (final IOException e) {
+            log.error("Not able to open the outbound buffer of bridge '{}', messages are not buffered while the bridge is disconnected",
+                    bridge.getId(),
+                    e);
+        }
+    }
+
+    /**
+     * Forwarded messages of a bridge with a durable outbound buffer are sent directly while the bridge is connected
+     * and the buffer is empty. While the bridge is disconnected or the buffer is still being sent, they are added to
+     * the buffer, so a message is not sent directly before the messages that were buffered before it.
+     *
+     * @return true if the forwarded message must be added to the durable outbound buffer
+     */
+    public boolean shouldBufferPublish() {
+        final BridgeOutboundLog outboundLog = this.outboundLog;
+        if (outboundLog == null) {
+            return false;
+        }
+        return !isConnected() || draining.get() || !outboundLog.isEmpty();
+    }
+
+    /**
+     * @return true if the bridge has a durable outbound buffer
+     */
+    public boolean hasOutboundBuffer() {
+        return outboundLog != null;
+    }
+
+    /**
+     * Adds a forwarded message to the durable outbound buffer. It is sent after the messages buffered before it, right
+     * away if the bridge is connected.
+     *
+     * @param publish the message as it is sent to the remote broker
+     */
+    public void bufferPublish(final @NotNull PUBLISH publish) {
+        final BridgeOutboundLog outboundLog = this.outboundLog;
+        if (outboundLog == null) {
+            return;
+        }
+        outboundLog.append(publish);
+        perBridgeMetrics.getPublishBufferedCounter().inc();
+        if (isConnected()) {
+            drainOutboundBuffer();
+        }
+    }
+
+    private void drainOutboundBuffer() {
+        if (outboundLog != null && draining.compareAndSet(false, true)) {
+            drainNextBatch();
+        }
+    }
+
+    private void drainNextBatch() {
+        final BridgeOutboundLog outboundLog = this.outboundLog;
+        if (outboundLog == null || !isConnected()) {
+            draining.set(false);
+            return;
+        }
+        final ImmutableList<PUBLISH> publishes = outboundLog.next(OUTBOUND_BUFFER_DRAIN_BATCH_SIZE);
+        if (publishes.isEmpty()) {
+            draining.set(false);
+            // a message can be buffered after the batch was read and before the flag was reset
+            if (!outboundLog.isEmpty() && isConnected()) {
+                drainOutboundBuffer();
+            }
+            return;
+        }
+        //-- the client sends the messages in the order they are published, so the whole batch is published at once
+        final CompletableFuture<?>[] publishFutures = new CompletableFuture[publishes.size()];
+        for (int i = 0; i < publishes.size(); i++) {
+            publishFutures[i] =
+                    mqtt5Client.publish(RemoteMqttForwarder.convertPublishForClient(publishes.get(i)));
+        }
+        CompletableFuture.allOf(publishFutures).whenComplete((ignored, throwable) -> {
+            //-- only the messages before the first message that failed because of a disconnect are completed
+            int completed = 0;
+            for (; completed < publishFutures.length; completed++) {
+                final Throwable failure = failureOf(publishFutures[completed]);
+                if (failure == null) {
+                    continue;
+                }
+                if (isCausedByDisconnect(failure)) {
+                    break;
+                }
+                perBridgeMetrics.getPublishForwardFailCounter().inc();
+                log.warn("Unable to forward buffered message for bridge '{}', reason: {}",
+                        bridge.getId(),
+                        failure.getMessage());
+                log.debug("original exception", failure);
+            }
+            outboundLog.acknowledge(completed);
+            perBridgeMetrics.getPublishBufferDrainedCounter().inc(completed);
+            if (completed < publishFutures.length) {
+                //-- the messages that were not completed are sent again after the next connect
+                outboundLog.rewind();
+                draining.set(false);
+                // the client may have connected again before the flag was reset
+                if (isConnected()) {
+                    drainOutboundBuffer();
+                }
+                return;
+            }
+            drainNextBatch();
+        });
+    }
+
+    private static @Nullable Throwable failureOf(final @NotNull CompletableFuture<?> future) {
+        if (!future.isCompletedExceptionally()) {
+            return null;
+        }
+        try {
+            future.join();
+            return null;
+        } catch (final CompletionException | CancellationException e) {
+            return e.getCause() == null ? e : e.getCause();
+        }
+    }
+
+    static boolean isCausedByDisconnect(final @NotNull Throwable failure) {
+        return failure instanceof ConnectionClosedException ||
+                failure instanceof ConnectionFailedException ||
+                failure instanceof MqttClientStateException ||
+                failure instanceof MqttSessionExpiredException ||
+                failure instanceof Mqtt5DisconnectException;
     }
 
     public @NotNull List<MqttForwarder> createForwarders() {
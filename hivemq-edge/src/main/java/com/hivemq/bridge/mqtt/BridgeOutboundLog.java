@@ -0,0 +1,232 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.mqtt;
+
+import com.google.common.collect.ImmutableList;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.persistence.local.file.PublishSerializer;
+import com.hivemq.persistence.local.file.SegmentLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * A durable first-in-first-out log of the messages a bridge forwards while its remote broker is not connected.
+ * <p>
+ * Every message is appended to a {@link SegmentLog} as soon as it is buffered, so buffered messages survive a restart
+ * of Edge. A sent message is marked by an acknowledge record, its segment is deleted once all messages in it are
+ * acknowledged. On startup the log is replayed and only the messages that were not acknowledged are pending again.
+ * <p>
+ * The log is bounded by its size on disk and by the age of the messages. When a limit is exceeded the oldest pending
+ * messages are dropped.
+ */
+@ThreadSafe
+public class BridgeOutboundLog {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(BridgeOutboundLog.class);
+
+    private static final byte RECORD_PUBLISH = 1;
+    private static final byte RECORD_ACK = 2;
+
+    static final int MIN_SEGMENT_SIZE = 64 * 1024;
+    static final int MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private final @NotNull SegmentLog segmentLog;
+    private final long maxSizeBytes;
+    private final long maxAgeMillis;
+    /* positions of the pending messages in the order they were appended */
+    private final @NotNull ArrayDeque<Long> pending = new ArrayDeque<>();
+    /* the amount of pending messages at the head that were handed out by next() and are not acknowledged yet */
+    private int inFlight;
+    private long droppedCount;
+    private boolean closed;
+
+    /**
+     * Opens the log in the given directory and restores the messages that were not acknowledged before.
+     *
+     * @param directory    the directory the log is stored in
+     * @param maxSizeBytes the size on disk after which the oldest messages are dropped
+     * @param maxAgeMillis the age after which messages are dropped
+     * @throws IOException if the log can not be opened
+     */
+    public BridgeOutboundLog(final @NotNull File directory, final long maxSizeBytes, final long maxAgeMillis)
+            throws IOException {
+        this.maxSizeBytes = maxSizeBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        // the size limit is enforced by dropping whole segments, so a segment is a fraction of the limit
+        final int segmentSize = (int) Math.max(MIN_SEGMENT_SIZE, Math.min(MAX_SEGMENT_SIZE, maxSizeBytes / 8));
+        segmentLog = new SegmentLog(directory, segmentSize);
+        segmentLog.replay((position, type, body) -> {
+            switch (type) {
+                case RECORD_PUBLISH:
+                    segmentLog.retain(position);
+                    pending.addLast(position);
+                    break;
+                case RECORD_ACK:
+                    final long acknowledged = body.getLong(body.position());
+                    while (!pending.isEmpty() && pending.peekFirst() <= acknowledged) {
+                        segmentLog.release(pending.pollFirst());
+                    }
+                    break;
+                default:
+                    log.warn("Found unknown record type {} in bridge outbound log {}",
+                            type,
+                            directory.getAbsolutePath());
+            }
+        });
+        if (!pending.isEmpty()) {
+            log.debug("Restored {} buffered messages from {}", pending.size(), directory.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Appends a message to the end of the log.
+     *
+     * @param publish the message as it is sent to the remote broker
+     */
+    public synchronized void append(final @NotNull PUBLISH publish) {
+        if (closed) {
+            return;
+        }
+        final ByteBuffer record = PublishSerializer.serialize(publish);
+        final long position = segmentLog.append(RECORD_PUBLISH, record);
+        segmentLog.retain(position);
+        pending.addLast(position);
+        enforceLimits(System.currentTimeMillis());
+    }
+
+    /**
+     * Hands out the next messages in order. The messages stay in the log until they are acknowledged with
+     * {@link #acknowledge}, or are handed out again after {@link #rewind}.
+     *
+     * @param maxMessages the maximum amount of messages to hand out
+     * @return the next messages that are not handed out yet, empty if there are none
+     */
+    public synchronized @NotNull ImmutableList<PUBLISH> next(final int maxMessages) {
+        if (closed) {
+            return ImmutableList.of();
+        }
+        enforceLimits(System.currentTimeMillis());
+        final ImmutableList.Builder<PUBLISH> builder = ImmutableList.builder();
+        int skip = inFlight;
+        int count = 0;
+        for (final Long position : pending) {
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            if (count == maxMessages) {
+                break;
+            }
+            builder.add(PublishSerializer.deserialize(segmentLog.read(position), null));
+            count++;
+        }
+        inFlight += count;
+        return builder.build();
+    }
+
+    /**
+     * Removes the given amount of handed out messages from the head of the log.
+     *
+     * @param messages the amount of messages that were sent, in the order they were handed out
+     */
+    public synchronized void acknowledge(final int messages) {
+        if (closed) {
+            return;
+        }
+        long acknowledged = SegmentLog.NO_POSITION;
+        for (int i = 0; i < messages && inFlight > 0; i++) {
+            acknowledged = pending.pollFirst();
+            inFlight--;
+            segmentLog.release(acknowledged);
+        }
+        if (acknowledged != SegmentLog.NO_POSITION) {
+            writeAck(acknowledged);
+        }
+    }
+
+    /**
+     * Makes the handed out messages that are not acknowledged available to {@link #next} again.
+     */
+    public synchronized void rewind() {
+        inFlight = 0;
+    }
+
+    /**
+     * @return true if no messages are pending, including messages that are handed out but not acknowledged
+     */
+    public synchronized boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * @return the amount of pending messages
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * @return the amount of messages that were dropped because a limit of the log was exceeded
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Flushes and closes the log. Pending messages are restored when the log is opened again.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segmentLog.close();
+    }
+
+    private void enforceLimits(final long now) {
+        long dropped = SegmentLog.NO_POSITION;
+        // nothing is dropped while messages are handed out, the sender would acknowledge the wrong messages otherwise
+        while (inFlight == 0 && !pending.isEmpty()) {
+            final long head = pending.peekFirst();
+            final boolean tooOld = now - PublishSerializer.getTimestamp(segmentLog.read(head)) > maxAgeMillis;
+            // the active segment is never deleted, dropping its messages would not free any space
+            final boolean tooLarge = segmentLog.getTotalBytes() > maxSizeBytes && segmentLog.getSegmentCount() > 1;
+            if (!tooOld && !tooLarge) {
+                break;
+            }
+            dropped = pending.pollFirst();
+            segmentLog.release(dropped);
+            droppedCount++;
+        }
+        if (dropped != SegmentLog.NO_POSITION) {
+            writeAck(dropped);
+            log.debug("Dropped buffered messages of bridge outbound log, {} messages dropped in total", droppedCount);
+        }
+    }
+
+    private void writeAck(final long position) {
+        final ByteBuffer record = ByteBuffer.allocate(Long.BYTES);
+        record.putLong(0, position);
+        segmentLog.append(RECORD_ACK, record);
+    }
+}
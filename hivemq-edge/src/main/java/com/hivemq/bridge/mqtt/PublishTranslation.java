@@ -0,0 +1,356 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.mqtt;
+
+import com.google.common.collect.ImmutableList;
+import com.hivemq.bridge.BridgeConstants;
+import com.hivemq.bridge.config.CustomUserProperty;
+import com.hivemq.bridge.config.LocalSubscription;
+import com.hivemq.bridge.config.MqttBridge;
+import com.hivemq.bridge.config.RemoteSubscription;
+import com.hivemq.client.internal.mqtt.message.publish.MqttPublish;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
+import com.hivemq.client.mqtt.datatypes.MqttUtf8String;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperty;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.common.topic.TopicTemplate;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
+import com.hivemq.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.hivemq.bridge.BridgeConstants.HMQ_BRIDGE_HOP_COUNT;
+import static com.hivemq.bridge.mqtt.RemoteMqttForwarder.DEFAULT_DESTINATION_PATTERN;
+
+/**
+ * The translation of the messages of one local or remote subscription of a bridge.
+ * <p>
+ * Everything that only depends on the configuration of the subscription is computed once: the topic rewrite, the
+ * custom user properties, the hop count user properties and the exclude filters. Translating a message then only
+ * allocates what actually differs per message.
+ */
+class PublishTranslation {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(PublishTranslation.class);
+
+    private static final @NotNull MqttUtf8String HOP_COUNT_NAME = MqttUtf8String.of(HMQ_BRIDGE_HOP_COUNT);
+    /* hop counts above this are rare, their user property is created per message */
+    private static final int MAX_CACHED_HOP_COUNT = 16;
+
+    private final @Nullable TopicTemplate destination;
+    private final @NotNull MqttTopicFilter[] excludes;
+    private final @NotNull ImmutableList<MqttUserProperty> customUserProperties;
+    private final @NotNull Mqtt5UserProperties userPropertiesWithoutOriginal;
+    private final @NotNull MqttUserProperty[] hopCountProperties;
+    private final boolean loopPreventionEnabled;
+    private final boolean preserveRetain;
+    private final int maxQoS;
+
+    PublishTranslation(
+            final @NotNull MqttBridge bridge,
+            final @Nullable String destination,
+            final @NotNull List<String> excludes,
+            final @NotNull List<CustomUserProperty> customUserProperties,
+            final boolean preserveRetain,
+            final int maxQoS) {
+        this.loopPreventionEnabled = bridge.isLoopPreventionEnabled();
+        this.preserveRetain = preserveRetain;
+        this.maxQoS = Math.max(0, Math.min(maxQoS, 2));
+        if (destination == null || destination.isEmpty() || destination.equals(DEFAULT_DESTINATION_PATTERN)) {
+            this.destination = null;
+        } else {
+            // the bridge name is the same for every message, so it is replaced while compiling
+            this.destination = TopicTemplate.compile(destination,
+                    Map.of(BridgeConstants.BRIDGE_NAME_TOPIC_REPLACEMENT_TOKEN, bridge.getId()));
+        }
+
+        this.excludes = new MqttTopicFilter[excludes.size()];
+        for (int i = 0; i < excludes.size(); i++) {
+            this.excludes[i] = MqttTopicFilter.of(excludes.get(i));
+        }
+
+        final ImmutableList.Builder<MqttUserProperty> customBuilder = ImmutableList.builder();
+        for (final CustomUserProperty customUserProperty : customUserProperties) {
+            customBuilder.add(MqttUserProperty.of(customUserProperty.getKey(), customUserProperty.getValue()));
+        }
+        this.customUserProperties = customBuilder.build();
+
+        final int cachedHopCounts = Math.min(Math.max(bridge.getLoopPreventionHopCount(), 1), MAX_CACHED_HOP_COUNT);
+        this.hopCountProperties = new MqttUserProperty[cachedHopCounts + 1];
+        for (int i = 1; i < hopCountProperties.length; i++) {
+            hopCountProperties[i] = MqttUserProperty.of(HMQ_BRIDGE_HOP_COUNT, Integer.toString(i));
+        }
+
+        final ImmutableList.Builder<MqttUserProperty> withoutOriginal = ImmutableList.builder();
+        withoutOriginal.addAll(this.customUserProperties);
+        if (loopPreventionEnabled) {
+            withoutOriginal.add(hopCountProperties[1]);
+        }
+        this.userPropertiesWithoutOriginal = Mqtt5UserProperties.of(withoutOriginal.build());
+    }
+
+    static @NotNull PublishTranslation forLocal(
+            final @NotNull MqttBridge bridge, final @NotNull LocalSubscription localSubscription) {
+        return new PublishTranslation(bridge,
+                localSubscription.getDestination(),
+                localSubscription.getExcludes(),
+                localSubscription.getCustomUserProperties(),
+                localSubscription.isPreserveRetain(),
+                localSubscription.getMaxQoS());
+    }
+
+    static @NotNull PublishTranslation forRemote(
+            final @NotNull MqttBridge bridge, final @NotNull RemoteSubscription remoteSubscription) {
+        return new PublishTranslation(bridge,
+                remoteSubscription.getDestination(),
+                List.of(),
+                remoteSubscription.getCustomUserProperties(),
+                remoteSubscription.isPreserveRetain(),
+                remoteSubscription.getMaxQoS());
+    }
+
+    /**
+     * @return true if the topic matches an exclude filter of the subscription
+     */
+    boolean isExcluded(final @NotNull String topic) {
+        if (excludes.length == 0) {
+            return false;
+        }
+        final MqttTopic mqttTopic = MqttTopic.of(topic);
+        for (final MqttTopicFilter exclude : excludes) {
+            if (exclude.matches(mqttTopic)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Translates the topic of a local message. The topic is validated by the MQTT client when it is sent.
+     */
+    @NotNull String translateTopic(final @NotNull String topic) {
+        if (destination == null) {
+            return topic;
+        }
+        return destination.apply(topic, Map.of());
+    }
+
+    /**
+     * Translates the topic of a remote message.
+     */
+    @NotNull String translateTopic(final @NotNull MqttTopic topic) {
+        if (destination == null) {
+            return topic.toString();
+        }
+        return destination.apply(topic, Map.of()).toString();
+    }
+
+    /**
+     * @param qos the QoS of the message, must be 0, 1 or 2
+     * @return the QoS of the message limited to the maximum QoS of the subscription
+     */
+    @NotNull QoS translateQoS(final int qos) {
+        return Objects.requireNonNull(QoS.valueOf(Math.min(qos, maxQoS)));
+    }
+
+    boolean translateRetain(final boolean retain) {
+        return preserveRetain && retain;
+    }
+
+    boolean isPreserveRetain() {
+        return preserveRetain;
+    }
+
+    /**
+     * @return true if the user properties of a message without a hop count are the same before and after the
+     *         translation
+     */
+    boolean keepsUserProperties() {
+        return !loopPreventionEnabled && customUserProperties.isEmpty();
+    }
+
+    static boolean containsHopCount(final @NotNull List<MqttUserProperty> userProperties) {
+        for (int i = 0; i < userProperties.size(); i++) {
+            if (userProperties.get(i).getName().equals(HMQ_BRIDGE_HOP_COUNT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the hop count of the original user properties and adds the custom user properties. The user property
+     * objects of the original message are shared, not copied.
+     */
+    @NotNull Mqtt5UserProperties translateUserProperties(
+            final @NotNull Mqtt5UserProperties original, final int hopCount) {
+        final ImmutableList<MqttUserProperty> originalList = original.asList();
+        if (originalList.isEmpty()) {
+            return userPropertiesWithoutOriginal;
+        }
+        if (keepsUserProperties() && !containsHopCount(originalList)) {
+            return original;
+        }
+        final ImmutableList.Builder<MqttUserProperty> builder =
+                ImmutableList.builderWithExpectedSize(originalList.size() + customUserProperties.size() + 1);
+        for (int i = 0; i < originalList.size(); i++) {
+            final MqttUserProperty userProperty = originalList.get(i);
+            if (!userProperty.getName().equals(HMQ_BRIDGE_HOP_COUNT)) {
+                builder.add(userProperty);
+            }
+        }
+        builder.addAll(customUserProperties);
+        if (loopPreventionEnabled) {
+            builder.add(hopCountProperty(hopCount + 1));
+        }
+        return Mqtt5UserProperties.of(builder.build());
+    }
+
+    /**
+     * Converts the user properties of a message of the MQTT client, replaces the hop count and adds the custom user
+     * properties.
+     */
+    @NotNull Mqtt5UserProperties translateUserProperties(
+            final @NotNull com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties original, final int hopCount) {
+        final List<? extends Mqtt5UserProperty> originalList = original.asList();
+        if (originalList.isEmpty()) {
+            return userPropertiesWithoutOriginal;
+        }
+        final ImmutableList.Builder<MqttUserProperty> builder =
+                ImmutableList.builderWithExpectedSize(originalList.size() + customUserProperties.size() + 1);
+        for (int i = 0; i < originalList.size(); i++) {
+            final Mqtt5UserProperty userProperty = originalList.get(i);
+            if (!userProperty.getName().equals(HOP_COUNT_NAME)) {
+                builder.add(MqttUserProperty.of(userProperty.getName().toString(),
+                        userProperty.getValue().toString()));
+            }
+        }
+        builder.addAll(customUserProperties);
+        if (loopPreventionEnabled) {
+            builder.add(hopCountProperty(hopCount + 1));
+        }
+        return Mqtt5UserProperties.of(builder.build());
+    }
+
+    private @NotNull MqttUserProperty hopCountProperty(final int hopCount) {
+        if (hopCount > 0 && hopCount < hopCountProperties.length) {
+            return hopCountProperties[hopCount];
+        }
+        return MqttUserProperty.of(HMQ_BRIDGE_HOP_COUNT, Integer.toString(hopCount));
+    }
+
+    /**
+     * @return the hop count of a local message, 0 if loop prevention is disabled or the message has none
+     */
+    int extractHopCount(final @NotNull Mqtt5UserProperties userProperties) {
+        if (!loopPreventionEnabled) {
+            return 0;
+        }
+        final ImmutableList<MqttUserProperty> list = userProperties.asList();
+        for (int i = 0; i < list.size(); i++) {
+            final MqttUserProperty userProperty = list.get(i);
+            if (userProperty.getName().equals(HMQ_BRIDGE_HOP_COUNT)) {
+                return parseHopCount(userProperty.getValue());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the hop count of a remote message, 0 if loop prevention is disabled or the message has none
+     */
+    int extractHopCount(final @NotNull com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties userProperties) {
+        if (!loopPreventionEnabled) {
+            return 0;
+        }
+        final List<? extends Mqtt5UserProperty> list = userProperties.asList();
+        for (int i = 0; i < list.size(); i++) {
+            final Mqtt5UserProperty userProperty = list.get(i);
+            if (userProperty.getName().equals(HOP_COUNT_NAME)) {
+                return parseHopCount(userProperty.getValue().toString());
+            }
+        }
+        return 0;
+    }
+
+    private static int parseHopCount(final @NotNull String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (final NumberFormatException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Max hop count could not be determined, user property `{}` is not a number",
+                        HMQ_BRIDGE_HOP_COUNT);
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * @return the payload of a message of the MQTT client. The array the client decoded the payload into is shared
+     *         instead of copied if the payload spans all of it.
+     */
+    static @NotNull byte[] payloadOf(final @NotNull Mqtt5Publish mqtt5Publish) {
+        if (mqtt5Publish instanceof MqttPublish) {
+            final ByteBuffer payload = ((MqttPublish) mqtt5Publish).getRawPayload();
+            if (payload == null) {
+                return new byte[0];
+            }
+            final byte[] shared = sharedArray(payload);
+            if (shared != null) {
+                return shared;
+            }
+        }
+        return mqtt5Publish.getPayloadAsBytes();
+    }
+
+    /**
+     * @return the correlation data of a message of the MQTT client, shared like the payload, see {@link #payloadOf}
+     */
+    static @Nullable byte[] correlationDataOf(final @NotNull Mqtt5Publish mqtt5Publish) {
+        if (mqtt5Publish instanceof MqttPublish) {
+            final ByteBuffer correlationData = ((MqttPublish) mqtt5Publish).getRawCorrelationData();
+            if (correlationData == null) {
+                return null;
+            }
+            final byte[] shared = sharedArray(correlationData);
+            if (shared != null) {
+                return shared;
+            }
+        }
+        return Bytes.getBytesFromReadOnlyBuffer(mqtt5Publish.getCorrelationData());
+    }
+
+    private static @Nullable byte[] sharedArray(final @NotNull ByteBuffer buffer) {
+        if (!buffer.hasArray() || buffer.isReadOnly()) {
+            return null;
+        }
+        final byte[] array = buffer.array();
+        if (buffer.arrayOffset() != 0 || buffer.position() != 0 || buffer.limit() != array.length) {
+            return null;
+        }
+        return array;
+    }
+}
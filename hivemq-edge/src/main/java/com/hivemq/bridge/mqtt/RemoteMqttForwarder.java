@@ -20,23 +20,18 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
-import com.hivemq.bridge.BridgeConstants;
 import com.hivemq.bridge.MqttForwarder;
-import com.hivemq.bridge.config.CustomUserProperty;
 import com.hivemq.bridge.config.LocalSubscription;
 import com.hivemq.bridge.config.MqttBridge;
 import com.hivemq.bridge.metrics.PerBridgeMetrics;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
-import com.hivemq.client.mqtt.datatypes.MqttTopic;
-import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
 import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
-import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserPropertiesBuilder;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperty;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishBuilder;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishResult;
-import com.hivemq.common.topic.TopicFilterProcessor;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.message.QoS;
@@ -47,17 +42,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import static com.hivemq.bridge.BridgeConstants.HMQ_BRIDGE_HOP_COUNT;
-
 public class RemoteMqttForwarder implements MqttForwarder {
 
     private static final Logger log = LoggerFactory.getLogger(RemoteMqttForwarder.class);
@@ -69,6 +61,8 @@ public class RemoteMqttForwarder implements MqttForwarder {
     private final @NotNull BridgeMqttClient remoteMqttClient;
     private final @NotNull PerBridgeMetrics perBridgeMetrics;
     private final @NotNull BridgeInterceptorHandler bridgeInterceptorHandler;
+    private final @NotNull PublishTranslation translation;
+    private final @NotNull ExecutorService interceptorExecutor = MoreExecutors.newDirectExecutorService();
     private final AtomicInteger inflightCounter = new AtomicInteger(0);
     private final AtomicBoolean running = new AtomicBoolean(false);
 
@@ -88,6 +82,7 @@ public class RemoteMqttForwarder implements MqttForwarder {
         this.remoteMqttClient = remoteMqttClient;
         this.perBridgeMetrics = perBridgeMetrics;
         this.bridgeInterceptorHandler = bridgeInterceptorHandler;
+        this.translation = PublishTranslation.forLocal(bridge, localSubscription);
     }
 
     public void start() {
@@ -115,7 +110,7 @@ public class RemoteMqttForwarder implements MqttForwarder {
         inflightCounter.incrementAndGet();
 
         try {
-            int hopCount = extractHopCount(publish);
+            final int hopCount = translation.extractHopCount(publish.getUserProperties());
             if (bridge.isLoopPreventionEnabled() && hopCount > 0 && hopCount >= bridge.getLoopPreventionHopCount()) {
                 perBridgeMetrics.getLoopPreventionForwardDropCounter().inc();
                 if (log.isDebugEnabled()) {
@@ -128,12 +123,10 @@ public class RemoteMqttForwarder implements MqttForwarder {
             }
 
             //filter out excludes
-            for (String exclude : localSubscription.getExcludes()) {
-                if (MqttTopicFilter.of(exclude).matches(MqttTopicFilter.of(publish.getTopic()))) {
-                    perBridgeMetrics.getRemotePublishExcludedCounter().inc();
-                    finishProcessing(publish, queueId);
-                    return;
-                }
+            if (translation.isExcluded(publish.getTopic())) {
+                perBridgeMetrics.getRemotePublishExcludedCounter().inc();
+                finishProcessing(publish, queueId);
+                return;
             }
 
             final PUBLISH convertedPublish = convertPublishAfterBridge(publish, hopCount);
@@ -141,7 +134,7 @@ public class RemoteMqttForwarder implements MqttForwarder {
             //run interceptors
             final ListenableFuture<BridgeInterceptorHandler.InterceptorResult> publishFuture =
                     bridgeInterceptorHandler.interceptOrDelegateOutbound(convertedPublish,
-                            MoreExecutors.newDirectExecutorService(),
+                            interceptorExecutor,
                             bridge);
             Futures.addCallback(publishFuture, new FutureCallback<>() {
                 @Override
@@ -183,29 +176,53 @@ public class RemoteMqttForwarder implements MqttForwarder {
         }
     }
 
+    /**
+     * Applies the translation of the local subscription. The payload is shared with the original PUBLISH, and if the
+     * translation does not change anything the original PUBLISH itself is used.
+     */
     @NotNull
     private PUBLISH convertPublishAfterBridge(@NotNull PUBLISH publish, int hopCount) {
-        final MqttTopic modifiedTopic = convertTopic(localSubscription.getDestination(), publish.getTopic());
-        final QoS modifiedQoS = convertQos(localSubscription.getMaxQoS(), publish.getQoS());
+        final String modifiedTopic = translation.translateTopic(publish.getTopic());
+        final QoS modifiedQoS = translation.translateQoS(publish.getQoS().getQosNumber());
+        final boolean retain = translation.translateRetain(publish.isRetain());
+        final com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties userProperties =
+                translation.translateUserProperties(publish.getUserProperties(), hopCount);
+        if (modifiedTopic.equals(publish.getTopic()) &&
+                modifiedQoS == publish.getQoS() &&
+                modifiedQoS == publish.getOnwardQoS() &&
+                retain == publish.isRetain() &&
+                userProperties == publish.getUserProperties()) {
+            return publish;
+        }
         final PUBLISHFactory.Mqtt5Builder mqtt5Builder = new PUBLISHFactory.Mqtt5Builder();
         mqtt5Builder.fromPublish(publish);
-        mqtt5Builder.withTopic(modifiedTopic.toString());
+        mqtt5Builder.withTopic(modifiedTopic);
         mqtt5Builder.withQoS(modifiedQoS);
         mqtt5Builder.withOnwardQos(modifiedQoS);
-        mqtt5Builder.withRetain(localSubscription.isPreserveRetain() && publish.isRetain());
-        mqtt5Builder.withUserProperties(convertUserProperties(publish.getUserProperties(), hopCount));
-        PUBLISH newPublish = mqtt5Builder.build();
-        return newPublish;
+        mqtt5Builder.withRetain(retain);
+        mqtt5Builder.withUserProperties(userProperties);
+        return mqtt5Builder.build();
     }
 
     @SuppressWarnings("ResultOfMethodCallIgnored")
     private void sendPublishToRemote(
-            @NotNull PUBLISH publish, @NotNull String queueId, @NotNull PUBLISH origPublish) {
+            @NotNull PUBLISH interceptedPublish, @NotNull String queueId, @NotNull PUBLISH origPublish) {
+        final PUBLISH publish = applyRetainPolicy(interceptedPublish);
+        if (remoteMqttClient.shouldBufferPublish()) {
+            //-- the buffer keeps the message durable until it is sent, so it can be removed from the queue
+            remoteMqttClient.bufferPublish(publish);
+            finishProcessing(origPublish, queueId);
+            return;
+        }
         final Mqtt5Publish mqtt5Publish = convertPublishForClient(publish);
         if(remoteMqttClient.isConnected()){
             final CompletableFuture<Mqtt5PublishResult> publishResult = remoteMqttClient.getMqtt5Client().toAsync().publish(mqtt5Publish);
             publishResult.whenComplete((mqtt5PublishResult, throwable) -> {
-                if (throwable != null) {
+                if (throwable != null && remoteMqttClient.hasOutboundBuffer() &&
+                        BridgeMqttClient.isCausedByDisconnect(unwrap(throwable))) {
+                    //-- the bridge disconnected while the message was sent, it is sent again after the next connect
+                    remoteMqttClient.bufferPublish(publish);
+                } else if (throwable != null) {
                     handlePublishError(origPublish, throwable);
                 } else {
                     perBridgeMetrics.getPublishForwardSuccessCounter().inc();
@@ -220,9 +237,31 @@ public class RemoteMqttForwarder implements MqttForwarder {
         }
     }
 
+    private static @NotNull Throwable unwrap(final @NotNull Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+
+    /**
+     * Clears the retain flag if it is not preserved. An interceptor might have set it after
+     * {@link #convertPublishAfterBridge}, so this is applied to the intercepted PUBLISH.
+     */
+    @NotNull
+    private PUBLISH applyRetainPolicy(@NotNull PUBLISH publish) {
+        if (!publish.isRetain() || translation.isPreserveRetain()) {
+            return publish;
+        }
+        return new PUBLISHFactory.Mqtt5Builder().fromPublish(publish).withRetain(false).build();
+    }
+
+    /**
+     * Converts a PUBLISH that is ready to be sent, see {@link #applyRetainPolicy}, to the PUBLISH of the MQTT client.
+     */
     @SuppressWarnings("ResultOfMethodCallIgnored")
     @NotNull
-    private Mqtt5Publish convertPublishForClient(@NotNull PUBLISH publish) {
+    static Mqtt5Publish convertPublishForClient(@NotNull PUBLISH publish) {
         final Mqtt5PublishBuilder.Complete publishBuilder = Mqtt5Publish.builder().topic(publish.getTopic());
         publishBuilder.payload(publish.getPayload()).qos(MqttQos.fromCode(publish.getQoS().getQosNumber()));
 
@@ -230,11 +269,7 @@ public class RemoteMqttForwarder implements MqttForwarder {
             publishBuilder.messageExpiryInterval(publish.getMessageExpiryInterval());
         }
 
-        if (localSubscription.isPreserveRetain()) {
-            publishBuilder.retain(publish.isRetain());
-        } else {
-            publishBuilder.retain(false);
-        }
+        publishBuilder.retain(publish.isRetain());
 
         if (publish.getContentType() != null) {
             publishBuilder.contentType(publish.getContentType());
@@ -258,25 +293,6 @@ public class RemoteMqttForwarder implements MqttForwarder {
     }
 
 
-    private @NotNull QoS convertQos(final int maxQos, @NotNull QoS qos) {
-        //fallback to QoS1 should never be used
-        final QoS mqttQos = Objects.requireNonNullElse(QoS.valueOf(qos.getQosNumber()), QoS.AT_LEAST_ONCE);
-        if (mqttQos.getQosNumber() < maxQos) {
-            return mqttQos;
-        } else {
-            return Objects.requireNonNullElse(QoS.valueOf(maxQos), QoS.AT_LEAST_ONCE);
-        }
-    }
-
-    private @NotNull MqttTopic convertTopic(@Nullable String destination, @NotNull String topic) {
-        if (destination == null || destination.equals(DEFAULT_DESTINATION_PATTERN)) {
-            return MqttTopic.of(topic);
-        }
-        return TopicFilterProcessor.modifyTopic(destination,
-                MqttTopic.of(topic),
-                Map.of(BridgeConstants.BRIDGE_NAME_TOPIC_REPLACEMENT_TOKEN, bridge.getId()));
-    }
-
     private void handlePublishError(@NotNull PUBLISH publish, Throwable throwable) {
         perBridgeMetrics.getPublishForwardFailCounter().inc();
         log.warn("Unable to forward message on topic '{}' for bridge '{}', reason: {}",
@@ -286,62 +302,17 @@ public class RemoteMqttForwarder implements MqttForwarder {
         log.debug("original exception", throwable);
     }
 
-    private com.hivemq.mqtt.message.mqtt5.@NotNull Mqtt5UserProperties convertUserProperties(
-            @NotNull com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties userProperties, final int hopCount) {
-
-        if (userProperties.asList().isEmpty() && localSubscription.getCustomUserProperties().isEmpty()) {
-            if (bridge.isLoopPreventionEnabled()) {
-                return com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties.of(MqttUserProperty.of(HMQ_BRIDGE_HOP_COUNT,
-                        "1"));
-            }
-            return com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties.of();
-        }
-
-        final ImmutableList.Builder<MqttUserProperty> builder = ImmutableList.builder();
-        for (MqttUserProperty mqttUserProperty : userProperties.asList()) {
-            if (mqttUserProperty.getName().equals(HMQ_BRIDGE_HOP_COUNT)) {
-                continue;
-            }
-            builder.add(MqttUserProperty.of(mqttUserProperty.getName(), mqttUserProperty.getValue()));
-        }
-        for (CustomUserProperty customUserProperty : localSubscription.getCustomUserProperties()) {
-            builder.add(MqttUserProperty.of(customUserProperty.getKey(), customUserProperty.getValue()));
-        }
-        if (bridge.isLoopPreventionEnabled()) {
-            builder.add(MqttUserProperty.of(HMQ_BRIDGE_HOP_COUNT, Integer.toString(hopCount + 1)));
+    private static @NotNull Mqtt5UserProperties convertUserPropertiesForClient(@NotNull com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties userProperties) {
+        final ImmutableList<MqttUserProperty> list = userProperties.asList();
+        if (list.isEmpty()) {
+            return Mqtt5UserProperties.of();
         }
-        return com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties.build(builder);
-    }
-
-    @SuppressWarnings("ResultOfMethodCallIgnored")
-    private @NotNull Mqtt5UserProperties convertUserPropertiesForClient(@NotNull com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties userProperties) {
-
-        final Mqtt5UserPropertiesBuilder mqtt5UserPropertiesBuilder = Mqtt5UserProperties.builder();
-        for (MqttUserProperty mqttUserProperty : userProperties.asList()) {
-            mqtt5UserPropertiesBuilder.add(mqttUserProperty.getName(), mqttUserProperty.getValue());
-        }
-        return mqtt5UserPropertiesBuilder.build();
-    }
-
-    private int extractHopCount(@NotNull PUBLISH publish) {
-        if (!bridge.isLoopPreventionEnabled()) {
-            return 0;
-        }
-        try {
-            final Optional<Integer> originalHopCount = publish.getUserProperties()
-                    .asList()
-                    .stream()
-                    .filter(prop -> prop.getName().equals(HMQ_BRIDGE_HOP_COUNT))
-                    .map(prop -> Integer.parseInt(prop.getValue()))
-                    .findFirst();
-            return originalHopCount.orElse(0);
-        } catch (NumberFormatException e) {
-            if (log.isDebugEnabled()) {
-                log.debug("Max hop count could not be determined, user property `{}` is not a number",
-                        HMQ_BRIDGE_HOP_COUNT);
-            }
-            return 0;
+        final Mqtt5UserProperty[] clientProperties = new Mqtt5UserProperty[list.size()];
+        for (int i = 0; i < clientProperties.length; i++) {
+            final MqttUserProperty mqttUserProperty = list.get(i);
+            clientProperties[i] = Mqtt5UserProperty.of(mqttUserProperty.getName(), mqttUserProperty.getValue());
         }
+        return Mqtt5UserProperties.of(clientProperties);
     }
 
     @Override
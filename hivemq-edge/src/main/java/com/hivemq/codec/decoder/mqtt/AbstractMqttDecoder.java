@@ -196,7 +196,7 @@ public abstract class AbstractMqttDecoder<T extends Message> extends MqttDecoder
             final @NotNull String key,
             final @NotNull MessageType messageType) {
 
-        final String utf8String = Strings.getValidatedPrefixedString(buf, utf8StringLength, validateUTF8);
+        final String utf8String = decodeTopicString(buf, utf8StringLength);
         if (utf8String == null) {
             disconnector.disconnect(clientConnection.getChannel(),
                     "A client (IP: {}) sent a " + messageType.name() + " with a malformed '" + key + "'. This is not allowed. Disconnecting client.",
@@ -208,6 +208,17 @@ public abstract class AbstractMqttDecoder<T extends Message> extends MqttDecoder
         return utf8String;
     }
 
+    /**
+     * Reads and validates a topic with a given length, without disconnecting the client if the topic is not valid.
+     *
+     * @param buf              the encoded ByteBuf of the message
+     * @param utf8StringLength length of the topic
+     * @return the topic as String or {@code null} if it is not valid
+     */
+    protected @Nullable String decodeTopicString(final @NotNull ByteBuf buf, final int utf8StringLength) {
+        return Strings.getValidatedPrefixedString(buf, utf8StringLength, validateUTF8);
+    }
+
     /**
      * Decodes and validates the authentication method.
      *
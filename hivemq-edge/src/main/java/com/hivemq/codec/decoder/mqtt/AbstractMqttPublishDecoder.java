@@ -36,10 +36,19 @@ public abstract class AbstractMqttPublishDecoder<T extends Message> extends Abst
 
     private static final byte @NotNull [] EMPTY_PAYLOAD = new byte[0];
 
+    private final @NotNull TopicInterner topicInterner;
+
     protected AbstractMqttPublishDecoder(
             final @NotNull MqttServerDisconnector disconnector,
-            final @NotNull ConfigurationService configurationService) {
+            final @NotNull ConfigurationService configurationService,
+            final @NotNull TopicInterner topicInterner) {
         super(disconnector, configurationService);
+        this.topicInterner = topicInterner;
+    }
+
+    @Override
+    protected @Nullable String decodeTopicString(final @NotNull ByteBuf buf, final int utf8StringLength) {
+        return topicInterner.getValidatedTopic(buf, utf8StringLength, validateUTF8);
     }
 
     /**
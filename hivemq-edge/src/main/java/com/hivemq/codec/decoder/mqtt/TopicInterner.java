@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec.decoder.mqtt;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.annotations.VisibleForTesting;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.util.Strings;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+
+/**
+ * Decodes the topics of incoming PUBLISH messages and caches them per event loop, so a repeated topic is returned as
+ * the same String instance without decoding and validating it again.
+ * <p>
+ * Every thread has its own table with a fixed amount of slots, a topic replaces the topic which was cached in its slot
+ * before. The topic bytes are hashed and compared in a scratch array of the thread, so a cached topic is returned
+ * without allocating.
+ */
+@Singleton
+public class TopicInterner {
+
+    private final boolean enabled;
+    private final int maxTopicLength;
+    private final @NotNull FastThreadLocal<Table> tables;
+
+    private final @NotNull Counter hits;
+    private final @NotNull Counter misses;
+
+    @Inject
+    public TopicInterner(final @NotNull MetricRegistry metricRegistry) {
+        this(metricRegistry,
+                InternalConfigurations.TOPIC_INTERNER_ENABLED.get(),
+                InternalConfigurations.TOPIC_INTERNER_SIZE.get(),
+                InternalConfigurations.TOPIC_INTERNER_MAX_TOPIC_LENGTH_BYTES.get());
+    }
+
+    @VisibleForTesting
+    TopicInterner(
+            final @NotNull MetricRegistry metricRegistry,
+            final boolean enabled,
+            final int size,
+            final int maxTopicLength) {
+        this.enabled = enabled;
+        this.maxTopicLength = maxTopicLength;
+        final int capacity = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        tables = new FastThreadLocal<>() {
+            @Override
+            protected @NotNull Table initialValue() {
+                return new Table(capacity, maxTopicLength);
+            }
+        };
+
+        hits = metricRegistry.counter(HiveMQMetrics.TOPIC_INTERNER_HIT_COUNT.name());
+        misses = metricRegistry.counter(HiveMQMetrics.TOPIC_INTERNER_MISS_COUNT.name());
+        metricRegistry.register(HiveMQMetrics.TOPIC_INTERNER_HIT_RATE.name(), new RatioGauge() {
+            @Override
+            protected @NotNull Ratio getRatio() {
+                final long hitCount = hits.getCount();
+                return Ratio.of(hitCount, hitCount + misses.getCount());
+            }
+        });
+    }
+
+    /**
+     * Reads a topic with the given length from the buffer, see
+     * {@link Strings#getValidatedPrefixedString(ByteBuf, int, boolean)}.
+     *
+     * @param buf                         the buffer to read the topic from
+     * @param length                      the length of the topic in bytes
+     * @param validateShouldNotCharacters whether control and non characters are not allowed in the topic
+     * @return the topic or <code>null</code> if the buffer is too short or the topic is not valid, the reader index
+     *         is only moved if the topic is valid
+     */
+    public @Nullable String getValidatedTopic(
+            final @NotNull ByteBuf buf, final int length, final boolean validateShouldNotCharacters) {
+
+        if (!enabled || length == 0 || length > maxTopicLength || buf.readableBytes() < length) {
+            return Strings.getValidatedPrefixedString(buf, length, validateShouldNotCharacters);
+        }
+
+        final Table table = tables.get();
+        // a single bulk read of the topic, every single access to the buffer would be checked
+        final byte[] scratch = table.scratch;
+        buf.getBytes(buf.readerIndex(), scratch, 0, length);
+        final int hash = hash(scratch, length);
+        final int slot = hash & (table.entries.length - 1);
+
+        final Entry entry = table.entries[slot];
+        if (entry != null &&
+                entry.hash == hash &&
+                (entry.shouldNotCharactersValidated || !validateShouldNotCharacters) &&
+                Arrays.equals(entry.bytes, 0, entry.bytes.length, scratch, 0, length)) {
+            hits.inc();
+            buf.skipBytes(length);
+            return entry.topic;
+        }
+
+        misses.inc();
+        final byte[] bytes = Arrays.copyOf(scratch, length);
+        final String topic = Strings.getValidatedString(bytes, validateShouldNotCharacters);
+        if (topic == null) {
+            return null;
+        }
+        table.entries[slot] = new Entry(hash, bytes, topic, validateShouldNotCharacters);
+        buf.skipBytes(length);
+        return topic;
+    }
+
+    private static int hash(final byte @NotNull [] bytes, final int length) {
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        // spread the higher bits, only the lower bits select the slot
+        return hash ^ (hash >>> 16);
+    }
+
+    private static class Table {
+
+        private final @Nullable Entry @NotNull [] entries;
+        private final byte @NotNull [] scratch;
+
+        private Table(final int capacity, final int maxTopicLength) {
+            entries = new Entry[capacity];
+            scratch = new byte[Math.max(0, maxTopicLength)];
+        }
+    }
+
+    private static class Entry {
+
+        private final int hash;
+        private final byte @NotNull [] bytes;
+        private final @NotNull String topic;
+        private final boolean shouldNotCharactersValidated;
+
+        private Entry(
+                final int hash,
+                final byte @NotNull [] bytes,
+                final @NotNull String topic,
+                final boolean shouldNotCharactersValidated) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.topic = topic;
+            this.shouldNotCharactersValidated = shouldNotCharactersValidated;
+        }
+    }
+}
@@ -17,6 +17,7 @@ package com.hivemq.codec.decoder.mqtt.mqtt3;
 
 import com.hivemq.bootstrap.ClientConnection;
 import com.hivemq.codec.decoder.mqtt.AbstractMqttPublishDecoder;
+import com.hivemq.codec.decoder.mqtt.TopicInterner;
 import com.hivemq.configuration.HivemqId;
 import com.hivemq.configuration.service.ConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
@@ -45,8 +46,9 @@ public class Mqtt3PublishDecoder extends AbstractMqttPublishDecoder<Mqtt3PUBLISH
     public Mqtt3PublishDecoder(
             final @NotNull HivemqId hivemqId,
             final @NotNull MqttServerDisconnector disconnector,
-            final @NotNull ConfigurationService configurationService) {
-        super(disconnector, configurationService);
+            final @NotNull ConfigurationService configurationService,
+            final @NotNull TopicInterner topicInterner) {
+        super(disconnector, configurationService, topicInterner);
         this.hivemqId = hivemqId;
     }
 
@@ -18,6 +18,7 @@ package com.hivemq.codec.decoder.mqtt.mqtt5;
 import com.google.common.collect.ImmutableList;
 import com.hivemq.bootstrap.ClientConnection;
 import com.hivemq.codec.decoder.mqtt.AbstractMqttPublishDecoder;
+import com.hivemq.codec.decoder.mqtt.TopicInterner;
 import com.hivemq.codec.encoder.mqtt5.Mqtt5PayloadFormatIndicator;
 import com.hivemq.codec.encoder.mqtt5.MqttVariableByteInteger;
 import com.hivemq.configuration.HivemqId;
@@ -65,8 +66,9 @@ public class Mqtt5PublishDecoder extends AbstractMqttPublishDecoder<Mqtt5PUBLISH
             final @NotNull MqttServerDisconnector disconnector,
             final @NotNull HivemqId hiveMQId,
             final @NotNull ConfigurationService fullConfigurationService,
-            final @NotNull TopicAliasLimiter topicAliasLimiter) {
-        super(disconnector, fullConfigurationService);
+            final @NotNull TopicAliasLimiter topicAliasLimiter,
+            final @NotNull TopicInterner topicInterner) {
+        super(disconnector, fullConfigurationService, topicInterner);
         this.hiveMQId = hiveMQId;
         this.topicAliasLimiter = topicAliasLimiter;
         validatePayloadFormat = fullConfigurationService.securityConfiguration().payloadFormatValidation();
@@ -53,13 +53,19 @@ public class Mqtt3PublishEncoder extends AbstractVariableHeaderLengthEncoder<Mqt
         if (qos > 0) {
             out.writeShort(msg.getPacketIdentifier());
         }
-        out.writeBytes(msg.getPayload());
+        final ByteBuf payloadBuffer = msg.getPayloadBuffer();
+        if (payloadBuffer != null) {
+            out.writeBytes(payloadBuffer, payloadBuffer.readerIndex(), payloadBuffer.readableBytes());
+        } else {
+            out.writeBytes(msg.getPayload());
+        }
     }
 
     protected int remainingLength(final @NotNull Mqtt3PUBLISH msg) {
         int length = 0;
         length += Utf8Utils.encodedLength(msg.getTopic());
-        length += msg.getPayload().length;
+        final ByteBuf payloadBuffer = msg.getPayloadBuffer();
+        length += payloadBuffer != null ? payloadBuffer.readableBytes() : msg.getPayload().length;
         length += 2; // Topic length
         if (msg.getQoS().getQosNumber() > 0) {
             length += 2; // message ID
@@ -65,9 +65,14 @@ public class Mqtt5PublishEncoder extends Mqtt5MessageWithUserPropertiesEncoder<P
             remainingLength += 2;
         }
 
-        final byte[] payload = publish.getPayload();
-        if (payload != null) {
-            remainingLength += payload.length;
+        final ByteBuf payloadBuffer = publish.getPayloadBuffer();
+        if (payloadBuffer != null) {
+            remainingLength += payloadBuffer.readableBytes();
+        } else {
+            final byte[] payload = publish.getPayload();
+            if (payload != null) {
+                remainingLength += payload.length;
+            }
         }
 
         return remainingLength;
@@ -158,6 +163,11 @@ public class Mqtt5PublishEncoder extends Mqtt5MessageWithUserPropertiesEncoder<P
     }
 
     private static void encodePayload(final @NotNull PUBLISH publish, final @NotNull ByteBuf out) {
+        final ByteBuf payloadBuffer = publish.getPayloadBuffer();
+        if (payloadBuffer != null) {
+            out.writeBytes(payloadBuffer, payloadBuffer.readerIndex(), payloadBuffer.readableBytes());
+            return;
+        }
         final byte[] payload = publish.getPayload();
         if ((payload != null)) {
             out.writeBytes(payload);
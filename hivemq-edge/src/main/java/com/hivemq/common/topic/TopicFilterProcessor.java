@@ -15,6 +15,8 @@
  */
 package com.hivemq.common.topic;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.hivemq.client.annotations.Immutable;
 import com.hivemq.client.mqtt.datatypes.MqttTopic;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
@@ -38,12 +40,16 @@ public class TopicFilterProcessor {
 
     private static final @NotNull Logger log = LoggerFactory.getLogger(TopicFilterProcessor.class);
 
-    private static final @NotNull Pattern REGEX_ENV_VAR = Pattern.compile(".*\\$ENV\\{.*}.*");
-    private static final @NotNull Pattern REGEX_OUT_TOPIC = Pattern.compile(".*\\\\\\{.*}.*");
-    private static final @NotNull String REGEX_OUT_TOPIC_REPLACER = "\\\\\\{";
-    private static final @NotNull Pattern REGEX_ARBITRARY_TOKENS = Pattern.compile("\\$\\{([^}]+)\\}");
-    private static final @NotNull Pattern REGEX_VAR = Pattern.compile(".*\\{.*}.*");
-    private static final @NotNull Pattern REGEX_NUM = Pattern.compile("[0-9]+");
+    static final @NotNull Pattern REGEX_ENV_VAR = Pattern.compile(".*\\$ENV\\{.*}.*");
+    static final @NotNull Pattern REGEX_OUT_TOPIC = Pattern.compile(".*\\\\\\{.*}.*");
+    static final @NotNull String REGEX_OUT_TOPIC_REPLACER = "\\\\\\{";
+    static final @NotNull Pattern REGEX_ARBITRARY_TOKENS = Pattern.compile("\\$\\{([^}]+)\\}");
+    static final @NotNull Pattern REGEX_VAR = Pattern.compile(".*\\{.*}.*");
+    static final @NotNull Pattern REGEX_NUM = Pattern.compile("[0-9]+");
+
+    private static final int MAX_CACHED_TEMPLATES = 1024;
+    private static final @NotNull Cache<String, TopicTemplate> TEMPLATE_CACHE =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHED_TEMPLATES).build();
 
 
     public static @NotNull MqttTopic modifyTopic(
@@ -60,7 +66,10 @@ public class TopicFilterProcessor {
 
 
     /**
-     * Applies all the destination modifiers.getQosForPubMode
+     * Applies all the destination modifiers.
+     * <p>
+     * The destination modifier is compiled to a {@link TopicTemplate} once and then taken from a cache, see
+     * {@link #compile}.
      *
      * @param inTopic             The topic the message was captured from.
      * @param destinationModifier The destination modifier for the specific topic filter.
@@ -73,6 +82,38 @@ public class TopicFilterProcessor {
         if (destinationModifier.isEmpty()) {
             return inTopic;
         }
+        return compile(destinationModifier).apply(inTopic, tokensAndValues);
+    }
+
+    /**
+     * Returns the compiled template of a destination modifier. The most recently used templates are cached,
+     * environment variables in a cached template keep the value they had when it was compiled.
+     *
+     * @param destinationModifier The destination modifier for the specific topic filter.
+     * @return The compiled destination modifier.
+     */
+    public static @NotNull TopicTemplate compile(final @NotNull String destinationModifier) {
+        final TopicTemplate cached = TEMPLATE_CACHE.getIfPresent(destinationModifier);
+        if (cached != null) {
+            return cached;
+        }
+        final TopicTemplate template = TopicTemplate.compile(destinationModifier, Map.of());
+        // destination modifiers are configured, the bound only matters if topics are used as modifiers
+        TEMPLATE_CACHE.put(destinationModifier, template);
+        return template;
+    }
+
+    /**
+     * Applies all the destination modifiers without compiling them first. This is the reference for
+     * {@link TopicTemplate}, which uses it for levels it does not compile.
+     */
+    static @NotNull MqttTopic interpret(
+            final @NotNull MqttTopic inTopic,
+            final @NotNull String destinationModifier,
+            final @NotNull Map<String, String> tokensAndValues) {
+        if (destinationModifier.isEmpty()) {
+            return inTopic;
+        }
         //We split the destinationModifier in order to retrieve the topics levels. The split limit is set to
         //-1 in order to also include a trailing (empty) /-level as the split will add a trailing empty string.
         final List<String> outTopicWithPlaceholders = List.of(destinationModifier.split("/", -1));
@@ -84,55 +125,62 @@ public class TopicFilterProcessor {
             if (!tokensAndValues.isEmpty()) {
                 level = replaceTokens(level, tokensAndValues);
             }
+            processLevel(level, outTopic, inTopic);
+        }
+        return MqttTopic.of(String.join("/", outTopic));
+    }
+
+    /**
+     * Applies the destination modifier of a single level, after its tokens were replaced.
+     */
+    static void processLevel(
+            final @NotNull String level, final @NotNull List<String> outTopic, final @NotNull MqttTopic inTopic) {
+        if (REGEX_ENV_VAR.matcher(level).find()) {
+            replaceEnvVar(level, outTopic);
+        } else if (REGEX_OUT_TOPIC.matcher(level).find()) {
+            outTopic.add(level.replaceAll(REGEX_OUT_TOPIC_REPLACER, "{"));
 
-            if (REGEX_ENV_VAR.matcher(level).find()) {
-                replaceEnvVar(level, outTopic);
-            } else if (REGEX_OUT_TOPIC.matcher(level).find()) {
-                outTopic.add(level.replaceAll(REGEX_OUT_TOPIC_REPLACER, "{"));
-
-            } else if (REGEX_VAR.matcher(level).find()) {
-                final int replacementInformationStart = level.indexOf('{') + "{".length();
-                final int replacementInformationEnd = level.indexOf('}', replacementInformationStart);
-                final String levelInsert = level.substring(replacementInformationStart, replacementInformationEnd);
-
-                if (levelInsert.contains("#") && levelInsert.length() == "#".length()) {
-                    replaceMultiWildcard(level,
-                            outTopic,
-                            inTopic,
-                            replacementInformationStart,
-                            replacementInformationEnd);
-
-                } else if (levelInsert.contains("-#")) {
-                    replaceMultiWildcardWithStart(level,
-                            outTopic,
-                            inTopic,
-                            levelInsert,
-                            replacementInformationStart,
-                            replacementInformationEnd);
-
-                } else if (levelInsert.contains("-")) {
-                    replaceMultilevel(level,
-                            outTopic,
-                            inTopic,
-                            levelInsert,
-                            replacementInformationStart,
-                            replacementInformationEnd);
-
-                } else if (REGEX_NUM.matcher(levelInsert).find()) {
-                    replaceSingleLevel(level, outTopic, inTopic, levelInsert);
-
-                } else {
-                    log.warn("Topic Filter Processor: Found definition {} that does not exist!", levelInsert);
-                }
+        } else if (REGEX_VAR.matcher(level).find()) {
+            final int replacementInformationStart = level.indexOf('{') + "{".length();
+            final int replacementInformationEnd = level.indexOf('}', replacementInformationStart);
+            final String levelInsert = level.substring(replacementInformationStart, replacementInformationEnd);
+
+            if (levelInsert.contains("#") && levelInsert.length() == "#".length()) {
+                replaceMultiWildcard(level,
+                        outTopic,
+                        inTopic,
+                        replacementInformationStart,
+                        replacementInformationEnd);
+
+            } else if (levelInsert.contains("-#")) {
+                replaceMultiWildcardWithStart(level,
+                        outTopic,
+                        inTopic,
+                        levelInsert,
+                        replacementInformationStart,
+                        replacementInformationEnd);
+
+            } else if (levelInsert.contains("-")) {
+                replaceMultilevel(level,
+                        outTopic,
+                        inTopic,
+                        levelInsert,
+                        replacementInformationStart,
+                        replacementInformationEnd);
+
+            } else if (REGEX_NUM.matcher(levelInsert).find()) {
+                replaceSingleLevel(level, outTopic, inTopic, levelInsert);
 
             } else {
-                outTopic.add(level);
+                log.warn("Topic Filter Processor: Found definition {} that does not exist!", levelInsert);
             }
+
+        } else {
+            outTopic.add(level);
         }
-        return MqttTopic.of(String.join("/", outTopic));
     }
 
-    private static void replaceEnvVar(final @NotNull String level, final @NotNull List<String> outTopic) {
+    static void replaceEnvVar(final @NotNull String level, final @NotNull List<String> outTopic) {
         final int envIdStart = level.indexOf("$ENV{") + "$ENV{".length();
         final int envIdEnd = level.indexOf('}', envIdStart);
         final String envVar = level.substring(envIdStart, envIdEnd);
@@ -273,7 +321,7 @@ public class TopicFilterProcessor {
         }
     }
 
-    private static String replaceTokens(
+    static @NotNull String replaceTokens(
             final @NotNull String topicLevel, final @NotNull Map<String, String> tokensMap) {
         Matcher matcher = REGEX_ARBITRARY_TOKENS.matcher(topicLevel);
         String result = topicLevel;
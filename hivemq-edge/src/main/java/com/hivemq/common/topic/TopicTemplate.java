@@ -0,0 +1,594 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.common.topic;
+
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.hivemq.common.topic.TopicFilterProcessor.REGEX_ARBITRARY_TOKENS;
+import static com.hivemq.common.topic.TopicFilterProcessor.REGEX_ENV_VAR;
+import static com.hivemq.common.topic.TopicFilterProcessor.REGEX_NUM;
+import static com.hivemq.common.topic.TopicFilterProcessor.REGEX_OUT_TOPIC;
+import static com.hivemq.common.topic.TopicFilterProcessor.REGEX_OUT_TOPIC_REPLACER;
+import static com.hivemq.common.topic.TopicFilterProcessor.REGEX_VAR;
+
+/**
+ * A destination modifier compiled for {@link TopicFilterProcessor}.
+ * <p>
+ * Compiling parses every level of the destination once. Literal levels, escaped levels and environment variables
+ * become fixed text, placeholders like {@code {2}}, {@code {2-4}}, {@code {2-#}} and {@code {#}} become references to
+ * the levels of the original topic. Applying the template then only copies text, it does not run any regular
+ * expression. Levels with tokens like {@code ${bridge.name}} are compiled as well, the tokens are replaced when the
+ * template is applied.
+ * <p>
+ * Environment variables are resolved when the template is compiled.
+ */
+@Immutable
+public class TopicTemplate {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(TopicTemplate.class);
+
+    private final @NotNull String destination;
+    private final @NotNull Segment[] segments;
+    /* the topic of every message if the template does not reference the original topic */
+    private final @Nullable String literal;
+    private final @Nullable MqttTopic literalTopic;
+    private final boolean identity;
+    private final int literalLength;
+
+    private TopicTemplate(final @NotNull String destination, final @NotNull List<Segment> segments) {
+        this.destination = destination;
+        this.segments = segments.toArray(new Segment[0]);
+        this.identity = this.segments.length == 1 && this.segments[0] instanceof WholeTopic;
+
+        boolean allLiteral = true;
+        int length = 0;
+        for (final Segment segment : this.segments) {
+            if (segment instanceof Literal) {
+                length += ((Literal) segment).text.length() + 1;
+            } else {
+                allLiteral = false;
+            }
+        }
+        this.literalLength = length;
+        if (allLiteral) {
+            final StringBuilder builder = new StringBuilder(length);
+            for (int i = 0; i < this.segments.length; i++) {
+                this.segments[i].append(builder, i > 0, null, Map.of());
+            }
+            this.literal = builder.toString();
+            this.literalTopic = validTopic(literal);
+        } else {
+            this.literal = null;
+            this.literalTopic = null;
+        }
+    }
+
+    /**
+     * Compiles a destination modifier.
+     *
+     * @param destination    the destination modifier, must not be empty
+     * @param constantTokens tokens that have the same value for every message, they are replaced while compiling
+     * @return the compiled template
+     */
+    public static @NotNull TopicTemplate compile(
+            final @NotNull String destination, final @NotNull Map<String, String> constantTokens) {
+        final List<Segment> segments = new ArrayList<>();
+        for (String level : destination.split("/", -1)) {
+            if (!constantTokens.isEmpty()) {
+                level = TopicFilterProcessor.replaceTokens(level, constantTokens);
+            }
+            if (REGEX_ARBITRARY_TOKENS.matcher(level).find()) {
+                segments.add(new TokenLevel(level, compileLevel(level)));
+            } else {
+                final Segment segment = compileLevel(level);
+                if (segment != null) {
+                    segments.add(segment);
+                }
+            }
+        }
+        return new TopicTemplate(destination, segments);
+    }
+
+    /**
+     * Applies the template to a topic.
+     *
+     * @param topic  the topic the message was captured from
+     * @param tokens the values of the tokens in the template
+     * @return the destination topic
+     */
+    public @NotNull MqttTopic apply(final @NotNull MqttTopic topic, final @NotNull Map<String, String> tokens) {
+        if (identity) {
+            return topic;
+        }
+        if (literalTopic != null) {
+            return literalTopic;
+        }
+        return MqttTopic.of(apply(topic.toString(), tokens));
+    }
+
+    /**
+     * Applies the template to a topic. Unlike {@link #apply(MqttTopic, Map)} the destination topic is not validated.
+     *
+     * @param topic  the topic the message was captured from
+     * @param tokens the values of the tokens in the template
+     * @return the destination topic
+     */
+    public @NotNull String apply(final @NotNull String topic, final @NotNull Map<String, String> tokens) {
+        if (identity) {
+            return topic;
+        }
+        if (literal != null) {
+            return literal;
+        }
+        final Levels levels = new Levels(topic);
+        final StringBuilder builder = new StringBuilder(literalLength + topic.length());
+        boolean separator = false;
+        for (final Segment segment : segments) {
+            separator |= segment.append(builder, separator, levels, tokens);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return the destination topic of every message if the template does not reference the original topic or
+     *         tokens, null otherwise
+     */
+    public @Nullable String getLiteral() {
+        return literal;
+    }
+
+    /**
+     * @return true if the template keeps the original topic
+     */
+    public boolean isIdentity() {
+        return identity;
+    }
+
+    public @NotNull String getDestination() {
+        return destination;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "TopicTemplate{" + "destination='" + destination + '\'' + '}';
+    }
+
+    /**
+     * Compiles a single level the same way {@link TopicFilterProcessor#processLevel} applies it.
+     *
+     * @return the compiled level or null if the level does not add anything to the topic
+     */
+    private static @Nullable Segment compileLevel(final @NotNull String level) {
+        if (REGEX_ENV_VAR.matcher(level).find()) {
+            final List<String> resolved = new ArrayList<>(1);
+            TopicFilterProcessor.replaceEnvVar(level, resolved);
+            return resolved.isEmpty() ? null : new Literal(resolved.get(0));
+        }
+        if (REGEX_OUT_TOPIC.matcher(level).find()) {
+            return new Literal(level.replaceAll(REGEX_OUT_TOPIC_REPLACER, "{"));
+        }
+        if (!REGEX_VAR.matcher(level).find()) {
+            return new Literal(level);
+        }
+
+        final int start = level.indexOf('{') + "{".length();
+        final int end = level.indexOf('}', start);
+        final String levelInsert = level.substring(start, end);
+        try {
+            if (levelInsert.equals("#")) {
+                warnSurroundingContent(level, start, end, "MultiLevelWildcard");
+                return new WholeTopic();
+            }
+            if (levelInsert.contains("-#")) {
+                final int startLevel = Integer.parseInt(levelInsert.substring(0, levelInsert.indexOf("-#")));
+                if (startLevel < 1) {
+                    return new Interpreted(level);
+                }
+                warnSurroundingContent(level, start, end, "MultiLevelWildcard-With-Start");
+                return new LevelsFrom(startLevel);
+            }
+            if (levelInsert.contains("-")) {
+                final int startLevel = Integer.parseInt(levelInsert.substring(0, levelInsert.indexOf("-")));
+                final int endLevel =
+                        Integer.parseInt(levelInsert.substring(levelInsert.indexOf("-") + "-".length()));
+                if (startLevel < 1) {
+                    return new Interpreted(level);
+                }
+                warnSurroundingContent(level, start, end, "MultiLevel");
+                if (startLevel > endLevel) {
+                    log.warn(
+                            "Topic-Modifier: Could not insert topic levels from {{}-{}}, because end start level is bigger than end level! Skipping.",
+                            startLevel,
+                            endLevel);
+                    return null;
+                }
+                return new LevelRange(startLevel, endLevel);
+            }
+            if (REGEX_NUM.matcher(levelInsert).find()) {
+                final int index = Integer.parseInt(levelInsert);
+                if (index < 1) {
+                    return new Interpreted(level);
+                }
+                return new SingleLevel(level, index);
+            }
+        } catch (final NumberFormatException e) {
+            // the interpreter fails for every message, which is reported where the template is applied
+            return new Interpreted(level);
+        }
+        log.warn("Topic Filter Processor: Found definition {} that does not exist!", levelInsert);
+        return null;
+    }
+
+    private static void warnSurroundingContent(
+            final @NotNull String level, final int start, final int end, final @NotNull String replacement) {
+        if (start != "{".length()) {
+            log.warn("Topic-Modifier: Leading content \"{}\" in {} replacement is not allowed! Ignoring.",
+                    level.substring(0, start - 1),
+                    replacement);
+        }
+        if (end != level.length() - "{".length()) {
+            log.warn("Topic-Modifier: Following content \"{}\" in {} replacement is not allowed! Ignoring.",
+                    level.substring(end + 1),
+                    replacement);
+        }
+    }
+
+    private static @Nullable MqttTopic validTopic(final @NotNull String topic) {
+        try {
+            return MqttTopic.of(topic);
+        } catch (final IllegalArgumentException e) {
+            // an invalid destination fails for every message, as it did before it was compiled
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the tokens of a level, a token without a value is kept.
+     */
+    static @NotNull String replaceTokens(final @NotNull String level, final @NotNull Map<String, String> tokens) {
+        StringBuilder builder = null;
+        int copied = 0;
+        int tokenStart = level.indexOf("${");
+        while (tokenStart >= 0) {
+            final int tokenEnd = level.indexOf('}', tokenStart + 2);
+            if (tokenEnd < 0) {
+                break;
+            }
+            if (tokenEnd > tokenStart + 2) {
+                final String value = tokens.get(level.substring(tokenStart + 2, tokenEnd));
+                if (value != null) {
+                    if (builder == null) {
+                        builder = new StringBuilder(level.length() + value.length());
+                    }
+                    builder.append(level, copied, tokenStart).append(value);
+                    copied = tokenEnd + 1;
+                }
+            }
+            tokenStart = level.indexOf("${", tokenEnd + 1);
+        }
+        if (builder == null) {
+            return level;
+        }
+        return builder.append(level, copied, level.length()).toString();
+    }
+
+    /**
+     * The levels of the original topic, split when a segment first needs them.
+     */
+    private static class Levels {
+
+        private final @NotNull String topic;
+        private @Nullable int[] separators;
+        private @Nullable MqttTopic mqttTopic;
+
+        Levels(final @NotNull String topic) {
+            this.topic = topic;
+        }
+
+        int count() {
+            return separators().length + 1;
+        }
+
+        /* the start of the level with the given zero based index */
+        int start(final int index) {
+            return index == 0 ? 0 : separators()[index - 1] + 1;
+        }
+
+        /* the end of the level with the given zero based index */
+        int end(final int index) {
+            final int[] separators = separators();
+            return index < separators.length ? separators[index] : topic.length();
+        }
+
+        @NotNull MqttTopic mqttTopic() {
+            if (mqttTopic == null) {
+                mqttTopic = MqttTopic.of(topic);
+            }
+            return mqttTopic;
+        }
+
+        private @NotNull int[] separators() {
+            if (separators == null) {
+                int count = 0;
+                for (int i = 0; i < topic.length(); i++) {
+                    if (topic.charAt(i) == '/') {
+                        count++;
+                    }
+                }
+                final int[] positions = new int[count];
+                for (int i = 0, j = 0; i < topic.length(); i++) {
+                    if (topic.charAt(i) == '/') {
+                        positions[j++] = i;
+                    }
+                }
+                separators = positions;
+            }
+            return separators;
+        }
+    }
+
+    private interface Segment {
+
+        /**
+         * Appends the level or levels of this segment to the destination topic.
+         *
+         * @param separator true if a level was appended before, so a separator is needed
+         * @return true if anything was appended
+         */
+        boolean append(
+                @NotNull StringBuilder builder,
+                boolean separator,
+                @Nullable Levels levels,
+                @NotNull Map<String, String> tokens);
+    }
+
+    private static boolean appendLevel(
+            final @NotNull StringBuilder builder,
+            final boolean separator,
+            final @NotNull CharSequence text,
+            final int start,
+            final int end) {
+        if (separator) {
+            builder.append('/');
+        }
+        builder.append(text, start, end);
+        return true;
+    }
+
+    private static class Literal implements Segment {
+
+        private final @NotNull String text;
+
+        Literal(final @NotNull String text) {
+            this.text = text;
+        }
+
+        @Override
+        public boolean append(
+                final @NotNull StringBuilder builder,
+                final boolean separator,
+                final @Nullable Levels levels,
+                final @NotNull Map<String, String> tokens) {
+            return appendLevel(builder, separator, text, 0, text.length());
+        }
+    }
+
+    /* {#} */
+    private static class WholeTopic implements Segment {
+
+        @Override
+        public boolean append(
+                final @NotNull StringBuilder builder,
+                final boolean separator,
+                final @Nullable Levels levels,
+                final @NotNull Map<String, String> tokens) {
+            final String topic = levels.topic;
+            return appendLevel(builder, separator, topic, 0, topic.length());
+        }
+    }
+
+    /* {n-#} */
+    private static class LevelsFrom implements Segment {
+
+        private final int startLevel;
+
+        LevelsFrom(final int startLevel) {
+            this.startLevel = startLevel;
+        }
+
+        @Override
+        public boolean append(
+                final @NotNull StringBuilder builder,
+                final boolean separator,
+                final @Nullable Levels levels,
+                final @NotNull Map<String, String> tokens) {
+            if (startLevel <= levels.count()) {
+                final int start = levels.start(startLevel - 1);
+                if (start < levels.topic.length()) {
+                    return appendLevel(builder, separator, levels.topic, start, levels.topic.length());
+                }
+            }
+            log.warn(
+                    "Topic-Modifier: Could not insert topic levels from {{}-#}, because topic \"{}\" is too short! Skipping.",
+                    startLevel,
+                    levels.topic);
+            return false;
+        }
+    }
+
+    /* {n-m} */
+    private static class LevelRange implements Segment {
+
+        private final int startLevel;
+        private final int endLevel;
+
+        LevelRange(final int startLevel, final int endLevel) {
+            this.startLevel = startLevel;
+            this.endLevel = endLevel;
+        }
+
+        @Override
+        public boolean append(
+                final @NotNull StringBuilder builder,
+                final boolean separator,
+                final @Nullable Levels levels,
+                final @NotNull Map<String, String> tokens) {
+            final int count = levels.count();
+            final String topic = levels.topic;
+            if (startLevel > count) {
+                log.warn("Topic-Modifier: Start level from {{}-{}} is bigger than the original topic \"{}\"! Skipping.",
+                        startLevel,
+                        endLevel,
+                        topic);
+                return false;
+            }
+            if (endLevel > count) {
+                log.warn(
+                        "Topic-Modifier: End level from {{}-{}} is bigger than the original topic \"{}\"! Only adding existing levels.",
+                        startLevel,
+                        endLevel,
+                        topic);
+                return appendLevel(builder, separator, topic, levels.start(startLevel - 1), topic.length());
+            }
+            return appendLevel(builder, separator, topic, levels.start(startLevel - 1), levels.end(endLevel - 1));
+        }
+    }
+
+    /* text{n}text */
+    private static class SingleLevel implements Segment {
+
+        private final int index;
+        private final @NotNull String level;
+        private final @NotNull String[] fragments;
+        private final @NotNull String withoutPlaceholder;
+
+        SingleLevel(final @NotNull String level, final int index) {
+            this.level = level;
+            this.index = index;
+            final String placeholder = "{" + index + "}";
+            this.withoutPlaceholder = level.replace(placeholder, "");
+            final List<String> fragments = new ArrayList<>();
+            int from = 0;
+            int found = level.indexOf(placeholder);
+            while (found >= 0) {
+                fragments.add(level.substring(from, found));
+                from = found + placeholder.length();
+                found = level.indexOf(placeholder, from);
+            }
+            fragments.add(level.substring(from));
+            this.fragments = fragments.toArray(new String[0]);
+        }
+
+        @Override
+        public boolean append(
+                final @NotNull StringBuilder builder,
+                final boolean separator,
+                final @Nullable Levels levels,
+                final @NotNull Map<String, String> tokens) {
+            if (index > levels.count()) {
+                log.warn(
+                        "Topic-Modifier: Could not insert topic level from {{}}, because level index is bigger than topic's \"{}\" size.",
+                        index,
+                        levels.topic);
+                if (withoutPlaceholder.isEmpty()) {
+                    return false;
+                }
+                return appendLevel(builder, separator, withoutPlaceholder, 0, withoutPlaceholder.length());
+            }
+            if (separator) {
+                builder.append('/');
+            }
+            final int start = levels.start(index - 1);
+            final int end = levels.end(index - 1);
+            builder.append(fragments[0]);
+            for (int i = 1; i < fragments.length; i++) {
+                builder.append(levels.topic, start, end).append(fragments[i]);
+            }
+            return true;
+        }
+    }
+
+    /* a level with tokens, the tokens are replaced before the level is applied */
+    private static class TokenLevel implements Segment {
+
+        private final @NotNull String level;
+        private final @Nullable Segment withoutTokens;
+
+        TokenLevel(final @NotNull String level, final @Nullable Segment withoutTokens) {
+            this.level = level;
+            this.withoutTokens = withoutTokens;
+        }
+
+        @Override
+        public boolean append(
+                final @NotNull StringBuilder builder,
+                final boolean separator,
+                final @Nullable Levels levels,
+                final @NotNull Map<String, String> tokens) {
+            final String replaced = tokens.isEmpty() ? level : replaceTokens(level, tokens);
+            if (replaced == level) {
+                return withoutTokens != null && withoutTokens.append(builder, separator, levels, tokens);
+            }
+            if (replaced.indexOf('{') < 0) {
+                return appendLevel(builder, separator, replaced, 0, replaced.length());
+            }
+            return Interpreted.interpret(builder, separator, levels, replaced);
+        }
+    }
+
+    /* a level the compiler does not handle, it is applied by the interpreter of TopicFilterProcessor */
+    private static class Interpreted implements Segment {
+
+        private final @NotNull String level;
+
+        Interpreted(final @NotNull String level) {
+            this.level = level;
+        }
+
+        @Override
+        public boolean append(
+                final @NotNull StringBuilder builder,
+                final boolean separator,
+                final @Nullable Levels levels,
+                final @NotNull Map<String, String> tokens) {
+            return interpret(builder, separator, levels, level);
+        }
+
+        static boolean interpret(
+                final @NotNull StringBuilder builder,
+                final boolean separator,
+                final @NotNull Levels levels,
+                final @NotNull String level) {
+            final List<String> outTopic = new ArrayList<>(1);
+            TopicFilterProcessor.processLevel(level, outTopic, levels.mqttTopic());
+            boolean appended = false;
+            for (final String out : outTopic) {
+                appendLevel(builder, separator || appended, out, 0, out.length());
+                appended = true;
+            }
+            return appended;
+        }
+    }
+}
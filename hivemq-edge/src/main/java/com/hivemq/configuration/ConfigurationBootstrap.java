@@ -23,6 +23,7 @@ import com.hivemq.configuration.service.ConfigurationService;
 import com.hivemq.configuration.service.impl.ApiConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.BridgeConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.ConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.DataGovernanceConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.GatewayConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.MqttConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.MqttsnConfigurationServiceImpl;
@@ -52,6 +53,7 @@ public class ConfigurationBootstrap {
                         new BridgeConfigurationServiceImpl(),
                         new ApiConfigurationServiceImpl(),
                         new UnsConfigurationServiceImpl(),
+                        new DataGovernanceConfigurationServiceImpl(),
                         new GatewayConfigurationServiceImpl(),
                         new UsageTrackingConfigurationServiceImpl(),
                         new ProtocolAdapterConfigurationServiceImpl());
@@ -68,6 +70,7 @@ public class ConfigurationBootstrap {
                 new BridgeConfigurator(configurationService.bridgeConfiguration()),
                 new ApiConfigurator(configurationService.apiConfiguration()),
                 new UnsConfigurator(configurationService.unsConfiguration()),
+                new DataGovernanceConfigurator(configurationService.dataGovernanceConfiguration()),
                 new DynamicConfigConfigurator(configurationService.gatewayConfiguration()),
                 new UsageTrackingConfigurator(configurationService.usageTrackingConfiguration()),
                 new ProtocolAdapterConfigurator(configurationService.protocolAdapterConfigurationService()));
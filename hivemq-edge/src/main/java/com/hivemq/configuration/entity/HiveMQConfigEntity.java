@@ -17,6 +17,7 @@ package com.hivemq.configuration.entity;
 
 import com.hivemq.configuration.entity.api.AdminApiEntity;
 import com.hivemq.configuration.entity.bridge.MqttBridgeEntity;
+import com.hivemq.configuration.entity.datagov.DataGovernanceEntity;
 import com.hivemq.configuration.entity.listener.ListenerEntity;
 import com.hivemq.configuration.entity.uns.UnsConfigEntity;
 import com.hivemq.configuration.reader.ArbitraryValuesMapAdapter;
@@ -76,6 +77,9 @@ public class HiveMQConfigEntity {
     @XmlElementRef(required = false)
     private @NotNull UnsConfigEntity uns = new UnsConfigEntity();
 
+    @XmlElementRef(required = false)
+    private @NotNull DataGovernanceEntity dataGovernance = new DataGovernanceEntity();
+
     @XmlElementRef(required = false)
     private @NotNull DynamicConfigEntity gateway = new DynamicConfigEntity();
 
@@ -128,6 +132,10 @@ public class HiveMQConfigEntity {
 
     public @NotNull UnsConfigEntity getUns() { return uns; }
 
+    public @NotNull DataGovernanceEntity getDataGovernance() {
+        return dataGovernance;
+    }
+
     public @NotNull DynamicConfigEntity getGatewayConfig() { return gateway;}
 
     public @NotNull UsageTrackingConfigEntity getUsageTracking() {
@@ -67,6 +67,9 @@ public class MqttConfigEntity {
     @XmlElementRef(required = false)
     private @NotNull ReceiveMaximumConfigEntity receiveMaximumConfigEntity = new ReceiveMaximumConfigEntity();
 
+    @XmlElementRef(required = false)
+    private @NotNull TopicTreeConfigEntity topicTreeConfigEntity = new TopicTreeConfigEntity();
+
     public @NotNull KeepAliveConfigEntity getKeepAliveConfigEntity() {
         return keepAliveConfigEntity;
     }
@@ -79,6 +82,10 @@ public class MqttConfigEntity {
         return receiveMaximumConfigEntity;
     }
 
+    public @NotNull TopicTreeConfigEntity getTopicTreeConfigEntity() {
+        return topicTreeConfigEntity;
+    }
+
     public @NotNull QueuedMessagesConfigEntity getQueuedMessagesConfigEntity() {
         return queuedMessagesConfigEntity;
     }
@@ -19,6 +19,9 @@ import com.hivemq.extension.sdk.api.annotations.NotNull;
 
 import javax.xml.bind.annotation.*;
 
+import static com.hivemq.configuration.service.PersistenceConfigurationService.BUCKET_COUNT_AUTO;
+import static com.hivemq.configuration.service.PersistenceConfigurationService.EXPECTED_CLIENTS_DEFAULT;
+
 /**
  * @author Lukas Brandl
  */
@@ -37,8 +40,22 @@ public class PersistenceEntity {
     @XmlElement(name = "mode", defaultValue = "file")
     private @NotNull PersistenceEntity.PersistenceMode mode = PersistenceMode.IN_MEMORY;
 
+    @XmlElement(name = "bucket-count", defaultValue = "0")
+    private @NotNull Integer bucketCount = BUCKET_COUNT_AUTO;
+
+    @XmlElement(name = "expected-clients", defaultValue = "1000")
+    private @NotNull Integer expectedClients = EXPECTED_CLIENTS_DEFAULT;
+
     @NotNull
     public PersistenceMode getMode() {
         return mode;
     }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public int getExpectedClients() {
+        return expectedClients;
+    }
 }
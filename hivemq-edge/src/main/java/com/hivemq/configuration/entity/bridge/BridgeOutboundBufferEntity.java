@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.configuration.entity.bridge;
+
+import com.hivemq.bridge.config.BridgeOutboundBuffer;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@SuppressWarnings({"FieldMayBeFinal", "FieldCanBeLocal"})
+@XmlRootElement(name = "outbound-buffer")
+@XmlAccessorType(XmlAccessType.NONE)
+public class BridgeOutboundBufferEntity {
+
+    @XmlElement(name = "enabled", defaultValue = "false")
+    private boolean enabled = false;
+
+    @XmlElement(name = "max-size-bytes", defaultValue = "104857600")
+    private long maxSizeBytes = BridgeOutboundBuffer.DEFAULT_MAX_SIZE_BYTES;
+
+    @XmlElement(name = "max-age-seconds", defaultValue = "604800")
+    private long maxAgeSeconds = BridgeOutboundBuffer.DEFAULT_MAX_AGE_SECONDS;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    public long getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setMaxSizeBytes(final long maxSizeBytes) {
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    public void setMaxAgeSeconds(final long maxAgeSeconds) {
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+}
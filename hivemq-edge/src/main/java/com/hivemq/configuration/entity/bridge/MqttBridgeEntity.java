@@ -50,6 +50,9 @@ public class MqttBridgeEntity {
     @XmlElementRef
     private @NotNull LoopPreventionEntity loopPrevention = new LoopPreventionEntity();
 
+    @XmlElementRef(required = false)
+    private @NotNull BridgeOutboundBufferEntity outboundBuffer = new BridgeOutboundBufferEntity();
+
     public @NotNull RemoteBrokerEntity getRemoteBroker() {
         return remoteBroker;
     }
@@ -70,6 +73,10 @@ public class MqttBridgeEntity {
         return loopPrevention;
     }
 
+    public @NotNull BridgeOutboundBufferEntity getOutboundBuffer() {
+        return outboundBuffer;
+    }
+
     public void setId(final String id) {
         this.id = id;
     }
@@ -89,4 +96,8 @@ public class MqttBridgeEntity {
     public void setLoopPrevention(final LoopPreventionEntity loopPrevention) {
         this.loopPrevention = loopPrevention;
     }
+
+    public void setOutboundBuffer(final BridgeOutboundBufferEntity outboundBuffer) {
+        this.outboundBuffer = outboundBuffer;
+    }
 }
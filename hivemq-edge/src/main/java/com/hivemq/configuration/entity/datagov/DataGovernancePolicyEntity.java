@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.configuration.entity.datagov;
+
+import com.hivemq.configuration.entity.EnabledEntity;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+@XmlRootElement(name = "policy")
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings({"FieldMayBeFinal", "FieldCanBeLocal"})
+public class DataGovernancePolicyEntity extends EnabledEntity {
+
+    @XmlElement(name = "id", required = true)
+    private @Nullable String id;
+
+    @XmlElement(name = "type", required = true)
+    private @Nullable String type;
+
+    @XmlElement(name = "topic-filter", defaultValue = "#")
+    private @NotNull String topicFilter = "#";
+
+    @XmlElement(name = "destination")
+    private @Nullable String destination;
+
+    @XmlElement(name = "messages-per-second", defaultValue = "0")
+    private double messagesPerSecond = 0;
+
+    @XmlElementWrapper(name = "fields")
+    @XmlElement(name = "field")
+    private @NotNull List<String> fields = new ArrayList<>();
+
+    @XmlElement(name = "field-filter-mode", defaultValue = "include")
+    private @NotNull String fieldFilterMode = "include";
+
+    @XmlElement(name = "schema")
+    private @Nullable String schema;
+
+    public @Nullable String getId() {
+        return id;
+    }
+
+    public @Nullable String getType() {
+        return type;
+    }
+
+    public @NotNull String getTopicFilter() {
+        return topicFilter;
+    }
+
+    public @Nullable String getDestination() {
+        return destination;
+    }
+
+    public double getMessagesPerSecond() {
+        return messagesPerSecond;
+    }
+
+    public @NotNull List<String> getFields() {
+        return fields;
+    }
+
+    public @NotNull String getFieldFilterMode() {
+        return fieldFilterMode;
+    }
+
+    public @Nullable String getSchema() {
+        return schema;
+    }
+}
@@ -47,4 +47,8 @@ public class MqttConfigurationDefaults {
     public static final boolean KEEP_ALIVE_ALLOW_UNLIMITED_DEFAULT = true;
     public static final int KEEP_ALIVE_MAX_DEFAULT = UnsignedDataTypes.UNSIGNED_SHORT_MAX_VALUE;
 
+    public static final boolean TOPIC_TREE_COPY_ON_WRITE_DEFAULT = false;
+
+    public static final boolean QOS_0_OFF_HEAP_DEFAULT = false;
+
 }
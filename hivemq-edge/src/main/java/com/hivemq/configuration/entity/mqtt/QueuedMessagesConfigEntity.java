@@ -39,6 +39,9 @@ public class QueuedMessagesConfigEntity {
     @XmlElement(name = "strategy", defaultValue = "discard")
     private @NotNull QueuedMessagesStrategy queuedMessagesStrategy = QueuedMessagesStrategy.DISCARD;
 
+    @XmlElement(name = "qos-0-off-heap", defaultValue = "false")
+    private boolean qos0OffHeap = MqttConfigurationDefaults.QOS_0_OFF_HEAP_DEFAULT;
+
     public long getMaxQueueSize() {
         return maxQueueSize;
     }
@@ -47,4 +50,8 @@ public class QueuedMessagesConfigEntity {
         return queuedMessagesStrategy;
     }
 
+    public boolean isQos0OffHeap() {
+        return qos0OffHeap;
+    }
+
 }
\ No newline at end of file
@@ -18,9 +18,11 @@ package com.hivemq.configuration.ioc;
 import com.hivemq.configuration.service.ApiConfigurationService;
 import com.hivemq.configuration.service.BridgeConfigurationService;
 import com.hivemq.configuration.service.ConfigurationService;
+import com.hivemq.configuration.service.DataGovernanceConfigurationService;
 import com.hivemq.configuration.service.DynamicConfigurationService;
 import com.hivemq.configuration.service.MqttConfigurationService;
 import com.hivemq.configuration.service.MqttsnConfigurationService;
+import com.hivemq.configuration.service.PersistenceConfigurationService;
 import com.hivemq.configuration.service.RestrictionsConfigurationService;
 import com.hivemq.configuration.service.SecurityConfigurationService;
 import com.hivemq.configuration.service.impl.listener.ListenerConfigurationService;
@@ -81,4 +83,16 @@ public class ConfigurationModule {
         return configurationService.gatewayConfiguration();
     }
 
+    @Provides
+    @Singleton
+    static @NotNull PersistenceConfigurationService persistenceConfigurationService(final @NotNull ConfigurationService configurationService) {
+        return configurationService.persistenceConfigurationService();
+    }
+
+    @Provides
+    @Singleton
+    static @NotNull DataGovernanceConfigurationService dataGovernanceConfigurationService(final @NotNull ConfigurationService configurationService) {
+        return configurationService.dataGovernanceConfiguration();
+    }
+
 }
@@ -16,6 +16,7 @@
 package com.hivemq.configuration.reader;
 
 import com.google.common.collect.ImmutableList;
+import com.hivemq.bridge.config.BridgeOutboundBuffer;
 import com.hivemq.bridge.config.BridgeTls;
 import com.hivemq.bridge.config.CustomUserProperty;
 import com.hivemq.bridge.config.LocalSubscription;
@@ -23,6 +24,7 @@ import com.hivemq.bridge.config.MqttBridge;
 import com.hivemq.bridge.config.RemoteSubscription;
 import com.hivemq.configuration.entity.bridge.BridgeAuthenticationEntity;
 import com.hivemq.configuration.entity.bridge.BridgeMqttEntity;
+import com.hivemq.configuration.entity.bridge.BridgeOutboundBufferEntity;
 import com.hivemq.configuration.entity.bridge.BridgeTlsEntity;
 import com.hivemq.configuration.entity.bridge.CustomUserPropertyEntity;
 import com.hivemq.configuration.entity.bridge.ForwardedTopicEntity;
@@ -108,6 +110,16 @@ public class BridgeConfigurator {
             builder.withLocalSubscriptions(localSubscriptions);
 
 
+            final BridgeOutboundBufferEntity outboundBuffer = bridgeConfig.getOutboundBuffer();
+            if (outboundBuffer.isEnabled()) {
+                if (outboundBuffer.getMaxSizeBytes() <= 0 || outboundBuffer.getMaxAgeSeconds() <= 0) {
+                    log.error("Outbound buffer limits for bridge '{}' must be greater than 0", bridgeConfig.getId());
+                    throw new UnrecoverableException(false);
+                }
+                builder.withOutboundBuffer(new BridgeOutboundBuffer(outboundBuffer.getMaxSizeBytes(),
+                        outboundBuffer.getMaxAgeSeconds()));
+            }
+
             final BridgeTls bridgeTls = convertTls(remoteBroker.getTls());
             if (bridgeTls != null) {
                 builder.withBridgeTls(bridgeTls);
@@ -281,6 +293,16 @@ public class BridgeConfigurator {
         loopPreventionEntity.setEnabled(from.isLoopPreventionEnabled());
         loopPreventionEntity.setHopCountLimit(from.getLoopPreventionHopCount());
 
+        //-- BridgeOutboundBufferEntity
+        final BridgeOutboundBuffer outboundBuffer = from.getOutboundBuffer();
+        if (outboundBuffer != null) {
+            final BridgeOutboundBufferEntity outboundBufferEntity = new BridgeOutboundBufferEntity();
+            outboundBufferEntity.setEnabled(true);
+            outboundBufferEntity.setMaxSizeBytes(outboundBuffer.getMaxSizeBytes());
+            outboundBufferEntity.setMaxAgeSeconds(outboundBuffer.getMaxAgeSeconds());
+            entity.setOutboundBuffer(outboundBufferEntity);
+        }
+
         //-- ForwardedTopicEntity*
         if (from.getLocalSubscriptions() != null) {
             entity.setForwardedTopics(unconvertLocalSubscriptions(from.getLocalSubscriptions()));
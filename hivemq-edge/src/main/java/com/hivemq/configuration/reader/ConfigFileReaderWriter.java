@@ -79,6 +79,7 @@ public class ConfigFileReaderWriter {
     private final @NotNull BridgeConfigurator bridgeConfigurator;
     private final @NotNull ApiConfigurator apiConfigurator;
     private final @NotNull UnsConfigurator unsConfigurator;
+    private final @NotNull DataGovernanceConfigurator dataGovernanceConfigurator;
     private final @NotNull DynamicConfigConfigurator dynamicConfigConfigurator;
     private final @NotNull UsageTrackingConfigurator usageTrackingConfigurator;
     private final @NotNull ProtocolAdapterConfigurator protocolAdapterConfigurator;
@@ -97,6 +98,7 @@ public class ConfigFileReaderWriter {
             final @NotNull BridgeConfigurator bridgeConfigurator,
             final @NotNull ApiConfigurator apiConfigurator,
             final @NotNull UnsConfigurator unsConfigurator,
+            final @NotNull DataGovernanceConfigurator dataGovernanceConfigurator,
             final @NotNull DynamicConfigConfigurator dynamicConfigConfigurator,
             final @NotNull UsageTrackingConfigurator usageTrackingConfigurator,
             final @NotNull ProtocolAdapterConfigurator protocolAdapterConfigurator) {
@@ -111,6 +113,7 @@ public class ConfigFileReaderWriter {
         this.bridgeConfigurator = bridgeConfigurator;
         this.apiConfigurator = apiConfigurator;
         this.unsConfigurator = unsConfigurator;
+        this.dataGovernanceConfigurator = dataGovernanceConfigurator;
         this.dynamicConfigConfigurator = dynamicConfigConfigurator;
         this.usageTrackingConfigurator = usageTrackingConfigurator;
         this.protocolAdapterConfigurator = protocolAdapterConfigurator;
@@ -330,6 +333,7 @@ public class ConfigFileReaderWriter {
         protocolAdapterConfigurator.setConfigs(config.getProtocolAdapterConfig());
         apiConfigurator.setApiConfig(config.getApiConfig());
         unsConfigurator.setUnsConfig(config.getUns());
+        dataGovernanceConfigurator.setDataGovernanceConfig(config.getDataGovernance());
         dynamicConfigConfigurator.setConfig(config.getGatewayConfig());
         usageTrackingConfigurator.setConfig(config.getUsageTracking());
     }
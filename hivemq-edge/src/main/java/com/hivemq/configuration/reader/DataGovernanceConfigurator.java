@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.configuration.reader;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.hivemq.configuration.entity.datagov.DataGovernanceEntity;
+import com.hivemq.configuration.entity.datagov.DataGovernancePolicyEntity;
+import com.hivemq.configuration.service.DataGovernanceConfigurationService;
+import com.hivemq.datagov.config.DataGovernancePolicyConfig;
+import com.hivemq.edge.HiveMQEdgeConstants;
+import com.hivemq.exceptions.UnrecoverableException;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.util.Topics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+public class DataGovernanceConfigurator {
+
+    private static final Logger log = LoggerFactory.getLogger(DataGovernanceConfigurator.class);
+
+    private static final ObjectMapper SCHEMA_READER = new ObjectMapper();
+
+    private final @NotNull DataGovernanceConfigurationService dataGovernanceConfigurationService;
+
+    @Inject
+    public DataGovernanceConfigurator(
+            final @NotNull DataGovernanceConfigurationService dataGovernanceConfigurationService) {
+        this.dataGovernanceConfigurationService = dataGovernanceConfigurationService;
+    }
+
+    public void setDataGovernanceConfig(final @NotNull DataGovernanceEntity configEntity) {
+
+        if (configEntity == null || configEntity.getPolicies().isEmpty()) {
+            return;
+        }
+
+        final Set<String> ids = new HashSet<>();
+        final ImmutableList.Builder<DataGovernancePolicyConfig> policies = ImmutableList.builder();
+        for (final DataGovernancePolicyEntity policyEntity : configEntity.getPolicies()) {
+            final String id = policyEntity.getId();
+            if (id == null || id.isBlank()) {
+                log.error("Data governance policy id cannot be empty");
+                throw new UnrecoverableException(false);
+            }
+            if (!id.matches(HiveMQEdgeConstants.ID_REGEX)) {
+                log.error("Data governance policy id is only allowed to contain: \"[a-z]|[A-Z]|[0-9]|-|_\". Found: '{}'",
+                        id);
+                throw new UnrecoverableException(false);
+            }
+            if (!ids.add(id)) {
+                log.error("Data governance policy id '{}' is used more than once", id);
+                throw new UnrecoverableException(false);
+            }
+            if (!Topics.isValidToSubscribe(policyEntity.getTopicFilter())) {
+                log.error("Topic filter '{}' for data governance policy '{}' is not valid",
+                        policyEntity.getTopicFilter(),
+                        id);
+                throw new UnrecoverableException(false);
+            }
+
+            final DataGovernancePolicyConfig.Type type = convertType(id, policyEntity.getType());
+            final DataGovernancePolicyConfig.Builder builder = new DataGovernancePolicyConfig.Builder().withId(id)
+                    .withType(type)
+                    .withTopicFilter(policyEntity.getTopicFilter())
+                    .withEnabled(policyEntity.isEnabled());
+
+            switch (type) {
+                case TOPIC_REWRITE:
+                    if (policyEntity.getDestination() == null || policyEntity.getDestination().isBlank()) {
+                        log.error("Destination is missing for data governance policy '{}'", id);
+                        throw new UnrecoverableException(false);
+                    }
+                    builder.withDestination(policyEntity.getDestination());
+                    break;
+                case RATE_LIMIT:
+                    if (policyEntity.getMessagesPerSecond() <= 0) {
+                        log.error("Messages per second for data governance policy '{}' must be greater than 0", id);
+                        throw new UnrecoverableException(false);
+                    }
+                    builder.withMessagesPerSecond(policyEntity.getMessagesPerSecond());
+                    break;
+                case FIELD_FILTER:
+                    if (policyEntity.getFields().isEmpty()) {
+                        log.error("Fields are missing for data governance policy '{}'", id);
+                        throw new UnrecoverableException(false);
+                    }
+                    builder.withFields(ImmutableSet.copyOf(policyEntity.getFields()))
+                            .withIncludeFields(!"exclude".equals(policyEntity.getFieldFilterMode()));
+                    break;
+                case SCHEMA:
+                    validateSchema(id, policyEntity.getSchema());
+                    builder.withSchema(policyEntity.getSchema());
+                    break;
+                default:
+                    break;
+            }
+            policies.add(builder.build());
+        }
+        dataGovernanceConfigurationService.setPolicies(policies.build());
+    }
+
+    private static @NotNull DataGovernancePolicyConfig.Type convertType(
+            final @NotNull String id, final @Nullable String type) {
+        if (type != null) {
+            switch (type) {
+                case "drop":
+                    return DataGovernancePolicyConfig.Type.DROP;
+                case "rate-limit":
+                    return DataGovernancePolicyConfig.Type.RATE_LIMIT;
+                case "topic-rewrite":
+                    return DataGovernancePolicyConfig.Type.TOPIC_REWRITE;
+                case "field-filter":
+                    return DataGovernancePolicyConfig.Type.FIELD_FILTER;
+                case "schema":
+                    return DataGovernancePolicyConfig.Type.SCHEMA;
+            }
+        }
+        log.error("Unknown type '{}' for data governance policy '{}'", type, id);
+        throw new UnrecoverableException(false);
+    }
+
+    private static void validateSchema(final @NotNull String id, final @Nullable String schema) {
+        if (schema == null || schema.isBlank()) {
+            log.error("Schema is missing for data governance policy '{}'", id);
+            throw new UnrecoverableException(false);
+        }
+        try {
+            SCHEMA_READER.readTree(schema);
+        } catch (final IOException e) {
+            log.error("Schema for data governance policy '{}' is not valid JSON", id);
+            log.debug("Original error message:", e);
+            throw new UnrecoverableException(false);
+        }
+    }
+}
@@ -63,6 +63,7 @@ public class MqttConfigurator {
 
         mqttConfigurationService.setMaxQueuedMessages(mqttConfigEntity.getQueuedMessagesConfigEntity().getMaxQueueSize());
         mqttConfigurationService.setQueuedMessagesStrategy(MqttConfigurationService.QueuedMessagesStrategy.valueOf(mqttConfigEntity.getQueuedMessagesConfigEntity().getQueuedMessagesStrategy().name()));
+        mqttConfigurationService.setQos0OffHeapEnabled(mqttConfigEntity.getQueuedMessagesConfigEntity().isQos0OffHeap());
 
         final long clientSessionExpiryInterval = mqttConfigEntity.getSessionExpiryConfigEntity().getMaxInterval();
         mqttConfigurationService.setMaxSessionExpiryInterval(validateSessionExpiryInterval(clientSessionExpiryInterval));
@@ -79,6 +80,8 @@ public class MqttConfigurator {
 
         final int maxPacketSize = mqttConfigEntity.getPacketsConfigEntity().getMaxPacketSize();
         mqttConfigurationService.setMaxPacketSize(validateMaxPacketSize(maxPacketSize));
+
+        mqttConfigurationService.setTopicTreeCopyOnWriteEnabled(mqttConfigEntity.getTopicTreeConfigEntity().isCopyOnWrite());
     }
 
     private int validateMaxPerClient(final int maxPerClient) {
@@ -15,15 +15,34 @@
  */
 package com.hivemq.configuration.reader;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.math.IntMath;
 import com.hivemq.configuration.entity.PersistenceEntity;
 import com.hivemq.configuration.service.PersistenceConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.RoundingMode;
+
+import static com.hivemq.configuration.service.PersistenceConfigurationService.BUCKET_COUNT_AUTO;
+import static com.hivemq.configuration.service.PersistenceConfigurationService.BUCKET_COUNT_MAXIMUM;
+import static com.hivemq.configuration.service.PersistenceConfigurationService.EXPECTED_CLIENTS_DEFAULT;
 
 /**
  * @author Lukas Brandl
  */
 public class PersistenceConfigurator {
 
+    private static final Logger log = LoggerFactory.getLogger(PersistenceConfigurator.class);
+
+    /**
+     * Buckets are only worth their overhead (iterations over all buckets, one queue per bucket) if there are enough
+     * clients to spread over them.
+     */
+    @VisibleForTesting
+    static final int CLIENTS_PER_BUCKET = 8;
+
     @NotNull
     private final PersistenceConfigurationService persistenceConfigurationService;
 
@@ -35,5 +54,58 @@ public class PersistenceConfigurator {
         persistenceConfigurationService.setMode(PersistenceConfigurationService.PersistenceMode.valueOf(
                 persistenceConfig.getMode().name()));
 
+        final int expectedClients = validateExpectedClients(persistenceConfig.getExpectedClients());
+        persistenceConfigurationService.setExpectedClients(expectedClients);
+        persistenceConfigurationService.setBucketCount(
+                resolveBucketCount(persistenceConfig.getBucketCount(), expectedClients));
+    }
+
+    private int validateExpectedClients(final int expectedClients) {
+        if (expectedClients < 1) {
+            log.warn("The configured expected-clients ({}) must be at least 1. The default value ({}) is used instead.",
+                    expectedClients,
+                    EXPECTED_CLIENTS_DEFAULT);
+            return EXPECTED_CLIENTS_DEFAULT;
+        }
+        return expectedClients;
+    }
+
+    private int resolveBucketCount(final int bucketCount, final int expectedClients) {
+        if (bucketCount >= 1 && bucketCount <= BUCKET_COUNT_MAXIMUM) {
+            return bucketCount;
+        }
+        final int calculated =
+                calculateBucketCount(Runtime.getRuntime().availableProcessors(), expectedClients);
+        if (bucketCount != BUCKET_COUNT_AUTO) {
+            log.warn(
+                    "The configured bucket-count ({}) must be in the range 1 - {}. The calculated value ({}) is used instead.",
+                    bucketCount,
+                    BUCKET_COUNT_MAXIMUM,
+                    calculated);
+        } else {
+            log.debug("Using {} persistence buckets for {} processors and {} expected clients.",
+                    calculated,
+                    Runtime.getRuntime().availableProcessors(),
+                    expectedClients);
+        }
+        return calculated;
+    }
+
+    /**
+     * Derives the amount of persistence buckets. There is no gain in having more buckets than processors, as every
+     * bucket is worked on by at most one thread at a time, nor in having more buckets than there are clients to
+     * spread over them. The result is rounded up to a power of two, so the single writer can distribute the buckets
+     * evenly over its queues.
+     *
+     * @param processors      the amount of available processors
+     * @param expectedClients the amount of clients that are expected to be connected at the same time
+     * @return the bucket count, between 1 and {@link PersistenceConfigurationService#BUCKET_COUNT_MAXIMUM}
+     */
+    @VisibleForTesting
+    static int calculateBucketCount(final int processors, final int expectedClients) {
+        final int byProcessors = IntMath.ceilingPowerOfTwo(Math.max(1, processors));
+        final int byClients = IntMath.ceilingPowerOfTwo(
+                Math.max(1, IntMath.divide(expectedClients, CLIENTS_PER_BUCKET, RoundingMode.CEILING)));
+        return Math.min(BUCKET_COUNT_MAXIMUM, Math.min(byProcessors, byClients));
     }
 }
@@ -75,6 +75,8 @@ public interface ConfigurationService {
 
     UnsConfigurationService unsConfiguration();
 
+    DataGovernanceConfigurationService dataGovernanceConfiguration();
+
     SecurityConfigurationService securityConfiguration();
 
     PersistenceConfigurationService persistenceConfigurationService();
@@ -19,6 +19,7 @@ import com.hivemq.migration.meta.PersistenceType;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class InternalConfigurations {
@@ -69,6 +70,11 @@ public class InternalConfigurations {
      */
     public static final AtomicInteger TOPIC_TREE_MAP_CREATION_THRESHOLD = new AtomicInteger(16);
 
+    /**
+     * The maximum amount of published topics for which the matching subscribers are cached, 0 disables the cache
+     */
+    public static final AtomicInteger TOPIC_TREE_SUBSCRIBERS_CACHE_SIZE = new AtomicInteger(10000);
+
     /**
      * The configuration for qos 0 memory hard limit divisor, must be greater than 0.
      */
@@ -79,6 +85,33 @@ public class InternalConfigurations {
      */
     public static final AtomicInteger QOS_0_MEMORY_LIMIT_PER_CLIENT_BYTES = new AtomicInteger(1024 * 1024 * 5);
 
+    /**
+     * If the payloads of queued qos 0 messages are stored in pooled direct memory instead of the heap when the
+     * in-memory queue persistence is used.
+     */
+    public static final AtomicBoolean QOS_0_OFF_HEAP_ENABLED = new AtomicBoolean(false);
+
+    /**
+     * The configuration for the qos 0 memory hard limit if the payloads are stored off heap, replaces the limit
+     * derived from the heap size, must be greater than 0.
+     */
+    public static final AtomicLong QOS_0_OFF_HEAP_MEMORY_LIMIT_BYTES = new AtomicLong(1024 * 1024 * 64);
+
+    /**
+     * If the topics of incoming PUBLISH messages are cached per event loop, so a repeated topic is decoded only once
+     */
+    public static final AtomicBoolean TOPIC_INTERNER_ENABLED = new AtomicBoolean(true);
+
+    /**
+     * The amount of topics cached per event loop, rounded up to a power of two
+     */
+    public static final AtomicInteger TOPIC_INTERNER_SIZE = new AtomicInteger(1024);
+
+    /**
+     * The maximum length in bytes of a cached topic, longer topics are always decoded
+     */
+    public static final AtomicInteger TOPIC_INTERNER_MAX_TOPIC_LENGTH_BYTES = new AtomicInteger(256);
+
     /**
      * The amount of qos 0 messages that are queued if the channel is not writable
      */
@@ -112,10 +145,47 @@ public class InternalConfigurations {
     public static final AtomicInteger RETAINED_MESSAGE_QUEUE_SIZE = new AtomicInteger(10_000);
 
     /**
-     * The configuration if rocks db is used instead of xodus for retained messages.
+     * The configuration if retained messages are stored on disk even if the persistence mode is in-memory. Retained
+     * messages are always stored on disk if the persistence mode is file.
      */
     public static final AtomicReference<PersistenceType> RETAINED_MESSAGE_PERSISTENCE_TYPE = new AtomicReference<>(PersistenceType.IN_MEMORY);
 
+    /**
+     * The size of a segment file of the file based retained message persistence
+     */
+    public static final AtomicInteger RETAINED_MESSAGE_FILE_SEGMENT_SIZE_BYTES = new AtomicInteger(1024 * 1024 * 4); // 4Mb
+
+    /**
+     * The configuration if the retained messages for a wildcard subscription are sent in pages of matching topics,
+     * instead of resolving all matching topics before the first retained message is sent
+     */
+    public static final AtomicBoolean RETAINED_MESSAGES_PAGED_DELIVERY_ENABLED = new AtomicBoolean(true);
+
+    /**
+     * The max amount of topics of a persistence bucket that are resolved at once for a wildcard subscription
+     */
+    public static final AtomicInteger RETAINED_MESSAGES_PAGE_SIZE = new AtomicInteger(250);
+
+    /**
+     * The time to wait before retained messages are sent again if the client queue is full of sent retained messages
+     */
+    public static final AtomicInteger RETAINED_MESSAGES_PAGED_DELIVERY_BACKOFF_MS = new AtomicInteger(50);
+
+    /**
+     * The size of a segment file of the file based client queue persistence
+     */
+    public static final AtomicInteger CLIENT_QUEUE_FILE_SEGMENT_SIZE_BYTES = new AtomicInteger(1024 * 1024 * 16); // 16Mb
+
+    /**
+     * The interval in which unreferenced payloads are removed from the payload persistence
+     */
+    public static final AtomicInteger PAYLOAD_PERSISTENCE_CLEANUP_SCHEDULE_MSEC = new AtomicInteger(10_000);
+
+    /**
+     * The minimum time a payload must be unreferenced before it is removed from the payload persistence
+     */
+    public static final AtomicInteger PAYLOAD_PERSISTENCE_REMOVE_DELAY_MSEC = new AtomicInteger(2_000);
+
 
     /* *****************
      *      SSL       *
@@ -224,6 +294,11 @@ public class InternalConfigurations {
     public static final boolean NETTY_SHUTDOWN_LEGACY = false;
     public static final int NETTY_COUNT_OF_CONNECTIONS_IN_SHUTDOWN_PARTITION = 100;
 
+    /**
+     * set to false to always use the NIO transport, even if a native transport is available
+     */
+    public static final AtomicBoolean NETTY_NATIVE_TRANSPORT_ENABLED = new AtomicBoolean(true);
+
     public static final double MQTT_CONNECTION_KEEP_ALIVE_FACTOR = 1.5;
 
     public static final long DISCONNECT_KEEP_ALIVE_BATCH = 100;
@@ -266,4 +341,29 @@ public class InternalConfigurations {
     public static final AtomicInteger ADAPTER_RUNTIME_JOB_EXECUTION_TIMEOUT_MILLIS = new AtomicInteger(60 * 1000);  //-- 60 Seconds
     public static final AtomicInteger ADAPTER_RUNTIME_WATCHDOG_TIMEOUT_ERRORS_BEFORE_INTERRUPT = new AtomicInteger(10);
     public static final AtomicInteger EDGE_RUNTIME_MAX_EVENTS_IN_INMEMORY_LIST = new AtomicInteger(250);
+
+    /**
+     * If the values of the metrics are recorded, so the metrics API can return their history
+     */
+    public static final AtomicBoolean METRICS_HISTORY_ENABLED = new AtomicBoolean(true);
+
+    /**
+     * The maximum amount of metrics the history is recorded for
+     */
+    public static final AtomicInteger METRICS_HISTORY_MAX_METRICS = new AtomicInteger(1000);
+
+    /**
+     * The amount of samples per metric kept in 1 second resolution
+     */
+    public static final AtomicInteger METRICS_HISTORY_SECONDS = new AtomicInteger(300);
+
+    /**
+     * The amount of samples per metric kept in 1 minute resolution
+     */
+    public static final AtomicInteger METRICS_HISTORY_MINUTES = new AtomicInteger(120);
+
+    /**
+     * The amount of samples per metric kept in 1 hour resolution
+     */
+    public static final AtomicInteger METRICS_HISTORY_HOURS = new AtomicInteger(48);
 }
@@ -136,6 +136,16 @@ public interface MqttConfigurationService {
      */
     int keepAliveMax();
 
+    /**
+     * @return true if the copy-on-write topic tree is used, which does not lock on lookups, else false. Default false
+     */
+    boolean topicTreeCopyOnWriteEnabled();
+
+    /**
+     * @return true if the payloads of queued qos 0 messages are stored off heap, else false. Default false
+     */
+    boolean qos0OffHeapEnabled();
+
 
     void setQueuedMessagesStrategy(@NotNull QueuedMessagesStrategy strategy);
 
@@ -166,4 +176,8 @@ public interface MqttConfigurationService {
     void setKeepAliveAllowZero(final boolean allowZero);
 
     void setKeepAliveMax(final int keepAliveMax);
+
+    void setTopicTreeCopyOnWriteEnabled(final boolean enabled);
+
+    void setQos0OffHeapEnabled(final boolean enabled);
 }
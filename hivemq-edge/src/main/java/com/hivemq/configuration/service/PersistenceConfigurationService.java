@@ -22,11 +22,25 @@ import com.hivemq.extension.sdk.api.annotations.NotNull;
  */
 public interface PersistenceConfigurationService {
 
+    /**
+     * A bucket count of 0 means that the amount of buckets is derived from the available processors and the expected
+     * amount of clients.
+     */
+    int BUCKET_COUNT_AUTO = 0;
+    int BUCKET_COUNT_MAXIMUM = 64;
+    int EXPECTED_CLIENTS_DEFAULT = 1000;
+
     enum PersistenceMode {
         /**
          * All persistent data like queued messages, retained messages subscriptions and so on, will be stored in RAM.
          */
-        IN_MEMORY;
+        IN_MEMORY,
+
+        /**
+         * Queued messages are stored in append-only segment files on disk, so they survive a restart and the amount
+         * of queued messages is not bounded by the heap. All other persistent data is stored in RAM.
+         */
+        FILE;
     }
 
     /**
@@ -43,4 +57,34 @@ public interface PersistenceConfigurationService {
      * @param mode to use for persistent date
      */
     void setMode(@NotNull final PersistenceMode mode);
+
+    /**
+     * The amount of buckets all persistences are split into. Each bucket is only accessed by a single writer at a time,
+     * so this also limits how many writers can work on a persistence in parallel.
+     *
+     * @return the resolved bucket count, never {@link #BUCKET_COUNT_AUTO}.
+     */
+    int getBucketCount();
+
+    /**
+     * Set the bucket count.
+     * Changes will be ignored once the persistence is initialized.
+     *
+     * @param bucketCount the amount of buckets, must be at least 1
+     */
+    void setBucketCount(int bucketCount);
+
+    /**
+     * The amount of clients that is expected to be connected at the same time.
+     *
+     * @return the expected amount of clients.
+     */
+    int getExpectedClients();
+
+    /**
+     * Set the expected amount of clients.
+     *
+     * @param expectedClients the expected amount of clients
+     */
+    void setExpectedClients(int expectedClients);
 }
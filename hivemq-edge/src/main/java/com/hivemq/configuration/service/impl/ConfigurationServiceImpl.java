@@ -54,6 +54,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
     private final @NotNull BridgeConfigurationService bridgeConfigurationService;
     private final @NotNull ApiConfigurationService apiConfigurationService;
     private final @NotNull UnsConfigurationService unsConfigurationService;
+    private final @NotNull DataGovernanceConfigurationService dataGovernanceConfigurationService;
     private final @NotNull DynamicConfigurationService dynamicConfigurationService;
     private final @NotNull UsageTrackingConfigurationService usageTrackingConfigurationService;
     private final @NotNull ProtocolAdapterConfigurationService protocolAdapterConfigurationService;
@@ -72,6 +73,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             final @NotNull BridgeConfigurationService bridgeConfigurationService,
             final @NotNull ApiConfigurationService apiConfigurationService,
             final @NotNull UnsConfigurationService unsConfigurationService,
+            final @NotNull DataGovernanceConfigurationService dataGovernanceConfigurationService,
             final @NotNull DynamicConfigurationService dynamicConfigurationService,
             final @NotNull UsageTrackingConfigurationService usageTrackingConfigurationService,
             final @NotNull ProtocolAdapterConfigurationService protocolAdapterConfigurationService) {
@@ -84,6 +86,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         this.bridgeConfigurationService = bridgeConfigurationService;
         this.apiConfigurationService = apiConfigurationService;
         this.unsConfigurationService = unsConfigurationService;
+        this.dataGovernanceConfigurationService = dataGovernanceConfigurationService;
         this.dynamicConfigurationService = dynamicConfigurationService;
         this.usageTrackingConfigurationService = usageTrackingConfigurationService;
         this.protocolAdapterConfigurationService = protocolAdapterConfigurationService;
@@ -147,6 +150,11 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         return proxy(UnsConfigurationService.class, unsConfigurationService);
     }
 
+    @Override
+    public @NotNull DataGovernanceConfigurationService dataGovernanceConfiguration() {
+        return dataGovernanceConfigurationService;
+    }
+
     @Override
     public void setConfigFileReaderWriter(final @NotNull ConfigFileReaderWriter configFileReaderWriter) {
         Preconditions.checkNotNull(configFileReaderWriter);
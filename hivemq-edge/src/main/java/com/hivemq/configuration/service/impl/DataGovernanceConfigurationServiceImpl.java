@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.configuration.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.hivemq.configuration.service.DataGovernanceConfigurationService;
+import com.hivemq.datagov.config.DataGovernancePolicyConfig;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.util.List;
+
+public class DataGovernanceConfigurationServiceImpl implements DataGovernanceConfigurationService {
+
+    private volatile @NotNull List<DataGovernancePolicyConfig> policies = ImmutableList.of();
+
+    @Override
+    public @NotNull List<DataGovernancePolicyConfig> getPolicies() {
+        return policies;
+    }
+
+    @Override
+    public void setPolicies(final @NotNull List<DataGovernancePolicyConfig> policies) {
+        this.policies = ImmutableList.copyOf(policies);
+    }
+}
@@ -61,6 +61,8 @@ public class MqttConfigurationServiceImpl implements MqttConfigurationService {
     private final AtomicBoolean keepAliveAllowZero = new AtomicBoolean(KEEP_ALIVE_ALLOW_UNLIMITED_DEFAULT);
     private final AtomicInteger keepAliveMax = new AtomicInteger(KEEP_ALIVE_MAX_DEFAULT);
     private final AtomicReference<QoS> maximumQos = new AtomicReference<>(MAXIMUM_QOS_DEFAULT);
+    private final AtomicBoolean topicTreeCopyOnWriteEnabled = new AtomicBoolean(TOPIC_TREE_COPY_ON_WRITE_DEFAULT);
+    private final AtomicBoolean qos0OffHeapEnabled = new AtomicBoolean(QOS_0_OFF_HEAP_DEFAULT);
 
     @Override
     public long maxQueuedMessages() {
@@ -229,4 +231,25 @@ public class MqttConfigurationServiceImpl implements MqttConfigurationService {
         this.serverReceiveMaximum.set(serverReceiveMaximum);
     }
 
+    @Override
+    public boolean topicTreeCopyOnWriteEnabled() {
+        return topicTreeCopyOnWriteEnabled.get();
+    }
+
+    @Override
+    public void setTopicTreeCopyOnWriteEnabled(final boolean enabled) {
+        log.debug("Setting topic tree copy-on-write enabled to {}", enabled);
+        this.topicTreeCopyOnWriteEnabled.set(enabled);
+    }
+
+    @Override
+    public boolean qos0OffHeapEnabled() {
+        return qos0OffHeapEnabled.get();
+    }
+
+    @Override
+    public void setQos0OffHeapEnabled(final boolean enabled) {
+        log.debug("Setting qos 0 off heap enabled to {}", enabled);
+        this.qos0OffHeapEnabled.set(enabled);
+    }
 }
@@ -24,6 +24,8 @@ import com.hivemq.extension.sdk.api.annotations.NotNull;
 public class PersistenceConfigurationServiceImpl implements PersistenceConfigurationService {
     @NotNull
     private PersistenceMode mode = PersistenceMode.IN_MEMORY;
+    private int bucketCount = 1;
+    private int expectedClients = EXPECTED_CLIENTS_DEFAULT;
 
     @Override
     public @NotNull PersistenceMode getMode() {
@@ -34,4 +36,24 @@ public class PersistenceConfigurationServiceImpl implements PersistenceConfigura
     public void setMode(final PersistenceMode mode) {
         this.mode = mode;
     }
+
+    @Override
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    @Override
+    public void setBucketCount(final int bucketCount) {
+        this.bucketCount = bucketCount;
+    }
+
+    @Override
+    public int getExpectedClients() {
+        return expectedClients;
+    }
+
+    @Override
+    public void setExpectedClients(final int expectedClients) {
+        this.expectedClients = expectedClients;
+    }
 }
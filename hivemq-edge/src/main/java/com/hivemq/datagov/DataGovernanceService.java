@@ -20,12 +20,23 @@ import com.hivemq.datagov.model.DataGovernanceResult;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.mqtt.handler.publish.PublishReturnCode;
 
+import java.util.List;
+
 public interface DataGovernanceService {
 
     @NotNull ListenableFuture<DataGovernanceResult> apply(@NotNull DataGovernanceContext governanceContext);
 
     @NotNull ListenableFuture<PublishReturnCode> applyAndPublish(@NotNull DataGovernanceContext governanceContext);
 
+    /**
+     * Applies the policies to all contexts with a single task and publishes the results together. All contexts of the
+     * batch are expected to use the same executor and client.
+     *
+     * @return a future with the return codes in the order of the contexts
+     */
+    @NotNull ListenableFuture<List<PublishReturnCode>> applyAndPublish(
+            @NotNull List<DataGovernanceContext> governanceContexts);
+
 }
 
 
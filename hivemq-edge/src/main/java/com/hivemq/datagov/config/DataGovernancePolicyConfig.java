@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.config;
+
+import com.google.common.collect.ImmutableSet;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+
+import java.util.Set;
+
+/**
+ * A data governance policy as it is configured. Only the settings of its type are set.
+ */
+public class DataGovernancePolicyConfig {
+
+    public enum Type {
+        DROP,
+        RATE_LIMIT,
+        TOPIC_REWRITE,
+        FIELD_FILTER,
+        SCHEMA
+    }
+
+    private final @NotNull String id;
+    private final @NotNull Type type;
+    private final @NotNull String topicFilter;
+    private final boolean enabled;
+    private final @Nullable String destination;
+    private final double messagesPerSecond;
+    private final @NotNull ImmutableSet<String> fields;
+    private final boolean includeFields;
+    private final @Nullable String schema;
+
+    public DataGovernancePolicyConfig(
+            final @NotNull String id,
+            final @NotNull Type type,
+            final @NotNull String topicFilter,
+            final boolean enabled,
+            final @Nullable String destination,
+            final double messagesPerSecond,
+            final @NotNull Set<String> fields,
+            final boolean includeFields,
+            final @Nullable String schema) {
+        this.id = id;
+        this.type = type;
+        this.topicFilter = topicFilter;
+        this.enabled = enabled;
+        this.destination = destination;
+        this.messagesPerSecond = messagesPerSecond;
+        this.fields = ImmutableSet.copyOf(fields);
+        this.includeFields = includeFields;
+        this.schema = schema;
+    }
+
+    public @NotNull String getId() {
+        return id;
+    }
+
+    public @NotNull Type getType() {
+        return type;
+    }
+
+    public @NotNull String getTopicFilter() {
+        return topicFilter;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the destination template of a topic rewrite policy
+     */
+    public @Nullable String getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return the max messages per second of a rate limit policy
+     */
+    public double getMessagesPerSecond() {
+        return messagesPerSecond;
+    }
+
+    /**
+     * @return the top level JSON fields of a field filter policy
+     */
+    public @NotNull Set<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return whether a field filter policy keeps only the fields instead of removing them
+     */
+    public boolean isIncludeFields() {
+        return includeFields;
+    }
+
+    /**
+     * @return the JSON schema of a schema policy
+     */
+    public @Nullable String getSchema() {
+        return schema;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "DataGovernancePolicyConfig{" + "id='" + id + '\'' + ", type=" + type + ", topicFilter='" +
+                topicFilter + '\'' + ", enabled=" + enabled + '}';
+    }
+
+    public static class Builder {
+
+        private @Nullable String id;
+        private @Nullable Type type;
+        private @Nullable String topicFilter;
+        private boolean enabled = true;
+        private @Nullable String destination;
+        private double messagesPerSecond;
+        private @NotNull Set<String> fields = Set.of();
+        private boolean includeFields = true;
+        private @Nullable String schema;
+
+        public @NotNull Builder withId(final @NotNull String id) {
+            this.id = id;
+            return this;
+        }
+
+        public @NotNull Builder withType(final @NotNull Type type) {
+            this.type = type;
+            return this;
+        }
+
+        public @NotNull Builder withTopicFilter(final @NotNull String topicFilter) {
+            this.topicFilter = topicFilter;
+            return this;
+        }
+
+        public @NotNull Builder withEnabled(final boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public @NotNull Builder withDestination(final @Nullable String destination) {
+            this.destination = destination;
+            return this;
+        }
+
+        public @NotNull Builder withMessagesPerSecond(final double messagesPerSecond) {
+            this.messagesPerSecond = messagesPerSecond;
+            return this;
+        }
+
+        public @NotNull Builder withFields(final @NotNull Set<String> fields) {
+            this.fields = fields;
+            return this;
+        }
+
+        public @NotNull Builder withIncludeFields(final boolean includeFields) {
+            this.includeFields = includeFields;
+            return this;
+        }
+
+        public @NotNull Builder withSchema(final @Nullable String schema) {
+            this.schema = schema;
+            return this;
+        }
+
+        public @NotNull DataGovernancePolicyConfig build() {
+            return new DataGovernancePolicyConfig(id,
+                    type,
+                    topicFilter,
+                    enabled,
+                    destination,
+                    messagesPerSecond,
+                    fields,
+                    includeFields,
+                    schema);
+        }
+    }
+}
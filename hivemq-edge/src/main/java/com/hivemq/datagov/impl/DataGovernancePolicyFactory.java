@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.hivemq.datagov.config.DataGovernancePolicyConfig;
+import com.hivemq.datagov.model.impl.DataGovernancePolicyImpl;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+
+/**
+ * Creates the policies of the data governance policy configuration.
+ */
+@Singleton
+public class DataGovernancePolicyFactory {
+
+    private final @NotNull ObjectMapper objectMapper;
+
+    @Inject
+    public DataGovernancePolicyFactory(final @NotNull ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a setting of the policy type is missing or invalid
+     */
+    public @NotNull DataGovernancePolicyImpl create(final @NotNull DataGovernancePolicyConfig config) {
+        final DataGovernancePolicyImpl policy;
+        switch (config.getType()) {
+            case DROP:
+                policy = new DropDataGovernancePolicy(config.getId(), config.getTopicFilter());
+                break;
+            case RATE_LIMIT:
+                policy = new RateLimitDataGovernancePolicy(config.getId(),
+                        config.getTopicFilter(),
+                        config.getMessagesPerSecond());
+                break;
+            case TOPIC_REWRITE:
+                Preconditions.checkArgument(config.getDestination() != null, "Destination Must Exist On Policy");
+                policy = new TopicRewriteDataGovernancePolicy(config.getId(),
+                        config.getTopicFilter(),
+                        config.getDestination());
+                break;
+            case FIELD_FILTER:
+                policy = config.isIncludeFields() ?
+                        FieldFilterDataGovernancePolicy.including(config.getId(),
+                                config.getTopicFilter(),
+                                objectMapper,
+                                config.getFields()) :
+                        FieldFilterDataGovernancePolicy.excluding(config.getId(),
+                                config.getTopicFilter(),
+                                objectMapper,
+                                config.getFields());
+                break;
+            case SCHEMA:
+                Preconditions.checkArgument(config.getSchema() != null, "Schema Must Exist On Policy");
+                try {
+                    policy = new SchemaDataGovernancePolicy(config.getId(),
+                            config.getTopicFilter(),
+                            objectMapper,
+                            objectMapper.readTree(config.getSchema()));
+                } catch (final IOException e) {
+                    throw new IllegalArgumentException("Schema Is Not Valid JSON", e);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown Policy Type " + config.getType());
+        }
+        policy.setEnabled(config.isEnabled());
+        return policy;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.impl;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
+import com.hivemq.configuration.service.DataGovernanceConfigurationService;
+import com.hivemq.datagov.config.DataGovernancePolicyConfig;
+import com.hivemq.datagov.model.DataGovernancePolicy;
+import com.hivemq.datagov.model.DataGovernancePolicyChain;
+import com.hivemq.datagov.model.impl.DataGovernancePolicyChainImpl;
+import com.hivemq.datagov.provider.DataGovernancePolicyProvider;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The unified namespace policy is always the first policy of every chain, the configured policies follow in the
+ * order of the configuration.
+ * <p>
+ * Chains are compiled on the first message of a topic and the most recently used chains are cached until the policies
+ * change. Every change replaces the policies together with the cache, so a chain compiled from outdated policies never
+ * ends up in the new cache.
+ */
+@Singleton
+public class DataGovernancePolicyProviderImpl implements DataGovernancePolicyProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(DataGovernancePolicyProviderImpl.class);
+
+    private static final int MAX_CACHED_CHAINS = 10_000;
+
+    private final @NotNull Object mutex = new Object();
+    private volatile @NotNull Policies policies;
+
+    @Inject
+    public DataGovernancePolicyProviderImpl(
+            final @NotNull UnifiedNamespaceDataGovernancePolicy namespaceDataGovernancePolicy,
+            final @NotNull DataGovernanceConfigurationService dataGovernanceConfigurationService,
+            final @NotNull DataGovernancePolicyFactory policyFactory) {
+        this(namespaceDataGovernancePolicy);
+        for (final DataGovernancePolicyConfig config : dataGovernanceConfigurationService.getPolicies()) {
+            try {
+                addPolicy(policyFactory.create(config));
+            } catch (final RuntimeException e) {
+                log.error("Data Governance Policy '{}' Could Not Be Created, It Is Not Applied", config.getId());
+                log.debug("Original exception:", e);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    DataGovernancePolicyProviderImpl(final @NotNull UnifiedNamespaceDataGovernancePolicy namespaceDataGovernancePolicy) {
+        this.policies = new Policies(ImmutableList.of(new FilteredPolicy(namespaceDataGovernancePolicy)));
+    }
+
+    @Override
+    public void addPolicy(final @NotNull DataGovernancePolicy policy) {
+        final FilteredPolicy filteredPolicy = new FilteredPolicy(policy);
+        synchronized (mutex) {
+            final List<FilteredPolicy> newPolicies = new ArrayList<>(policies.policies.size() + 1);
+            boolean replaced = false;
+            for (final FilteredPolicy existing : policies.policies) {
+                if (existing.policy.getId().equals(policy.getId())) {
+                    newPolicies.add(filteredPolicy);
+                    replaced = true;
+                } else {
+                    newPolicies.add(existing);
+                }
+            }
+            if (!replaced) {
+                newPolicies.add(filteredPolicy);
+            }
+            policies = new Policies(ImmutableList.copyOf(newPolicies));
+        }
+    }
+
+    @Override
+    public boolean removePolicy(final @NotNull String policyId) {
+        synchronized (mutex) {
+            final ImmutableList.Builder<FilteredPolicy> newPolicies = ImmutableList.builder();
+            boolean removed = false;
+            for (final FilteredPolicy existing : policies.policies) {
+                if (existing.policy.getId().equals(policyId)) {
+                    removed = true;
+                } else {
+                    newPolicies.add(existing);
+                }
+            }
+            if (removed) {
+                policies = new Policies(newPolicies.build());
+            }
+            return removed;
+        }
+    }
+
+    @Override
+    public @NotNull List<DataGovernancePolicy> getPolicies() {
+        final ImmutableList.Builder<DataGovernancePolicy> builder = ImmutableList.builder();
+        for (final FilteredPolicy filteredPolicy : policies.policies) {
+            builder.add(filteredPolicy.policy);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public @NotNull DataGovernancePolicyChain getPolicyChain(final @NotNull String topic) {
+        final Policies policies = this.policies;
+        final DataGovernancePolicyChain cached = policies.chains.getIfPresent(topic);
+        if (cached != null) {
+            return cached;
+        }
+        final DataGovernancePolicyChain chain = policies.compile(topic);
+        policies.chains.put(topic, chain);
+        return chain;
+    }
+
+    private static class Policies {
+
+        private final @NotNull ImmutableList<FilteredPolicy> policies;
+        //-- Topics are unbounded, so the least recently used chains are evicted once the cache is full
+        private final @NotNull Cache<String, DataGovernancePolicyChain> chains =
+                CacheBuilder.newBuilder().maximumSize(MAX_CACHED_CHAINS).build();
+        //-- Any chain can continue with the chain of the topic the message is rewritten to, so a single blocking
+        //-- policy makes all chains blocking
+        private final boolean blocking;
+
+        private Policies(final @NotNull ImmutableList<FilteredPolicy> policies) {
+            this.policies = policies;
+            boolean blocking = false;
+            for (final FilteredPolicy filteredPolicy : policies) {
+                blocking |= filteredPolicy.policy.isBlocking();
+            }
+            this.blocking = blocking;
+        }
+
+        private @NotNull DataGovernancePolicyChain compile(final @NotNull String topic) {
+            final MqttTopic mqttTopic = MqttTopic.of(topic);
+            final List<DataGovernancePolicy> matching = new ArrayList<>(policies.size());
+            for (final FilteredPolicy filteredPolicy : policies) {
+                if (filteredPolicy.topicFilter.matches(mqttTopic)) {
+                    matching.add(filteredPolicy.policy);
+                }
+            }
+            return new DataGovernancePolicyChainImpl(matching, blocking);
+        }
+    }
+
+    private static class FilteredPolicy {
+
+        private final @NotNull DataGovernancePolicy policy;
+        private final @NotNull MqttTopicFilter topicFilter;
+
+        private FilteredPolicy(final @NotNull DataGovernancePolicy policy) {
+            this.policy = policy;
+            this.topicFilter = MqttTopicFilter.of(policy.getTopicFilter());
+        }
+    }
+}
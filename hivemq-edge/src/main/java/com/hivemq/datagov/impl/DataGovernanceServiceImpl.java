@@ -20,31 +20,37 @@ import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.JdkFutureAdapters;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.hivemq.datagov.DataGovernanceContext;
 import com.hivemq.datagov.DataGovernanceService;
 import com.hivemq.datagov.model.DataGovernancePolicy;
+import com.hivemq.datagov.model.DataGovernancePolicyChain;
 import com.hivemq.datagov.model.DataGovernanceResult;
 import com.hivemq.datagov.model.impl.DataGoveranceResultImpl;
 import com.hivemq.datagov.model.impl.DataGovernanceDataImpl;
+import com.hivemq.datagov.provider.DataGovernancePolicyProvider;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+import com.hivemq.mqtt.message.publish.PUBLISH;
 import com.hivemq.mqtt.services.InternalPublishService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 /**
- *
+ * Executes the policy chain of the topic of each message. Chains without blocking policies are executed on the
+ * calling thread, only chains with blocking policies are handed to the executor.
  */
 @Singleton
 public class DataGovernanceServiceImpl implements DataGovernanceService {
@@ -54,22 +60,137 @@ public class DataGovernanceServiceImpl implements DataGovernanceService {
     private final @NotNull Counter governatedMessagesCounter;
     private final @NotNull InternalPublishService internalPublishService;
     private final @NotNull ListeningExecutorService executorService;
-    private final @NotNull UnifiedNamespaceDataGovernancePolicy namespaceDataGovernancePolicy;
+    private final @NotNull DataGovernancePolicyProvider policyProvider;
 
     @Inject
     public DataGovernanceServiceImpl(final @NotNull MetricRegistry metricRegistry,
                                      final @NotNull InternalPublishService internalPublishService,
                                      final @NotNull ExecutorService executorService,
-                                     final @NotNull UnifiedNamespaceDataGovernancePolicy namespaceDataGovernancePolicy) {
+                                     final @NotNull DataGovernancePolicyProvider policyProvider) {
         this.internalPublishService = internalPublishService;
         this.executorService = MoreExecutors.listeningDecorator(executorService);
         this.governatedMessagesCounter = metricRegistry.counter("com.hivemq.messages.governance.count");
-        this.namespaceDataGovernancePolicy = namespaceDataGovernancePolicy;
+        this.policyProvider = policyProvider;
     }
 
     @Override
     public @NotNull ListenableFuture<DataGovernanceResult> apply(@NotNull final DataGovernanceContext context) {
 
+        initResult(context);
+
+        final DataGovernancePolicyChain chain =
+                policyProvider.getPolicyChain(context.getInput().getPublish().getTopic());
+        if (!chain.isBlocking()) {
+            try {
+                return Futures.immediateFuture(execute(context, chain));
+            } catch (final Exception e) {
+                return Futures.immediateFailedFuture(e);
+            }
+        }
+        return getListeningExecutorForContext(context).submit(() -> execute(context, chain));
+    }
+
+    @Override
+    public @NotNull ListenableFuture<PublishReturnCode> applyAndPublish(@NotNull final DataGovernanceContext context) {
+        Preconditions.checkNotNull(context);
+        Preconditions.checkNotNull(context.getInput(), "Data Governance Input Cannot Be <null>");
+        ListenableFuture<DataGovernanceResult> policyFuture = apply(context);
+        AsyncFunction<DataGovernanceResult, PublishReturnCode> async = result -> publish(context);
+        //-- Inline chains are already done, so there is no reason to hop to another thread for the publish
+        final Executor executor =
+                policyFuture.isDone() ? MoreExecutors.directExecutor() : getExecutorForContext(context);
+        return Futures.transformAsync(policyFuture, async, executor);
+    }
+
+    @Override
+    public @NotNull ListenableFuture<List<PublishReturnCode>> applyAndPublish(
+            @NotNull final List<DataGovernanceContext> contexts) {
+        Preconditions.checkNotNull(contexts);
+        if (contexts.isEmpty()) {
+            return Futures.immediateFuture(List.of());
+        }
+        final List<DataGovernancePolicyChain> chains = new ArrayList<>(contexts.size());
+        boolean blocking = false;
+        for (DataGovernanceContext context : contexts) {
+            initResult(context);
+            final DataGovernancePolicyChain chain =
+                    policyProvider.getPolicyChain(context.getInput().getPublish().getTopic());
+            blocking |= chain.isBlocking();
+            chains.add(chain);
+        }
+
+        final ExecutorService executorForBatch = getExecutorForContext(contexts.get(0));
+        if (!blocking) {
+            try {
+                for (int i = 0; i < contexts.size(); i++) {
+                    execute(contexts.get(i), chains.get(i));
+                }
+            } catch (final Exception e) {
+                return Futures.immediateFailedFuture(e);
+            }
+            return publish(contexts, executorForBatch);
+        }
+
+        //-- One task runs the policies for all contexts of the batch
+        final ListenableFuture<Void> policiesFuture = getListeningExecutorForContext(contexts.get(0)).submit(() -> {
+            for (int i = 0; i < contexts.size(); i++) {
+                execute(contexts.get(i), chains.get(i));
+            }
+            return null;
+        });
+        AsyncFunction<Void, List<PublishReturnCode>> async = unused -> publish(contexts, executorForBatch);
+        return Futures.transformAsync(policiesFuture, async, executorForBatch);
+    }
+
+    protected @NotNull ListenableFuture<List<PublishReturnCode>> publish(
+            @NotNull final List<DataGovernanceContext> contexts, @NotNull final ExecutorService executorService) {
+        try {
+            //-- Only successful results are published, the others keep their position as dropped or failed
+            final List<PUBLISH> publishes = new ArrayList<>(contexts.size());
+            for (DataGovernanceContext context : contexts) {
+                Preconditions.checkNotNull(context.getResult(), "Data Governance Result Cannot Be <null>");
+                if (context.getResult().getStatus() == DataGovernanceResult.STATUS.SUCCESS) {
+                    publishes.add(context.getResult().getOutput().getPublish());
+                }
+            }
+            if (publishes.isEmpty()) {
+                return Futures.immediateFuture(returnCodes(contexts, List.of()));
+            }
+            log.trace("Data Governance Publishing Batch Of {} Messages", publishes.size());
+            final ListenableFuture<List<PublishReturnCode>> publishFuture =
+                    internalPublishService.publish(publishes, executorService,
+                            contexts.get(0).getResult().getOutput().getClientId());
+            if (publishes.size() == contexts.size()) {
+                return publishFuture;
+            }
+            return Futures.transform(publishFuture,
+                    returnCodes -> returnCodes(contexts, returnCodes),
+                    MoreExecutors.directExecutor());
+        } catch(Exception e){
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    private static @NotNull List<PublishReturnCode> returnCodes(
+            @NotNull final List<DataGovernanceContext> contexts, @NotNull final List<PublishReturnCode> published) {
+        final List<PublishReturnCode> allReturnCodes = new ArrayList<>(contexts.size());
+        int index = 0;
+        for (DataGovernanceContext context : contexts) {
+            switch (context.getResult().getStatus()) {
+                case SUCCESS:
+                    allReturnCodes.add(published.get(index++));
+                    break;
+                case DROPPED:
+                    allReturnCodes.add(PublishReturnCode.NO_MATCHING_SUBSCRIBERS);
+                    break;
+                default:
+                    allReturnCodes.add(PublishReturnCode.FAILED);
+            }
+        }
+        return allReturnCodes;
+    }
+
+    private void initResult(@NotNull final DataGovernanceContext context) {
         Preconditions.checkNotNull(context);
         Preconditions.checkNotNull(context.getInput(), "Data Governance Input Cannot Be <null>");
 
@@ -78,26 +199,53 @@ public class DataGovernanceServiceImpl implements DataGovernanceService {
                 new DataGovernanceDataImpl.Builder(context.getInput()).build());
         result.setStatus(DataGovernanceResult.STATUS.SUCCESS);
         context.setResult(result);
-
-        //-- If More Than 1 Policy Is Matched, Ensure All Are Run Serially On The Same Thread
-        PolicyExecution policyExecution = new PolicyExecution(context, List.of(namespaceDataGovernancePolicy));
-        final ExecutorService executorForContext = getExecutorForContext(context);
-        final Future<DataGovernanceResult> resultFuture = executorForContext.submit(policyExecution);
-        return JdkFutureAdapters.listenInPoolThread(resultFuture, executorForContext);
     }
 
-    @Override
-    public @NotNull ListenableFuture<PublishReturnCode> applyAndPublish(@NotNull final DataGovernanceContext context) {
-        Preconditions.checkNotNull(context);
-        Preconditions.checkNotNull(context.getInput(), "Data Governance Input Cannot Be <null>");
-        ListenableFuture<DataGovernanceResult> policyFuture = apply(context);
-        AsyncFunction<DataGovernanceResult, PublishReturnCode> async = result -> publish(context);
-        return Futures.transformAsync(policyFuture, async, getExecutorForContext(context));
+    /**
+     * Executes the policies of the chain one after the other, each policy sees the output of the previous one.
+     * The chain stops at the first policy which drops or fails the message.
+     * <p>
+     * When a policy rewrites the topic, the execution continues with the chain of the new topic. Policies which
+     * already ran for the message are skipped, so every policy runs at most once.
+     */
+    private @NotNull DataGovernanceResult execute(
+            @NotNull final DataGovernanceContext context, @NotNull final DataGovernancePolicyChain chain) {
+        governatedMessagesCounter.inc();
+        final DataGovernanceResult result = context.getResult();
+        String topic = result.getOutput().getPublish().getTopic();
+        List<DataGovernancePolicy> policies = chain.getPolicies();
+        Set<DataGovernancePolicy> executed = null;
+        int index = 0;
+        while (index < policies.size()) {
+            final DataGovernancePolicy policy = policies.get(index++);
+            if (!policy.isEnabled() || (executed != null && executed.contains(policy))) {
+                continue;
+            }
+            policy.execute(context, result.getOutput());
+            if (result.getStatus() != DataGovernanceResult.STATUS.SUCCESS) {
+                log.trace("Data-Gov Policy '{}' Stopped Chain With Status {}", policy.getId(), result.getStatus());
+                break;
+            }
+            final String outputTopic = result.getOutput().getPublish().getTopic();
+            if (!topic.equals(outputTopic)) {
+                if (executed == null) {
+                    executed = Collections.newSetFromMap(new IdentityHashMap<>());
+                }
+                executed.addAll(policies.subList(0, index));
+                topic = outputTopic;
+                policies = policyProvider.getPolicyChain(topic).getPolicies();
+                index = 0;
+            }
+        }
+        return result;
     }
 
     protected @NotNull ListenableFuture<PublishReturnCode> publish(@NotNull final DataGovernanceContext context) {
         Preconditions.checkNotNull(context);
         Preconditions.checkNotNull(context.getResult(), "Data Governance Result Cannot Be <null>");
+        if (context.getResult().getStatus() == DataGovernanceResult.STATUS.DROPPED) {
+            return Futures.immediateFuture(PublishReturnCode.NO_MATCHING_SUBSCRIBERS);
+        }
         Preconditions.checkArgument(context.getResult().getStatus() == DataGovernanceResult.STATUS.SUCCESS,
                 "Can Only Apply Publish On Successful Execution");
         try {
@@ -118,27 +266,8 @@ public class DataGovernanceServiceImpl implements DataGovernanceService {
                 context.getExecutorService();
     }
 
-    class PolicyExecution implements Callable<DataGovernanceResult> {
-
-        private final @NotNull List<DataGovernancePolicy> policies;
-        private final @NotNull DataGovernanceContext context;
-
-        public PolicyExecution(final @NotNull DataGovernanceContext context, final @NotNull List<DataGovernancePolicy> policies) {
-            Preconditions.checkNotNull(context);
-            Preconditions.checkNotNull(context.getResult(), "Result should be available on context");
-            this.policies = policies;
-            this.context = context;
-        }
-
-        @Override
-        public DataGovernanceResult call() {
-            governatedMessagesCounter.inc();
-            DataGovernanceResult result = context.getResult();
-            for(DataGovernancePolicy policy : policies){
-//                log.trace("Data-Gov Executing '{}' with Id '{}'", policy.getName(), policy.getId());
-                policy.execute(context, context.getInput());
-            }
-            return result;
-        }
+    private @NotNull ListeningExecutorService getListeningExecutorForContext(
+            @NotNull final DataGovernanceContext context) {
+        return MoreExecutors.listeningDecorator(getExecutorForContext(context));
     }
 }
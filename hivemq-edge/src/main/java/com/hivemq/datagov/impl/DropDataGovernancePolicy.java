@@ -0,0 +1,37 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.impl;
+
+import com.hivemq.datagov.DataGovernanceContext;
+import com.hivemq.datagov.model.DataGovernanceData;
+import com.hivemq.datagov.model.DataGovernanceResult;
+import com.hivemq.datagov.model.impl.DataGovernancePolicyImpl;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+/**
+ * Drops all messages, the following policies of the chain are not executed.
+ */
+public class DropDataGovernancePolicy extends DataGovernancePolicyImpl {
+
+    public DropDataGovernancePolicy(final @NotNull String id, final @NotNull String topicFilter) {
+        super(id, "Drop Policy", topicFilter);
+    }
+
+    @Override
+    public void execute(final @NotNull DataGovernanceContext context, final @NotNull DataGovernanceData input) {
+        context.getResult().setStatus(DataGovernanceResult.STATUS.DROPPED);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
+import com.hivemq.datagov.DataGovernanceContext;
+import com.hivemq.datagov.model.DataGovernanceData;
+import com.hivemq.datagov.model.impl.DataGovernancePolicyImpl;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Keeps or removes top level fields of JSON object payloads. Other payloads are passed on unchanged.
+ */
+public class FieldFilterDataGovernancePolicy extends DataGovernancePolicyImpl {
+
+    private final @NotNull ObjectMapper objectMapper;
+    private final @NotNull ImmutableSet<String> fields;
+    private final boolean include;
+
+    private FieldFilterDataGovernancePolicy(
+            final @NotNull String id,
+            final @NotNull String topicFilter,
+            final @NotNull ObjectMapper objectMapper,
+            final @NotNull Set<String> fields,
+            final boolean include) {
+        super(id, "Field Filter Policy", topicFilter);
+        this.objectMapper = objectMapper;
+        this.fields = ImmutableSet.copyOf(fields);
+        this.include = include;
+    }
+
+    /**
+     * Creates a policy which removes all fields except the given fields.
+     */
+    public static @NotNull FieldFilterDataGovernancePolicy including(
+            final @NotNull String id,
+            final @NotNull String topicFilter,
+            final @NotNull ObjectMapper objectMapper,
+            final @NotNull Set<String> fields) {
+        return new FieldFilterDataGovernancePolicy(id, topicFilter, objectMapper, fields, true);
+    }
+
+    /**
+     * Creates a policy which removes the given fields.
+     */
+    public static @NotNull FieldFilterDataGovernancePolicy excluding(
+            final @NotNull String id,
+            final @NotNull String topicFilter,
+            final @NotNull ObjectMapper objectMapper,
+            final @NotNull Set<String> fields) {
+        return new FieldFilterDataGovernancePolicy(id, topicFilter, objectMapper, fields, false);
+    }
+
+    @Override
+    public void execute(final @NotNull DataGovernanceContext context, final @NotNull DataGovernanceData input) {
+        final byte[] payload = input.getPublish().getPayload();
+        if (payload == null || payload.length == 0) {
+            return;
+        }
+        final JsonNode node;
+        try {
+            node = objectMapper.readTree(payload);
+        } catch (final IOException e) {
+            return;
+        }
+        if (!(node instanceof ObjectNode)) {
+            return;
+        }
+        boolean changed = false;
+        for (final Iterator<String> names = node.fieldNames(); names.hasNext(); ) {
+            if (fields.contains(names.next()) != include) {
+                names.remove();
+                changed = true;
+            }
+        }
+        if (changed) {
+            final byte[] filtered;
+            try {
+                filtered = objectMapper.writeValueAsBytes(node);
+            } catch (final IOException e) {
+                throw new IllegalStateException("Unable To Write Filtered Payload", e);
+            }
+            context.getResult().getOutput().setPublish(new PUBLISHFactory.Mqtt5Builder().fromPublish(
+                    input.getPublish()).withPayload(filtered).build());
+        }
+    }
+}
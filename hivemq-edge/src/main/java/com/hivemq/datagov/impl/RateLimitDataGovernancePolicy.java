@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.impl;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.hivemq.datagov.DataGovernanceContext;
+import com.hivemq.datagov.model.DataGovernanceData;
+import com.hivemq.datagov.model.DataGovernanceResult;
+import com.hivemq.datagov.model.impl.DataGovernancePolicyImpl;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+/**
+ * Drops the messages which exceed a rate. The rate is shared by all topics matching the topic filter.
+ * <p>
+ * Messages are never delayed, so the policy does not block.
+ */
+public class RateLimitDataGovernancePolicy extends DataGovernancePolicyImpl {
+
+    private final @NotNull RateLimiter rateLimiter;
+
+    public RateLimitDataGovernancePolicy(
+            final @NotNull String id, final @NotNull String topicFilter, final double messagesPerSecond) {
+        super(id, "Rate Limit Policy", topicFilter);
+        this.rateLimiter = RateLimiter.create(messagesPerSecond);
+    }
+
+    @Override
+    public void execute(final @NotNull DataGovernanceContext context, final @NotNull DataGovernanceData input) {
+        if (!rateLimiter.tryAcquire()) {
+            context.getResult().setStatus(DataGovernanceResult.STATUS.DROPPED);
+        }
+    }
+}
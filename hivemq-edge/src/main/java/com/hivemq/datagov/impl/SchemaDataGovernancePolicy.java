@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hivemq.datagov.DataGovernanceContext;
+import com.hivemq.datagov.model.DataGovernanceData;
+import com.hivemq.datagov.model.impl.DataGovernanceErrorImpl;
+import com.hivemq.datagov.model.impl.DataGovernancePolicyImpl;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Fails the messages whose payload is not valid against a JSON schema. The schema is compiled once when the policy
+ * is created.
+ */
+public class SchemaDataGovernancePolicy extends DataGovernancePolicyImpl {
+
+    private final @NotNull ObjectMapper objectMapper;
+    private final @NotNull JsonSchema schema;
+
+    public SchemaDataGovernancePolicy(
+            final @NotNull String id,
+            final @NotNull String topicFilter,
+            final @NotNull ObjectMapper objectMapper,
+            final @NotNull JsonNode schema) {
+        super(id, "Schema Policy", topicFilter);
+        this.objectMapper = objectMapper;
+        this.schema = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012).getSchema(schema);
+        this.schema.initializeValidators();
+    }
+
+    @Override
+    public void execute(final @NotNull DataGovernanceContext context, final @NotNull DataGovernanceData input) {
+        final byte[] payload = input.getPublish().getPayload();
+        final JsonNode node;
+        try {
+            node = objectMapper.readTree(payload == null ? new byte[0] : payload);
+        } catch (final IOException e) {
+            context.getResult().addError(DataGovernanceErrorImpl.ofValidator("Payload Is Not Valid JSON", getId()), true);
+            return;
+        }
+        final Set<ValidationMessage> messages = schema.validate(node);
+        for (final ValidationMessage message : messages) {
+            context.getResult().addError(DataGovernanceErrorImpl.ofValidator(message.getMessage(), getId()), true);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.impl;
+
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.common.topic.TopicTemplate;
+import com.hivemq.datagov.DataGovernanceContext;
+import com.hivemq.datagov.model.DataGovernanceData;
+import com.hivemq.datagov.model.impl.DataGovernancePolicyImpl;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+
+import java.util.Map;
+
+/**
+ * Rewrites the topic of the messages with a destination pattern, e.g. <code>site/{1}/{#}</code>.
+ */
+public class TopicRewriteDataGovernancePolicy extends DataGovernancePolicyImpl {
+
+    private final @NotNull TopicTemplate destination;
+
+    public TopicRewriteDataGovernancePolicy(
+            final @NotNull String id, final @NotNull String topicFilter, final @NotNull String destination) {
+        super(id, "Topic Rewrite Policy", topicFilter);
+        this.destination = TopicTemplate.compile(destination, Map.of());
+    }
+
+    @Override
+    public void execute(final @NotNull DataGovernanceContext context, final @NotNull DataGovernanceData input) {
+        final Map<String, String> tokens = context.getTokenProvider() == null ?
+                null :
+                context.getTokenProvider().getTokenReplacements(context);
+        final String topic = input.getPublish().getTopic();
+        final MqttTopic rewritten = destination.apply(MqttTopic.of(topic), tokens == null ? Map.of() : tokens);
+        if (!topic.equals(rewritten.toString())) {
+            context.getResult().getOutput().setPublish(new PUBLISHFactory.Mqtt5Builder().fromPublish(
+                    input.getPublish()).withTopic(rewritten.toString()).build());
+        }
+    }
+}
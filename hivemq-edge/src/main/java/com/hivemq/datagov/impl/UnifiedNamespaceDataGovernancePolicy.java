@@ -15,21 +15,31 @@
  */
 package com.hivemq.datagov.impl;
 
-import com.google.common.collect.ImmutableMap;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.hivemq.client.mqtt.datatypes.MqttTopic;
 import com.hivemq.common.topic.TopicFilterProcessor;
 import com.hivemq.datagov.DataGovernanceContext;
 import com.hivemq.datagov.model.DataGovernanceData;
 import com.hivemq.datagov.model.DataGovernancePolicy;
 import com.hivemq.datagov.model.impl.DataGovernancePolicyImpl;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.message.publish.PUBLISHFactory;
 import com.hivemq.uns.UnifiedNamespaceService;
 import com.hivemq.uns.config.ISA95;
+import com.hivemq.uns.config.ISA95Snapshot;
 
 import javax.inject.Inject;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
+ * Prefixes topics with the ISA-95 levels and replaces the ISA-95 tokens in topics.
+ * <p>
+ * The rewritten topic only depends on the source topic, the tokens from the context and the ISA-95 snapshot, so it is
+ * memoized per source topic and tokens until the snapshot changes.
+ *
  * @author Simon L Johnson
  */
 public class UnifiedNamespaceDataGovernancePolicy extends DataGovernancePolicyImpl implements DataGovernancePolicy {
@@ -37,7 +47,10 @@ public class UnifiedNamespaceDataGovernancePolicy extends DataGovernancePolicyIm
     static final String ID = "unified.namespace.policy";
     static final String NAME = "Unified Namespace Policy";
 
+    private static final int MAX_MEMOIZED_TOPICS = 10_000;
+
     private final UnifiedNamespaceService unifiedNamespaceService;
+    private volatile @Nullable Rewrites rewrites;
 
     @Inject
     public UnifiedNamespaceDataGovernancePolicy(
@@ -48,32 +61,101 @@ public class UnifiedNamespaceDataGovernancePolicy extends DataGovernancePolicyIm
 
     public void execute(final DataGovernanceContext context, final DataGovernanceData input){
 
-        ImmutableMap.Builder builder = ImmutableMap.<String, String>builder();
-        Map<String, String> tokens = context.getTokenProvider().getTokenReplacements(context);
-        if(tokens != null){
-            builder.putAll(tokens);
+        final String topic = input.getPublish().getTopic();
+        final Map<String, String> tokens = context.getTokenProvider().getTokenReplacements(context);
+        final ISA95Snapshot snapshot = unifiedNamespaceService.getISA95Snapshot();
+
+        Rewrites rewrites = this.rewrites;
+        if (rewrites == null || rewrites.snapshot != snapshot) {
+            rewrites = new Rewrites(snapshot);
+            this.rewrites = rewrites;
+        }
+        final String rewrittenTopic = rewrites.rewrite(topic, tokens == null ? Map.of() : tokens);
+
+        //-- Update the Resulting Object If Aspects Have Changed
+        if(!topic.equals(rewrittenTopic)){
+            context.getResult().getOutput().setPublish(new PUBLISHFactory.Mqtt5Builder().fromPublish(
+                    context.getResult().getOutput().getPublish()).withTopic(rewrittenTopic).build());
         }
+    }
 
-        MqttTopic mqttTopic = MqttTopic.of(input.getPublish().getTopic());
+    private static @NotNull String rewrite(
+            final @NotNull String topic,
+            final @NotNull ISA95Snapshot snapshot,
+            final @NotNull Map<String, String> contextTokens) {
+
+        Map<String, String> tokens = contextTokens;
+        String prefixedTopic = topic;
         //-- Topic modifications
-        ISA95 isa95 = unifiedNamespaceService.getISA95();
+        final ISA95 isa95 = snapshot.getISA95();
         if(isa95.isEnabled()){
-            builder.putAll(unifiedNamespaceService.getTopicReplacements(isa95));
+            if (contextTokens.isEmpty()) {
+                tokens = snapshot.getTopicReplacements();
+            } else {
+                tokens = new HashMap<>(contextTokens);
+                tokens.putAll(snapshot.getTopicReplacements());
+            }
             if(isa95.isPrefixAllTopics()){
                 //-- Add a topic prefix regardless of the templates being used
-                mqttTopic = unifiedNamespaceService.prefixISA95(mqttTopic);
+                prefixedTopic = snapshot.prefix(topic);
             }
         }
 
         //-- Apply topic transformations from the context
-        mqttTopic = TopicFilterProcessor.applyDestinationModifier(mqttTopic,
-                mqttTopic.toString(),
-                builder.build());
+        return TopicFilterProcessor.applyDestinationModifier(MqttTopic.of(prefixedTopic), prefixedTopic, tokens)
+                .toString();
+    }
 
-        //-- Update the Resulting Object If Aspects Have Changed
-        if(!MqttTopic.of(input.getPublish().getTopic()).equals(mqttTopic)){
-            context.getResult().getOutput().setPublish(new PUBLISHFactory.Mqtt5Builder().fromPublish(
-                    context.getResult().getOutput().getPublish()).withTopic(mqttTopic.toString()).build());
+    private static class Rewrites {
+
+        private final @NotNull ISA95Snapshot snapshot;
+        //-- Topics are unbounded, so the least recently used topics are evicted once the cache is full
+        private final @NotNull Cache<RewriteKey, String> topics =
+                CacheBuilder.newBuilder().maximumSize(MAX_MEMOIZED_TOPICS).build();
+
+        private Rewrites(final @NotNull ISA95Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        private @NotNull String rewrite(final @NotNull String topic, final @NotNull Map<String, String> tokens) {
+            final String cached = topics.getIfPresent(new RewriteKey(topic, tokens));
+            if (cached != null) {
+                return cached;
+            }
+            final String rewritten = UnifiedNamespaceDataGovernancePolicy.rewrite(topic, snapshot, tokens);
+            //-- The tokens are copied, so the memoized key can not change with the map of the context
+            topics.put(new RewriteKey(topic, Map.copyOf(tokens)), rewritten);
+            return rewritten;
+        }
+    }
+
+    private static class RewriteKey {
+
+        private final @NotNull String topic;
+        private final @NotNull Map<String, String> tokens;
+        private final int hashCode;
+
+        private RewriteKey(final @NotNull String topic, final @NotNull Map<String, String> tokens) {
+            this.topic = topic;
+            this.tokens = tokens;
+            this.hashCode = 31 * topic.hashCode() + tokens.hashCode();
+        }
+
+        @Override
+        public boolean equals(final @Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RewriteKey)) {
+                return false;
+            }
+            final RewriteKey that = (RewriteKey) o;
+            return hashCode == that.hashCode && topic.equals(that.topic) && tokens.equals(that.tokens);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
         }
     }
 }
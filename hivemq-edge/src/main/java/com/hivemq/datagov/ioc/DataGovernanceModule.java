@@ -20,7 +20,9 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.hivemq.datagov.DataGovernanceService;
+import com.hivemq.datagov.impl.DataGovernancePolicyProviderImpl;
 import com.hivemq.datagov.impl.DataGovernanceServiceImpl;
+import com.hivemq.datagov.provider.DataGovernancePolicyProvider;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import dagger.Binds;
 import dagger.Module;
@@ -34,9 +36,9 @@ public abstract class DataGovernanceModule {
     @Binds
     abstract @NotNull DataGovernanceService dataGovernanceService(@NotNull DataGovernanceServiceImpl dataGovernanceService);
 
-//    @Binds
-//    abstract @NotNull DataGovernancePolicyProvider dataGovernancePolicyProvider(@NotNull DataGovernancePolicyProviderImpl dataGovernanceService);
-//
+    @Binds
+    abstract @NotNull DataGovernancePolicyProvider dataGovernancePolicyProvider(@NotNull DataGovernancePolicyProviderImpl dataGovernancePolicyProvider);
+
 //    @Binds
 //    abstract @NotNull DataGovernanceFunctionProvider dataGovernanceFunctionProvider(@NotNull DataGovernanceFunctionProviderImpl dataGovernanceJsonSchemaProviderImp);
 //
@@ -16,6 +16,7 @@
 package com.hivemq.datagov.model;
 
 import com.hivemq.datagov.DataGovernanceContext;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
 
 /**
  * @author Simon L Johnson
@@ -24,5 +25,22 @@ import com.hivemq.datagov.DataGovernanceContext;
 
 public interface DataGovernancePolicy extends DataGovernanceEntity {
 
+    /**
+     * Executes the policy. The input is the output of the previous policy of the chain, changes are made on the
+     * output of the result of the context.
+     */
     void execute(final DataGovernanceContext context, final DataGovernanceData input);
+
+    /**
+     * @return the topic filter of the messages the policy is applied to
+     */
+    @NotNull String getTopicFilter();
+
+    /**
+     * @return whether the execution of the policy may block, chains with blocking policies are executed on the
+     *         executor of the context instead of the calling thread
+     */
+    default boolean isBlocking() {
+        return false;
+    }
 }
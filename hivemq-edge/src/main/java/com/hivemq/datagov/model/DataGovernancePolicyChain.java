@@ -0,0 +1,34 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.model;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * The policies which apply to a topic, in the order they are executed.
+ */
+public interface DataGovernancePolicyChain {
+
+    @NotNull List<DataGovernancePolicy> getPolicies();
+
+    /**
+     * @return whether at least one of the policies may block, including the policies of the chains the message may
+     *         continue with when its topic is rewritten
+     */
+    boolean isBlocking();
+}
@@ -28,7 +28,9 @@ public interface DataGovernanceResult {
     enum STATUS {
         SUCCESS(false),
         FAILURE(true),
-        PENDING(false);
+        PENDING(false),
+        //-- The message was discarded on purpose by a policy and is not published
+        DROPPED(false);
 
         private final boolean error;
         STATUS(final boolean error){
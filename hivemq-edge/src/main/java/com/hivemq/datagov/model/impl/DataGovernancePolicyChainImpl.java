@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.model.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.hivemq.datagov.model.DataGovernancePolicy;
+import com.hivemq.datagov.model.DataGovernancePolicyChain;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.util.List;
+
+public class DataGovernancePolicyChainImpl implements DataGovernancePolicyChain {
+
+    private final @NotNull ImmutableList<DataGovernancePolicy> policies;
+    private final boolean blocking;
+
+    public DataGovernancePolicyChainImpl(final @NotNull List<DataGovernancePolicy> policies) {
+        this(policies, policies.stream().anyMatch(DataGovernancePolicy::isBlocking));
+    }
+
+    public DataGovernancePolicyChainImpl(final @NotNull List<DataGovernancePolicy> policies, final boolean blocking) {
+        this.policies = ImmutableList.copyOf(policies);
+        this.blocking = blocking;
+    }
+
+    @Override
+    public @NotNull List<DataGovernancePolicy> getPolicies() {
+        return policies;
+    }
+
+    @Override
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        final StringBuilder sb = new StringBuilder("DataGovernancePolicyChainImpl{");
+        sb.append("policies=").append(policies);
+        sb.append(", blocking=").append(blocking);
+        sb.append('}');
+        return sb.toString();
+    }
+}
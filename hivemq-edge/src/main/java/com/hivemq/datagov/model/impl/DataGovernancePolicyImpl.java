@@ -17,6 +17,7 @@ package com.hivemq.datagov.model.impl;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
 import com.hivemq.datagov.model.DataGovernancePolicy;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 
@@ -25,10 +26,25 @@ import com.hivemq.extension.sdk.api.annotations.NotNull;
  */
 public abstract class DataGovernancePolicyImpl extends AbstractDataGovernanceEntity implements DataGovernancePolicy {
 
+    private final @NotNull String topicFilter;
+
     @JsonCreator
     public DataGovernancePolicyImpl(@JsonProperty("id") final @NotNull String id,
                                     @JsonProperty("name") final @NotNull String name) {
+        this(id, name, "#");
+    }
+
+    public DataGovernancePolicyImpl(final @NotNull String id,
+                                    final @NotNull String name,
+                                    final @NotNull String topicFilter) {
         super(id, name);
+        Preconditions.checkNotNull(topicFilter, "Topic Filter Must Exist On Policy Object");
+        this.topicFilter = topicFilter;
+    }
+
+    @Override
+    public @NotNull String getTopicFilter() {
+        return topicFilter;
     }
 
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.provider;
+
+import com.hivemq.datagov.model.DataGovernancePolicy;
+import com.hivemq.datagov.model.DataGovernancePolicyChain;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Holds the data governance policies and compiles the chain of policies for each topic.
+ */
+public interface DataGovernancePolicyProvider {
+
+    /**
+     * Adds a policy to the end of the chains of all topics which match its topic filter. A policy with the same id
+     * is replaced.
+     */
+    void addPolicy(@NotNull DataGovernancePolicy policy);
+
+    /**
+     * @return whether a policy with the id was removed
+     */
+    boolean removePolicy(@NotNull String policyId);
+
+    @NotNull List<DataGovernancePolicy> getPolicies();
+
+    /**
+     * @param topic the topic of the message (no wildcards)
+     * @return the policies whose topic filter matches the topic, in the order they were added
+     */
+    @NotNull DataGovernancePolicyChain getPolicyChain(@NotNull String topic);
+}
@@ -0,0 +1,152 @@
+package com.hivemq.edge.impl.events;
+
+import com.google.common.base.Preconditions;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.edge.modules.api.events.EventStore;
+import com.hivemq.edge.modules.api.events.model.Event;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pre-sized ring buffer of the newest events which does not lock on writes or reads.
+ * <p>
+ * Every event gets a sequence number and a timestamp which never decreases in sequence order, so the ring is always
+ * sorted by time and a query finds its oldest event by binary search. Events which are overwritten by newer events
+ * are dropped.
+ */
+@Singleton
+public class RingBufferEventStore implements EventStore {
+
+    private final int capacity;
+    private final @NotNull AtomicReferenceArray<Entry> slots;
+    private final @NotNull AtomicReference<Cursor> cursor = new AtomicReference<>(new Cursor(0, Long.MIN_VALUE));
+
+    @Inject
+    public RingBufferEventStore() {
+        this(InternalConfigurations.EDGE_RUNTIME_MAX_EVENTS_IN_INMEMORY_LIST.get());
+    }
+
+    public RingBufferEventStore(final int capacity) {
+        Preconditions.checkArgument(capacity > 0, "Event store capacity must be positive");
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public void storeEvent(final @NotNull Event event) {
+        final long timestamp = timestampOf(event);
+        Cursor current;
+        Cursor next;
+        do {
+            current = cursor.get();
+            next = new Cursor(current.sequence + 1, Math.max(current.timestamp, timestamp));
+        } while (!cursor.compareAndSet(current, next));
+
+        final Entry entry = new Entry(current.sequence, next.timestamp, event);
+        final int index = index(entry.sequence);
+        while (true) {
+            final Entry existing = slots.get(index);
+            if (existing != null && existing.sequence > entry.sequence) {
+                // a newer event already took the slot, this one is overwritten right away
+                return;
+            }
+            if (slots.compareAndSet(index, existing, entry)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public @NotNull List<Event> readEvents(final @Nullable Long since, final @Nullable Integer limit) {
+        if (limit != null && limit <= 0) {
+            return List.of();
+        }
+        final long end = cursor.get().sequence;
+        final long start = Math.max(0, end - capacity);
+        final long lowest = since == null ? start : firstAfter(start, end, since);
+
+        final int expected = (int) (end - lowest);
+        final List<Event> events = new ArrayList<>(limit == null ? expected : Math.min(limit, expected));
+        for (long sequence = end - 1; sequence >= lowest && (limit == null || events.size() < limit); sequence--) {
+            final Entry entry = slots.get(index(sequence));
+            // the event is either not written yet or already overwritten
+            if (entry == null || entry.sequence != sequence) {
+                continue;
+            }
+            if (since == null || since < timestampOf(entry.event)) {
+                events.add(entry.event);
+            }
+        }
+        return Collections.unmodifiableList(events);
+    }
+
+    private long firstAfter(final long start, final long end, final long since) {
+        long low = start;
+        long high = end;
+        while (low < high) {
+            final long mid = (low + high) >>> 1;
+            if (isAfter(mid, since)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private boolean isAfter(final long sequence, final long since) {
+        final Entry entry = slots.get(index(sequence));
+        if (entry == null || entry.sequence < sequence) {
+            // not written yet, it belongs to the newest events
+            return true;
+        }
+        if (entry.sequence > sequence) {
+            // overwritten, it belongs to the oldest events
+            return false;
+        }
+        return entry.timestamp > since;
+    }
+
+    private int index(final long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    private static long timestampOf(final @NotNull Event event) {
+        return event.getTimestamp() == null ? 0 : event.getTimestamp();
+    }
+
+    private static class Cursor {
+
+        /* the sequence of the next event */
+        private final long sequence;
+        /* the timestamp of the newest event */
+        private final long timestamp;
+
+        private Cursor(final long sequence, final long timestamp) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static class Entry {
+
+        private final long sequence;
+        /* the timestamp of the event, raised to the timestamp of the previous event if the event is older */
+        private final long timestamp;
+        private final @NotNull Event event;
+
+        private Entry(final long sequence, final long timestamp, final @NotNull Event event) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.event = event;
+        }
+    }
+}
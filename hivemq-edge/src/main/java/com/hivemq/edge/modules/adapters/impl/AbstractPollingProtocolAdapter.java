@@ -2,12 +2,14 @@ package com.hivemq.edge.modules.adapters.impl;
 
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Preconditions;
+import com.hivemq.edge.modules.adapters.ProtocolAdapterException;
 import com.hivemq.edge.modules.adapters.data.ProtocolAdapterDataSample;
 import com.hivemq.edge.modules.adapters.model.ProtocolAdapterPollingSampler;
 import com.hivemq.edge.modules.adapters.model.impl.ProtocolAdapterPollingSamplerImpl;
 import com.hivemq.edge.modules.api.adapters.ModuleServices;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterInformation;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPollingService;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBatchBuilder;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBuilder;
 import com.hivemq.edge.modules.api.events.EventUtils;
 import com.hivemq.edge.modules.api.events.model.Event;
@@ -16,6 +18,7 @@ import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.handler.publish.PublishReturnCode;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -52,23 +55,14 @@ public abstract class AbstractPollingProtocolAdapter <T extends AbstractPollingP
     }
 
     protected CompletableFuture<PublishReturnCode> captureDataSample(final @NotNull U sample){
-        Preconditions.checkNotNull(sample);
-        Preconditions.checkNotNull(sample.getData());
-        Preconditions.checkNotNull(sample.getTopic());
-        Preconditions.checkArgument(sample.getQos() <= 2 && sample.getQos() >= 0, "QoS needs to be a valid Quality-Of-Service value (0,1,2)");
         try {
-            byte[] json = convertToJson(sample);
-            if(publishCount.incrementAndGet() == 1){
-                eventService.fireEvent(eventBuilder(Event.SEVERITY.INFO).
-                        withMessage(String.format("Adapter took first sample to be published to '%s'", sample.getTopic())).
-                        withPayload(EventUtils.generateJsonPayload(json)).build());
-            }
+            final byte[] json = prepareSample(sample);
             final ProtocolAdapterPublishBuilder publishBuilder = adapterPublishService.publish()
                     .withTopic(sample.getTopic())
                     .withPayload(json)
                     .withQoS(sample.getQos());
             final CompletableFuture<PublishReturnCode> publishFuture = publishBuilder.send();
-            publishFuture.thenAccept(publishReturnCode -> protocolAdapterMetricsHelper.incrementReadPublishSuccess())
+            publishFuture.thenAccept(this::incrementReadPublishResult)
                     .exceptionally(throwable -> {
                         protocolAdapterMetricsHelper.incrementReadPublishFailure();
                         log.warn("Error Publishing Adapter Payload", throwable); return null;
@@ -79,6 +73,66 @@ public abstract class AbstractPollingProtocolAdapter <T extends AbstractPollingP
         }
     }
 
+    /**
+     * Publishes the samples of one poll cycle as a single batch.
+     *
+     * @return a future with the return codes in the order of the samples
+     */
+    protected CompletableFuture<List<PublishReturnCode>> captureDataSamples(final @NotNull List<U> samples){
+        Preconditions.checkNotNull(samples);
+        if(samples.isEmpty()){
+            return CompletableFuture.completedFuture(List.of());
+        }
+        try {
+            final ProtocolAdapterPublishBatchBuilder batch = adapterPublishService.publishBatch();
+            for(U sample : samples){
+                final byte[] json = prepareSample(sample);
+                batch.add()
+                        .withTopic(sample.getTopic())
+                        .withPayload(json)
+                        .withQoS(sample.getQos())
+                        .send();
+            }
+            final CompletableFuture<List<PublishReturnCode>> publishFuture = batch.send();
+            publishFuture.thenAccept(publishReturnCodes -> publishReturnCodes.forEach(this::incrementReadPublishResult))
+                    .exceptionally(throwable -> {
+                        for(int i = 0; i < samples.size(); i++){
+                            protocolAdapterMetricsHelper.incrementReadPublishFailure();
+                        }
+                        log.warn("Error Publishing Adapter Payloads", throwable); return null;
+                    });
+            return publishFuture;
+        } catch(Exception e){
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Validates a sample and converts its data to the JSON payload. The first sample of the adapter is also announced
+     * as an event.
+     */
+    private byte[] prepareSample(final @NotNull U sample) throws ProtocolAdapterException {
+        Preconditions.checkNotNull(sample);
+        Preconditions.checkNotNull(sample.getData());
+        Preconditions.checkNotNull(sample.getTopic());
+        Preconditions.checkArgument(sample.getQos() <= 2 && sample.getQos() >= 0, "QoS needs to be a valid Quality-Of-Service value (0,1,2)");
+        final byte[] json = convertToJson(sample);
+        if(publishCount.incrementAndGet() == 1){
+            eventService.fireEvent(eventBuilder(Event.SEVERITY.INFO).
+                    withMessage(String.format("Adapter took first sample to be published to '%s'", sample.getTopic())).
+                    withPayload(EventUtils.generateJsonPayload(json)).build());
+        }
+        return json;
+    }
+
+    private void incrementReadPublishResult(final @NotNull PublishReturnCode publishReturnCode){
+        if(publishReturnCode == PublishReturnCode.FAILED){
+            protocolAdapterMetricsHelper.incrementReadPublishFailure();
+        } else {
+            protocolAdapterMetricsHelper.incrementReadPublishSuccess();
+        }
+    }
+
     protected void startPolling(final @NotNull Sampler sampler) {
         Preconditions.checkNotNull(sampler);
         protocolAdapterPollingService.schedulePolling(this, sampler);
@@ -16,7 +16,9 @@
 package com.hivemq.edge.modules.adapters.impl;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 import com.hivemq.configuration.service.ConfigurationService;
 import com.hivemq.datagov.DataGovernanceContext;
@@ -56,6 +58,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -105,55 +110,63 @@ public class ProtocolAdapterInterceptorHandler {
             return processPublish(publish, protocolAdapter);
         }
 
-        final SettableFuture<PublishReturnCode> resultFuture = SettableFuture.create();
-
-        final PublishPacketImpl packet = new PublishPacketImpl(publish);
-        final ProtocolAdapterInformationImpl bridgeInfo = new ProtocolAdapterInformationImpl(protocolAdapter.getId(),
-                protocolAdapter.getProtocolAdapterInformation().getProtocolId());
-        final ProtocolAdapterPublishInboundInputImpl input = new ProtocolAdapterPublishInboundInputImpl(bridgeInfo,
-                packet,
-                new ProtocolAdapterDynamicContextImpl(dynamicContext));
-        final ExtensionParameterHolder<ProtocolAdapterPublishInboundInputImpl> inputHolder =
-                new ExtensionParameterHolder<>(input);
-
-        final ModifiablePublishPacketImpl modifiablePacket =
-                new ModifiablePublishPacketImpl(packet, configurationService);
-        final ProtocolAdapterPublishInboundOutputImpl output =
-                new ProtocolAdapterPublishInboundOutputImpl(asyncer, modifiablePacket);
-        final ExtensionParameterHolder<ProtocolAdapterPublishInboundOutputImpl> outputHolder =
-                new ExtensionParameterHolder<>(output);
-
-        final ProtocolAdapterInterceptorHandler.PublishInboundInterceptorContext context =
-                new ProtocolAdapterInterceptorHandler.PublishInboundInterceptorContext(protocolAdapter,
-                        providerMap.size(),
-                        publish,
-                        inputHolder,
-                        outputHolder,
-                        resultFuture,
-                        executorService);
-
-        for (final ProtocolAdapterPublishInboundInterceptorProvider interceptorProvider : providerMap.values()) {
-
-            final HiveMQExtension extension =
-                    hiveMQExtensions.getExtensionForClassloader(interceptorProvider.getClass().getClassLoader());
-            if (extension == null) { // disabled extension would be null
-                context.finishInterceptor();
-                continue;
-            }
+        final InterceptorInvocation invocation = new InterceptorInvocation(providerMap, protocolAdapter);
+        final ListenableFuture<PUBLISH> interceptedFuture =
+                invocation.intercept(publish, dynamicContext, executorService);
+        return Futures.transformAsync(interceptedFuture,
+                interceptedPublish -> interceptedPublish == null ?
+                        Futures.immediateFuture(PublishReturnCode.FAILED) :
+                        processPublish(interceptedPublish, protocolAdapter),
+                MoreExecutors.directExecutor());
+    }
 
-            final ProtocolAdapterInboundProviderInput providerInput =
-                    new ProtocolAdapterInboundProviderInputImpl(serverInformation, bridgeInfo);
+    /**
+     * Intercepts and publishes all PUBLISHes of a batch. The interceptor providers and the adapter information are
+     * looked up once for the batch and the intercepted PUBLISHes are passed to the data governance together.
+     *
+     * @return a future with the return codes in the order of the PUBLISHes
+     */
+    public @NotNull ListenableFuture<List<PublishReturnCode>> interceptOrDelegateInbound(
+            final @NotNull List<PUBLISH> publishes,
+            final @NotNull ExecutorService executorService,
+            final @NotNull ProtocolAdapter protocolAdapter,
+            final @NotNull List<ImmutableMap<String, String>> dynamicContexts) {
 
-            final ProtocolAdapterInterceptorHandler.ProtocolAdapterInboundInterceptorTask task =
-                    new ProtocolAdapterInterceptorHandler.ProtocolAdapterInboundInterceptorTask(interceptorProvider,
-                            providerInput,
-                            extension.getId());
-            pluginTaskExecutorService.handlePluginInOutTaskExecution(context, inputHolder, outputHolder, task);
+        final ImmutableMap<String, ProtocolAdapterPublishInboundInterceptorProvider> providerMap =
+                interceptors.protocolAdapterOutboundInterceptorProviders();
+        if (providerMap.isEmpty()) {
+            return processPublishes(publishes, protocolAdapter);
         }
 
-        return resultFuture;
-    }
+        final InterceptorInvocation invocation = new InterceptorInvocation(providerMap, protocolAdapter);
+        final List<ListenableFuture<PUBLISH>> interceptedFutures = new ArrayList<>(publishes.size());
+        for (int i = 0; i < publishes.size(); i++) {
+            interceptedFutures.add(invocation.intercept(publishes.get(i), dynamicContexts.get(i), executorService));
+        }
 
+        //-- successfulAsList keeps the positions, a prevented PUBLISH is null
+        return Futures.transformAsync(Futures.successfulAsList(interceptedFutures), interceptedPublishes -> {
+            final List<PUBLISH> deliverable = new ArrayList<>(interceptedPublishes.size());
+            for (final PUBLISH interceptedPublish : interceptedPublishes) {
+                if (interceptedPublish != null) {
+                    deliverable.add(interceptedPublish);
+                }
+            }
+            if (deliverable.size() == interceptedPublishes.size()) {
+                return processPublishes(deliverable, protocolAdapter);
+            }
+            return Futures.transform(processPublishes(deliverable, protocolAdapter), returnCodes -> {
+                final List<PublishReturnCode> allReturnCodes = new ArrayList<>(interceptedPublishes.size());
+                int delivered = 0;
+                for (final PUBLISH interceptedPublish : interceptedPublishes) {
+                    allReturnCodes.add(interceptedPublish == null ?
+                            PublishReturnCode.FAILED :
+                            returnCodes.get(delivered++));
+                }
+                return allReturnCodes;
+            }, MoreExecutors.directExecutor());
+        }, MoreExecutors.directExecutor());
+    }
 
     private @NotNull ListenableFuture<PublishReturnCode> processPublish(
             final @NotNull PUBLISH publish, final @NotNull ProtocolAdapter protocolAdapter) {
@@ -163,12 +176,117 @@ public class ProtocolAdapterInterceptorHandler {
         return dataGovernanceService.applyAndPublish(context);
     }
 
+    private @NotNull ListenableFuture<List<PublishReturnCode>> processPublishes(
+            final @NotNull List<PUBLISH> publishes, final @NotNull ProtocolAdapter protocolAdapter) {
+        if (publishes.isEmpty()) {
+            return Futures.immediateFuture(List.of());
+        }
+        //-- the replacements are the same for all PUBLISHes of the adapter
+        final Map<String, String> replacements = populateAdapterContextReplacements(protocolAdapter);
+        final List<DataGovernanceContext> contexts = new ArrayList<>(publishes.size());
+        for (final PUBLISH publish : publishes) {
+            final DataGovernanceData data = new DataGovernanceDataImpl.Builder().withClientId(protocolAdapter.getId())
+                    .withPublish(publish)
+                    .build();
+            contexts.add(new ProtocolAdapterContext(data, replacements, protocolAdapter));
+        }
+        return dataGovernanceService.applyAndPublish(contexts);
+    }
+
+    /**
+     * The interceptor providers and adapter information for the PUBLISHes of one call, so a batch creates them once.
+     */
+    private class InterceptorInvocation {
+
+        private final @NotNull ImmutableMap<String, ProtocolAdapterPublishInboundInterceptorProvider> providerMap;
+        private final @NotNull ProtocolAdapter protocolAdapter;
+        private final @NotNull ProtocolAdapterInformationImpl adapterInfo;
+        private final @NotNull ProtocolAdapterInboundProviderInput providerInput;
+        private final @NotNull Map<ProtocolAdapterPublishInboundInterceptorProvider, HiveMQExtension> extensions =
+                new HashMap<>();
+
+        InterceptorInvocation(
+                final @NotNull ImmutableMap<String, ProtocolAdapterPublishInboundInterceptorProvider> providerMap,
+                final @NotNull ProtocolAdapter protocolAdapter) {
+            this.providerMap = providerMap;
+            this.protocolAdapter = protocolAdapter;
+            this.adapterInfo = new ProtocolAdapterInformationImpl(protocolAdapter.getId(),
+                    protocolAdapter.getProtocolAdapterInformation().getProtocolId());
+            this.providerInput = new ProtocolAdapterInboundProviderInputImpl(serverInformation, adapterInfo);
+            for (final ProtocolAdapterPublishInboundInterceptorProvider interceptorProvider : providerMap.values()) {
+                final HiveMQExtension extension =
+                        hiveMQExtensions.getExtensionForClassloader(interceptorProvider.getClass().getClassLoader());
+                if (extension != null) { // disabled extension would be null
+                    extensions.put(interceptorProvider, extension);
+                }
+            }
+        }
+
+        /**
+         * @return a future with the intercepted PUBLISH, or <code>null</code> if the delivery was prevented
+         */
+        @NotNull ListenableFuture<PUBLISH> intercept(
+                final @NotNull PUBLISH publish,
+                final @NotNull ImmutableMap<String, String> dynamicContext,
+                final @NotNull ExecutorService executorService) {
+
+            final SettableFuture<PUBLISH> interceptedFuture = SettableFuture.create();
+
+            final PublishPacketImpl packet = new PublishPacketImpl(publish);
+            final ProtocolAdapterPublishInboundInputImpl input = new ProtocolAdapterPublishInboundInputImpl(adapterInfo,
+                    packet,
+                    new ProtocolAdapterDynamicContextImpl(dynamicContext));
+            final ExtensionParameterHolder<ProtocolAdapterPublishInboundInputImpl> inputHolder =
+                    new ExtensionParameterHolder<>(input);
+
+            final ModifiablePublishPacketImpl modifiablePacket =
+                    new ModifiablePublishPacketImpl(packet, configurationService);
+            final ProtocolAdapterPublishInboundOutputImpl output =
+                    new ProtocolAdapterPublishInboundOutputImpl(asyncer, modifiablePacket);
+            final ExtensionParameterHolder<ProtocolAdapterPublishInboundOutputImpl> outputHolder =
+                    new ExtensionParameterHolder<>(output);
+
+            final ProtocolAdapterInterceptorHandler.PublishInboundInterceptorContext context =
+                    new ProtocolAdapterInterceptorHandler.PublishInboundInterceptorContext(protocolAdapter,
+                            providerMap.size(),
+                            publish,
+                            inputHolder,
+                            outputHolder,
+                            interceptedFuture,
+                            executorService);
+
+            for (final ProtocolAdapterPublishInboundInterceptorProvider interceptorProvider : providerMap.values()) {
+
+                final HiveMQExtension extension = extensions.get(interceptorProvider);
+                if (extension == null) {
+                    context.finishInterceptor();
+                    continue;
+                }
+
+                final ProtocolAdapterInterceptorHandler.ProtocolAdapterInboundInterceptorTask task =
+                        new ProtocolAdapterInterceptorHandler.ProtocolAdapterInboundInterceptorTask(interceptorProvider,
+                                providerInput,
+                                extension.getId());
+                pluginTaskExecutorService.handlePluginInOutTaskExecution(context, inputHolder, outputHolder, task);
+            }
+
+            return interceptedFuture;
+        }
+    }
+
     static class ProtocolAdapterContext extends DataGovernanceContextImpl {
 
         final @NotNull ProtocolAdapter adapter;
 
         public ProtocolAdapterContext(final @NotNull DataGovernanceData input, final @NotNull ProtocolAdapter adapter) {
-            super(input, populateAdapterContextReplacements(adapter));
+            this(input, populateAdapterContextReplacements(adapter), adapter);
+        }
+
+        ProtocolAdapterContext(
+                final @NotNull DataGovernanceData input,
+                final @NotNull Map<String, String> replacements,
+                final @NotNull ProtocolAdapter adapter) {
+            super(input, replacements);
             this.adapter = adapter;
         }
     }
@@ -193,7 +311,7 @@ public class ProtocolAdapterInterceptorHandler {
         private final @NotNull PUBLISH publish;
         private final @NotNull ExtensionParameterHolder<ProtocolAdapterPublishInboundInputImpl> inputHolder;
         private final @NotNull ExtensionParameterHolder<ProtocolAdapterPublishInboundOutputImpl> outputHolder;
-        private final @NotNull SettableFuture<PublishReturnCode> resultFuture;
+        private final @NotNull SettableFuture<PUBLISH> interceptedFuture;
         private final @NotNull ExecutorService executorService;
 
         PublishInboundInterceptorContext(
@@ -202,13 +320,13 @@ public class ProtocolAdapterInterceptorHandler {
                 final @NotNull PUBLISH publish,
                 final @NotNull ExtensionParameterHolder<ProtocolAdapterPublishInboundInputImpl> inputHolder,
                 final @NotNull ExtensionParameterHolder<ProtocolAdapterPublishInboundOutputImpl> outputHolder,
-                final @NotNull SettableFuture<PublishReturnCode> resultFuture,
+                final @NotNull SettableFuture<PUBLISH> interceptedFuture,
                 final @NotNull ExecutorService executorService) {
 
             super(protocolAdapter.getId());
             this.protocolAdapter = protocolAdapter;
             this.interceptorCount = interceptorCount;
-            this.resultFuture = resultFuture;
+            this.interceptedFuture = interceptedFuture;
             this.executorService = executorService;
             this.counter = new AtomicInteger(0);
             this.publish = publish;
@@ -246,10 +364,9 @@ public class ProtocolAdapterInterceptorHandler {
             final ProtocolAdapterPublishInboundOutputImpl output = outputHolder.get();
             if (output.isPreventDelivery()) {
                 dropMessage(output);
-                resultFuture.set(PublishReturnCode.FAILED);
+                interceptedFuture.set(null);
             } else {
-                final PUBLISH finalPublish = PUBLISHFactory.merge(inputHolder.get().getPublishPacket(), publish);
-                resultFuture.setFuture(processPublish(finalPublish, protocolAdapter));
+                interceptedFuture.set(PUBLISHFactory.merge(inputHolder.get().getPublishPacket(), publish));
             }
         }
 
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.adapters.impl;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapter;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBatchBuilder;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBuilder;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+public class ProtocolAdapterPublishBatchBuilderImpl implements ProtocolAdapterPublishBatchBuilder {
+
+    private final @NotNull String hivemqId;
+    private final @NotNull BatchSendCallback sendCallback;
+
+    private final @NotNull List<PUBLISH> publishes = new ArrayList<>();
+    private final @NotNull List<ImmutableMap<String, String>> dynamicContexts = new ArrayList<>();
+    private final @NotNull List<CompletableFuture<PublishReturnCode>> publishFutures = new ArrayList<>();
+    private @Nullable ProtocolAdapter adapter;
+    private boolean sent;
+
+    public ProtocolAdapterPublishBatchBuilderImpl(
+            final @NotNull String hivemqId, final @NotNull BatchSendCallback sendCallback) {
+        this.hivemqId = hivemqId;
+        this.sendCallback = sendCallback;
+    }
+
+    @Override
+    public @NotNull ProtocolAdapterPublishBuilder add() {
+        Preconditions.checkState(!sent, "Batch was already sent");
+        final ProtocolAdapter batchAdapter = Objects.requireNonNull(adapter);
+        final ProtocolAdapterPublishBuilderImpl builder =
+                new ProtocolAdapterPublishBuilderImpl(hivemqId, (publish, protocolAdapter, dynamicContext) -> {
+                    Preconditions.checkState(!sent, "Batch was already sent");
+                    final CompletableFuture<PublishReturnCode> publishFuture = new CompletableFuture<>();
+                    publishes.add(publish);
+                    dynamicContexts.add(dynamicContext);
+                    publishFutures.add(publishFuture);
+                    return publishFuture;
+                });
+        return builder.withAdapter(batchAdapter);
+    }
+
+    @Override
+    public int size() {
+        return publishes.size();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<List<PublishReturnCode>> send() {
+        Preconditions.checkState(!sent, "Batch was already sent");
+        sent = true;
+        if (publishes.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        final CompletableFuture<List<PublishReturnCode>> batchFuture;
+        try {
+            batchFuture = sendCallback.onBatchSend(ImmutableList.copyOf(publishes),
+                    Objects.requireNonNull(adapter),
+                    ImmutableList.copyOf(dynamicContexts));
+        } catch (final Exception e) {
+            publishFutures.forEach(publishFuture -> publishFuture.completeExceptionally(e));
+            return CompletableFuture.failedFuture(e);
+        }
+        return batchFuture.whenComplete((returnCodes, throwable) -> {
+            for (int i = 0; i < publishFutures.size(); i++) {
+                if (throwable != null) {
+                    publishFutures.get(i).completeExceptionally(throwable);
+                } else {
+                    publishFutures.get(i).complete(returnCodes.get(i));
+                }
+            }
+        });
+    }
+
+    public @NotNull ProtocolAdapterPublishBatchBuilder withAdapter(final @NotNull ProtocolAdapter adapter) {
+        this.adapter = adapter;
+        return this;
+    }
+
+    public interface BatchSendCallback {
+        @NotNull CompletableFuture<List<PublishReturnCode>> onBatchSend(
+                final @NotNull List<PUBLISH> publishes,
+                final @NotNull ProtocolAdapter protocolAdapter,
+                final @NotNull List<ImmutableMap<String, String>> dynamicContexts);
+    }
+}
@@ -18,6 +18,7 @@ package com.hivemq.edge.modules.adapters.impl;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.hivemq.configuration.HivemqId;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBatchBuilder;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBuilder;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
@@ -26,6 +27,7 @@ import net.javacrumbs.futureconverter.java8guava.FutureConverter;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.List;
 
 @Singleton
 public class ProtocolAdapterPublishServiceImpl implements ProtocolAdapterPublishService {
@@ -53,6 +55,21 @@ public class ProtocolAdapterPublishServiceImpl implements ProtocolAdapterPublish
             return FutureConverter.toCompletableFuture(publishFuture);
         });
     }
+
+    @Override
+    public @NotNull ProtocolAdapterPublishBatchBuilder publishBatch() {
+        return new ProtocolAdapterPublishBatchBuilderImpl(hiveMqId.get(),
+                (publishes, protocolAdapter, dynamicContexts) -> {
+
+                    final ListenableFuture<List<PublishReturnCode>> publishFuture =
+                            interceptorHandler.interceptOrDelegateInbound(publishes,
+                                    MoreExecutors.newDirectExecutorService(),
+                                    protocolAdapter,
+                                    dynamicContexts);
+
+                    return FutureConverter.toCompletableFuture(publishFuture);
+                });
+    }
 }
 
 
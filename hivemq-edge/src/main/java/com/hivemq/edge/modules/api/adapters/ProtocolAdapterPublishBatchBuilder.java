@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.api.adapters;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface ProtocolAdapterPublishBatchBuilder {
+
+    /**
+     * Adds a PUBLISH to the batch. Calling {@link ProtocolAdapterPublishBuilder#send()} on the returned builder adds
+     * the configured PUBLISH to the batch, its future completes once the batch was sent.
+     */
+    @NotNull ProtocolAdapterPublishBuilder add();
+
+    int size();
+
+    /**
+     * Sends all PUBLISHes of the batch.
+     *
+     * @return a future that completes once all PUBLISHes were handled, with the return codes in the order the PUBLISHes
+     *         were added
+     */
+    @NotNull CompletableFuture<List<PublishReturnCode>> send();
+}
@@ -15,7 +15,15 @@
  */
 package com.hivemq.edge.modules.api.adapters;
 
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
 public interface ProtocolAdapterPublishService {
 
     ProtocolAdapterPublishBuilder publish();
+
+    /**
+     * Creates a batch for the PUBLISHes of a single poll cycle. The interceptors, the data governance and the topic
+     * lookups are run once for the whole batch instead of once per PUBLISH.
+     */
+    @NotNull ProtocolAdapterPublishBatchBuilder publishBatch();
 }
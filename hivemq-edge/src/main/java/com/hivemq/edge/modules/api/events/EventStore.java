@@ -2,6 +2,7 @@ package com.hivemq.edge.modules.api.events;
 
 import com.hivemq.edge.modules.api.events.model.Event;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 
 import java.util.List;
 
@@ -12,5 +13,10 @@ public interface EventStore {
 
     void storeEvent(@NotNull Event event);
 
-    List<Event> readEvents(@NotNull Long since, @NotNull Integer limit);
+    /**
+     * @param since only events with a timestamp after this timestamp are returned, all events if <code>null</code>
+     * @param limit the maximum amount of events returned, unlimited if <code>null</code>
+     * @return the events, newest first
+     */
+    @NotNull List<Event> readEvents(@Nullable Long since, @Nullable Integer limit);
 }
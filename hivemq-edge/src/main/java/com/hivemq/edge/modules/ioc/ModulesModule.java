@@ -16,7 +16,7 @@
 package com.hivemq.edge.modules.ioc;
 
 import com.hivemq.edge.impl.events.EventServiceDelegateImpl;
-import com.hivemq.edge.impl.events.InMemoryEventImpl;
+import com.hivemq.edge.impl.events.RingBufferEventStore;
 import com.hivemq.edge.modules.adapters.impl.ModuleServicesImpl;
 import com.hivemq.edge.modules.adapters.impl.ProtocolAdapterPollingServiceImpl;
 import com.hivemq.edge.modules.adapters.impl.ProtocolAdapterPublishServiceImpl;
@@ -56,7 +56,7 @@ public abstract class ModulesModule {
 
     @Binds
     @Singleton
-    abstract @NotNull EventStore eventStore(@NotNull InMemoryEventImpl inMemoryEvent);
+    abstract @NotNull EventStore eventStore(@NotNull RingBufferEventStore ringBufferEventStore);
 
     @Provides
     @ElementsIntoSet
@@ -44,7 +44,7 @@ import com.hivemq.mqtt.message.publish.PUBLISH;
 import com.hivemq.mqtt.message.publish.PUBLISHFactory;
 import com.hivemq.mqtt.services.PublishDistributor;
 import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
-import com.hivemq.mqtt.topic.tree.LocalTopicTree;
+import com.hivemq.mqtt.topic.tree.TopicTree;
 import com.hivemq.util.Bytes;
 
 import javax.inject.Inject;
@@ -75,7 +75,7 @@ public class PublishServiceImpl implements PublishService {
     private final HivemqId hiveMQId;
 
     @NotNull
-    private final LocalTopicTree topicTree;
+    private final TopicTree topicTree;
 
     @NotNull
     private final DataGovernanceService dataGovernanceService;
@@ -85,7 +85,7 @@ public class PublishServiceImpl implements PublishService {
                               @NotNull final GlobalManagedExtensionExecutorService globalManagedExtensionExecutorService,
                               @NotNull final PublishDistributor publishDistributor,
                               @NotNull final HivemqId hiveMQId,
-                              @NotNull final LocalTopicTree topicTree,
+                              @NotNull final TopicTree topicTree,
                               @NotNull final DataGovernanceService dataGovernanceService) {
         this.rateLimitService = rateLimitService;
         this.globalManagedExtensionExecutorService = globalManagedExtensionExecutorService;
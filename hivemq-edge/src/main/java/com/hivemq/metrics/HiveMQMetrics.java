@@ -121,6 +121,38 @@ public class HiveMQMetrics {
     public static final HiveMQMetric<Counter> SUBSCRIPTIONS_CURRENT =
             HiveMQMetric.valueOf(HIVEMQ_PREFIX + "subscriptions.overall.current", Counter.class);
 
+    /**
+     * represents a {@link Counter}, which is increased every time the subscribers of a published topic are served from
+     * the topic tree cache
+     */
+    public static final HiveMQMetric<Counter> TOPIC_TREE_CACHE_HIT_COUNT =
+            HiveMQMetric.valueOf(HIVEMQ_PREFIX + "subscriptions.topic-tree.cache.hit.count", Counter.class);
+
+    /**
+     * represents a {@link Counter}, which is increased every time the subscribers of a published topic are not found in
+     * the topic tree cache
+     */
+    public static final HiveMQMetric<Counter> TOPIC_TREE_CACHE_MISS_COUNT =
+            HiveMQMetric.valueOf(HIVEMQ_PREFIX + "subscriptions.topic-tree.cache.miss.count", Counter.class);
+
+    /**
+     * represents a {@link Counter}, which is increased for every topic tree cache entry removed by a subscription change
+     */
+    public static final HiveMQMetric<Counter> TOPIC_TREE_CACHE_INVALIDATED_COUNT =
+            HiveMQMetric.valueOf(HIVEMQ_PREFIX + "subscriptions.topic-tree.cache.invalidated.count", Counter.class);
+
+    /**
+     * represents a {@link Gauge}, which holds the ratio of topic tree cache hits to all lookups
+     */
+    public static final HiveMQMetric<Gauge<Number>> TOPIC_TREE_CACHE_HIT_RATE =
+            HiveMQMetric.gaugeValue(HIVEMQ_PREFIX + "subscriptions.topic-tree.cache.hit-rate");
+
+    /**
+     * represents a {@link Gauge}, which holds the current number of topics in the topic tree cache
+     */
+    public static final HiveMQMetric<Gauge<Number>> TOPIC_TREE_CACHE_SIZE_CURRENT =
+            HiveMQMetric.gaugeValue(HIVEMQ_PREFIX + "subscriptions.topic-tree.cache.size.current");
+
     /**
      * represents a {@link Gauge}, which measures the current count of stored sessions
      *
@@ -136,6 +168,13 @@ public class HiveMQMetrics {
     public static final HiveMQMetric<Gauge<Number>> RETAINED_MESSAGES_MEMORY_PERSISTENCE_TOTAL_SIZE =
             HiveMQMetric.gaugeValue(HIVEMQ_PREFIX + "persistence.retained-messages.in-memory.total-size");
 
+    /**
+     * represents a {@link Gauge}, which measures the disk usage of the retained message persistence if the file
+     * persistence is used.
+     */
+    public static final HiveMQMetric<Gauge<Number>> RETAINED_MESSAGES_FILE_PERSISTENCE_TOTAL_SIZE =
+            HiveMQMetric.gaugeValue(HIVEMQ_PREFIX + "persistence.retained-messages.file.total-size");
+
     /**
      * represents a {@link Gauge}, which measures the approximate memory usage of the subscription persistence if
      * the memory persistence is used.
@@ -157,6 +196,51 @@ public class HiveMQMetrics {
     public static final HiveMQMetric<Gauge<Number>> QUEUED_MESSAGES_MEMORY_PERSISTENCE_TOTAL_SIZE =
             HiveMQMetric.gaugeValue(HIVEMQ_PREFIX + "persistence.queued-messages.in-memory.total-size");
 
+    /**
+     * represents a {@link Gauge}, which measures the direct memory used by the payloads of queued qos 0 messages if
+     * the memory persistence stores them off heap.
+     */
+    public static final HiveMQMetric<Gauge<Number>> QUEUED_MESSAGES_MEMORY_PERSISTENCE_QOS_0_OFF_HEAP_SIZE =
+            HiveMQMetric.gaugeValue(HIVEMQ_PREFIX + "persistence.queued-messages.in-memory.qos-0-off-heap-size");
+
+    /**
+     * represents a {@link Counter}, which counts the PUBLISH topics which were found in the topic cache
+     */
+    public static final HiveMQMetric<Counter> TOPIC_INTERNER_HIT_COUNT =
+            HiveMQMetric.valueOf(HIVEMQ_PREFIX + "topic-interner.hit.count", Counter.class);
+
+    /**
+     * represents a {@link Counter}, which counts the PUBLISH topics which were not found in the topic cache
+     */
+    public static final HiveMQMetric<Counter> TOPIC_INTERNER_MISS_COUNT =
+            HiveMQMetric.valueOf(HIVEMQ_PREFIX + "topic-interner.miss.count", Counter.class);
+
+    /**
+     * represents a {@link Gauge}, which measures the ratio of PUBLISH topics which were found in the topic cache
+     */
+    public static final HiveMQMetric<Gauge<Number>> TOPIC_INTERNER_HIT_RATE =
+            HiveMQMetric.gaugeValue(HIVEMQ_PREFIX + "topic-interner.hit-rate");
+
+    /**
+     * represents a {@link Gauge}, which measures the disk usage of the queued message persistence if the file
+     * persistence is used.
+     */
+    public static final HiveMQMetric<Gauge<Number>> QUEUED_MESSAGES_FILE_PERSISTENCE_TOTAL_SIZE =
+            HiveMQMetric.gaugeValue(HIVEMQ_PREFIX + "persistence.queued-messages.file.total-size");
+
+    /**
+     * represents a {@link Gauge}, which measures the direct memory used by the payload persistence if the off-heap
+     * payload persistence is used.
+     */
+    public static final HiveMQMetric<Gauge<Number>> PAYLOAD_PERSISTENCE_OFF_HEAP_TOTAL_SIZE =
+            HiveMQMetric.gaugeValue(HIVEMQ_PREFIX + "persistence.payload.off-heap.total-size");
+
+    /**
+     * represents a {@link Gauge}, which holds the amount of payloads stored by the off-heap payload persistence
+     */
+    public static final HiveMQMetric<Gauge<Number>> PAYLOAD_PERSISTENCE_OFF_HEAP_PAYLOAD_COUNT =
+            HiveMQMetric.gaugeValue(HIVEMQ_PREFIX + "persistence.payload.off-heap.count");
+
     /**
      * represents a {@link Counter} for the number of MQTT client channels which are currently not writable.
      */
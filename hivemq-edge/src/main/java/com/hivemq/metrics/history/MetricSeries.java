@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.metrics.history;
+
+import com.hivemq.api.model.metrics.DataPoint;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The recorded values of a single metric in 1 second, 1 minute and 1 hour resolution.
+ * <p>
+ * Every resolution is a ring of fixed size, so the memory of a series does not grow over time. A bucket of a
+ * resolution holds the last value recorded within its interval.
+ */
+@ThreadSafe
+public class MetricSeries {
+
+    public static final long SECOND = 1000;
+    public static final long MINUTE = 60 * SECOND;
+    public static final long HOUR = 60 * MINUTE;
+
+    /* from finest to coarsest */
+    private final @NotNull Ring @NotNull [] rings;
+
+    public MetricSeries(final int seconds, final int minutes, final int hours) {
+        rings = new Ring[]{new Ring(SECOND, seconds), new Ring(MINUTE, minutes), new Ring(HOUR, hours)};
+    }
+
+    public synchronized void record(final long timestamp, final long value) {
+        for (final Ring ring : rings) {
+            ring.put(timestamp, value);
+        }
+    }
+
+    /**
+     * Returns the values between two timestamps with at most one value per step, oldest first.
+     * <p>
+     * The values are read from the finest resolution which still reaches back to <code>from</code>, or from the
+     * coarsest resolution if none does. A step smaller than this resolution is raised to the resolution.
+     *
+     * @param from the oldest timestamp, inclusive
+     * @param to   the newest timestamp, inclusive
+     * @param step the interval in milliseconds of the returned values, the resolution of the values if <= 0
+     * @return the last value of every step which has a value
+     */
+    public synchronized @NotNull List<DataPoint> query(final long from, final long to, final long step) {
+        Ring ring = rings[rings.length - 1];
+        for (final Ring candidate : rings) {
+            if (candidate.size > 0 && candidate.oldest() <= from) {
+                ring = candidate;
+                break;
+            }
+        }
+        final long interval = Math.max(step, ring.resolution);
+
+        final List<DataPoint> dataPoints = new ArrayList<>();
+        long lastBucket = Long.MIN_VALUE;
+        for (int i = ring.firstAtOrAfter(from); i < ring.size; i++) {
+            final long timestamp = ring.timestamp(i);
+            if (timestamp > to) {
+                break;
+            }
+            final long bucket = timestamp - Math.floorMod(timestamp, interval);
+            final DataPoint dataPoint = new DataPoint(bucket, ring.value(i));
+            if (bucket == lastBucket) {
+                dataPoints.set(dataPoints.size() - 1, dataPoint);
+            } else {
+                dataPoints.add(dataPoint);
+                lastBucket = bucket;
+            }
+        }
+        return dataPoints;
+    }
+
+    /**
+     * @return the amount of values kept over all resolutions
+     */
+    synchronized int size() {
+        int size = 0;
+        for (final Ring ring : rings) {
+            size += ring.size;
+        }
+        return size;
+    }
+
+    private static class Ring {
+
+        private final long resolution;
+        private final long @NotNull [] timestamps;
+        private final long @NotNull [] values;
+        /* index of the oldest value */
+        private int head;
+        private int size;
+
+        private Ring(final long resolution, final int capacity) {
+            this.resolution = resolution;
+            this.timestamps = new long[capacity];
+            this.values = new long[capacity];
+        }
+
+        private void put(final long timestamp, final long value) {
+            if (timestamps.length == 0) {
+                return;
+            }
+            final long bucket = timestamp - Math.floorMod(timestamp, resolution);
+            if (size > 0) {
+                final int newest = slot(size - 1);
+                if (timestamps[newest] >= bucket) {
+                    // same interval, or the clock went backwards; the newest bucket takes the value
+                    values[newest] = value;
+                    return;
+                }
+            }
+            if (size < timestamps.length) {
+                timestamps[slot(size)] = bucket;
+                values[slot(size)] = value;
+                size++;
+            } else {
+                timestamps[head] = bucket;
+                values[head] = value;
+                head = (head + 1) % timestamps.length;
+            }
+        }
+
+        private long oldest() {
+            return timestamps[head];
+        }
+
+        private long timestamp(final int i) {
+            return timestamps[slot(i)];
+        }
+
+        private long value(final int i) {
+            return values[slot(i)];
+        }
+
+        private int firstAtOrAfter(final long timestamp) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (timestamp(mid) >= timestamp) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        private int slot(final int i) {
+            return (head + i) % timestamps.length;
+        }
+    }
+}
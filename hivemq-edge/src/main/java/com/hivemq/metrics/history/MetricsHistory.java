@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.metrics.history;
+
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.hivemq.api.model.metrics.DataPoint;
+import com.hivemq.common.shutdown.HiveMQShutdownHook;
+import com.hivemq.common.shutdown.ShutdownHooks;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the values of the metrics in the registry every second, so their history can be queried.
+ * <p>
+ * Counters, meters, timers and histograms are recorded with their count, gauges with their value if it is a number.
+ * The amount of metrics and the values per metric are bounded, see {@link MetricSeries}.
+ */
+@Singleton
+public class MetricsHistory implements HiveMQShutdownHook {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(MetricsHistory.class);
+
+    private final @NotNull MetricRegistry metricRegistry;
+    private final @NotNull ShutdownHooks shutdownHooks;
+    private final @NotNull Map<String, MetricSeries> series = new ConcurrentHashMap<>();
+    private @Nullable ScheduledExecutorService executorService;
+
+    @Inject
+    public MetricsHistory(final @NotNull MetricRegistry metricRegistry, final @NotNull ShutdownHooks shutdownHooks) {
+        this.metricRegistry = metricRegistry;
+        this.shutdownHooks = shutdownHooks;
+    }
+
+    @Inject //method injection, this gets called once after instantiation
+    public void postConstruct() {
+        if (!InternalConfigurations.METRICS_HISTORY_ENABLED.get()) {
+            return;
+        }
+        executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat(
+                "metrics-history-%d").setDaemon(true).build());
+        executorService.scheduleAtFixedRate(() -> {
+            try {
+                sample(System.currentTimeMillis());
+            } catch (final Exception e) {
+                log.debug("Could not record metrics history", e);
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+        shutdownHooks.add(this);
+    }
+
+    /**
+     * @return the recorded values of the metric between the timestamps, oldest first, or <code>null</code> if no
+     *         values are recorded for the metric
+     * @see MetricSeries#query(long, long, long)
+     */
+    public @Nullable List<DataPoint> query(
+            final @NotNull String metricName, final long from, final long to, final long step) {
+        final MetricSeries metricSeries = series.get(metricName);
+        if (metricSeries == null) {
+            return null;
+        }
+        return metricSeries.query(from, to, step);
+    }
+
+    @VisibleForTesting
+    void sample(final long timestamp) {
+        final Map<String, Metric> metrics = metricRegistry.getMetrics();
+        for (final Map.Entry<String, Metric> entry : metrics.entrySet()) {
+            final Long value = valueOf(entry.getValue());
+            if (value == null) {
+                continue;
+            }
+            MetricSeries metricSeries = series.get(entry.getKey());
+            if (metricSeries == null) {
+                //-- the amount of series is bounded, metrics registered after the limit is reached are not recorded
+                if (series.size() >= InternalConfigurations.METRICS_HISTORY_MAX_METRICS.get()) {
+                    continue;
+                }
+                metricSeries = series.computeIfAbsent(entry.getKey(),
+                        name -> new MetricSeries(InternalConfigurations.METRICS_HISTORY_SECONDS.get(),
+                                InternalConfigurations.METRICS_HISTORY_MINUTES.get(),
+                                InternalConfigurations.METRICS_HISTORY_HOURS.get()));
+            }
+            metricSeries.record(timestamp, value);
+        }
+        // the history of removed metrics is dropped
+        series.keySet().retainAll(metrics.keySet());
+    }
+
+    private static @Nullable Long valueOf(final @NotNull Metric metric) {
+        if (metric instanceof Counting) {
+            return ((Counting) metric).getCount();
+        }
+        if (metric instanceof Gauge) {
+            final Object value;
+            try {
+                value = ((Gauge<?>) metric).getValue();
+            } catch (final RuntimeException e) {
+                return null;
+            }
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public @NotNull String name() {
+        return "Metrics History Shutdown";
+    }
+
+    @Override
+    public void run() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.hivemq.metrics.MetricsShutdownHook;
 import com.hivemq.metrics.gauges.OpenConnectionsGauge;
 import com.hivemq.metrics.gauges.RetainedMessagesGauge;
 import com.hivemq.metrics.gauges.SessionsGauge;
+import com.hivemq.metrics.history.MetricsHistory;
 import com.hivemq.metrics.jmx.JmxReporterBootstrap;
 import com.hivemq.persistence.local.ClientSessionLocalPersistence;
 import com.hivemq.persistence.retained.RetainedMessagePersistence;
@@ -79,7 +80,8 @@ public class MetricsModule {
             final @NotNull OpenConnectionsGauge openConnectionsGauge,
             final @NotNull RetainedMessagesGauge retainedMessagesGauge,
             final @NotNull JmxReporterBootstrap jmxReporterBootstrap,
-            final @NotNull MetricsShutdownHook metricsShutdownHook) {
+            final @NotNull MetricsShutdownHook metricsShutdownHook,
+            final @NotNull MetricsHistory metricsHistory) {
         // this is used to instantiate all the params, similar to guice's asEagerSingleton and returns nothing
         return Boolean.TRUE;
     }
@@ -22,9 +22,11 @@ import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.metrics.MetricsHolder;
 import com.hivemq.mqtt.message.publish.PublishWithFuture;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 
+import java.util.ArrayDeque;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -35,6 +37,7 @@ public class PublishFlushHandler extends ChannelInboundHandlerAdapter implements
 
     private @Nullable ChannelHandlerContext ctx;
     private final @NotNull LinkedList<PublishWithFuture> messagesToWrite = new LinkedList<>();
+    private final @NotNull ArrayDeque<Runnable> writableTasks = new ArrayDeque<>();
     private final @NotNull Counter channelNotWritable;
     private final int maxWritesBeforeFlush;
     private boolean wasWritable = true; // will only ever be updated in the channel's eventloop
@@ -56,6 +59,9 @@ public class PublishFlushHandler extends ChannelInboundHandlerAdapter implements
             wasWritable = true;
             channelNotWritable.dec();
 
+            channel.eventLoop().execute(this);
+        } else if (channel.isWritable() && !writableTasks.isEmpty()) {
+            // the tasks may wait for writability while no publishes are queued
             channel.eventLoop().execute(this);
         }
         ctx.fireChannelWritabilityChanged();
@@ -69,8 +75,11 @@ public class PublishFlushHandler extends ChannelInboundHandlerAdapter implements
 
     private void handleChannelInactiveState() {
         while (!messagesToWrite.isEmpty()) {
-            messagesToWrite.poll().getFuture().set(PublishStatus.NOT_CONNECTED);
+            final PublishWithFuture publish = messagesToWrite.poll();
+            publish.releasePayloadBuffer();
+            publish.getFuture().set(PublishStatus.NOT_CONNECTED);
         }
+        writableTasks.clear();
     }
 
     public void sendPublishes(final @NotNull List<PublishWithFuture> publishes) {
@@ -85,6 +94,22 @@ public class PublishFlushHandler extends ChannelInboundHandlerAdapter implements
         });
     }
 
+    /**
+     * Runs the task in the channel's eventloop as soon as all queued publishes are written and the channel is
+     * writable. The task is dropped if the channel is closed before.
+     *
+     * @param task the task to run, e.g. to produce the next publishes for the channel
+     */
+    public void runWhenWritable(final @NotNull Runnable task) {
+        assert ctx != null : "ctx can not be null because runWhenWritable is called after handlerAdded";
+        ctx.channel().eventLoop().execute(() -> {
+            if (ctx.channel().isActive()) {
+                writableTasks.add(task);
+                runWritableTasks();
+            }
+        });
+    }
+
     @Override
     public void run() {
         consumeQueue();
@@ -105,7 +130,10 @@ public class PublishFlushHandler extends ChannelInboundHandlerAdapter implements
 
             final PublishWithFuture publish = messagesToWrite.poll();
 
-            ctx.write(publish).addListener(new PublishWriteFailedListener(publish.getFuture()));
+            final ChannelFuture writeFuture = ctx.write(publish);
+            writeFuture.addListener(new PublishWriteFailedListener(publish.getFuture()));
+            // the payload buffer is released once it is encoded, the publish future may be completed before
+            writeFuture.addListener(future -> publish.releasePayloadBuffer());
             written++;
             if (written >= maxWritesBeforeFlush) {
                 ctx.flush();
@@ -115,6 +143,14 @@ public class PublishFlushHandler extends ChannelInboundHandlerAdapter implements
         if (written > 0) {
             ctx.flush();
         }
+        runWritableTasks();
+    }
+
+    private void runWritableTasks() {
+        assert ctx != null : "ctx can not be null because runWritableTasks is called after handlerAdded";
+        while (!writableTasks.isEmpty() && messagesToWrite.isEmpty() && ctx.channel().isWritable()) {
+            writableTasks.poll().run();
+        }
     }
 
 }
@@ -116,6 +116,18 @@ public class RetainedMessagesSender {
 
     }
 
+    /**
+     * Returns the amount of messages in the client queue of the client of the given {@link Channel}, including the
+     * retained messages which are queued for the client.
+     *
+     * @param channel the channel of the client
+     * @return a future with the size of the client queue
+     */
+    public @NotNull ListenableFuture<Integer> getQueueSize(final @NotNull Channel channel) {
+        final String clientId = channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get().getClientId();
+        return clientQueuePersistence.size(clientId, false);
+    }
+
     private static class SendRetainedMessageCallback implements FutureCallback<List<RetainedMessage>> {
 
         private final @NotNull Topic[] subscribedTopics;
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.handler.subscribe.retained;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.hivemq.bootstrap.ClientConnection;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.extensions.iteration.BucketChunkResult;
+import com.hivemq.mqtt.handler.publish.PublishFlushHandler;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.pool.exception.NoMessageIdAvailableException;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import com.hivemq.persistence.retained.RetainedMessagePersistence;
+import com.hivemq.util.Exceptions;
+import io.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Sends the retained messages for a wildcard subscription page by page, so the matching topics are never resolved all
+ * at once.
+ * <p>
+ * A page of matching topics is read from one persistence bucket at a time and the retained messages of a page are sent
+ * in batches limited by the receive maximum of the client. The next batch is only sent when the channel is writable,
+ * and for QoS 1 and 2 only when the client queue is not filled with the previous batches. The next page is read when
+ * all topics of the current page are sent.
+ * <p>
+ * All state is only accessed in the eventloop of the channel.
+ */
+public class SendRetainedMessagePages {
+
+    private static final Logger log = LoggerFactory.getLogger(SendRetainedMessagePages.class);
+
+    /* the max amount of batches in the client queue before the next batch is sent */
+    private static final int MAX_QUEUED_BATCHES = 4;
+
+    private final @NotNull Topic subscription;
+    private final @NotNull Channel channel;
+    private final @NotNull RetainedMessagePersistence retainedMessagePersistence;
+    private final @NotNull RetainedMessagesSender retainedMessagesSender;
+    private final @Nullable PublishFlushHandler publishFlushHandler;
+    private final int batchSize;
+    private final int pageSize;
+    private final int bucketCount;
+    private final long backoffMillis;
+
+    private final @NotNull ArrayDeque<String> topics = new ArrayDeque<>();
+    private int bucketIndex = 0;
+    private @Nullable String lastTopic = null;
+
+    SendRetainedMessagePages(
+            final @NotNull Topic subscription,
+            final @NotNull Channel channel,
+            final @NotNull RetainedMessagePersistence retainedMessagePersistence,
+            final @NotNull RetainedMessagesSender retainedMessagesSender) {
+
+        this(subscription,
+                channel,
+                retainedMessagePersistence,
+                retainedMessagesSender,
+                InternalConfigurations.RETAINED_MESSAGES_PAGE_SIZE.get(),
+                InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get(),
+                InternalConfigurations.RETAINED_MESSAGES_PAGED_DELIVERY_BACKOFF_MS.get());
+    }
+
+    SendRetainedMessagePages(
+            final @NotNull Topic subscription,
+            final @NotNull Channel channel,
+            final @NotNull RetainedMessagePersistence retainedMessagePersistence,
+            final @NotNull RetainedMessagesSender retainedMessagesSender,
+            final int pageSize,
+            final int bucketCount,
+            final long backoffMillis) {
+
+        checkNotNull(subscription, "Subscription must not be null");
+        checkNotNull(channel, "Channel must not be null");
+        checkNotNull(retainedMessagePersistence, "RetainedMessagePersistence must not be null");
+        checkNotNull(retainedMessagesSender, "RetainedMessagesSender must not be null");
+
+        this.subscription = subscription;
+        this.channel = channel;
+        this.retainedMessagePersistence = retainedMessagePersistence;
+        this.retainedMessagesSender = retainedMessagesSender;
+        this.pageSize = Math.max(1, pageSize);
+        this.bucketCount = bucketCount;
+        this.backoffMillis = backoffMillis;
+
+        final ClientConnection clientConnection = channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get();
+        final Integer clientReceiveMaximum = clientConnection.getClientReceiveMaximum();
+        this.batchSize = clientReceiveMaximum == null ?
+                SendRetainedMessagesListener.RetainedMessagesHandleWildcardsCallback.CONCURRENT_MESSAGES :
+                Math.max(1,
+                        Math.min(clientReceiveMaximum,
+                                SendRetainedMessagesListener.RetainedMessagesHandleWildcardsCallback.CONCURRENT_MESSAGES));
+        this.publishFlushHandler = clientConnection.getPublishFlushHandler();
+    }
+
+    /**
+     * Starts sending the retained messages, the first page is read right away.
+     */
+    public void start() {
+        channel.eventLoop().execute(this::readPage);
+    }
+
+    private void readPage() {
+        if (!channel.isActive() || bucketIndex >= bucketCount) {
+            return;
+        }
+        final ListenableFuture<BucketChunkResult<Set<String>>> future =
+                retainedMessagePersistence.getWithWildcardsChunk(subscription.getTopic(),
+                        bucketIndex,
+                        lastTopic,
+                        pageSize);
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(final @Nullable BucketChunkResult<Set<String>> page) {
+                if (page == null) {
+                    // nothing more in this bucket
+                    bucketIndex++;
+                    lastTopic = null;
+                } else {
+                    topics.addAll(page.getValue());
+                    if (page.isFinished()) {
+                        bucketIndex++;
+                        lastTopic = null;
+                    } else {
+                        lastTopic = page.getLastKey();
+                    }
+                }
+                sendNext();
+            }
+
+            @Override
+            public void onFailure(final @NotNull Throwable throwable) {
+                disconnect("Unable to send retained messages on topic " + subscription.getTopic(), throwable);
+            }
+        }, channel.eventLoop());
+    }
+
+    private void sendNext() {
+        if (!channel.isActive()) {
+            return;
+        }
+        if (topics.isEmpty()) {
+            readPage();
+            return;
+        }
+        if (publishFlushHandler != null) {
+            publishFlushHandler.runWhenWritable(this::sendNextIfQueueNotFull);
+        } else {
+            sendNextIfQueueNotFull();
+        }
+    }
+
+    private void sendNextIfQueueNotFull() {
+        // QoS 0 retained messages are written directly, all others are added to the client queue
+        if (subscription.getQoS() == QoS.AT_MOST_ONCE) {
+            sendBatch();
+            return;
+        }
+        Futures.addCallback(retainedMessagesSender.getQueueSize(channel), new FutureCallback<>() {
+            @Override
+            public void onSuccess(final @Nullable Integer queueSize) {
+                if (queueSize != null && queueSize >= batchSize * MAX_QUEUED_BATCHES) {
+                    channel.eventLoop().schedule(SendRetainedMessagePages.this::sendNext,
+                            backoffMillis,
+                            TimeUnit.MILLISECONDS);
+                } else {
+                    sendBatch();
+                }
+            }
+
+            @Override
+            public void onFailure(final @NotNull Throwable throwable) {
+                disconnect("Unable to send retained message for subscription " + subscription.getTopic(), throwable);
+            }
+        }, channel.eventLoop());
+    }
+
+    private void sendBatch() {
+        if (!channel.isActive()) {
+            return;
+        }
+        final int size = Math.min(topics.size(), batchSize);
+        final Topic[] topicBatch = new Topic[size];
+        for (int i = 0; i < size; i++) {
+            final String nextTopic = topics.poll();
+            topicBatch[i] = new Topic(nextTopic, subscription.getQoS(), subscription.isNoLocal(),
+                    subscription.isRetainAsPublished(), subscription.getRetainHandling(),
+                    subscription.getSubscriptionIdentifier());
+        }
+
+        final ListenableFuture<Void> sentFuture = retainedMessagesSender.writeRetainedMessages(channel, topicBatch);
+        Futures.addCallback(sentFuture, new FutureCallback<>() {
+            @Override
+            public void onSuccess(final @Nullable Void result) {
+                sendNext();
+            }
+
+            @Override
+            public void onFailure(final @NotNull Throwable throwable) {
+                if (Exceptions.isConnectionClosedException(throwable)) {
+                    return;
+                }
+                if (throwable instanceof NoMessageIdAvailableException) {
+                    if (channel.isActive()) {
+                        //We should just try again
+                        channel.eventLoop().schedule(() -> {
+                            if (log.isTraceEnabled()) {
+                                log.trace("Retrying retained messages for client '{}' on topic '{}'.",
+                                        getClientId(), subscription.getTopic());
+                            }
+                            sendNext();
+                        }, 1, TimeUnit.SECONDS);
+                    }
+                } else {
+                    disconnect("Unable to send retained message for subscription " + subscription.getTopic(),
+                            throwable);
+                }
+            }
+        }, channel.eventLoop());
+    }
+
+    private void disconnect(final @NotNull String text, final @NotNull Throwable throwable) {
+        Exceptions.rethrowError(text + " to client " + getClientId() + ".", throwable);
+        channel.disconnect();
+    }
+
+    private @NotNull String getClientId() {
+        return channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get().getClientId();
+    }
+}
@@ -19,6 +19,7 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.hivemq.bootstrap.ClientConnection;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.message.subscribe.Topic;
@@ -143,7 +144,8 @@ public class SendRetainedMessagesListener implements ChannelFutureListener {
      * <p>
      * This method is rather expensive but needed for wildcard matching. If you can, try to reduce the input as much as
      * possible, especially if there aren't any wildcards so we don't have to process the rather expensive wildcard
-     * matching
+     * matching. Unless it is disabled, the matching topics are resolved page by page, see
+     * {@link SendRetainedMessagePages}.
      *
      * @param topicsWithWildcards a List of String which represents the topics with wildcards
      * @param channel             the {@link Channel} to write the matching retained messages to
@@ -153,6 +155,14 @@ public class SendRetainedMessagesListener implements ChannelFutureListener {
 
         for (final Topic subscribedTopic : topicsWithWildcards) {
 
+            if (InternalConfigurations.RETAINED_MESSAGES_PAGED_DELIVERY_ENABLED.get()) {
+                new SendRetainedMessagePages(subscribedTopic,
+                        channel,
+                        retainedMessagePersistence,
+                        retainedMessagesSender).start();
+                continue;
+            }
+
             final ListenableFuture<Set<String>> future =
                     retainedMessagePersistence.getWithWildcards(subscribedTopic.getTopic());
             Futures.addCallback(
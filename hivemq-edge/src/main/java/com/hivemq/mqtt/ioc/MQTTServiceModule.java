@@ -15,6 +15,7 @@
  */
 package com.hivemq.mqtt.ioc;
 
+import com.hivemq.configuration.service.MqttConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.limitation.TopicAliasLimiter;
 import com.hivemq.limitation.TopicAliasLimiterImpl;
@@ -24,8 +25,15 @@ import com.hivemq.mqtt.services.PublishDistributor;
 import com.hivemq.mqtt.services.PublishDistributorImpl;
 import com.hivemq.mqtt.services.PublishPollService;
 import com.hivemq.mqtt.services.PublishPollServiceImpl;
+import com.hivemq.mqtt.topic.tree.CopyOnWriteTopicTree;
+import com.hivemq.mqtt.topic.tree.LocalTopicTree;
+import com.hivemq.mqtt.topic.tree.TopicTree;
 import dagger.Binds;
 import dagger.Module;
+import dagger.Provides;
+
+import javax.inject.Provider;
+import javax.inject.Singleton;
 
 @Module
 public interface MQTTServiceModule {
@@ -42,4 +50,16 @@ public interface MQTTServiceModule {
     @Binds
     @NotNull PublishPollService publishPollService(@NotNull PublishPollServiceImpl publishPollService);
 
+    @Provides
+    @Singleton
+    static @NotNull TopicTree topicTree(
+            final @NotNull MqttConfigurationService mqttConfigurationService,
+            final @NotNull Provider<LocalTopicTree> localTopicTreeProvider,
+            final @NotNull Provider<CopyOnWriteTopicTree> copyOnWriteTopicTreeProvider) {
+        if (mqttConfigurationService.topicTreeCopyOnWriteEnabled()) {
+            return copyOnWriteTopicTreeProvider.get();
+        }
+        return localTopicTreeProvider.get();
+    }
+
 }
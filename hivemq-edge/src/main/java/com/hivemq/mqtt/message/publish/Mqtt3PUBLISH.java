@@ -15,8 +15,10 @@
  */
 package com.hivemq.mqtt.message.publish;
 
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.message.Message;
 import com.hivemq.mqtt.message.QoS;
+import io.netty.buffer.ByteBuf;
 
 /**
  * @author Florian Limpöck
@@ -44,6 +46,11 @@ public interface Mqtt3PUBLISH extends Message {
      */
     byte[] getPayload();
 
+    /**
+     * @return the payload of the publish message in a direct buffer, null if it is not kept in a direct buffer
+     */
+    @Nullable ByteBuf getPayloadBuffer();
+
     /**
      * @return the topic of the publish message
      */
@@ -30,6 +30,8 @@ import com.hivemq.mqtt.message.mqtt5.MqttMessageWithUserProperties;
 import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
 import com.hivemq.persistence.payload.PublishPayloadPersistence;
 import com.hivemq.util.MemoryEstimator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 
 import java.util.Arrays;
 import java.util.Objects;
@@ -54,6 +56,8 @@ public class PUBLISH extends MqttMessageWithUserProperties implements Mqtt3PUBLI
     protected long timestamp;
 
     private @Nullable byte[] payload;
+    /* the payload in a direct buffer if the payload array is not set, owned by the publish that is written */
+    private @Nullable ByteBuf payloadBuffer;
     private boolean duplicateDelivery;
     private final @NotNull String topic;
     private final boolean retain;
@@ -198,7 +202,7 @@ public class PUBLISH extends MqttMessageWithUserProperties implements Mqtt3PUBLI
 
         this(publish.getHivemqId(),
                 publish.getTopic(),
-                publish.getPayload(),
+                publish.payloadBuffer == null ? publish.getPayload() : publish.payload,
                 publish.getQoS(),
                 publish.getOnwardQoS(),
                 publish.isRetain(),
@@ -215,6 +219,36 @@ public class PUBLISH extends MqttMessageWithUserProperties implements Mqtt3PUBLI
                 persistence,
                 publish.getTimestamp(),
                 publish.getPublishId());
+        this.payloadBuffer = publish.payloadBuffer;
+    }
+
+    /**
+     * Copies the publish, its payload is kept in the direct buffer instead of a payload array.
+     *
+     * @param publish       the publish to copy
+     * @param payloadBuffer the payload, the reference to it is passed on to the publish and its copies
+     */
+    protected PUBLISH(final @NotNull PUBLISH publish, final @NotNull ByteBuf payloadBuffer) {
+        this(publish.getHivemqId(),
+                publish.getTopic(),
+                null,
+                publish.getQoS(),
+                publish.getOnwardQoS(),
+                publish.isRetain(),
+                publish.getMessageExpiryInterval(),
+                publish.getPayloadFormatIndicator(),
+                publish.getContentType(),
+                publish.getResponseTopic(),
+                publish.getCorrelationData(),
+                publish.getUserProperties(),
+                publish.getPacketIdentifier(),
+                publish.isDuplicateDelivery(),
+                publish.isNewTopicAlias(),
+                publish.getSubscriptionIdentifiers(),
+                null,
+                publish.getTimestamp(),
+                publish.getPublishId());
+        this.payloadBuffer = payloadBuffer;
     }
 
     @Override
@@ -268,9 +302,41 @@ public class PUBLISH extends MqttMessageWithUserProperties implements Mqtt3PUBLI
         if (payload != null) {
             return payload;
         }
+        final ByteBuf payloadBuffer = this.payloadBuffer;
+        if (payloadBuffer != null) {
+            return ByteBufUtil.getBytes(payloadBuffer);
+        }
         return persistence.get(publishId);
     }
 
+    /**
+     * @return the payload in a direct buffer, null if the payload is not kept in a direct buffer or the payload array
+     *         replaces it. Encoders write it without copying it to the heap first.
+     */
+    @Override
+    public @Nullable ByteBuf getPayloadBuffer() {
+        return payload == null ? payloadBuffer : null;
+    }
+
+    /**
+     * Shares the direct buffer of a publish this publish was built from.
+     */
+    void setPayloadBuffer(final @Nullable ByteBuf payloadBuffer) {
+        this.payloadBuffer = payloadBuffer;
+    }
+
+    /**
+     * Releases the direct buffer of the payload, if the payload is kept in one. Must be called once the publish was
+     * written or dropped, the payload must not be read afterwards.
+     */
+    public void releasePayloadBuffer() {
+        final ByteBuf payloadBuffer = this.payloadBuffer;
+        if (payloadBuffer != null) {
+            this.payloadBuffer = null;
+            payloadBuffer.release();
+        }
+    }
+
     @Override
     public @NotNull String getTopic() {
         return topic;
@@ -25,6 +25,7 @@ import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
 import com.hivemq.persistence.payload.PublishPayloadPersistence;
 import com.hivemq.util.Bytes;
+import io.netty.buffer.ByteBuf;
 
 import static com.hivemq.mqtt.message.publish.PUBLISH.MESSAGE_EXPIRY_INTERVAL_NOT_SET;
 
@@ -46,6 +47,7 @@ public class PUBLISHFactory {
 
         private long timestamp = System.currentTimeMillis();
         private @Nullable byte[] payload;
+        private @Nullable ByteBuf payloadBuffer;
         private @Nullable String topic;
         private boolean duplicateDelivery;
         private boolean retain;
@@ -69,7 +71,8 @@ public class PUBLISHFactory {
             this.topic = publish.getTopic();
             this.qoS = publish.getQoS();
             this.onwardQos = publish.getOnwardQoS();
-            this.payload = publish.getPayload();
+            this.payloadBuffer = publish.getPayloadBuffer();
+            this.payload = payloadBuffer == null ? publish.getPayload() : null;
             this.retain = publish.isRetain();
             this.messageExpiryInterval = publish.getMessageExpiryInterval();
             this.duplicateDelivery = publish.isDuplicateDelivery();
@@ -92,10 +95,12 @@ public class PUBLISHFactory {
             Preconditions.checkNotNull(topic, "Topic may never be null");
             Preconditions.checkNotNull(qoS, "Quality of service may never be null");
 
-            return new PUBLISH(hivemqId, topic, payload, qoS, onwardQos, retain, messageExpiryInterval,
-                    payloadFormatIndicator, contentType, responseTopic, correlationData,
+            final PUBLISH publish = new PUBLISH(hivemqId, topic, payload, qoS, onwardQos, retain,
+                    messageExpiryInterval, payloadFormatIndicator, contentType, responseTopic, correlationData,
                     userProperties, packetIdentifier, duplicateDelivery, isNewTopicAlias, subscriptionIdentifiers,
                     persistence, timestamp, publishId);
+            publish.setPayloadBuffer(payloadBuffer);
+            return publish;
         }
 
         public @NotNull Mqtt5Builder withTimestamp(final long timestamp) {
@@ -105,6 +110,7 @@ public class PUBLISHFactory {
 
         public @NotNull Mqtt5Builder withPayload(final @Nullable byte[] payload) {
             this.payload = payload;
+            this.payloadBuffer = null;
             return this;
         }
 
@@ -203,6 +209,7 @@ public class PUBLISHFactory {
         private @NotNull QoS qoS;
         private @NotNull QoS onwardQos;
         private @Nullable byte[] payload;
+        private @Nullable ByteBuf payloadBuffer;
         private boolean retain;
 
         private long messageExpiryInterval = MESSAGE_EXPIRY_INTERVAL_NOT_SET;
@@ -219,7 +226,8 @@ public class PUBLISHFactory {
             this.topic = publish.getTopic();
             this.qoS = publish.getQoS();
             this.onwardQos = publish.getOnwardQoS();
-            this.payload = publish.getPayload();
+            this.payloadBuffer = publish.getPayloadBuffer();
+            this.payload = payloadBuffer == null ? publish.getPayload() : null;
             this.retain = publish.isRetain();
             this.messageExpiryInterval = publish.getMessageExpiryInterval();
             this.duplicateDelivery = publish.isDuplicateDelivery();
@@ -235,8 +243,10 @@ public class PUBLISHFactory {
             Preconditions.checkNotNull(topic, "Topic may never be null");
             Preconditions.checkNotNull(qoS, "Quality of service may never be null");
 
-            return new PUBLISH(hivemqId, topic, payload, qoS, onwardQos, retain,
+            final PUBLISH publish = new PUBLISH(hivemqId, topic, payload, qoS, onwardQos, retain,
                     messageExpiryInterval, persistence, packetIdentifier, duplicateDelivery, publishId, timestamp);
+            publish.setPayloadBuffer(payloadBuffer);
+            return publish;
         }
 
         public @NotNull Mqtt3Builder withTimestamp(final long timestamp) {
@@ -271,6 +281,7 @@ public class PUBLISHFactory {
 
         public @NotNull Mqtt3Builder withPayload(final @Nullable byte[] payload) {
             this.payload = payload;
+            this.payloadBuffer = null;
             return this;
         }
 
@@ -21,6 +21,7 @@ import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.handler.publish.PublishReturnCode;
 import com.hivemq.mqtt.message.publish.PUBLISH;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -40,4 +41,18 @@ public interface InternalPublishService {
             @NotNull final ExecutorService executorService,
             @Nullable final String sender);
 
+    /**
+     * Send messages of the same sender to all clients and shared subscription groups which have an active
+     * subscription. The subscribers of a topic are looked up once for all messages of the batch with this topic.
+     *
+     * @param publishes       the messages to send
+     * @param executorService the executor service in which all callbacks are executed
+     * @param sender          client identifier of the client which sent the messages
+     * @return a future with the return codes in the order of the messages
+     */
+    @NotNull ListenableFuture<List<PublishReturnCode>> publish(
+            @NotNull final List<PUBLISH> publishes,
+            @NotNull final ExecutorService executorService,
+            @Nullable final String sender);
+
 }
@@ -26,8 +26,8 @@ import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.handler.publish.PublishReturnCode;
 import com.hivemq.mqtt.message.publish.PUBLISH;
 import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
-import com.hivemq.mqtt.topic.tree.LocalTopicTree;
 import com.hivemq.mqtt.topic.tree.TopicSubscribers;
+import com.hivemq.mqtt.topic.tree.TopicTree;
 import com.hivemq.persistence.RetainedMessage;
 import com.hivemq.persistence.retained.RetainedMessagePersistence;
 import com.hivemq.util.Exceptions;
@@ -36,6 +36,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -54,7 +55,7 @@ public class InternalPublishServiceImpl implements InternalPublishService {
     private static final Logger log = LoggerFactory.getLogger(InternalPublishServiceImpl.class);
 
     private final @NotNull RetainedMessagePersistence retainedMessagePersistence;
-    private final @NotNull LocalTopicTree topicTree;
+    private final @NotNull TopicTree topicTree;
     private final @NotNull PublishDistributor publishDistributor;
 
     private final boolean acknowledgeAfterPersist;
@@ -62,7 +63,7 @@ public class InternalPublishServiceImpl implements InternalPublishService {
     @Inject
     public InternalPublishServiceImpl(
             final @NotNull RetainedMessagePersistence retainedMessagePersistence,
-            final @NotNull LocalTopicTree topicTree,
+            final @NotNull TopicTree topicTree,
             final @NotNull PublishDistributor publishDistributor) {
 
         this.retainedMessagePersistence = retainedMessagePersistence;
@@ -89,6 +90,38 @@ public class InternalPublishServiceImpl implements InternalPublishService {
                 .call(() -> publishReturnCodeFuture.get(), executorService);
     }
 
+    @Override
+    public @NotNull ListenableFuture<List<PublishReturnCode>> publish(
+            final @NotNull List<PUBLISH> publishes,
+            final @NotNull ExecutorService executorService,
+            final @Nullable String sender) {
+        Preconditions.checkNotNull(publishes, "PUBLISHes can not be null");
+        Preconditions.checkNotNull(executorService, "executorService can not be null");
+
+        //-- samples of a poll cycle often share topics, so every topic is looked up once per batch
+        final Map<String, TopicSubscribers> subscribersByTopic = new HashMap<>();
+        final List<ListenableFuture<PublishReturnCode>> returnCodeFutures = new ArrayList<>(publishes.size());
+        final List<ListenableFuture<?>> persistFutures = new ArrayList<>();
+        for (final PUBLISH publish : publishes) {
+            //reset dup-flag
+            publish.setDuplicateDelivery(false);
+
+            if (publish.isRetain()) {
+                persistFutures.add(persistRetainedMessage(publish, executorService));
+            }
+            final TopicSubscribers topicSubscribers =
+                    subscribersByTopic.computeIfAbsent(publish.getTopic(), topicTree::findTopicSubscribers);
+            returnCodeFutures.add(handlePublish(topicSubscribers, publish, executorService, sender));
+        }
+
+        final ListenableFuture<List<PublishReturnCode>> returnCodesFuture = Futures.allAsList(returnCodeFutures);
+        if (persistFutures.isEmpty()) {
+            return returnCodesFuture;
+        }
+        persistFutures.add(returnCodesFuture);
+        return Futures.whenAllComplete(persistFutures).call(returnCodesFuture::get, executorService);
+    }
+
     private ListenableFuture<Void> persistRetainedMessage(
             final PUBLISH publish, final ExecutorService executorService) {
 
@@ -145,6 +178,16 @@ public class InternalPublishServiceImpl implements InternalPublishService {
             final @Nullable String sender) {
 
         final TopicSubscribers topicSubscribers = topicTree.findTopicSubscribers(publish.getTopic());
+        return handlePublish(topicSubscribers, publish, executorService, sender);
+    }
+
+    @NotNull
+    private ListenableFuture<PublishReturnCode> handlePublish(
+            final @NotNull TopicSubscribers topicSubscribers,
+            final @NotNull PUBLISH publish,
+            final @NotNull ExecutorService executorService,
+            final @Nullable String sender) {
+
         final ImmutableSet<SubscriberWithIdentifiers> subscribers = topicSubscribers.getSubscribers();
         final ImmutableSet<String> sharedSubscriptions = topicSubscribers.getSharedSubscriptions();
 
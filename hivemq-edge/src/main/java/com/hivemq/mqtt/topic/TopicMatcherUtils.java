@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+public final class TopicMatcherUtils {
+
+    private TopicMatcherUtils() {
+    }
+
+    /**
+     * Checks if a topic matches a topic filter without splitting either of them. Topics starting with '$' are matched
+     * by wildcards as well, like in the topic trees of the retained messages.
+     *
+     * @param topicFilter the topic filter, which may contain wildcards
+     * @param topic       the topic, which must not contain wildcards
+     * @return whether the topic matches the topic filter
+     */
+    public static boolean matches(final @NotNull String topicFilter, final @NotNull String topic) {
+        final int filterLength = topicFilter.length();
+        final int topicLength = topic.length();
+        int f = 0;
+        int t = 0;
+        while (true) {
+            //f and t point to the start of a level
+            if (f < filterLength && topicFilter.charAt(f) == '#') {
+                return true;
+            }
+            if (f < filterLength && topicFilter.charAt(f) == '+' &&
+                    (f + 1 == filterLength || topicFilter.charAt(f + 1) == '/')) {
+                while (t < topicLength && topic.charAt(t) != '/') {
+                    t++;
+                }
+                f++;
+            } else {
+                while (f < filterLength && topicFilter.charAt(f) != '/') {
+                    if (t == topicLength || topic.charAt(t) != topicFilter.charAt(f)) {
+                        return false;
+                    }
+                    f++;
+                    t++;
+                }
+                if (t < topicLength && topic.charAt(t) != '/') {
+                    return false;
+                }
+            }
+            if (f == filterLength) {
+                return t == topicLength;
+            }
+            if (t == topicLength) {
+                //"a/#" also matches "a"
+                return f + 2 == filterLength && topicFilter.charAt(f + 1) == '#';
+            }
+            f++;
+            t++;
+        }
+    }
+}
@@ -0,0 +1,530 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
+import com.hivemq.mqtt.topic.SubscriberWithQoS;
+import com.hivemq.mqtt.topic.tree.LocalTopicTree.ClientPublishDeliverySubscriptionInfoFinder;
+import com.hivemq.mqtt.topic.tree.LocalTopicTree.ClientQueueDispatchingSubscriptionInfoFinder;
+import com.hivemq.mqtt.topic.tree.LocalTopicTree.SubscriptionsConsumer;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_MAP_CREATION_THRESHOLD;
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_SUBSCRIBERS_CACHE_SIZE;
+import static com.hivemq.mqtt.topic.tree.LocalTopicTree.createDistinctSubscribers;
+
+/**
+ * A topic tree which never locks on lookups. The nodes are never changed once they are reachable from the root.
+ * A subscription change copies the nodes on the path to the changed node and then replaces the root, so a lookup
+ * always sees a consistent version of the tree. Subscription changes are serialized by a single lock.
+ * <p>
+ * Every subscription change copies the subscriptions of the changed node and the children of all nodes on its path,
+ * so this tree is only a good fit if subscriptions change rarely compared to the amount of published messages.
+ */
+@Singleton
+public class CopyOnWriteTopicTree implements TopicTree {
+
+    private static final Logger log = LoggerFactory.getLogger(CopyOnWriteTopicTree.class);
+
+    /**
+     * The subscriptions to the root wildcard. Like the nodes, the list is never changed but replaced.
+     */
+    @VisibleForTesting
+    volatile @NotNull ImmutableList<SubscriberWithQoS> rootWildcardSubscribers = ImmutableList.of();
+
+    @VisibleForTesting
+    final @NotNull SubscriptionCounters counters;
+
+    private final @NotNull Lock writeLock = new ReentrantLock();
+
+    /**
+     * The children of the root node are the first topic levels.
+     */
+    private volatile @NotNull Node root = new Node("");
+
+    private final int mapCreationThreshold;
+
+    private final @NotNull TopicSubscribersCache subscribersCache;
+
+    @Inject
+    public CopyOnWriteTopicTree(final @NotNull MetricsHolder metricsHolder) {
+        counters = new SubscriptionCounters(metricsHolder.getSubscriptionCounter());
+        mapCreationThreshold = TOPIC_TREE_MAP_CREATION_THRESHOLD.get();
+        subscribersCache =
+                new TopicSubscribersCache(TOPIC_TREE_SUBSCRIBERS_CACHE_SIZE.get(), metricsHolder.getMetricRegistry());
+    }
+
+    @Override
+    public boolean addTopic(
+            final @NotNull String subscriber,
+            final @NotNull Topic topic,
+            final byte flags,
+            final @Nullable String sharedName) {
+
+        checkNotNull(subscriber, "Subscriber must not be null");
+        checkNotNull(topic, "Topic must not be null");
+
+        final String[] contents = StringUtils.splitPreserveAllTokens(topic.getTopic(), '/');
+
+        //Do not store subscriptions with more than 1000 segments
+        if (contents.length > 1000) {
+            log.warn("Subscription from {} on topic {} exceeds maximum segment count of 1000 segments, ignoring it", subscriber, topic);
+            return false;
+        }
+
+        if (contents.length == 0) {
+            log.debug("Tried to add an empty topic to the topic tree.");
+            return false;
+        }
+
+        final SubscriberWithQoS entry = new SubscriberWithQoS(subscriber, topic.getQoS().getQosNumber(), flags,
+                sharedName, topic.getSubscriptionIdentifier(), null);
+
+        final boolean replaced;
+        writeLock.lock();
+        try {
+            if (contents.length == 1 && "#".equals(contents[0])) {
+                if (rootWildcardSubscribers.contains(entry)) {
+                    return true;
+                }
+                //Replace the same subscription with different QoS
+                replaced = replaceRootWildcardSubscriber(subscriber, sharedName, entry);
+            } else {
+                final int levels = levels(contents);
+                final Node[] path = path(contents, levels);
+                final Node node = path[levels] != null ? path[levels] : new Node(contents[levels - 1]);
+
+                if (levels < contents.length) {
+                    final MatchingNodeSubscriptions subscriptions = node.wildcardSubscriptions.copy();
+                    replaced = subscriptions.addSubscriber(entry, topic.getTopic(), counters, mapCreationThreshold);
+                    root = replacePath(path, contents, node.withWildcardSubscriptions(subscriptions));
+                } else {
+                    final MatchingNodeSubscriptions subscriptions = node.exactSubscriptions.copy();
+                    replaced = subscriptions.addSubscriber(entry, topic.getTopic(), counters, mapCreationThreshold);
+                    root = replacePath(path, contents, node.withExactSubscriptions(subscriptions));
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        invalidateCache(topic.getTopic());
+        return replaced;
+    }
+
+    @Override
+    public void removeSubscriber(
+            final @NotNull String subscriber,
+            final @NotNull String topic,
+            final @Nullable String sharedName) {
+
+        checkNotNull(subscriber);
+        checkNotNull(topic);
+
+        if (topic.isEmpty()) {
+            log.debug("Tried to remove an empty topic from the topic tree.");
+            return;
+        }
+
+        writeLock.lock();
+        try {
+            if ("#".equals(topic)) {
+                if (!replaceRootWildcardSubscriber(subscriber, sharedName, null)) {
+                    return;
+                }
+            } else {
+                final String[] contents = StringUtils.splitPreserveAllTokens(topic, '/');
+                final int levels = levels(contents);
+                final Node[] path = path(contents, levels);
+                final Node node = path[levels];
+                //The topic filter doesn't exist, we can abort
+                if (node == null) {
+                    return;
+                }
+
+                if (levels < contents.length) {
+                    final MatchingNodeSubscriptions subscriptions = node.wildcardSubscriptions.copy();
+                    subscriptions.removeSubscriber(subscriber, sharedName, topic, counters);
+                    root = replacePath(path, contents, node.withWildcardSubscriptions(subscriptions));
+                } else {
+                    final MatchingNodeSubscriptions subscriptions = node.exactSubscriptions.copy();
+                    subscriptions.removeSubscriber(subscriber, sharedName, topic, counters);
+                    root = replacePath(path, contents, node.withExactSubscriptions(subscriptions));
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        invalidateCache(topic);
+    }
+
+    @Override
+    public @NotNull TopicSubscribers findTopicSubscribers(final @NotNull String topic) {
+        return findTopicSubscribers(topic, false);
+    }
+
+    @Override
+    public @NotNull TopicSubscribers findTopicSubscribers(
+            final @NotNull String topic,
+            final boolean excludeRootLevelWildcard) {
+
+        if (!subscribersCache.isEnabled()) {
+            return lookupTopicSubscribers(topic, excludeRootLevelWildcard);
+        }
+        final TopicSubscribers cached = subscribersCache.get(topic, excludeRootLevelWildcard);
+        if (cached != null) {
+            return cached;
+        }
+        final long epoch = subscribersCache.epoch();
+        final TopicSubscribers topicSubscribers = lookupTopicSubscribers(topic, excludeRootLevelWildcard);
+        subscribersCache.put(topic, excludeRootLevelWildcard, topicSubscribers, epoch);
+        return topicSubscribers;
+    }
+
+    private @NotNull TopicSubscribers lookupTopicSubscribers(
+            final @NotNull String topic,
+            final boolean excludeRootLevelWildcard) {
+
+        final ImmutableList.Builder<SubscriberWithQoS> subscribers = ImmutableList.builder();
+        final ImmutableSet.Builder<String> sharedSubscriptions = ImmutableSet.builder();
+
+        findSubscribers(topic, excludeRootLevelWildcard,
+                new ClientQueueDispatchingSubscriptionInfoFinder(subscribers, sharedSubscriptions));
+
+        return new TopicSubscribers(createDistinctSubscribers(subscribers.build()), sharedSubscriptions.build());
+    }
+
+    @Override
+    public @NotNull ImmutableSet<SubscriberWithQoS> getSharedSubscriber(
+            final @NotNull String group,
+            final @NotNull String topicFilter) {
+
+        return getSubscriptionsByTopicFilter(topicFilter, subscriber -> subscriber.isSharedSubscription()
+                && subscriber.getSharedName() != null
+                && subscriber.getSharedName().equals(group));
+    }
+
+    @Override
+    public @NotNull ImmutableSet<String> getSubscribersWithFilter(
+            final @NotNull String topicFilter,
+            final @NotNull Predicate<SubscriberWithQoS> itemFilter) {
+
+        final ImmutableSet<SubscriberWithQoS> subscriptions = getSubscriptionsByTopicFilter(topicFilter, itemFilter);
+        final ImmutableSet.Builder<String> builder = ImmutableSet.builderWithExpectedSize(subscriptions.size());
+        for (final SubscriberWithQoS subscription : subscriptions) {
+            builder.add(subscription.getSubscriber());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public @NotNull ImmutableSet<String> getSubscribersForTopic(
+            final @NotNull String topic,
+            final @NotNull Predicate<SubscriberWithQoS> itemFilter,
+            final boolean excludeRootLevelWildcard) {
+
+        final ImmutableSet.Builder<String> subscribers = ImmutableSet.builder();
+
+        findSubscribers(topic, excludeRootLevelWildcard, new SubscriptionsConsumer() {
+            @Override
+            public void acceptNonRootState(final @NotNull MatchingNodeSubscriptions matchingNodeSubscriptions) {
+                matchingNodeSubscriptions.populateWithSubscriberNamesUsingFilter(itemFilter, subscribers);
+            }
+
+            @Override
+            public void acceptRootState(final @NotNull List<SubscriberWithQoS> rootWildcardSubscriptions) {
+                for (final SubscriberWithQoS rootWildcardSubscriber : rootWildcardSubscriptions) {
+                    if (itemFilter.test(rootWildcardSubscriber)) {
+                        subscribers.add(rootWildcardSubscriber.getSubscriber());
+                    }
+                }
+            }
+        });
+
+        return subscribers.build();
+    }
+
+    @Override
+    public @Nullable SubscriberWithIdentifiers findSubscriber(
+            final @NotNull String client,
+            final @NotNull String topic) {
+
+        final ClientPublishDeliverySubscriptionInfoFinder subscriberConsumer =
+                new ClientPublishDeliverySubscriptionInfoFinder(client);
+
+        findSubscribers(topic, false, subscriberConsumer);
+
+        return subscriberConsumer.getMatchingSubscriber();
+    }
+
+    @VisibleForTesting
+    boolean isEmpty() {
+        return root.children.isEmpty() && rootWildcardSubscribers.isEmpty();
+    }
+
+    private void findSubscribers(
+            final @NotNull String topic,
+            final boolean excludeRootLevelWildcard,
+            final @NotNull SubscriptionsConsumer subscriberAndTopicConsumer) {
+
+        checkNotNull(topic, "Topic must not be null");
+
+        //Root wildcard subscribers always match
+        if (!excludeRootLevelWildcard) {
+            subscriberAndTopicConsumer.acceptRootState(rootWildcardSubscribers);
+        }
+
+        //The whole lookup uses the same version of the tree
+        final Node root = this.root;
+        if (root.children.isEmpty() || topic.isEmpty()) {
+            return;
+        }
+
+        final String[] topicPart = StringUtils.splitPreserveAllTokens(topic, '/');
+
+        final Node firstSegmentNode = root.children.get(topicPart[0]);
+        if (firstSegmentNode != null) {
+            traverseTree(firstSegmentNode, subscriberAndTopicConsumer, topicPart, 0);
+        }
+        if (!excludeRootLevelWildcard) {
+            final Node wildcardNode = root.children.get("+");
+            if (wildcardNode != null) {
+                traverseTree(wildcardNode, subscriberAndTopicConsumer, topicPart, 0);
+            }
+        }
+    }
+
+    private static void traverseTree(
+            final @NotNull Node node,
+            final @NotNull SubscriptionsConsumer subscriberAndTopicConsumer,
+            final @NotNull String[] topicPart,
+            final int depth) {
+
+        subscriberAndTopicConsumer.acceptNonRootState(node.wildcardSubscriptions);
+
+        if (topicPart.length - 1 == depth) {
+            subscriberAndTopicConsumer.acceptNonRootState(node.exactSubscriptions);
+            return;
+        }
+
+        final int nextDepth = depth + 1;
+        final Node matchingChildNode = node.children.get(topicPart[nextDepth]);
+        if (matchingChildNode != null) {
+            traverseTree(matchingChildNode, subscriberAndTopicConsumer, topicPart, nextDepth);
+        }
+        final Node matchingWildcardNode = node.children.get("+");
+        if (matchingWildcardNode != null) {
+            traverseTree(matchingWildcardNode, subscriberAndTopicConsumer, topicPart, nextDepth);
+        }
+    }
+
+    private @NotNull ImmutableSet<SubscriberWithQoS> getSubscriptionsByTopicFilter(
+            final @NotNull String topicFilter,
+            final @NotNull Predicate<SubscriberWithQoS> itemFilter) {
+
+        final ImmutableSet.Builder<SubscriberWithQoS> subscribers = ImmutableSet.builder();
+        if ("#".equals(topicFilter)) {
+            for (final SubscriberWithQoS rootWildcardSubscriber : rootWildcardSubscribers) {
+                if (itemFilter.test(rootWildcardSubscriber)) {
+                    subscribers.add(rootWildcardSubscriber);
+                }
+            }
+            return subscribers.build();
+        }
+
+        final String[] contents = StringUtils.splitPreserveAllTokens(topicFilter, '/');
+        final int levels = levels(contents);
+        Node node = root;
+        for (int i = 0; i < levels; i++) {
+            node = node.children.get(contents[i]);
+            if (node == null) {
+                // No matching node in the topic tree
+                return subscribers.build();
+            }
+        }
+
+        if (levels < contents.length) {
+            node.wildcardSubscriptions.populateWithSubscribersUsingFilter(itemFilter, subscribers);
+        } else {
+            node.exactSubscriptions.populateWithSubscribersUsingFilter(itemFilter, subscribers);
+        }
+        return subscribers.build();
+    }
+
+    /**
+     * replaces the subscriptions of the specified client to the root wildcard in a single swap of the list, must be
+     * called with the write lock held
+     *
+     * @param subscriber the clientId
+     * @param entry      the new subscription, or <code>null</code> to only remove the subscriptions
+     * @return if there was already a subscription for this client
+     */
+    private boolean replaceRootWildcardSubscriber(
+            final @NotNull String subscriber,
+            final @Nullable String sharedName,
+            final @Nullable SubscriberWithQoS entry) {
+        final ImmutableList<SubscriberWithQoS> current = rootWildcardSubscribers;
+        final ImmutableList.Builder<SubscriberWithQoS> replacement =
+                ImmutableList.builderWithExpectedSize(current.size() + 1);
+        int found = 0;
+        for (final SubscriberWithQoS rootWildcardSubscriber : current) {
+            if (rootWildcardSubscriber.getSubscriber().equals(subscriber) &&
+                    Objects.equals(rootWildcardSubscriber.getSharedName(), sharedName)) {
+                found++;
+            } else {
+                replacement.add(rootWildcardSubscriber);
+            }
+        }
+        if (found == 0 && entry == null) {
+            return false;
+        }
+        if (entry != null) {
+            replacement.add(entry);
+        }
+        rootWildcardSubscribers = replacement.build();
+        counters.getSubscriptionCounter().dec(found);
+        if (entry != null) {
+            counters.getSubscriptionCounter().inc();
+        }
+        return found > 0;
+    }
+
+    /**
+     * @return the number of topic levels that lead to the node of the topic filter, a multi level wildcard is stored
+     *         in the node of its parent level
+     */
+    private static int levels(final @NotNull String[] contents) {
+        for (int i = 1; i < contents.length; i++) {
+            if ("#".equals(contents[i])) {
+                return i;
+            }
+        }
+        return contents.length;
+    }
+
+    /**
+     * @return the nodes of the current tree for the first levels of the topic filter, starting with the root node.
+     *         Levels that do not exist yet are {@code null}.
+     */
+    private @Nullable Node[] path(final @NotNull String[] contents, final int levels) {
+        final Node[] path = new Node[levels + 1];
+        path[0] = root;
+        for (int i = 0; i < levels && path[i] != null; i++) {
+            path[i + 1] = path[i].children.get(contents[i]);
+        }
+        return path;
+    }
+
+    /**
+     * Copies all nodes on the path to the changed node and removes nodes which became empty.
+     *
+     * @return the new root node
+     */
+    private static @NotNull Node replacePath(
+            final @Nullable Node[] path,
+            final @NotNull String[] contents,
+            final @NotNull Node changedNode) {
+
+        Node child = changedNode;
+        for (int i = path.length - 2; i >= 0; i--) {
+            final Node parent = path[i] != null ? path[i] : new Node(contents[i - 1]);
+            child = child.isEmpty() ? parent.withoutChild(child.topicPart) : parent.withChild(child);
+        }
+        return child;
+    }
+
+    private void invalidateCache(final @NotNull String topicFilter) {
+        if (subscribersCache.isEnabled()) {
+            subscribersCache.invalidate(topicFilter);
+        }
+    }
+
+    /**
+     * A node of the tree which is not changed after it became reachable from the root, except for its subscriptions
+     * which are copied before they are changed as well.
+     */
+    private static final class Node {
+
+        private final @NotNull String topicPart;
+        private final @NotNull MatchingNodeSubscriptions wildcardSubscriptions;
+        private final @NotNull MatchingNodeSubscriptions exactSubscriptions;
+        private final @NotNull Map<String, Node> children;
+
+        Node(final @NotNull String topicPart) {
+            this(topicPart, new MatchingNodeSubscriptions(), new MatchingNodeSubscriptions(), Map.of());
+        }
+
+        private Node(
+                final @NotNull String topicPart,
+                final @NotNull MatchingNodeSubscriptions wildcardSubscriptions,
+                final @NotNull MatchingNodeSubscriptions exactSubscriptions,
+                final @NotNull Map<String, Node> children) {
+            this.topicPart = topicPart;
+            this.wildcardSubscriptions = wildcardSubscriptions;
+            this.exactSubscriptions = exactSubscriptions;
+            this.children = children;
+        }
+
+        @NotNull Node withWildcardSubscriptions(final @NotNull MatchingNodeSubscriptions wildcardSubscriptions) {
+            return new Node(topicPart, wildcardSubscriptions, exactSubscriptions, children);
+        }
+
+        @NotNull Node withExactSubscriptions(final @NotNull MatchingNodeSubscriptions exactSubscriptions) {
+            return new Node(topicPart, wildcardSubscriptions, exactSubscriptions, children);
+        }
+
+        @NotNull Node withChild(final @NotNull Node child) {
+            final Map<String, Node> newChildren = new HashMap<>(children);
+            newChildren.put(child.topicPart, child);
+            return new Node(topicPart, wildcardSubscriptions, exactSubscriptions, newChildren);
+        }
+
+        @NotNull Node withoutChild(final @NotNull String childTopicPart) {
+            if (!children.containsKey(childTopicPart)) {
+                return this;
+            }
+            if (children.size() == 1) {
+                return new Node(topicPart, wildcardSubscriptions, exactSubscriptions, Map.of());
+            }
+            final Map<String, Node> newChildren = new HashMap<>(children);
+            newChildren.remove(childTopicPart);
+            return new Node(topicPart, wildcardSubscriptions, exactSubscriptions, newChildren);
+        }
+
+        boolean isEmpty() {
+            return children.isEmpty() && exactSubscriptions.isEmpty() && wildcardSubscriptions.isEmpty();
+        }
+    }
+}
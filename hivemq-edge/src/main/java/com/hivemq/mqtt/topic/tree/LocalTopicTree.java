@@ -42,13 +42,14 @@ import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_MAP_CREATION_THRESHOLD;
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_SUBSCRIBERS_CACHE_SIZE;
 
 /**
  * A topic tree implementation which works with a standard read write lock with fairness guarantees. Either the whole
  * tree is locked or unlocked.
  */
 @Singleton
-public class LocalTopicTree {
+public class LocalTopicTree implements TopicTree {
 
     private static final Logger log = LoggerFactory.getLogger(LocalTopicTree.class);
 
@@ -64,6 +65,8 @@ public class LocalTopicTree {
 
     private final int mapCreationThreshold;
 
+    private final @NotNull TopicSubscribersCache subscribersCache;
+
     @Inject
     public LocalTopicTree(final @NotNull MetricsHolder metricsHolder) {
 
@@ -71,8 +74,11 @@ public class LocalTopicTree {
         mapCreationThreshold = TOPIC_TREE_MAP_CREATION_THRESHOLD.get();
 
         segmentLocks = Striped.readWriteLock(64);
+        subscribersCache =
+                new TopicSubscribersCache(TOPIC_TREE_SUBSCRIBERS_CACHE_SIZE.get(), metricsHolder.getMetricRegistry());
     }
 
+    @Override
     public boolean addTopic(
             final @NotNull String subscriber,
             final @NotNull Topic topic,
@@ -104,6 +110,7 @@ public class LocalTopicTree {
                 final boolean removed = removeRootWildcardSubscriber(subscriber, sharedName);
                 rootWildcardSubscribers.add(entry);
                 counters.getSubscriptionCounter().inc();
+                invalidateCache("#");
 
                 return removed;
             }
@@ -130,6 +137,7 @@ public class LocalTopicTree {
             }
         } finally {
             lock.unlock();
+            invalidateCache(topic.getTopic());
         }
     }
 
@@ -155,20 +163,33 @@ public class LocalTopicTree {
         }
     }
 
-    /**
-     * All subscribers for a topic (PUBLISH)
-     *
-     * @param topic the topic to publish to (no wildcards)
-     * @return the subscribers interested in this topic with all their identifiers
-     */
+    @Override
     public @NotNull TopicSubscribers findTopicSubscribers(final @NotNull String topic) {
         return findTopicSubscribers(topic, false);
     }
 
+    @Override
     public @NotNull TopicSubscribers findTopicSubscribers(
             final @NotNull String topic,
             final boolean excludeRootLevelWildcard) {
 
+        if (!subscribersCache.isEnabled()) {
+            return lookupTopicSubscribers(topic, excludeRootLevelWildcard);
+        }
+        final TopicSubscribers cached = subscribersCache.get(topic, excludeRootLevelWildcard);
+        if (cached != null) {
+            return cached;
+        }
+        final long epoch = subscribersCache.epoch();
+        final TopicSubscribers topicSubscribers = lookupTopicSubscribers(topic, excludeRootLevelWildcard);
+        subscribersCache.put(topic, excludeRootLevelWildcard, topicSubscribers, epoch);
+        return topicSubscribers;
+    }
+
+    private @NotNull TopicSubscribers lookupTopicSubscribers(
+            final @NotNull String topic,
+            final boolean excludeRootLevelWildcard) {
+
         final ImmutableList.Builder<SubscriberWithQoS> subscribers = ImmutableList.builder();
         final ImmutableSet.Builder<String> sharedSubscriptions = ImmutableSet.builder();
 
@@ -238,7 +259,7 @@ public class LocalTopicTree {
      * @param subscribers a list of subscribers
      * @return a immutable Set of distinct Subscribers with the maximum QoS.
      */
-    private static @NotNull ImmutableSet<SubscriberWithIdentifiers> createDistinctSubscribers(
+    static @NotNull ImmutableSet<SubscriberWithIdentifiers> createDistinctSubscribers(
             final @NotNull ImmutableList<SubscriberWithQoS> subscribers) {
 
         final ImmutableSet.Builder<SubscriberWithIdentifiers> newSet = ImmutableSet.builder();
@@ -392,10 +413,12 @@ public class LocalTopicTree {
         if (!foundSubscriberList.isEmpty()) {
             rootWildcardSubscribers.removeAll(foundSubscriberList);
             counters.getSubscriptionCounter().dec(foundSubscriberList.size());
+            invalidateCache("#");
         }
         return !foundSubscriberList.isEmpty();
     }
 
+    @Override
     public void removeSubscriber(
             final @NotNull String subscriber,
             final @NotNull String topic,
@@ -489,6 +512,13 @@ public class LocalTopicTree {
 
         } finally {
             lock.unlock();
+            invalidateCache(topic);
+        }
+    }
+
+    private void invalidateCache(final @NotNull String topicFilter) {
+        if (subscribersCache.isEnabled()) {
+            subscribersCache.invalidate(topicFilter);
         }
     }
 
@@ -559,6 +589,7 @@ public class LocalTopicTree {
         }
     }
 
+    @Override
     public @NotNull ImmutableSet<SubscriberWithQoS> getSharedSubscriber(
             final @NotNull String group,
             final @NotNull String topicFilter) {
@@ -568,6 +599,7 @@ public class LocalTopicTree {
                 && subscriber.getSharedName().equals(group));
     }
 
+    @Override
     public @NotNull ImmutableSet<String> getSubscribersWithFilter(
             final @NotNull String topicFilter,
             final @NotNull Predicate<SubscriberWithQoS> itemFilter) {
@@ -575,6 +607,7 @@ public class LocalTopicTree {
         return createDistinctSubscriberIds(getSubscriptionsByTopicFilter(topicFilter, itemFilter));
     }
 
+    @Override
     public @NotNull ImmutableSet<String> getSubscribersForTopic(
             final @NotNull String topic,
             final @NotNull Predicate<SubscriberWithQoS> itemFilter,
@@ -785,6 +818,7 @@ public class LocalTopicTree {
         }
     }
 
+    @Override
     public @Nullable SubscriberWithIdentifiers findSubscriber(
             final @NotNull String client,
             final @NotNull String topic) {
@@ -895,14 +929,14 @@ public class LocalTopicTree {
      * Filters subscription information for the purpose of delivering PUBLISH control packet to the subscriber.
      * Outbound flow.
      */
-    private static final class ClientPublishDeliverySubscriptionInfoFinder implements SubscriptionsConsumer {
+    static final class ClientPublishDeliverySubscriptionInfoFinder implements SubscriptionsConsumer {
 
         private final @NotNull String client;
         private @Nullable SubscriberWithIdentifiers sharedSubscriber;
         private final @NotNull ImmutableList.Builder<SubscriberWithQoS> subscribers = ImmutableList.builder();
         private boolean nonSharedSubscriberFound;
 
-        private ClientPublishDeliverySubscriptionInfoFinder(final @NotNull String client) {
+        ClientPublishDeliverySubscriptionInfoFinder(final @NotNull String client) {
             this.client = client;
         }
 
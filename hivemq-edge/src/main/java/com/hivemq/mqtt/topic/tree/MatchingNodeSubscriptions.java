@@ -55,6 +55,29 @@ class MatchingNodeSubscriptions {
         sharedSubscribersMap = Map.of();
     }
 
+    /**
+     * Creates a copy which does not share any mutable structure with this instance, so that the copy can be changed
+     * while this instance is still read.
+     *
+     * @return a copy of the subscription information
+     */
+    @NotNull MatchingNodeSubscriptions copy() {
+        final MatchingNodeSubscriptions copy = new MatchingNodeSubscriptions();
+        if (nonSharedSubscribersArray != null) {
+            copy.nonSharedSubscribersArray = nonSharedSubscribersArray.clone();
+        }
+        if (nonSharedSubscribersMap != null) {
+            copy.nonSharedSubscribersMap = new HashMap<>(nonSharedSubscribersMap);
+        }
+        if (!sharedSubscribersMap.isEmpty()) {
+            copy.sharedSubscribersMap = new HashMap<>(sharedSubscribersMap.size());
+            for (final Map.Entry<String, SubscriptionGroup> entry : sharedSubscribersMap.entrySet()) {
+                copy.sharedSubscribersMap.put(entry.getKey(), entry.getValue().copy());
+            }
+        }
+        return copy;
+    }
+
     /**
      * Attempts to add the subscription information and updates the counters based on how the addition went and
      * what subscription information was stored previously.
@@ -209,6 +232,12 @@ class MatchingNodeSubscriptions {
 
         private final @NotNull Map<String, SubscriberWithQoS> subscriptions = new HashMap<>();
 
+        @NotNull SubscriptionGroup copy() {
+            final SubscriptionGroup copy = new SubscriptionGroup();
+            copy.subscriptions.putAll(subscriptions);
+            return copy;
+        }
+
         @Nullable SubscriberWithQoS put(final @NotNull SubscriberWithQoS subscription) {
             return subscriptions.put(subscription.getSubscriber(), subscription);
         }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.annotations.VisibleForTesting;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.topic.TopicMatcherUtils;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hivemq.metrics.HiveMQMetrics.TOPIC_TREE_CACHE_HIT_COUNT;
+import static com.hivemq.metrics.HiveMQMetrics.TOPIC_TREE_CACHE_HIT_RATE;
+import static com.hivemq.metrics.HiveMQMetrics.TOPIC_TREE_CACHE_INVALIDATED_COUNT;
+import static com.hivemq.metrics.HiveMQMetrics.TOPIC_TREE_CACHE_MISS_COUNT;
+import static com.hivemq.metrics.HiveMQMetrics.TOPIC_TREE_CACHE_SIZE_CURRENT;
+
+/**
+ * A bounded cache for the {@link TopicSubscribers} of published topics in front of the {@link LocalTopicTree}.
+ * <p>
+ * Every change of the topic tree increments the subscription epoch and removes the cached topics which match the
+ * changed topic filter. A lookup reads the epoch before it traverses the tree and its result is only kept if no
+ * change happened in the meantime, so a result that was computed concurrently to a change is never served.
+ */
+class TopicSubscribersCache {
+
+    private final int maxSize;
+
+    private final @NotNull ConcurrentHashMap<String, TopicSubscribers> allSubscribers = new ConcurrentHashMap<>();
+    private final @NotNull ConcurrentHashMap<String, TopicSubscribers> withoutRootWildcard = new ConcurrentHashMap<>();
+
+    private final @NotNull AtomicLong epoch = new AtomicLong();
+
+    private final @NotNull Counter hitCounter;
+    private final @NotNull Counter missCounter;
+    private final @NotNull Counter invalidatedCounter;
+
+    TopicSubscribersCache(final int maxSize, final @NotNull MetricRegistry metricRegistry) {
+        this.maxSize = maxSize;
+        hitCounter = metricRegistry.counter(TOPIC_TREE_CACHE_HIT_COUNT.name());
+        missCounter = metricRegistry.counter(TOPIC_TREE_CACHE_MISS_COUNT.name());
+        invalidatedCounter = metricRegistry.counter(TOPIC_TREE_CACHE_INVALIDATED_COUNT.name());
+        metricRegistry.gauge(TOPIC_TREE_CACHE_HIT_RATE.name(), () -> new RatioGauge() {
+            @Override
+            protected @NotNull Ratio getRatio() {
+                return Ratio.of(hitCounter.getCount(), hitCounter.getCount() + missCounter.getCount());
+            }
+        });
+        metricRegistry.gauge(TOPIC_TREE_CACHE_SIZE_CURRENT.name(), () -> (Gauge<Number>) this::size);
+    }
+
+    boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    long epoch() {
+        return epoch.get();
+    }
+
+    @Nullable TopicSubscribers get(final @NotNull String topic, final boolean excludeRootLevelWildcard) {
+        final TopicSubscribers cached = map(excludeRootLevelWildcard).get(topic);
+        if (cached != null) {
+            hitCounter.inc();
+        } else {
+            missCounter.inc();
+        }
+        return cached;
+    }
+
+    /**
+     * Caches the subscribers that were found for the topic, unless the topic tree changed since the lookup started.
+     *
+     * @param epochAtLookup the epoch that was read before the topic tree was traversed
+     */
+    void put(
+            final @NotNull String topic,
+            final boolean excludeRootLevelWildcard,
+            final @NotNull TopicSubscribers subscribers,
+            final long epochAtLookup) {
+
+        if (epoch.get() != epochAtLookup) {
+            return;
+        }
+        final ConcurrentHashMap<String, TopicSubscribers> map = map(excludeRootLevelWildcard);
+        if (map.size() >= maxSize) {
+            evictOne(map);
+        }
+        map.put(topic, subscribers);
+        //A change of the tree might have missed the entry we just added
+        if (epoch.get() != epochAtLookup) {
+            map.remove(topic, subscribers);
+        }
+    }
+
+    /**
+     * Removes all cached topics which match the changed topic filter. Must be called after the topic tree was changed.
+     *
+     * @param topicFilter the topic filter which was added or removed
+     */
+    void invalidate(final @NotNull String topicFilter) {
+        epoch.incrementAndGet();
+
+        if (topicFilter.indexOf('+') == -1 && topicFilter.indexOf('#') == -1) {
+            remove(allSubscribers, topicFilter);
+            remove(withoutRootWildcard, topicFilter);
+            return;
+        }
+        if ("#".equals(topicFilter)) {
+            invalidatedCounter.inc(allSubscribers.size());
+            allSubscribers.clear();
+            return;
+        }
+        removeMatching(allSubscribers, topicFilter);
+        removeMatching(withoutRootWildcard, topicFilter);
+    }
+
+    int size() {
+        return allSubscribers.size() + withoutRootWildcard.size();
+    }
+
+    private @NotNull ConcurrentHashMap<String, TopicSubscribers> map(final boolean excludeRootLevelWildcard) {
+        return excludeRootLevelWildcard ? withoutRootWildcard : allSubscribers;
+    }
+
+    private void remove(
+            final @NotNull ConcurrentHashMap<String, TopicSubscribers> map, final @NotNull String topic) {
+        if (map.remove(topic) != null) {
+            invalidatedCounter.inc();
+        }
+    }
+
+    private void removeMatching(
+            final @NotNull ConcurrentHashMap<String, TopicSubscribers> map, final @NotNull String topicFilter) {
+        final Iterator<String> iterator = map.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (matches(topicFilter, iterator.next())) {
+                iterator.remove();
+                invalidatedCounter.inc();
+            }
+        }
+    }
+
+    private static void evictOne(final @NotNull ConcurrentHashMap<String, TopicSubscribers> map) {
+        final Iterator<String> iterator = map.keySet().iterator();
+        if (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Checks if a topic matches a topic filter. Topics starting with '$' are matched by wildcards here as well, which
+     * only leads to additional invalidations.
+     */
+    @VisibleForTesting
+    static boolean matches(final @NotNull String topicFilter, final @NotNull String topic) {
+        return TopicMatcherUtils.matches(topicFilter, topic);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.google.common.collect.ImmutableSet;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
+import com.hivemq.mqtt.topic.SubscriberWithQoS;
+
+import java.util.function.Predicate;
+
+/**
+ * The subscriptions of all clients, organized by topic filter.
+ * <p>
+ * {@link LocalTopicTree} locks the first level of the tree and is the default, {@link CopyOnWriteTopicTree} does not
+ * lock on lookups and is meant for setups where subscriptions rarely change.
+ */
+public interface TopicTree {
+
+    /**
+     * Adds a subscription to the topic tree.
+     *
+     * @param subscriber the client identifier of the subscriber
+     * @param topic      the topic filter with the subscription options
+     * @param flags      the subscription flags
+     * @param sharedName the name of the shared subscription group or {@code null}
+     * @return whether a subscription of the subscriber with the topic filter was replaced
+     */
+    boolean addTopic(@NotNull String subscriber, @NotNull Topic topic, byte flags, @Nullable String sharedName);
+
+    /**
+     * Removes a subscription from the topic tree.
+     *
+     * @param subscriber the client identifier of the subscriber
+     * @param topic      the topic filter of the subscription
+     * @param sharedName the name of the shared subscription group or {@code null}
+     */
+    void removeSubscriber(@NotNull String subscriber, @NotNull String topic, @Nullable String sharedName);
+
+    /**
+     * All subscribers for a topic (PUBLISH)
+     *
+     * @param topic the topic to publish to (no wildcards)
+     * @return the subscribers interested in this topic with all their identifiers
+     */
+    @NotNull TopicSubscribers findTopicSubscribers(@NotNull String topic);
+
+    /**
+     * All subscribers for a topic (PUBLISH)
+     *
+     * @param topic                    the topic to publish to (no wildcards)
+     * @param excludeRootLevelWildcard whether subscriptions with a wildcard on the first level are ignored
+     * @return the subscribers interested in this topic with all their identifiers
+     */
+    @NotNull TopicSubscribers findTopicSubscribers(@NotNull String topic, boolean excludeRootLevelWildcard);
+
+    /**
+     * @param group       the name of the shared subscription group
+     * @param topicFilter the topic filter of the shared subscription
+     * @return the subscriptions of the shared subscription group with exactly this topic filter
+     */
+    @NotNull ImmutableSet<SubscriberWithQoS> getSharedSubscriber(@NotNull String group, @NotNull String topicFilter);
+
+    /**
+     * @param topicFilter the topic filter
+     * @param itemFilter  the filter for the subscriptions
+     * @return the client identifiers of the subscriptions with exactly this topic filter which match the item filter
+     */
+    @NotNull ImmutableSet<String> getSubscribersWithFilter(
+            @NotNull String topicFilter, @NotNull Predicate<SubscriberWithQoS> itemFilter);
+
+    /**
+     * @param topic                    the topic (no wildcards)
+     * @param itemFilter               the filter for the subscriptions
+     * @param excludeRootLevelWildcard whether subscriptions with a wildcard on the first level are ignored
+     * @return the client identifiers of the subscriptions matching the topic which match the item filter
+     */
+    @NotNull ImmutableSet<String> getSubscribersForTopic(
+            @NotNull String topic, @NotNull Predicate<SubscriberWithQoS> itemFilter, boolean excludeRootLevelWildcard);
+
+    /**
+     * @param client the client identifier
+     * @param topic  the topic of the PUBLISH (no wildcards)
+     * @return the subscription of the client which is used to deliver a PUBLISH with this topic or {@code null}
+     */
+    @Nullable SubscriberWithIdentifiers findSubscriber(@NotNull String client, @NotNull String topic);
+}
@@ -44,14 +44,14 @@ public class TopicTreeStartup {
 
     private static final Logger log = LoggerFactory.getLogger(TopicTreeStartup.class);
 
-    private final @NotNull LocalTopicTree topicTree;
+    private final @NotNull TopicTree topicTree;
     private final @NotNull Lazy<ClientSessionPersistence> clientSessionPersistence;
     private final @NotNull ClientSessionSubscriptionPersistence clientSessionSubscriptionPersistence;
     private final @NotNull SharedSubscriptionService sharedSubscriptionService;
 
     @Inject
     TopicTreeStartup(
-            final @NotNull LocalTopicTree topicTree,
+            final @NotNull TopicTree topicTree,
             final @NotNull Lazy<ClientSessionPersistence> clientSessionPersistence,
             final @NotNull ClientSessionSubscriptionPersistence clientSessionSubscriptionPersistence,
             final @NotNull SharedSubscriptionService sharedSubscriptionService) {
@@ -31,7 +31,7 @@ import com.hivemq.mqtt.message.publish.PUBLISH;
 import com.hivemq.mqtt.message.pubrel.PUBREL;
 import com.hivemq.mqtt.services.PublishPollService;
 import com.hivemq.mqtt.topic.SubscriberWithQoS;
-import com.hivemq.mqtt.topic.tree.LocalTopicTree;
+import com.hivemq.mqtt.topic.tree.TopicTree;
 import com.hivemq.persistence.AbstractPersistence;
 import com.hivemq.persistence.ProducerQueues;
 import com.hivemq.persistence.SingleWriterService;
@@ -61,7 +61,7 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
     private final @NotNull MqttConfigurationService mqttConfigurationService;
     private final @NotNull ClientSessionLocalPersistence clientSessionLocalPersistence;
     private final @NotNull MessageDroppedService messageDroppedService;
-    private final @NotNull LocalTopicTree topicTree;
+    private final @NotNull TopicTree topicTree;
     private final @NotNull ConnectionPersistence connectionPersistence;
     private final @NotNull Lazy<PublishPollService> publishPollService;
     private final @NotNull MessageForwarder messageForwarder;
@@ -73,7 +73,7 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
             final @NotNull MqttConfigurationService mqttConfigurationService,
             final @NotNull ClientSessionLocalPersistence clientSessionLocalPersistence,
             final @NotNull MessageDroppedService messageDroppedService,
-            final @NotNull LocalTopicTree topicTree,
+            final @NotNull TopicTree topicTree,
             final @NotNull ConnectionPersistence connectionPersistence,
             final @NotNull Lazy<PublishPollService> publishPollService,
             final @NotNull MessageForwarder messageForwarder) {
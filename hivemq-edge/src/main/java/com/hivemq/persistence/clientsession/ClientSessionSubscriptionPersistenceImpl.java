@@ -33,7 +33,7 @@ import com.hivemq.mqtt.message.subscribe.Topic;
 import com.hivemq.mqtt.services.PublishPollService;
 import com.hivemq.mqtt.topic.SubscriptionFlag;
 import com.hivemq.mqtt.topic.TopicFilter;
-import com.hivemq.mqtt.topic.tree.LocalTopicTree;
+import com.hivemq.mqtt.topic.tree.TopicTree;
 import com.hivemq.persistence.AbstractPersistence;
 import com.hivemq.persistence.ProducerQueues;
 import com.hivemq.persistence.SingleWriterService;
@@ -61,7 +61,7 @@ public class ClientSessionSubscriptionPersistenceImpl extends AbstractPersistenc
     private static final Logger log = LoggerFactory.getLogger(ClientSessionSubscriptionPersistenceImpl.class);
 
     private final @NotNull Lazy<ClientSessionSubscriptionLocalPersistence> localPersistence;
-    private final @NotNull LocalTopicTree topicTree;
+    private final @NotNull TopicTree topicTree;
     private final @NotNull Lazy<SharedSubscriptionService> sharedSubscriptionService;
     private final @NotNull ConnectionPersistence connectionPersistence;
     private final @NotNull ProducerQueues singleWriter;
@@ -73,7 +73,7 @@ public class ClientSessionSubscriptionPersistenceImpl extends AbstractPersistenc
     @Inject
     ClientSessionSubscriptionPersistenceImpl(
             final @NotNull Lazy<ClientSessionSubscriptionLocalPersistence> localPersistence,
-            final @NotNull LocalTopicTree topicTree,
+            final @NotNull TopicTree topicTree,
             final @NotNull Lazy<SharedSubscriptionService> sharedSubscriptionService,
             final @NotNull SingleWriterService singleWriterService,
             final @NotNull ConnectionPersistence connectionPersistence,
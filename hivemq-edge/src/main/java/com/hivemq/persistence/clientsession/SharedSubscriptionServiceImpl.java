@@ -23,7 +23,7 @@ import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.message.subscribe.Topic;
 import com.hivemq.mqtt.topic.SubscriberWithQoS;
 import com.hivemq.mqtt.topic.SubscriptionFlag;
-import com.hivemq.mqtt.topic.tree.LocalTopicTree;
+import com.hivemq.mqtt.topic.tree.TopicTree;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -52,7 +52,7 @@ public class SharedSubscriptionServiceImpl implements SharedSubscriptionService
     private static final int GROUP_INDEX = 2;
     private static final int TOPIC_INDEX = 3;
 
-    private final @NotNull LocalTopicTree topicTree;
+    private final @NotNull TopicTree topicTree;
     private final @NotNull ClientSessionSubscriptionPersistence subscriptionPersistence;
 
     private @Nullable Cache<String, ImmutableSet<SubscriberWithQoS>> sharedSubscriberCache;
@@ -60,7 +60,7 @@ public class SharedSubscriptionServiceImpl implements SharedSubscriptionService
 
     @Inject
     public SharedSubscriptionServiceImpl(
-            final @NotNull LocalTopicTree topicTree,
+            final @NotNull TopicTree topicTree,
             final @NotNull ClientSessionSubscriptionPersistence subscriptionPersistence) {
 
         this.topicTree = topicTree;
@@ -18,9 +18,12 @@ package com.hivemq.persistence.ioc;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.ListeningScheduledExecutorService;
 import com.hivemq.common.shutdown.ShutdownHooks;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.configuration.service.PersistenceConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.logging.EventLog;
 import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.migration.meta.PersistenceType;
 import com.hivemq.mqtt.message.dropping.MessageDroppedService;
 import com.hivemq.mqtt.message.dropping.MessageDroppedServiceImpl;
 import com.hivemq.mqtt.topic.tree.TopicTreeStartup;
@@ -41,11 +44,14 @@ import com.hivemq.persistence.local.ClientSessionLocalPersistence;
 import com.hivemq.persistence.local.ClientSessionSubscriptionLocalPersistence;
 import com.hivemq.persistence.local.IncomingMessageFlowInMemoryLocalPersistence;
 import com.hivemq.persistence.local.IncomingMessageFlowLocalPersistence;
+import com.hivemq.persistence.local.file.ClientQueueFileLocalPersistence;
+import com.hivemq.persistence.local.file.RetainedMessageFileLocalPersistence;
 import com.hivemq.persistence.local.memory.ClientQueueMemoryLocalPersistence;
 import com.hivemq.persistence.local.memory.ClientSessionMemoryLocalPersistence;
 import com.hivemq.persistence.local.memory.ClientSessionSubscriptionMemoryLocalPersistence;
 import com.hivemq.persistence.local.memory.RetainedMessageMemoryLocalPersistence;
 import com.hivemq.persistence.payload.PublishPayloadNoopPersistenceImpl;
+import com.hivemq.persistence.payload.PublishPayloadOffHeapPersistenceImpl;
 import com.hivemq.persistence.payload.PublishPayloadPersistence;
 import com.hivemq.persistence.qos.IncomingMessageFlowPersistence;
 import com.hivemq.persistence.qos.IncomingMessageFlowPersistenceImpl;
@@ -57,6 +63,7 @@ import dagger.Module;
 import dagger.Provides;
 import dagger.multibindings.IntoSet;
 
+import javax.inject.Provider;
 import javax.inject.Singleton;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
@@ -70,10 +77,6 @@ public abstract class PersistenceModule {
     @Binds
     abstract @NotNull SingleWriterService singleWriterService(@NotNull InMemorySingleWriter inMemorySingleWriter);
 
-    @Binds
-    abstract @NotNull RetainedMessageLocalPersistence retainedMessageLocalPersistence(
-            @NotNull RetainedMessageMemoryLocalPersistence retainedMessageMemoryLocalPersistence);
-
     @Binds
     abstract @NotNull ClientSessionSubscriptionLocalPersistence clientSessionSubscriptionLocalPersistence(
             @NotNull ClientSessionSubscriptionMemoryLocalPersistence clientSessionSubscriptionMemoryLocalPersistence);
@@ -81,12 +84,6 @@ public abstract class PersistenceModule {
     @Binds
     abstract @NotNull ClientSessionLocalPersistence clientSessionLocalPersistence(@NotNull ClientSessionMemoryLocalPersistence clientSessionMemoryLocalPersistence);
 
-    @Binds
-    abstract @NotNull ClientQueueLocalPersistence clientQueueLocalPersistence(@NotNull ClientQueueMemoryLocalPersistence clientQueueMemoryLocalPersistence);
-
-    @Binds
-    abstract @NotNull PublishPayloadPersistence publishPayloadPersistence(@NotNull PublishPayloadNoopPersistenceImpl publishPayloadNoopPersistence);
-
     @Binds
     abstract @NotNull RetainedMessagePersistence retainedMessagePersistence(
             @NotNull RetainedMessagePersistenceImpl retainedMessagePersistence);
@@ -119,6 +116,43 @@ public abstract class PersistenceModule {
         return new MessageDroppedServiceImpl(metricsHolder, eventLog);
     }
 
+    @Provides
+    @Singleton
+    static @NotNull ClientQueueLocalPersistence clientQueueLocalPersistence(
+            final @NotNull PersistenceConfigurationService persistenceConfigurationService,
+            final @NotNull Provider<ClientQueueMemoryLocalPersistence> memoryPersistenceProvider,
+            final @NotNull Provider<ClientQueueFileLocalPersistence> filePersistenceProvider) {
+        if (persistenceConfigurationService.getMode() == PersistenceConfigurationService.PersistenceMode.FILE) {
+            return filePersistenceProvider.get();
+        }
+        return memoryPersistenceProvider.get();
+    }
+
+    @Provides
+    @Singleton
+    static @NotNull RetainedMessageLocalPersistence retainedMessageLocalPersistence(
+            final @NotNull PersistenceConfigurationService persistenceConfigurationService,
+            final @NotNull Provider<RetainedMessageMemoryLocalPersistence> memoryPersistenceProvider,
+            final @NotNull Provider<RetainedMessageFileLocalPersistence> filePersistenceProvider) {
+        if (persistenceConfigurationService.getMode() == PersistenceConfigurationService.PersistenceMode.FILE ||
+                InternalConfigurations.RETAINED_MESSAGE_PERSISTENCE_TYPE.get() == PersistenceType.FILE) {
+            return filePersistenceProvider.get();
+        }
+        return memoryPersistenceProvider.get();
+    }
+
+    @Provides
+    @Singleton
+    static @NotNull PublishPayloadPersistence publishPayloadPersistence(
+            final @NotNull PersistenceConfigurationService persistenceConfigurationService,
+            final @NotNull Provider<PublishPayloadNoopPersistenceImpl> noopPersistenceProvider,
+            final @NotNull Provider<PublishPayloadOffHeapPersistenceImpl> offHeapPersistenceProvider) {
+        if (persistenceConfigurationService.getMode() == PersistenceConfigurationService.PersistenceMode.FILE) {
+            return offHeapPersistenceProvider.get();
+        }
+        return noopPersistenceProvider.get();
+    }
+
     @Provides
     @Singleton
     @Persistence
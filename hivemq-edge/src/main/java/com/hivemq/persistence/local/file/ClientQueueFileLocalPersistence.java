@@ -0,0 +1,1171 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.annotations.ExecuteInSingleWriter;
+import com.hivemq.configuration.entity.mqtt.MqttConfigurationDefaults;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.configuration.service.MqttConfigurationService.QueuedMessagesStrategy;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.mqtt.message.MessageWithID;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.dropping.MessageDroppedService;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.pubrel.PUBREL;
+import com.hivemq.persistence.clientqueue.ClientQueueLocalPersistence;
+import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
+import com.hivemq.persistence.payload.PublishPayloadPersistence;
+import com.hivemq.util.LocalPersistenceFileUtil;
+import com.hivemq.util.MemoryEstimator;
+import com.hivemq.util.Strings;
+import com.hivemq.util.ThreadPreConditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.hivemq.configuration.service.InternalConfigurations.QOS_0_MEMORY_HARD_LIMIT_DIVISOR;
+import static com.hivemq.util.ThreadPreConditions.SINGLE_WRITER_THREAD_PREFIX;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A client queue persistence which stores queued QoS 1 and 2 messages in an append-only {@link SegmentLog} per
+ * bucket, so queues can grow far beyond the heap and survive a restart.
+ * <p>
+ * Only a small index entry per message is kept on the heap, the PUBLISH itself is read back from the memory-mapped
+ * segments when it is sent. QoS 0 messages and PUBRELs are kept in memory, like in the memory persistence.
+ * <p>
+ * After a restart all messages are treated as not yet sent, so messages that were in-flight are delivered again.
+ */
+@Singleton
+public class ClientQueueFileLocalPersistence implements ClientQueueLocalPersistence {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(ClientQueueFileLocalPersistence.class);
+
+    public static final @NotNull String PERSISTENCE_NAME = "client_queue";
+    public static final @NotNull String PERSISTENCE_VERSION = "040000";
+    private static final @NotNull String BUCKET_FOLDER_PREFIX = "bucket-";
+
+    private static final int NO_PACKET_ID = 0;
+
+    private static final byte RECORD_ADD = 1;
+    private static final byte RECORD_REMOVE = 2;
+    private static final byte RECORD_CLEAR = 3;
+
+    private static final int SHARED_FLAG = 1;
+    private static final int RETAINED_FLAG = 1 << 1;
+
+    private final @NotNull SegmentLog @NotNull [] logs;
+    private final @NotNull Map<String, Messages> @NotNull [] buckets;
+    private final @NotNull Map<String, Messages> @NotNull [] sharedBuckets;
+
+    private static class Messages {
+        final @NotNull LinkedList<QueueEntry> qos1Or2Messages = new LinkedList<>();
+        final @NotNull LinkedList<PUBLISH> qos0Messages = new LinkedList<>();
+        int retainedQos1Or2Messages = 0;
+        long qos0Memory = 0;
+    }
+
+    private final @NotNull PublishPayloadPersistence payloadPersistence;
+    private final @NotNull MessageDroppedService messageDroppedService;
+
+    private final long qos0MemoryLimit;
+    private final int qos0ClientMemoryLimit;
+    private final int retainedMessageMax;
+
+    private final @NotNull AtomicLong qos0MessagesMemory;
+    private final @NotNull AtomicLong totalFileSize;
+
+    @Inject
+    ClientQueueFileLocalPersistence(
+            final @NotNull PublishPayloadPersistence payloadPersistence,
+            final @NotNull MessageDroppedService messageDroppedService,
+            final @NotNull MetricRegistry metricRegistry,
+            final @NotNull LocalPersistenceFileUtil localPersistenceFileUtil) {
+
+        this.payloadPersistence = payloadPersistence;
+        this.messageDroppedService = messageDroppedService;
+
+        qos0MemoryLimit = getQos0MemoryLimit();
+        qos0ClientMemoryLimit = InternalConfigurations.QOS_0_MEMORY_LIMIT_PER_CLIENT_BYTES.get();
+        retainedMessageMax = InternalConfigurations.RETAINED_MESSAGE_QUEUE_SIZE.get();
+
+        qos0MessagesMemory = new AtomicLong();
+        totalFileSize = new AtomicLong();
+
+        final int bucketCount = InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get();
+        logs = new SegmentLog[bucketCount];
+        //noinspection unchecked
+        buckets = new HashMap[bucketCount];
+        //noinspection unchecked
+        sharedBuckets = new HashMap[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new HashMap<>();
+            sharedBuckets[i] = new HashMap<>();
+        }
+
+        final File persistenceFolder =
+                localPersistenceFileUtil.getVersionedLocalPersistenceFolder(PERSISTENCE_NAME, PERSISTENCE_VERSION);
+        bootstrap(persistenceFolder);
+
+        metricRegistry.register(
+                HiveMQMetrics.QUEUED_MESSAGES_FILE_PERSISTENCE_TOTAL_SIZE.name(),
+                (Gauge<Long>) totalFileSize::get);
+    }
+
+    private long getQos0MemoryLimit() {
+        final long maxHeap = Runtime.getRuntime().maxMemory();
+        final long maxHardLimit;
+
+        final int hardLimitDivisor = QOS_0_MEMORY_HARD_LIMIT_DIVISOR.get();
+
+        if (hardLimitDivisor < 1) {
+            //fallback to default if config failed
+            maxHardLimit = maxHeap / 4;
+        } else {
+            maxHardLimit = maxHeap / hardLimitDivisor;
+        }
+        log.debug("{} allocated for qos 0 inflight messages", Strings.toHumanReadableFormat(maxHardLimit));
+        return maxHardLimit;
+    }
+
+    /**
+     * Replays the logs of all bucket folders. Queues which belong to a different bucket because the bucket count
+     * changed since the last start are moved to the log of their new bucket.
+     */
+    private void bootstrap(final @NotNull File persistenceFolder) {
+        final int bucketCount = logs.length;
+        final int segmentSize = InternalConfigurations.CLIENT_QUEUE_FILE_SEGMENT_SIZE_BYTES.get();
+
+        final Map<Integer, SegmentLog> sourceLogs = new HashMap<>();
+        final File[] bucketFolders = persistenceFolder.listFiles((dir, name) -> name.startsWith(BUCKET_FOLDER_PREFIX));
+        if (bucketFolders != null) {
+            for (final File bucketFolder : bucketFolders) {
+                try {
+                    final int index = Integer.parseInt(bucketFolder.getName().substring(BUCKET_FOLDER_PREFIX.length()));
+                    sourceLogs.put(index, new SegmentLog(bucketFolder, segmentSize));
+                } catch (final NumberFormatException e) {
+                    log.warn("Ignoring unexpected folder {}", bucketFolder.getAbsolutePath());
+                } catch (final IOException e) {
+                    throw new IllegalStateException("Could not open queued messages persistence " +
+                            bucketFolder.getAbsolutePath(), e);
+                }
+            }
+        }
+        for (int i = 0; i < bucketCount; i++) {
+            SegmentLog segmentLog = sourceLogs.get(i);
+            if (segmentLog == null) {
+                try {
+                    segmentLog = new SegmentLog(new File(persistenceFolder, BUCKET_FOLDER_PREFIX + i), segmentSize);
+                } catch (final IOException e) {
+                    throw new IllegalStateException("Could not create queued messages persistence", e);
+                }
+            }
+            logs[i] = segmentLog;
+        }
+
+        // first replay everything, nothing may be appended before all logs are replayed
+        final Map<Integer, Map<String, Messages>> replayedQueues = new HashMap<>();
+        final Map<Integer, Map<String, Messages>> replayedSharedQueues = new HashMap<>();
+        final long[] maxPublishId = {0};
+        for (final Map.Entry<Integer, SegmentLog> entry : sourceLogs.entrySet()) {
+            final Map<String, Messages> queues = new HashMap<>();
+            final Map<String, Messages> sharedQueues = new HashMap<>();
+            replay(entry.getValue(), queues, sharedQueues, maxPublishId);
+            replayedQueues.put(entry.getKey(), queues);
+            replayedSharedQueues.put(entry.getKey(), sharedQueues);
+        }
+        // make sure newly created PUBLISHes don't reuse the id of a restored one
+        PUBLISH.PUBLISH_COUNTER.accumulateAndGet(maxPublishId[0] + 1, Math::max);
+
+        int restoredMessages = 0;
+        for (final Map.Entry<Integer, SegmentLog> entry : sourceLogs.entrySet()) {
+            final int sourceIndex = entry.getKey();
+            final SegmentLog source = entry.getValue();
+            restoredMessages += restore(sourceIndex, source, replayedQueues.get(sourceIndex), false);
+            restoredMessages += restore(sourceIndex, source, replayedSharedQueues.get(sourceIndex), true);
+            if (sourceIndex >= bucketCount) {
+                for (final SegmentLog segmentLog : logs) {
+                    segmentLog.force();
+                }
+                source.delete();
+            }
+        }
+        for (final SegmentLog segmentLog : logs) {
+            totalFileSize.addAndGet(segmentLog.getTotalBytes());
+        }
+        if (restoredMessages > 0) {
+            log.info("Restored {} queued messages from {}", restoredMessages, persistenceFolder.getAbsolutePath());
+        }
+    }
+
+    private void replay(
+            final @NotNull SegmentLog source,
+            final @NotNull Map<String, Messages> queues,
+            final @NotNull Map<String, Messages> sharedQueues,
+            final long @NotNull [] maxPublishId) {
+
+        source.replay((position, type, body) -> {
+            final int flags = body.get();
+            final String queueId = getString(body);
+            final Map<String, Messages> target = (flags & SHARED_FLAG) != 0 ? sharedQueues : queues;
+            switch (type) {
+                case RECORD_ADD: {
+                    final PublishEntry entry = new PublishEntry(position, body, (flags & RETAINED_FLAG) != 0);
+                    final Messages messages = target.computeIfAbsent(queueId, id -> new Messages());
+                    messages.qos1Or2Messages.add(entry);
+                    if (entry.retained) {
+                        messages.retainedQos1Or2Messages++;
+                    }
+                    source.retain(position);
+                    maxPublishId[0] = Math.max(maxPublishId[0], entry.publishId);
+                    break;
+                }
+                case RECORD_REMOVE: {
+                    final Messages messages = target.get(queueId);
+                    if (messages == null) {
+                        break;
+                    }
+                    final long publishId = body.getLong();
+                    final Iterator<QueueEntry> iterator = messages.qos1Or2Messages.iterator();
+                    while (iterator.hasNext()) {
+                        final PublishEntry entry = (PublishEntry) iterator.next();
+                        if (entry.publishId == publishId) {
+                            iterator.remove();
+                            if (entry.retained) {
+                                messages.retainedQos1Or2Messages--;
+                            }
+                            source.release(entry.position);
+                            break;
+                        }
+                    }
+                    break;
+                }
+                case RECORD_CLEAR: {
+                    final Messages messages = target.remove(queueId);
+                    if (messages != null) {
+                        for (final QueueEntry entry : messages.qos1Or2Messages) {
+                            source.release(((PublishEntry) entry).position);
+                        }
+                    }
+                    break;
+                }
+                default:
+                    log.warn("Ignoring unknown record type {} in queued messages persistence", type);
+            }
+        });
+    }
+
+    private int restore(
+            final int sourceIndex,
+            final @NotNull SegmentLog source,
+            final @NotNull Map<String, Messages> queues,
+            final boolean shared) {
+
+        int restored = 0;
+        for (final Map.Entry<String, Messages> queue : queues.entrySet()) {
+            final String queueId = queue.getKey();
+            final Messages messages = queue.getValue();
+            final int bucketIndex = BucketUtils.getBucket(queueId, logs.length);
+            final Map<String, Messages> bucket = shared ? sharedBuckets[bucketIndex] : buckets[bucketIndex];
+            if (bucketIndex != sourceIndex) {
+                // the bucket count changed, move the records to the log of the new bucket
+                for (final QueueEntry queueEntry : messages.qos1Or2Messages) {
+                    final PublishEntry entry = (PublishEntry) queueEntry;
+                    final long position = logs[bucketIndex].append(RECORD_ADD, source.read(entry.position));
+                    logs[bucketIndex].retain(position);
+                    source.release(entry.position);
+                    entry.position = position;
+                }
+                if (sourceIndex < logs.length) {
+                    source.append(RECORD_CLEAR, queueRecord(shared ? SHARED_FLAG : 0, queueId, 0));
+                }
+            }
+            final Messages existing = bucket.putIfAbsent(queueId, messages);
+            if (existing != null) {
+                existing.qos1Or2Messages.addAll(messages.qos1Or2Messages);
+                existing.retainedQos1Or2Messages += messages.retainedQos1Or2Messages;
+            }
+            restored += messages.qos1Or2Messages.size();
+        }
+        return restored;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void add(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull PUBLISH publish,
+            final long max,
+            final @NotNull QueuedMessagesStrategy strategy,
+            final boolean retained,
+            final int bucketIndex) {
+
+        checkNotNull(queueId, "Queue ID must not be null");
+        checkNotNull(publish, "Publish must not be null");
+        checkNotNull(strategy, "Strategy must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        add(queueId, shared, List.of(publish), max, strategy, retained, bucketIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void add(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull List<PUBLISH> publishes,
+            final long max,
+            final @NotNull QueuedMessagesStrategy strategy,
+            final boolean retained,
+            final int bucketIndex) {
+
+        checkNotNull(queueId, "Queue ID must not be null");
+        checkNotNull(publishes, "Publishes must not be null");
+        checkNotNull(strategy, "Strategy must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Map<String, Messages> bucket = shared ? sharedBuckets[bucketIndex] : buckets[bucketIndex];
+        final Messages messages = bucket.computeIfAbsent(queueId, s -> new Messages());
+
+        for (final PUBLISH publish : publishes) {
+            if (publish.getQoS() == QoS.AT_MOST_ONCE) {
+                addQos0Publish(queueId, shared, messages, publish);
+                continue;
+            }
+            final int qos1And2QueueSize = messages.qos1Or2Messages.size() - messages.retainedQos1Or2Messages;
+            if ((qos1And2QueueSize >= max) && !retained) {
+                if (strategy == QueuedMessagesStrategy.DISCARD) {
+                    logAndDecrementPayloadReference(publish, shared, queueId);
+                    continue;
+                } else {
+                    final boolean discarded = discardOldest(queueId, shared, messages, false, bucketIndex);
+                    if (!discarded) {
+                        //discard this message if no old could be discarded
+                        logAndDecrementPayloadReference(publish, shared, queueId);
+                        continue;
+                    }
+                }
+            } else if ((messages.retainedQos1Or2Messages >= retainedMessageMax) && retained) {
+                if (strategy == QueuedMessagesStrategy.DISCARD) {
+                    logAndDecrementPayloadReference(publish, shared, queueId);
+                    continue;
+                } else {
+                    final boolean discarded = discardOldest(queueId, shared, messages, true, bucketIndex);
+                    if (!discarded) {
+                        //discard this message if no old could be discarded
+                        logAndDecrementPayloadReference(publish, shared, queueId);
+                        continue;
+                    }
+                }
+            } else {
+                if (retained) {
+                    messages.retainedQos1Or2Messages++;
+                }
+            }
+
+            final ByteBuffer serializedPublish = PublishSerializer.serialize(publish);
+            final int flags = (shared ? SHARED_FLAG : 0) | (retained ? RETAINED_FLAG : 0);
+            final ByteBuffer record = queueRecord(flags, queueId, serializedPublish.remaining());
+            record.put(serializedPublish).flip();
+
+            final long position = append(bucketIndex, RECORD_ADD, record);
+            logs[bucketIndex].retain(position);
+            record.position(record.limit() - serializedPublish.limit());
+            messages.qos1Or2Messages.add(new PublishEntry(position, record, retained));
+            // the payload is part of the record now
+            payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+        }
+    }
+
+    private void addQos0Publish(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull Messages messages,
+            final @NotNull PUBLISH publish) {
+
+        final long currentQos0MessagesMemory = qos0MessagesMemory.get();
+        if (currentQos0MessagesMemory >= qos0MemoryLimit) {
+            if (shared) {
+                messageDroppedService.qos0MemoryExceededShared(
+                        queueId, publish.getTopic(), 0, currentQos0MessagesMemory, qos0MemoryLimit);
+            } else {
+                messageDroppedService.qos0MemoryExceeded(
+                        queueId, publish.getTopic(), 0, currentQos0MessagesMemory, qos0MemoryLimit);
+            }
+            payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+            return;
+        }
+
+        if (!shared) {
+            if (messages.qos0Memory >= qos0ClientMemoryLimit) {
+                messageDroppedService.qos0MemoryExceeded(
+                        queueId, publish.getTopic(), 0, messages.qos0Memory, qos0ClientMemoryLimit);
+                payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+                return;
+            }
+        }
+
+        messages.qos0Messages.add(publish);
+        increaseQos0MessagesMemory(messages, getQos0Size(publish));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public @NotNull ImmutableList<PUBLISH> readNew(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull ImmutableIntArray packetIds,
+            final long bytesLimit,
+            final int bucketIndex) {
+
+        checkNotNull(queueId, "Queue ID must not be null");
+        checkNotNull(packetIds, "Packet IDs must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Map<String, Messages> bucket = shared ? sharedBuckets[bucketIndex] : buckets[bucketIndex];
+        final Messages messages = bucket.get(queueId);
+        if (messages == null) {
+            return ImmutableList.of();
+        }
+
+        // In case there are only qos 0 messages
+        if (messages.qos1Or2Messages.size() == 0) {
+            return getQos0Publishes(messages, packetIds, bytesLimit);
+        }
+
+        final int countLimit = packetIds.length();
+        int messageCount = 0;
+        int packetIdIndex = 0;
+        int bytes = 0;
+        final ImmutableList.Builder<PUBLISH> publishes = ImmutableList.builder();
+
+        final Iterator<QueueEntry> iterator = messages.qos1Or2Messages.iterator();
+        while (iterator.hasNext()) {
+            final QueueEntry queueEntry = iterator.next();
+            if (!(queueEntry instanceof PublishEntry)) {
+                continue;
+            }
+            final PublishEntry entry = (PublishEntry) queueEntry;
+            if (entry.packetId != NO_PACKET_ID) {
+                //already inflight
+                continue;
+            }
+
+            if (entry.hasExpired()) {
+                iterator.remove();
+                removeRecord(queueId, shared, messages, entry, bucketIndex);
+                //do not return here, because we could have a QoS 0 message left
+            } else {
+                final int packetId = packetIds.get(packetIdIndex);
+                entry.packetId = packetId;
+                final PUBLISH publish = readPublish(entry, bucketIndex);
+                publish.setPacketIdentifier(packetId);
+                publishes.add(publish);
+                packetIdIndex++;
+                messageCount++;
+                bytes += entry.size;
+                if ((messageCount == countLimit) || (bytes > bytesLimit)) {
+                    break;
+                }
+            }
+
+            // poll a qos 0 message
+            final PUBLISH qos0Publish = pollQos0Message(messages);
+            if ((qos0Publish != null) && !qos0Publish.hasExpired()) {
+                publishes.add(qos0Publish);
+                messageCount++;
+                bytes += qos0Publish.getEstimatedSizeInMemory();
+            }
+            if ((messageCount == countLimit) || (bytes > bytesLimit)) {
+                break;
+            }
+        }
+        return publishes.build();
+    }
+
+    private @NotNull ImmutableList<PUBLISH> getQos0Publishes(
+            final @NotNull Messages messages, final @NotNull ImmutableIntArray packetIds, final long bytesLimit) {
+
+        final ImmutableList.Builder<PUBLISH> publishes = ImmutableList.builder();
+        int qos0MessagesFound = 0;
+        int qos0Bytes = 0;
+        while (qos0MessagesFound < packetIds.length() && bytesLimit > qos0Bytes) {
+            final PUBLISH qos0Publish = pollQos0Message(messages);
+            if (qos0Publish == null) {
+                break;
+            }
+            if (!qos0Publish.hasExpired()) {
+                publishes.add(qos0Publish);
+                qos0MessagesFound++;
+                qos0Bytes += qos0Publish.getEstimatedSizeInMemory();
+            }
+        }
+
+        return publishes.build();
+    }
+
+    private @Nullable PUBLISH pollQos0Message(final @NotNull Messages messages) {
+        final PUBLISH publish = messages.qos0Messages.poll();
+        if (publish == null) {
+            return null;
+        }
+        increaseQos0MessagesMemory(messages, -getQos0Size(publish));
+        payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+        return publish;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public @NotNull ImmutableList<MessageWithID> readInflight(
+            final @NotNull String queueId,
+            final boolean shared,
+            final int batchSize,
+            final long bytesLimit,
+            final int bucketIndex) {
+
+        checkNotNull(queueId, "client id must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Map<String, Messages> bucket = shared ? sharedBuckets[bucketIndex] : buckets[bucketIndex];
+        final Messages messages = bucket.get(queueId);
+        if (messages == null) {
+            return ImmutableList.of();
+        }
+
+        int messageCount = 0;
+        int bytes = 0;
+        final ImmutableList.Builder<MessageWithID> publishes = ImmutableList.builder();
+
+        for (final QueueEntry queueEntry : messages.qos1Or2Messages) {
+            // Stop at first non inflight message
+            // This works because in-flight messages are always first in the queue
+            if (queueEntry.packetId == NO_PACKET_ID) {
+                break;
+            }
+            if (queueEntry instanceof PublishEntry) {
+                final PublishEntry entry = (PublishEntry) queueEntry;
+                final PUBLISH publish = readPublish(entry, bucketIndex);
+                publish.setPacketIdentifier(entry.packetId);
+                publish.setDuplicateDelivery(true);
+                publishes.add(publish);
+                bytes += entry.size;
+            } else {
+                publishes.add(((PubrelEntry) queueEntry).pubrel);
+            }
+            messageCount++;
+
+            if ((messageCount == batchSize) || (bytes > bytesLimit)) {
+                break;
+            }
+        }
+        return publishes.build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public @Nullable String replace(
+            final @NotNull String queueId, final @NotNull PUBREL pubrel, final int bucketIndex) {
+
+        checkNotNull(queueId, "client id must not be null");
+        checkNotNull(pubrel, "pubrel must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Map<String, Messages> bucket = buckets[bucketIndex];
+        final Messages messages = bucket.get(queueId);
+        if (messages == null) {
+            return null;
+        }
+
+        boolean packetIdFound = false;
+        String replacedId = null;
+        boolean retained = false;
+
+        int messageIndexInQueue = -1;
+
+        for (final QueueEntry queueEntry : messages.qos1Or2Messages) {
+            messageIndexInQueue++;
+            final int packetId = queueEntry.packetId;
+            if (packetId == NO_PACKET_ID) {
+                break;
+            }
+            if (packetId == pubrel.getPacketIdentifier()) {
+                packetIdFound = true;
+                retained = queueEntry.retained;
+                if (queueEntry instanceof PublishEntry) {
+                    final PublishEntry entry = (PublishEntry) queueEntry;
+                    pubrel.setMessageExpiryInterval(entry.messageExpiryInterval);
+                    pubrel.setPublishTimestamp(entry.timestamp);
+                    replacedId = getUniqueId(entry, bucketIndex);
+                    // the retained counter is kept, as the PUBREL takes the place of the PUBLISH
+                    appendRemoveRecord(queueId, false, entry, bucketIndex);
+                } else {
+                    final PUBREL previousPubrel = ((PubrelEntry) queueEntry).pubrel;
+                    pubrel.setMessageExpiryInterval(previousPubrel.getMessageExpiryInterval());
+                    pubrel.setPublishTimestamp(previousPubrel.getPublishTimestamp());
+                }
+                break;
+            }
+        }
+        final PubrelEntry pubrelEntry = new PubrelEntry(pubrel, retained);
+        if (packetIdFound) {
+            messages.qos1Or2Messages.set(messageIndexInQueue, pubrelEntry);
+        } else {
+            // Ensure unknown PUBRELs are always first in queue
+            messages.qos1Or2Messages.addFirst(pubrelEntry);
+        }
+        return replacedId;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public @Nullable String remove(final @NotNull String queueId, final int packetId, final int bucketIndex) {
+        return remove(queueId, packetId, null, bucketIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public @Nullable String remove(
+            final @NotNull String queueId, final int packetId, final @Nullable String uniqueId, final int bucketIndex) {
+
+        checkNotNull(queueId, "client id must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Map<String, Messages> bucket = buckets[bucketIndex];
+        final Messages messages = bucket.get(queueId);
+        if (messages == null) {
+            return null;
+        }
+
+        final Iterator<QueueEntry> iterator = messages.qos1Or2Messages.iterator();
+        while (iterator.hasNext()) {
+            final QueueEntry queueEntry = iterator.next();
+            if (queueEntry.packetId == packetId) {
+                String removedId = null;
+                if (queueEntry instanceof PublishEntry) {
+                    final PublishEntry entry = (PublishEntry) queueEntry;
+                    removedId = getUniqueId(entry, bucketIndex);
+                    if (uniqueId != null && !uniqueId.equals(removedId)) {
+                        break;
+                    }
+                    iterator.remove();
+                    removeRecord(queueId, false, messages, entry, bucketIndex);
+                } else {
+                    iterator.remove();
+                    if (queueEntry.retained) {
+                        messages.retainedQos1Or2Messages--;
+                    }
+                }
+                return removedId;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public int size(final @NotNull String queueId, final boolean shared, final int bucketIndex) {
+        checkNotNull(queueId, "Queue ID must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX); // QueueSizes are not thread save
+
+        final Map<String, Messages> bucket = shared ? sharedBuckets[bucketIndex] : buckets[bucketIndex];
+        final Messages messages = bucket.get(queueId);
+        return (messages == null) ? 0 : (messages.qos1Or2Messages.size() + messages.qos0Messages.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public int qos0Size(final @NotNull String queueId, final boolean shared, final int bucketIndex) {
+        checkNotNull(queueId, "Queue ID must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX); // QueueSizes are not thread save
+
+        final Map<String, Messages> bucket = shared ? sharedBuckets[bucketIndex] : buckets[bucketIndex];
+        final Messages messages = bucket.get(queueId);
+        return (messages == null) ? 0 : messages.qos0Messages.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void clear(final @NotNull String queueId, final boolean shared, final int bucketIndex) {
+        checkNotNull(queueId, "Queue ID must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Map<String, Messages> bucket = shared ? sharedBuckets[bucketIndex] : buckets[bucketIndex];
+        final Messages messages = bucket.remove(queueId);
+        if (messages == null) {
+            return;
+        }
+
+        boolean persistedMessages = false;
+        for (final QueueEntry queueEntry : messages.qos1Or2Messages) {
+            if (queueEntry instanceof PublishEntry) {
+                release(bucketIndex, ((PublishEntry) queueEntry).position);
+                persistedMessages = true;
+            }
+        }
+        if (persistedMessages) {
+            append(bucketIndex, RECORD_CLEAR, queueRecord(shared ? SHARED_FLAG : 0, queueId, 0));
+        }
+
+        for (final PUBLISH qos0Message : messages.qos0Messages) {
+            payloadPersistence.decrementReferenceCounter(qos0Message.getPublishId());
+            // the client qos 0 memory is not updated as messages are removed completely
+            qos0MessagesMemory.addAndGet(-getQos0Size(qos0Message));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void removeAllQos0Messages(final @NotNull String queueId, final boolean shared, final int bucketIndex) {
+        checkNotNull(queueId, "Queue id must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Map<String, Messages> bucket = shared ? sharedBuckets[bucketIndex] : buckets[bucketIndex];
+        final Messages messages = bucket.get(queueId);
+        if (messages == null) {
+            return;
+        }
+
+        for (final PUBLISH publish : messages.qos0Messages) {
+            payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+            qos0MessagesMemory.addAndGet(-getQos0Size(publish));
+        }
+        messages.qos0Messages.clear();
+        messages.qos0Memory = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public @NotNull ImmutableSet<String> cleanUp(final int bucketIndex) {
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Map<String, Messages> bucket = buckets[bucketIndex];
+        final Map<String, Messages> sharedBucket = sharedBuckets[bucketIndex];
+
+        bucket.forEach((queueId, messages) -> cleanExpiredMessages(queueId, false, messages, bucketIndex));
+        sharedBucket.forEach((queueId, messages) -> cleanExpiredMessages(queueId, true, messages, bucketIndex));
+
+        // the clean up runs regularly per bucket, so this bounds the amount of records lost on a power failure
+        logs[bucketIndex].force();
+
+        return ImmutableSet.copyOf(sharedBucket.keySet());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void removeShared(
+            final @NotNull String sharedSubscription, final @NotNull String uniqueId, final int bucketIndex) {
+
+        checkNotNull(sharedSubscription, "Shared subscription must not be null");
+        checkNotNull(uniqueId, "Unique id must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Map<String, Messages> bucket = sharedBuckets[bucketIndex];
+        final Messages messages = bucket.get(sharedSubscription);
+        if (messages == null) {
+            return;
+        }
+
+        final long publishId = getPublishId(uniqueId);
+        final Iterator<QueueEntry> iterator = messages.qos1Or2Messages.iterator();
+        while (iterator.hasNext()) {
+            final QueueEntry queueEntry = iterator.next();
+            if (queueEntry instanceof PublishEntry) {
+                final PublishEntry entry = (PublishEntry) queueEntry;
+                if (entry.publishId != publishId || !uniqueId.equals(getUniqueId(entry, bucketIndex))) {
+                    continue;
+                }
+                iterator.remove();
+                removeRecord(sharedSubscription, true, messages, entry, bucketIndex);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void removeInFlightMarker(
+            final @NotNull String sharedSubscription, final @NotNull String uniqueId, final int bucketIndex) {
+
+        checkNotNull(sharedSubscription, "Shared subscription must not be null");
+        checkNotNull(uniqueId, "Unique id must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Map<String, Messages> bucket = sharedBuckets[bucketIndex];
+        final Messages messages = bucket.get(sharedSubscription);
+        if (messages == null) {
+            return;
+        }
+
+        final long publishId = getPublishId(uniqueId);
+        for (final QueueEntry queueEntry : messages.qos1Or2Messages) {
+            if (queueEntry instanceof PublishEntry) {
+                final PublishEntry entry = (PublishEntry) queueEntry;
+                if (entry.publishId != publishId || !uniqueId.equals(getUniqueId(entry, bucketIndex))) {
+                    continue;
+                }
+                entry.packetId = NO_PACKET_ID;
+                break;
+            }
+        }
+    }
+
+    @Override
+    @ExecuteInSingleWriter
+    public void closeDB(final int bucketIndex) {
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+        totalFileSize.addAndGet(-logs[bucketIndex].getTotalBytes());
+        logs[bucketIndex].close();
+        for (final Messages messages : buckets[bucketIndex].values()) {
+            qos0MessagesMemory.addAndGet(-messages.qos0Memory);
+        }
+        for (final Messages messages : sharedBuckets[bucketIndex].values()) {
+            qos0MessagesMemory.addAndGet(-messages.qos0Memory);
+        }
+        buckets[bucketIndex].clear();
+        sharedBuckets[bucketIndex].clear();
+    }
+
+    private @NotNull PUBLISH readPublish(final @NotNull PublishEntry entry, final int bucketIndex) {
+        final ByteBuffer record = logs[bucketIndex].read(entry.position);
+        skipQueueHeader(record);
+        return PublishSerializer.deserialize(record, payloadPersistence);
+    }
+
+    private @NotNull String getUniqueId(final @NotNull PublishEntry entry, final int bucketIndex) {
+        final ByteBuffer record = logs[bucketIndex].read(entry.position);
+        skipQueueHeader(record);
+        return PublishSerializer.getHivemqId(record) + "_pub_" + entry.publishId;
+    }
+
+    private static long getPublishId(final @NotNull String uniqueId) {
+        try {
+            return Long.parseLong(uniqueId.substring(uniqueId.lastIndexOf('_') + 1));
+        } catch (final NumberFormatException e) {
+            return PUBLISH.NO_PUBLISH_ID_SET;
+        }
+    }
+
+    /**
+     * Removes the record of a PUBLISH which was already removed from the queue of the given messages.
+     */
+    private void removeRecord(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull Messages messages,
+            final @NotNull PublishEntry entry,
+            final int bucketIndex) {
+
+        if (entry.retained) {
+            messages.retainedQos1Or2Messages--;
+        }
+        appendRemoveRecord(queueId, shared, entry, bucketIndex);
+    }
+
+    private void appendRemoveRecord(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull PublishEntry entry,
+            final int bucketIndex) {
+
+        final ByteBuffer record = queueRecord(shared ? SHARED_FLAG : 0, queueId, Long.BYTES);
+        record.putLong(entry.publishId).flip();
+        append(bucketIndex, RECORD_REMOVE, record);
+        release(bucketIndex, entry.position);
+    }
+
+    private long append(final int bucketIndex, final byte type, final @NotNull ByteBuffer record) {
+        final SegmentLog segmentLog = logs[bucketIndex];
+        final long sizeBefore = segmentLog.getTotalBytes();
+        final long position = segmentLog.append(type, record);
+        totalFileSize.addAndGet(segmentLog.getTotalBytes() - sizeBefore);
+        return position;
+    }
+
+    private void release(final int bucketIndex, final long position) {
+        final SegmentLog segmentLog = logs[bucketIndex];
+        final long sizeBefore = segmentLog.getTotalBytes();
+        segmentLog.release(position);
+        totalFileSize.addAndGet(segmentLog.getTotalBytes() - sizeBefore);
+    }
+
+    /**
+     * @return a buffer which contains the flags and the queue id and has enough space left for the given amount of
+     *         bytes. Records which have no further content are returned ready to be read.
+     */
+    private static @NotNull ByteBuffer queueRecord(final int flags, final @NotNull String queueId, final int bytes) {
+        final byte[] queueIdBytes = queueId.getBytes(UTF_8);
+        final ByteBuffer record = ByteBuffer.allocate(1 + 4 + queueIdBytes.length + bytes);
+        record.put((byte) flags);
+        record.putInt(queueIdBytes.length);
+        record.put(queueIdBytes);
+        if (bytes == 0) {
+            record.flip();
+        }
+        return record;
+    }
+
+    private static void skipQueueHeader(final @NotNull ByteBuffer record) {
+        record.position(record.position() + 1);
+        final int queueIdLength = record.getInt();
+        record.position(record.position() + queueIdLength);
+    }
+
+    private static @NotNull String getString(final @NotNull ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static int getQos0Size(final @NotNull PUBLISH publish) {
+        return publish.getEstimatedSizeInMemory() + MemoryEstimator.LINKED_LIST_NODE_OVERHEAD;
+    }
+
+    /**
+     * @param size the amount of bytes the currently used qos 0 memory will be increased by. May be negative.
+     */
+    private void increaseQos0MessagesMemory(final @NotNull Messages messages, final int size) {
+        qos0MessagesMemory.addAndGet(size);
+        messages.qos0Memory += size;
+        if (messages.qos0Memory < 0) {
+            messages.qos0Memory = 0;
+        }
+    }
+
+    private void logMessageDropped(
+            final @NotNull PUBLISH publish, final boolean shared, final @NotNull String queueId) {
+
+        if (shared) {
+            messageDroppedService.queueFullShared(queueId, publish.getTopic(), publish.getQoS().getQosNumber());
+        } else {
+            messageDroppedService.queueFull(queueId, publish.getTopic(), publish.getQoS().getQosNumber());
+        }
+    }
+
+    /**
+     * @return true if a message was discarded, else false
+     */
+    private boolean discardOldest(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull Messages messages,
+            final boolean retainedOnly,
+            final int bucketIndex) {
+
+        final Iterator<QueueEntry> iterator = messages.qos1Or2Messages.iterator();
+        while (iterator.hasNext()) {
+            final QueueEntry queueEntry = iterator.next();
+            if (!(queueEntry instanceof PublishEntry)) {
+                continue;
+            }
+            final PublishEntry entry = (PublishEntry) queueEntry;
+            // we must no discard inflight messages
+            if (entry.packetId != NO_PACKET_ID) {
+                continue;
+            }
+            // Messages that are queued as retained messages are not discarded,
+            // otherwise a client could only receive a limited amount of retained messages per subscription.
+            if ((retainedOnly && !entry.retained) || (!retainedOnly && entry.retained)) {
+                continue;
+            }
+            final ByteBuffer record = logs[bucketIndex].read(entry.position);
+            skipQueueHeader(record);
+            final QoS qos = PublishSerializer.getQoS(record);
+            final String topic = PublishSerializer.getTopic(record);
+            if (shared) {
+                messageDroppedService.queueFullShared(queueId, topic, qos.getQosNumber());
+            } else {
+                messageDroppedService.queueFull(queueId, topic, qos.getQosNumber());
+            }
+            iterator.remove();
+            // the retained counter is not decremented, as the new message takes the place of the discarded one
+            appendRemoveRecord(queueId, shared, entry, bucketIndex);
+            return true;
+        }
+        return false;
+    }
+
+    private void logAndDecrementPayloadReference(
+            final @NotNull PUBLISH publish, final boolean shared, final @NotNull String queueId) {
+
+        logMessageDropped(publish, shared, queueId);
+        payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+    }
+
+    private void cleanExpiredMessages(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull Messages messages,
+            final int bucketIndex) {
+
+        final Iterator<PUBLISH> iterator = messages.qos0Messages.iterator();
+        while (iterator.hasNext()) {
+            final PUBLISH publish = iterator.next();
+            if (publish.hasExpired()) {
+                increaseQos0MessagesMemory(messages, -getQos0Size(publish));
+                payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+                iterator.remove();
+            }
+        }
+
+        final Iterator<QueueEntry> qos12iterator = messages.qos1Or2Messages.iterator();
+        while (qos12iterator.hasNext()) {
+            final QueueEntry queueEntry = qos12iterator.next();
+            if (queueEntry instanceof PubrelEntry) {
+                final PUBREL pubrel = ((PubrelEntry) queueEntry).pubrel;
+                if (!InternalConfigurations.EXPIRE_INFLIGHT_PUBRELS_ENABLED) {
+                    continue;
+                }
+                if (pubrel.getMessageExpiryInterval() == null || pubrel.getPublishTimestamp() == null) {
+                    continue;
+                }
+                if (!pubrel.hasExpired()) {
+                    continue;
+                }
+                if (queueEntry.retained) {
+                    messages.retainedQos1Or2Messages--;
+                }
+                qos12iterator.remove();
+
+            } else {
+                final PublishEntry entry = (PublishEntry) queueEntry;
+                final boolean expireInflight = InternalConfigurations.EXPIRE_INFLIGHT_MESSAGES_ENABLED;
+                final boolean isInflight = entry.qos == QoS.EXACTLY_ONCE && entry.packetId > 0;
+                final boolean drop = entry.hasExpired() && (!isInflight || expireInflight);
+                if (drop) {
+                    qos12iterator.remove();
+                    removeRecord(queueId, shared, messages, entry, bucketIndex);
+                }
+            }
+        }
+    }
+
+    private static class QueueEntry {
+
+        final boolean retained;
+        int packetId = NO_PACKET_ID;
+
+        QueueEntry(final boolean retained) {
+            this.retained = retained;
+        }
+    }
+
+    /**
+     * The heap representation of a queued PUBLISH, the PUBLISH itself is stored in the log.
+     */
+    private static class PublishEntry extends QueueEntry {
+
+        long position;
+        final long publishId;
+        final long timestamp;
+        final long messageExpiryInterval;
+        final @NotNull QoS qos;
+        final int size;
+
+        /**
+         * @param serializedPublish the serialized PUBLISH, starting at its position
+         */
+        PublishEntry(final long position, final @NotNull ByteBuffer serializedPublish, final boolean retained) {
+            super(retained);
+            this.position = position;
+            this.publishId = PublishSerializer.getPublishId(serializedPublish);
+            this.timestamp = PublishSerializer.getTimestamp(serializedPublish);
+            this.messageExpiryInterval = PublishSerializer.getMessageExpiryInterval(serializedPublish);
+            this.qos = PublishSerializer.getQoS(serializedPublish);
+            this.size = serializedPublish.remaining();
+        }
+
+        boolean hasExpired() {
+            if ((messageExpiryInterval == MqttConfigurationDefaults.TTL_DISABLED) ||
+                    (messageExpiryInterval == PUBLISH.MESSAGE_EXPIRY_INTERVAL_NOT_SET)) {
+                return false;
+            }
+            final long waitingSeconds = (System.currentTimeMillis() - timestamp) / 1000;
+            return messageExpiryInterval - waitingSeconds <= 0;
+        }
+    }
+
+    private static class PubrelEntry extends QueueEntry {
+
+        final @NotNull PUBREL pubrel;
+
+        PubrelEntry(final @NotNull PUBREL pubrel, final boolean retained) {
+            super(retained);
+            this.pubrel = pubrel;
+            packetId = pubrel.getPacketIdentifier();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.codec.encoder.mqtt5.Mqtt5PayloadFormatIndicator;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import com.hivemq.persistence.payload.PublishPayloadPersistence;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Serializes a PUBLISH into a compact binary form for the file persistences.
+ * <p>
+ * The publish id, the timestamp, the message expiry interval and the QoS are written at fixed offsets at the
+ * beginning, so they can be read without deserializing the whole PUBLISH.
+ */
+public class PublishSerializer {
+
+    private static final byte VERSION = 1;
+
+    private static final int PUBLISH_ID_OFFSET = 1;
+    private static final int TIMESTAMP_OFFSET = PUBLISH_ID_OFFSET + 8;
+    private static final int EXPIRY_OFFSET = TIMESTAMP_OFFSET + 8;
+    private static final int QOS_OFFSET = EXPIRY_OFFSET + 8;
+
+    private static final int RETAIN_FLAG = 1;
+    private static final int DUP_FLAG = 1 << 1;
+    private static final int PAYLOAD_FORMAT_INDICATOR_FLAG = 1 << 2;
+    private static final int CONTENT_TYPE_FLAG = 1 << 3;
+    private static final int RESPONSE_TOPIC_FLAG = 1 << 4;
+    private static final int CORRELATION_DATA_FLAG = 1 << 5;
+    private static final int SUBSCRIPTION_IDENTIFIERS_FLAG = 1 << 6;
+    private static final int PAYLOAD_FLAG = 1 << 7;
+
+    private PublishSerializer() {
+        //This is a utility class, don't instantiate it!
+    }
+
+    /**
+     * @param publish the PUBLISH to serialize, its payload is read via {@link PUBLISH#getPayload()}
+     * @return the serialized PUBLISH, ready to be read
+     */
+    public static @NotNull ByteBuffer serialize(final @NotNull PUBLISH publish) {
+        final byte[] hivemqId = publish.getHivemqId().getBytes(UTF_8);
+        final byte[] topic = publish.getTopic().getBytes(UTF_8);
+        final byte[] payload = publish.getPayload();
+        final byte[] contentType = publish.getContentType() == null ? null : publish.getContentType().getBytes(UTF_8);
+        final byte[] responseTopic =
+                publish.getResponseTopic() == null ? null : publish.getResponseTopic().getBytes(UTF_8);
+        final byte[] correlationData = publish.getCorrelationData();
+        final ImmutableIntArray subscriptionIdentifiers = publish.getSubscriptionIdentifiers();
+        final ImmutableList<MqttUserProperty> userProperties = publish.getUserProperties().asList();
+
+        int flags = 0;
+        int size = QOS_OFFSET + 1 + 1 + 1; // fixed header, qos, onward qos, flags
+        size += 4 + hivemqId.length + 4 + topic.length;
+        if (publish.isRetain()) {
+            flags |= RETAIN_FLAG;
+        }
+        if (publish.isDuplicateDelivery()) {
+            flags |= DUP_FLAG;
+        }
+        if (publish.getPayloadFormatIndicator() != null) {
+            flags |= PAYLOAD_FORMAT_INDICATOR_FLAG;
+            size += 1;
+        }
+        if (contentType != null) {
+            flags |= CONTENT_TYPE_FLAG;
+            size += 4 + contentType.length;
+        }
+        if (responseTopic != null) {
+            flags |= RESPONSE_TOPIC_FLAG;
+            size += 4 + responseTopic.length;
+        }
+        if (correlationData != null) {
+            flags |= CORRELATION_DATA_FLAG;
+            size += 4 + correlationData.length;
+        }
+        if (subscriptionIdentifiers != null) {
+            flags |= SUBSCRIPTION_IDENTIFIERS_FLAG;
+            size += 4 + 4 * subscriptionIdentifiers.length();
+        }
+        if (payload != null) {
+            flags |= PAYLOAD_FLAG;
+            size += 4 + payload.length;
+        }
+        final byte[][] userPropertyBytes = new byte[userProperties.size() * 2][];
+        size += 4;
+        for (int i = 0; i < userProperties.size(); i++) {
+            userPropertyBytes[i * 2] = userProperties.get(i).getName().getBytes(UTF_8);
+            userPropertyBytes[i * 2 + 1] = userProperties.get(i).getValue().getBytes(UTF_8);
+            size += 8 + userPropertyBytes[i * 2].length + userPropertyBytes[i * 2 + 1].length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION);
+        buffer.putLong(publish.getPublishId());
+        buffer.putLong(publish.getTimestamp());
+        buffer.putLong(publish.getMessageExpiryInterval());
+        buffer.put((byte) publish.getQoS().getQosNumber());
+        buffer.put((byte) publish.getOnwardQoS().getQosNumber());
+        buffer.put((byte) flags);
+        putBytes(buffer, hivemqId);
+        putBytes(buffer, topic);
+        if (publish.getPayloadFormatIndicator() != null) {
+            buffer.put((byte) publish.getPayloadFormatIndicator().getCode());
+        }
+        if (contentType != null) {
+            putBytes(buffer, contentType);
+        }
+        if (responseTopic != null) {
+            putBytes(buffer, responseTopic);
+        }
+        if (correlationData != null) {
+            putBytes(buffer, correlationData);
+        }
+        if (subscriptionIdentifiers != null) {
+            buffer.putInt(subscriptionIdentifiers.length());
+            for (int i = 0; i < subscriptionIdentifiers.length(); i++) {
+                buffer.putInt(subscriptionIdentifiers.get(i));
+            }
+        }
+        buffer.putInt(userProperties.size());
+        for (final byte[] bytes : userPropertyBytes) {
+            putBytes(buffer, bytes);
+        }
+        if (payload != null) {
+            putBytes(buffer, payload);
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * @param buffer      the serialized PUBLISH, starting at the position of the buffer
+     * @param persistence the payload persistence the deserialized PUBLISH references
+     * @return the deserialized PUBLISH, the position of the buffer is not changed
+     */
+    public static @NotNull PUBLISH deserialize(
+            final @NotNull ByteBuffer buffer, final @Nullable PublishPayloadPersistence persistence) {
+
+        final ByteBuffer in = buffer.duplicate();
+        final byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown serialized PUBLISH version " + version);
+        }
+        final long publishId = in.getLong();
+        final long timestamp = in.getLong();
+        final long messageExpiryInterval = in.getLong();
+        final QoS qos = QoS.valueOf(in.get());
+        final QoS onwardQos = QoS.valueOf(in.get());
+        final int flags = in.get() & 0xFF;
+
+        final PUBLISHFactory.Mqtt5Builder builder = new PUBLISHFactory.Mqtt5Builder()
+                .withPublishId(publishId)
+                .withTimestamp(timestamp)
+                .withMessageExpiryInterval(messageExpiryInterval)
+                .withQoS(qos)
+                .withOnwardQos(onwardQos)
+                .withRetain((flags & RETAIN_FLAG) != 0)
+                .withDuplicateDelivery((flags & DUP_FLAG) != 0)
+                .withHivemqId(getString(in))
+                .withTopic(getString(in))
+                .withPersistence(persistence);
+
+        if ((flags & PAYLOAD_FORMAT_INDICATOR_FLAG) != 0) {
+            builder.withPayloadFormatIndicator(Mqtt5PayloadFormatIndicator.fromCode(in.get()));
+        }
+        if ((flags & CONTENT_TYPE_FLAG) != 0) {
+            builder.withContentType(getString(in));
+        }
+        if ((flags & RESPONSE_TOPIC_FLAG) != 0) {
+            builder.withResponseTopic(getString(in));
+        }
+        if ((flags & CORRELATION_DATA_FLAG) != 0) {
+            builder.withCorrelationData(getBytes(in));
+        }
+        if ((flags & SUBSCRIPTION_IDENTIFIERS_FLAG) != 0) {
+            final int count = in.getInt();
+            final ImmutableIntArray.Builder identifiers = ImmutableIntArray.builder(count);
+            for (int i = 0; i < count; i++) {
+                identifiers.add(in.getInt());
+            }
+            builder.withSubscriptionIdentifiers(identifiers.build());
+        }
+        final int userPropertyCount = in.getInt();
+        if (userPropertyCount > 0) {
+            final ImmutableList.Builder<MqttUserProperty> userProperties = ImmutableList.builder();
+            for (int i = 0; i < userPropertyCount; i++) {
+                userProperties.add(new MqttUserProperty(getString(in), getString(in)));
+            }
+            builder.withUserProperties(Mqtt5UserProperties.of(userProperties.build()));
+        }
+        if ((flags & PAYLOAD_FLAG) != 0) {
+            builder.withPayload(getBytes(in));
+        }
+        return builder.build();
+    }
+
+    public static long getPublishId(final @NotNull ByteBuffer buffer) {
+        return buffer.getLong(buffer.position() + PUBLISH_ID_OFFSET);
+    }
+
+    public static long getTimestamp(final @NotNull ByteBuffer buffer) {
+        return buffer.getLong(buffer.position() + TIMESTAMP_OFFSET);
+    }
+
+    public static long getMessageExpiryInterval(final @NotNull ByteBuffer buffer) {
+        return buffer.getLong(buffer.position() + EXPIRY_OFFSET);
+    }
+
+    public static @NotNull QoS getQoS(final @NotNull ByteBuffer buffer) {
+        return QoS.valueOf(buffer.get(buffer.position() + QOS_OFFSET));
+    }
+
+    public static @NotNull String getHivemqId(final @NotNull ByteBuffer buffer) {
+        final ByteBuffer in = buffer.duplicate();
+        in.position(in.position() + QOS_OFFSET + 3);
+        return getString(in);
+    }
+
+    public static @NotNull String getTopic(final @NotNull ByteBuffer buffer) {
+        final ByteBuffer in = buffer.duplicate();
+        in.position(in.position() + QOS_OFFSET + 3);
+        in.position(in.position() + 4 + in.getInt(in.position()));
+        return getString(in);
+    }
+
+    private static void putBytes(final @NotNull ByteBuffer buffer, final byte @NotNull [] bytes) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte @NotNull [] getBytes(final @NotNull ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static @NotNull String getString(final @NotNull ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        final String string;
+        if (buffer.hasArray()) {
+            string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            final byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            string = new String(bytes, UTF_8);
+        }
+        return string;
+    }
+}
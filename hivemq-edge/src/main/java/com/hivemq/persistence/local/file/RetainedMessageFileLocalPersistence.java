@@ -0,0 +1,739 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.hivemq.annotations.ExecuteInSingleWriter;
+import com.hivemq.configuration.entity.mqtt.MqttConfigurationDefaults;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.extensions.iteration.BucketChunkResult;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.topic.TopicMatcherUtils;
+import com.hivemq.persistence.RetainedMessage;
+import com.hivemq.persistence.local.xodus.PublishTopicTree;
+import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
+import com.hivemq.persistence.payload.PublishPayloadPersistence;
+import com.hivemq.persistence.retained.RetainedMessageLocalPersistence;
+import com.hivemq.util.LocalPersistenceFileUtil;
+import com.hivemq.util.ThreadPreConditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.hivemq.util.ThreadPreConditions.SINGLE_WRITER_THREAD_PREFIX;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A retained message persistence which stores the retained messages in an append-only {@link SegmentLog} per bucket,
+ * so they survive a restart.
+ * <p>
+ * Only an index entry per topic and the topic tree for wildcard lookups are kept on the heap, a retained message is
+ * read back from the memory-mapped segments when it is requested. On shutdown the index of every bucket is written
+ * to an index file, so the bucket is loaded without reading its log when it is accessed the first time. The log of a
+ * bucket without index file, e.g. because HiveMQ was not shut down properly, is replayed at startup.
+ * <p>
+ * The records of replaced and removed retained messages are dropped by copying the records which are still needed
+ * from the oldest segment to the end of the log during the clean up, once the log is mostly made up of such records.
+ */
+@Singleton
+public class RetainedMessageFileLocalPersistence implements RetainedMessageLocalPersistence {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(RetainedMessageFileLocalPersistence.class);
+
+    public static final @NotNull String PERSISTENCE_VERSION = "040000";
+    private static final @NotNull String BUCKET_FOLDER_PREFIX = "bucket-";
+    private static final @NotNull String MIGRATION_FOLDER_PREFIX = "migration-bucket-";
+    private static final @NotNull String BUCKET_COUNT_FILE = "bucket_count";
+    private static final @NotNull String INDEX_FILE = "index";
+    private static final @NotNull String INDEX_TMP_FILE = "index.tmp";
+
+    private static final int INDEX_VERSION = 1;
+
+    private static final byte RECORD_PUT = 1;
+    private static final byte RECORD_REMOVE = 2;
+
+    /* the log is compacted if it is more than this times larger than the records which are still needed */
+    private static final int COMPACTION_RATIO = 2;
+
+    /* the max amount of topics which are checked for a chunk of matching topics, per topic of the chunk */
+    private static final int MAX_SCANNED_TOPICS_FACTOR = 16;
+
+    private final @NotNull File persistenceFolder;
+    private final @NotNull PublishPayloadPersistence payloadPersistence;
+    private final int bucketCount;
+    private final int segmentSize;
+
+    private final @Nullable Bucket @NotNull [] buckets;
+    /* the amount of retained messages in the index files of the buckets which are not loaded yet */
+    private final int @NotNull [] indexedCounts;
+
+    private final @NotNull AtomicLong messageCount = new AtomicLong();
+    private final @NotNull AtomicLong totalFileSize = new AtomicLong();
+
+    private static class Bucket {
+        final @NotNull SegmentLog log;
+        final @NotNull TreeMap<String, Entry> entries = new TreeMap<>();
+        final @NotNull PublishTopicTree topicTree = new PublishTopicTree();
+        long liveBytes;
+
+        Bucket(final @NotNull SegmentLog log) {
+            this.log = log;
+        }
+    }
+
+    private static class Entry {
+        long position;
+        final long publishId;
+        final long timestamp;
+        final long messageExpiryInterval;
+        final int size;
+
+        Entry(
+                final long position,
+                final long publishId,
+                final long timestamp,
+                final long messageExpiryInterval,
+                final int size) {
+            this.position = position;
+            this.publishId = publishId;
+            this.timestamp = timestamp;
+            this.messageExpiryInterval = messageExpiryInterval;
+            this.size = size;
+        }
+
+        boolean hasExpired(final long now) {
+            if (messageExpiryInterval == MqttConfigurationDefaults.TTL_DISABLED ||
+                    messageExpiryInterval == PUBLISH.MESSAGE_EXPIRY_INTERVAL_NOT_SET) {
+                return false;
+            }
+            return messageExpiryInterval - (now - timestamp) / 1000 <= 0;
+        }
+    }
+
+    @Inject
+    public RetainedMessageFileLocalPersistence(
+            final @NotNull PublishPayloadPersistence payloadPersistence,
+            final @NotNull MetricRegistry metricRegistry,
+            final @NotNull LocalPersistenceFileUtil localPersistenceFileUtil) {
+        this(payloadPersistence,
+                metricRegistry,
+                localPersistenceFileUtil.getVersionedLocalPersistenceFolder(PERSISTENCE_NAME, PERSISTENCE_VERSION));
+    }
+
+    @VisibleForTesting
+    RetainedMessageFileLocalPersistence(
+            final @NotNull PublishPayloadPersistence payloadPersistence,
+            final @NotNull MetricRegistry metricRegistry,
+            final @NotNull File persistenceFolder) {
+        this.payloadPersistence = payloadPersistence;
+        this.persistenceFolder = persistenceFolder;
+        bucketCount = InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get();
+        segmentSize = InternalConfigurations.RETAINED_MESSAGE_FILE_SEGMENT_SIZE_BYTES.get();
+        buckets = new Bucket[bucketCount];
+        indexedCounts = new int[bucketCount];
+
+        bootstrap();
+
+        metricRegistry.register(
+                HiveMQMetrics.RETAINED_MESSAGES_FILE_PERSISTENCE_TOTAL_SIZE.name(),
+                (Gauge<Long>) totalFileSize::get);
+    }
+
+    /**
+     * Reads the amount of retained messages from the index files, these buckets are loaded when they are accessed.
+     * Buckets without index file are replayed right away. Retained messages are moved to their new bucket right away if the bucket count changed since the last start.
+     */
+    private void bootstrap() {
+        final File[] migrationFolders;
+        if (readBucketCount() != bucketCount) {
+            final File[] bucketFolders =
+                    persistenceFolder.listFiles((dir, name) -> name.startsWith(BUCKET_FOLDER_PREFIX));
+            if (bucketFolders != null) {
+                for (final File bucketFolder : bucketFolders) {
+                    final File migrationFolder = new File(persistenceFolder,
+                            MIGRATION_FOLDER_PREFIX + bucketFolder.getName().substring(BUCKET_FOLDER_PREFIX.length()));
+                    if (!bucketFolder.renameTo(migrationFolder)) {
+                        throw new IllegalStateException(
+                                "Could not move retained messages persistence " + bucketFolder.getAbsolutePath());
+                    }
+                }
+            }
+        }
+        // folders which are left over from an interrupted migration are moved as well
+        migrationFolders = persistenceFolder.listFiles((dir, name) -> name.startsWith(MIGRATION_FOLDER_PREFIX));
+
+        for (int i = 0; i < bucketCount; i++) {
+            final File indexFile = indexFile(bucketFolder(i));
+            if (indexFile.exists()) {
+                final int count = readIndexCount(indexFile);
+                indexedCounts[i] = count;
+                messageCount.addAndGet(count);
+            } else {
+                // without index the log must be replayed anyway, so the amount of retained messages is known
+                bucket(i);
+            }
+        }
+
+        if (migrationFolders != null && migrationFolders.length > 0) {
+            int moved = 0;
+            for (final File migrationFolder : migrationFolders) {
+                moved += migrate(migrationFolder);
+            }
+            if (moved > 0) {
+                log.info("Moved {} retained messages to new persistence buckets", moved);
+            }
+        }
+        writeBucketCount();
+    }
+
+    private int migrate(final @NotNull File migrationFolder) {
+        final Bucket source = load(migrationFolder);
+        for (final Map.Entry<String, Entry> mapEntry : source.entries.entrySet()) {
+            final String topic = mapEntry.getKey();
+            final Entry entry = mapEntry.getValue();
+            final Bucket target = bucket(BucketUtils.getBucket(topic, bucketCount));
+            final long position = append(target, RECORD_PUT, source.log.read(entry.position));
+            if (putEntry(target,
+                    topic,
+                    new Entry(position, entry.publishId, entry.timestamp, entry.messageExpiryInterval, entry.size))) {
+                messageCount.incrementAndGet();
+            }
+        }
+        for (final Bucket bucket : buckets) {
+            if (bucket != null) {
+                bucket.log.force();
+            }
+        }
+        totalFileSize.addAndGet(-source.log.getTotalBytes());
+        deleteIndex(migrationFolder);
+        source.log.delete();
+        return source.entries.size();
+    }
+
+    @Override
+    public long size() {
+        return messageCount.get();
+    }
+
+    @ExecuteInSingleWriter
+    @Override
+    public void clear(final int bucketIndex) {
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+        final Bucket bucket = bucket(bucketIndex);
+        messageCount.addAndGet(-bucket.entries.size());
+        totalFileSize.addAndGet(-bucket.log.getTotalBytes());
+        bucket.log.delete();
+        buckets[bucketIndex] = null;
+        bucket(bucketIndex);
+    }
+
+    @ExecuteInSingleWriter
+    @Override
+    public void remove(final @NotNull String topic, final int bucketIndex) {
+        checkNotNull(topic, "Topic must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Bucket bucket = bucket(bucketIndex);
+        final Entry entry = bucket.entries.remove(topic);
+        if (entry == null) {
+            return;
+        }
+        bucket.topicTree.remove(topic);
+        messageCount.decrementAndGet();
+        // the record of the retained message might be kept in its segment, so it must be cancelled
+        final byte[] topicBytes = topic.getBytes(UTF_8);
+        final ByteBuffer record = ByteBuffer.allocate(4 + topicBytes.length);
+        append(bucket, RECORD_REMOVE, record.putInt(topicBytes.length).put(topicBytes).flip());
+        release(bucket, entry);
+    }
+
+    @ExecuteInSingleWriter
+    @Override
+    public @Nullable RetainedMessage get(final @NotNull String topic, final int bucketIndex) {
+        checkNotNull(topic, "Topic must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Bucket bucket = bucket(bucketIndex);
+        final Entry entry = bucket.entries.get(topic);
+        if (entry == null || entry.hasExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        return read(bucket, entry);
+    }
+
+    @ExecuteInSingleWriter
+    @Override
+    public void put(
+            final @NotNull RetainedMessage retainedMessage, final @NotNull String topic, final int bucketIndex) {
+        checkNotNull(topic, "Topic must not be null");
+        checkNotNull(retainedMessage, "Retained message must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Bucket bucket = bucket(bucketIndex);
+        final ByteBuffer record = RetainedMessageSerializer.serialize(topic, retainedMessage);
+        final int size = SegmentLog.HEADER_SIZE + record.remaining();
+        final long position = append(bucket, RECORD_PUT, record);
+        final Entry entry = new Entry(position,
+                retainedMessage.getPublishId(),
+                retainedMessage.getTimestamp(),
+                retainedMessage.getMessageExpiryInterval(),
+                size);
+        if (putEntry(bucket, topic, entry)) {
+            messageCount.incrementAndGet();
+        }
+        // the payload is stored in the log, the reference which was added for this persistence is not needed
+        payloadPersistence.decrementReferenceCounter(retainedMessage.getPublishId());
+    }
+
+    @ExecuteInSingleWriter
+    @Override
+    public @NotNull Set<String> getAllTopics(final @NotNull String subscription, final int bucketIndex) {
+        checkArgument(bucketIndex >= 0 && bucketIndex < bucketCount, "Bucket index out of range");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        return bucket(bucketIndex).topicTree.get(subscription);
+    }
+
+    @ExecuteInSingleWriter
+    @Override
+    public @NotNull BucketChunkResult<Set<String>> getTopicsChunk(
+            final @NotNull String subscription,
+            final int bucketIndex,
+            final @Nullable String lastTopic,
+            final int maxTopics) {
+        checkArgument(bucketIndex >= 0 && bucketIndex < bucketCount, "Bucket index out of range");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Bucket bucket = bucket(bucketIndex);
+        // all matching topics start with the levels of the subscription before the first wildcard
+        final String prefix = getPrefix(subscription);
+        final NavigableMap<String, Entry> entries = lastTopic != null && lastTopic.compareTo(prefix) >= 0 ?
+                bucket.entries.tailMap(lastTopic, false) : bucket.entries.tailMap(prefix, true);
+
+        final ImmutableSet.Builder<String> topics = ImmutableSet.builder();
+        final long now = System.currentTimeMillis();
+        int count = 0;
+        int scanned = 0;
+        String lastKey = lastTopic;
+        for (final Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+            final String topic = mapEntry.getKey();
+            if (!topic.startsWith(prefix)) {
+                break;
+            }
+            // the amount of topics which are checked is bounded as well, in case only a few topics match
+            if (count >= maxTopics || scanned >= maxTopics * MAX_SCANNED_TOPICS_FACTOR) {
+                return new BucketChunkResult<>(topics.build(), false, lastKey, bucketIndex);
+            }
+            scanned++;
+            lastKey = topic;
+            if (!mapEntry.getValue().hasExpired(now) && TopicMatcherUtils.matches(subscription, topic)) {
+                topics.add(topic);
+                count++;
+            }
+        }
+        return new BucketChunkResult<>(topics.build(), true, lastKey, bucketIndex);
+    }
+
+    private static @NotNull String getPrefix(final @NotNull String subscription) {
+        int end = subscription.length();
+        for (int i = 0; i < subscription.length(); i++) {
+            final char c = subscription.charAt(i);
+            if (c == '+' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        // "a/#" also matches "a"
+        if (end > 0 && end < subscription.length() && subscription.charAt(end - 1) == '/') {
+            end--;
+        }
+        return subscription.substring(0, end);
+    }
+
+    @ExecuteInSingleWriter
+    @Override
+    public void cleanUp(final int bucketIndex) {
+        checkArgument(bucketIndex >= 0 && bucketIndex < bucketCount, "Bucket index out of range");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Bucket bucket = bucket(bucketIndex);
+        final long now = System.currentTimeMillis();
+        bucket.entries.entrySet().removeIf(mapEntry -> {
+            final Entry entry = mapEntry.getValue();
+            if (!entry.hasExpired(now)) {
+                return false;
+            }
+            // no remove record is needed, the message is expired again when the record is replayed
+            bucket.topicTree.remove(mapEntry.getKey());
+            messageCount.decrementAndGet();
+            release(bucket, entry);
+            return true;
+        });
+        compact(bucket);
+    }
+
+    /**
+     * Copies the records which are still needed from the oldest segment to the end of the log, so the oldest segment
+     * is deleted, as long as the log is considerably larger than its needed records.
+     */
+    private void compact(final @NotNull Bucket bucket) {
+        final SegmentLog segmentLog = bucket.log;
+        int segments = segmentLog.getSegmentCount();
+        while (segments-- > 1 && segmentLog.getTotalBytes() > bucket.liveBytes * COMPACTION_RATIO + segmentSize) {
+            int oldestSegment = Integer.MAX_VALUE;
+            for (final Entry entry : bucket.entries.values()) {
+                oldestSegment = Math.min(oldestSegment, SegmentLog.segmentId(entry.position));
+            }
+            if (oldestSegment >= SegmentLog.segmentId(segmentLog.getEndPosition())) {
+                return;
+            }
+            for (final Entry entry : bucket.entries.values()) {
+                if (SegmentLog.segmentId(entry.position) == oldestSegment) {
+                    final long position = append(bucket, RECORD_PUT, segmentLog.read(entry.position));
+                    segmentLog.retain(position);
+                    release(bucket, entry);
+                    entry.position = position;
+                    bucket.liveBytes += entry.size;
+                }
+            }
+        }
+    }
+
+    @ExecuteInSingleWriter
+    @Override
+    public @NotNull BucketChunkResult<Map<String, @NotNull RetainedMessage>> getAllRetainedMessagesChunk(
+            final int bucketIndex, final @Nullable String lastTopic, final int maxMemory) {
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Bucket bucket = bucket(bucketIndex);
+        final NavigableMap<String, Entry> entries =
+                lastTopic == null ? bucket.entries : bucket.entries.tailMap(lastTopic, false);
+        final ImmutableMap.Builder<String, RetainedMessage> retainedMessages = ImmutableMap.builder();
+        final long now = System.currentTimeMillis();
+        int usedMemory = 0;
+        String lastKey = lastTopic;
+        for (final Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+            if (usedMemory >= maxMemory) {
+                return new BucketChunkResult<>(retainedMessages.build(), false, lastKey, bucketIndex);
+            }
+            final Entry entry = mapEntry.getValue();
+            lastKey = mapEntry.getKey();
+            // ignore messages with exceeded message expiry interval
+            if (entry.hasExpired(now)) {
+                continue;
+            }
+            retainedMessages.put(lastKey, read(bucket, entry));
+            usedMemory += entry.size;
+        }
+        return new BucketChunkResult<>(retainedMessages.build(), true, lastKey, bucketIndex);
+    }
+
+    @Override
+    public void iterate(final @NotNull ItemCallback callback) {
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < bucketCount; i++) {
+            final Bucket bucket = bucket(i);
+            for (final Map.Entry<String, Entry> mapEntry : bucket.entries.entrySet()) {
+                if (!mapEntry.getValue().hasExpired(now)) {
+                    callback.onItem(mapEntry.getKey(), read(bucket, mapEntry.getValue()));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void bootstrapPayloads() {
+        // noop, the payloads are stored in the log
+    }
+
+    @ExecuteInSingleWriter
+    @Override
+    public void closeDB(final int bucketIndex) {
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+        final Bucket bucket = buckets[bucketIndex];
+        if (bucket == null) {
+            // the index file of a bucket which was never loaded is still valid
+            return;
+        }
+        bucket.log.force();
+        writeIndex(bucketFolder(bucketIndex), bucket);
+        totalFileSize.addAndGet(-bucket.log.getTotalBytes());
+        messageCount.addAndGet(-bucket.entries.size());
+        bucket.log.close();
+        buckets[bucketIndex] = null;
+    }
+
+    private @NotNull Bucket bucket(final int bucketIndex) {
+        Bucket bucket = buckets[bucketIndex];
+        if (bucket == null) {
+            bucket = load(bucketFolder(bucketIndex));
+            buckets[bucketIndex] = bucket;
+            messageCount.addAndGet(bucket.entries.size() - indexedCounts[bucketIndex]);
+            indexedCounts[bucketIndex] = 0;
+        }
+        return bucket;
+    }
+
+    private @NotNull Bucket load(final @NotNull File folder) {
+        final SegmentLog segmentLog;
+        try {
+            segmentLog = new SegmentLog(folder, segmentSize);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not open retained messages persistence " +
+                    folder.getAbsolutePath(), e);
+        }
+        Bucket bucket = readIndex(folder, segmentLog);
+        if (bucket == null) {
+            bucket = new Bucket(segmentLog);
+            replay(bucket);
+        }
+        // the index file is outdated as soon as a record is appended, it is written again on shutdown
+        deleteIndex(folder);
+        totalFileSize.addAndGet(segmentLog.getTotalBytes());
+        return bucket;
+    }
+
+    private void replay(final @NotNull Bucket bucket) {
+        bucket.log.replay((position, type, body) -> {
+            switch (type) {
+                case RECORD_PUT: {
+                    final Entry entry = new Entry(position,
+                            PUBLISH.PUBLISH_COUNTER.getAndIncrement(),
+                            RetainedMessageSerializer.getTimestamp(body),
+                            RetainedMessageSerializer.getMessageExpiryInterval(body),
+                            SegmentLog.HEADER_SIZE + body.remaining());
+                    putEntry(bucket, RetainedMessageSerializer.getTopic(body), entry);
+                    break;
+                }
+                case RECORD_REMOVE: {
+                    final byte[] topicBytes = new byte[body.getInt()];
+                    body.get(topicBytes);
+                    final String topic = new String(topicBytes, UTF_8);
+                    final Entry entry = bucket.entries.remove(topic);
+                    if (entry != null) {
+                        bucket.topicTree.remove(topic);
+                        release(bucket, entry);
+                    }
+                    break;
+                }
+                default:
+                    log.warn("Ignoring unknown record type {} in retained messages persistence", type);
+            }
+        });
+    }
+
+    /**
+     * @return <code>true</code> if there was no retained message for the topic before
+     */
+    private boolean putEntry(final @NotNull Bucket bucket, final @NotNull String topic, final @NotNull Entry entry) {
+        bucket.log.retain(entry.position);
+        bucket.liveBytes += entry.size;
+        final Entry previous = bucket.entries.put(topic, entry);
+        if (previous != null) {
+            release(bucket, previous);
+            return false;
+        }
+        bucket.topicTree.add(topic);
+        return true;
+    }
+
+    private @NotNull RetainedMessage read(final @NotNull Bucket bucket, final @NotNull Entry entry) {
+        return RetainedMessageSerializer.deserialize(bucket.log.read(entry.position), entry.publishId);
+    }
+
+    private long append(final @NotNull Bucket bucket, final byte type, final @NotNull ByteBuffer record) {
+        final long sizeBefore = bucket.log.getTotalBytes();
+        final long position = bucket.log.append(type, record);
+        totalFileSize.addAndGet(bucket.log.getTotalBytes() - sizeBefore);
+        return position;
+    }
+
+    private void release(final @NotNull Bucket bucket, final @NotNull Entry entry) {
+        final long sizeBefore = bucket.log.getTotalBytes();
+        bucket.log.release(entry.position);
+        bucket.liveBytes -= entry.size;
+        totalFileSize.addAndGet(bucket.log.getTotalBytes() - sizeBefore);
+    }
+
+    /**
+     * Writes the index of the bucket with the end of its log, so the bucket can be loaded without replaying the log.
+     * The log must be forced before.
+     */
+    private void writeIndex(final @NotNull File folder, final @NotNull Bucket bucket) {
+        final File tmpFile = new File(folder, INDEX_TMP_FILE);
+        final CRC32 crc = new CRC32();
+        try {
+            final FileOutputStream fileOutputStream = new FileOutputStream(tmpFile);
+            try (final DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(fileOutputStream), crc))) {
+                out.writeInt(INDEX_VERSION);
+                out.writeInt(bucket.entries.size());
+                out.writeLong(bucket.log.getEndPosition());
+                for (final Map.Entry<String, Entry> mapEntry : bucket.entries.entrySet()) {
+                    final Entry entry = mapEntry.getValue();
+                    final byte[] topic = mapEntry.getKey().getBytes(UTF_8);
+                    out.writeInt(topic.length);
+                    out.write(topic);
+                    out.writeLong(entry.position);
+                    out.writeLong(entry.timestamp);
+                    out.writeLong(entry.messageExpiryInterval);
+                    out.writeInt(entry.size);
+                }
+                out.writeLong(crc.getValue());
+                out.flush();
+                fileOutputStream.getFD().sync();
+            }
+            Files.move(tmpFile.toPath(), indexFile(folder).toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            // the log is replayed on the next start
+            log.warn("Could not write index of retained messages persistence {}", folder.getAbsolutePath());
+            log.debug("Original exception", e);
+        }
+    }
+
+    /**
+     * @return the bucket with the entries of the index file or <code>null</code> if the index file is missing or
+     *         does not match the log
+     */
+    private @Nullable Bucket readIndex(final @NotNull File folder, final @NotNull SegmentLog segmentLog) {
+        final File indexFile = indexFile(folder);
+        if (!indexFile.exists()) {
+            return null;
+        }
+        final Bucket bucket = new Bucket(segmentLog);
+        final CRC32 crc = new CRC32();
+        final long endPosition;
+        try (final DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile)), crc))) {
+            if (in.readInt() != INDEX_VERSION) {
+                return null;
+            }
+            final int count = in.readInt();
+            endPosition = in.readLong();
+            for (int i = 0; i < count; i++) {
+                final byte[] topic = new byte[in.readInt()];
+                in.readFully(topic);
+                final Entry entry = new Entry(in.readLong(),
+                        PUBLISH.PUBLISH_COUNTER.getAndIncrement(),
+                        in.readLong(),
+                        in.readLong(),
+                        in.readInt());
+                bucket.entries.put(new String(topic, UTF_8), entry);
+            }
+            final long checksum = crc.getValue();
+            if (in.readLong() != checksum) {
+                log.warn("Index of retained messages persistence {} is corrupted, replaying the log",
+                        folder.getAbsolutePath());
+                return null;
+            }
+        } catch (final IOException e) {
+            log.warn("Could not read index of retained messages persistence {}, replaying the log",
+                    folder.getAbsolutePath());
+            log.debug("Original exception", e);
+            return null;
+        }
+        for (final Map.Entry<String, Entry> mapEntry : bucket.entries.entrySet()) {
+            segmentLog.retain(mapEntry.getValue().position);
+            bucket.liveBytes += mapEntry.getValue().size;
+            bucket.topicTree.add(mapEntry.getKey());
+        }
+        if (!segmentLog.resume(endPosition)) {
+            log.warn("Index of retained messages persistence {} does not match the log, replaying the log",
+                    folder.getAbsolutePath());
+            for (final Entry entry : bucket.entries.values()) {
+                segmentLog.release(entry.position);
+            }
+            return null;
+        }
+        return bucket;
+    }
+
+    private static int readIndexCount(final @NotNull File indexFile) {
+        try (final DataInputStream in = new DataInputStream(new FileInputStream(indexFile))) {
+            return in.readInt() == INDEX_VERSION ? in.readInt() : 0;
+        } catch (final IOException e) {
+            return 0;
+        }
+    }
+
+    private int readBucketCount() {
+        final File file = new File(persistenceFolder, BUCKET_COUNT_FILE);
+        if (!file.exists()) {
+            // nothing has been stored yet, or the folder is from a version without bucket count
+            return bucketCount;
+        }
+        try {
+            return Integer.parseInt(Files.readString(file.toPath()).trim());
+        } catch (final IOException | NumberFormatException e) {
+            log.warn("Could not read bucket count of retained messages persistence, moving all retained messages");
+            return -1;
+        }
+    }
+
+    private void writeBucketCount() {
+        try {
+            Files.writeString(new File(persistenceFolder, BUCKET_COUNT_FILE).toPath(), String.valueOf(bucketCount));
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not write bucket count of retained messages persistence", e);
+        }
+    }
+
+    private @NotNull File bucketFolder(final int bucketIndex) {
+        return new File(persistenceFolder, BUCKET_FOLDER_PREFIX + bucketIndex);
+    }
+
+    private static @NotNull File indexFile(final @NotNull File folder) {
+        return new File(folder, INDEX_FILE);
+    }
+
+    private static void deleteIndex(final @NotNull File folder) {
+        final File indexFile = indexFile(folder);
+        if (indexFile.exists() && !indexFile.delete()) {
+            throw new IllegalStateException("Could not delete outdated index " + indexFile.getAbsolutePath());
+        }
+    }
+}
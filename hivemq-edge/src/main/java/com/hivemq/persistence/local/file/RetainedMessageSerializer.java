@@ -0,0 +1,212 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import com.google.common.collect.ImmutableList;
+import com.hivemq.codec.encoder.mqtt5.Mqtt5PayloadFormatIndicator;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
+import com.hivemq.persistence.RetainedMessage;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Serializes a retained message together with its topic into a compact binary form for the file persistence.
+ * <p>
+ * The timestamp and the message expiry interval are written at fixed offsets at the beginning, followed by the topic,
+ * so the index of the persistence can be rebuilt without deserializing the messages.
+ */
+public class RetainedMessageSerializer {
+
+    private static final byte VERSION = 1;
+
+    private static final int TIMESTAMP_OFFSET = 1;
+    private static final int EXPIRY_OFFSET = TIMESTAMP_OFFSET + 8;
+    private static final int PUBLISH_ID_OFFSET = EXPIRY_OFFSET + 8;
+    private static final int QOS_OFFSET = PUBLISH_ID_OFFSET + 8;
+    private static final int TOPIC_OFFSET = QOS_OFFSET + 1 + 1; // qos, flags
+
+    private static final int PAYLOAD_FORMAT_INDICATOR_FLAG = 1;
+    private static final int CONTENT_TYPE_FLAG = 1 << 1;
+    private static final int RESPONSE_TOPIC_FLAG = 1 << 2;
+    private static final int CORRELATION_DATA_FLAG = 1 << 3;
+    private static final int PAYLOAD_FLAG = 1 << 4;
+
+    private RetainedMessageSerializer() {
+        //This is a utility class, don't instantiate it!
+    }
+
+    /**
+     * @param topic           the topic of the retained message
+     * @param retainedMessage the retained message to serialize, including its payload if it is set
+     * @return the serialized retained message, ready to be read
+     */
+    public static @NotNull ByteBuffer serialize(
+            final @NotNull String topic, final @NotNull RetainedMessage retainedMessage) {
+
+        final byte[] topicBytes = topic.getBytes(UTF_8);
+        final byte[] payload = retainedMessage.getMessage();
+        final byte[] contentType =
+                retainedMessage.getContentType() == null ? null : retainedMessage.getContentType().getBytes(UTF_8);
+        final byte[] responseTopic =
+                retainedMessage.getResponseTopic() == null ? null : retainedMessage.getResponseTopic().getBytes(UTF_8);
+        final byte[] correlationData = retainedMessage.getCorrelationData();
+        final ImmutableList<MqttUserProperty> userProperties = retainedMessage.getUserProperties().asList();
+
+        int flags = 0;
+        int size = TOPIC_OFFSET + 4 + topicBytes.length;
+        if (retainedMessage.getPayloadFormatIndicator() != null) {
+            flags |= PAYLOAD_FORMAT_INDICATOR_FLAG;
+            size += 1;
+        }
+        if (contentType != null) {
+            flags |= CONTENT_TYPE_FLAG;
+            size += 4 + contentType.length;
+        }
+        if (responseTopic != null) {
+            flags |= RESPONSE_TOPIC_FLAG;
+            size += 4 + responseTopic.length;
+        }
+        if (correlationData != null) {
+            flags |= CORRELATION_DATA_FLAG;
+            size += 4 + correlationData.length;
+        }
+        if (payload != null) {
+            flags |= PAYLOAD_FLAG;
+            size += 4 + payload.length;
+        }
+        final byte[][] userPropertyBytes = new byte[userProperties.size() * 2][];
+        size += 4;
+        for (int i = 0; i < userProperties.size(); i++) {
+            userPropertyBytes[i * 2] = userProperties.get(i).getName().getBytes(UTF_8);
+            userPropertyBytes[i * 2 + 1] = userProperties.get(i).getValue().getBytes(UTF_8);
+            size += 8 + userPropertyBytes[i * 2].length + userPropertyBytes[i * 2 + 1].length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION);
+        buffer.putLong(retainedMessage.getTimestamp());
+        buffer.putLong(retainedMessage.getMessageExpiryInterval());
+        buffer.putLong(retainedMessage.getPublishId());
+        buffer.put((byte) retainedMessage.getQos().getQosNumber());
+        buffer.put((byte) flags);
+        putBytes(buffer, topicBytes);
+        if (retainedMessage.getPayloadFormatIndicator() != null) {
+            buffer.put((byte) retainedMessage.getPayloadFormatIndicator().getCode());
+        }
+        if (contentType != null) {
+            putBytes(buffer, contentType);
+        }
+        if (responseTopic != null) {
+            putBytes(buffer, responseTopic);
+        }
+        if (correlationData != null) {
+            putBytes(buffer, correlationData);
+        }
+        buffer.putInt(userProperties.size());
+        for (final byte[] bytes : userPropertyBytes) {
+            putBytes(buffer, bytes);
+        }
+        if (payload != null) {
+            putBytes(buffer, payload);
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * @param buffer    the serialized retained message, starting at the position of the buffer
+     * @param publishId the publish id of the deserialized retained message, the serialized publish id is only valid
+     *                  until the next restart
+     * @return the deserialized retained message, the position of the buffer is not changed
+     */
+    public static @NotNull RetainedMessage deserialize(final @NotNull ByteBuffer buffer, final long publishId) {
+        final ByteBuffer in = buffer.duplicate();
+        final byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown serialized retained message version " + version);
+        }
+        final long timestamp = in.getLong();
+        final long messageExpiryInterval = in.getLong();
+        in.getLong(); // publish id
+        final QoS qos = QoS.valueOf(in.get());
+        final int flags = in.get() & 0xFF;
+        in.position(in.position() + 4 + in.getInt(in.position())); // topic
+
+        final Mqtt5PayloadFormatIndicator payloadFormatIndicator =
+                (flags & PAYLOAD_FORMAT_INDICATOR_FLAG) != 0 ? Mqtt5PayloadFormatIndicator.fromCode(in.get()) : null;
+        final String contentType = (flags & CONTENT_TYPE_FLAG) != 0 ? getString(in) : null;
+        final String responseTopic = (flags & RESPONSE_TOPIC_FLAG) != 0 ? getString(in) : null;
+        final byte[] correlationData = (flags & CORRELATION_DATA_FLAG) != 0 ? getBytes(in) : null;
+        final int userPropertyCount = in.getInt();
+        Mqtt5UserProperties userProperties = Mqtt5UserProperties.NO_USER_PROPERTIES;
+        if (userPropertyCount > 0) {
+            final ImmutableList.Builder<MqttUserProperty> builder = ImmutableList.builder();
+            for (int i = 0; i < userPropertyCount; i++) {
+                builder.add(new MqttUserProperty(getString(in), getString(in)));
+            }
+            userProperties = Mqtt5UserProperties.of(builder.build());
+        }
+        final byte[] payload = (flags & PAYLOAD_FLAG) != 0 ? getBytes(in) : null;
+
+        return new RetainedMessage(payload,
+                qos,
+                publishId,
+                messageExpiryInterval,
+                userProperties,
+                responseTopic,
+                contentType,
+                correlationData,
+                payloadFormatIndicator,
+                timestamp);
+    }
+
+    public static long getTimestamp(final @NotNull ByteBuffer buffer) {
+        return buffer.getLong(buffer.position() + TIMESTAMP_OFFSET);
+    }
+
+    public static long getMessageExpiryInterval(final @NotNull ByteBuffer buffer) {
+        return buffer.getLong(buffer.position() + EXPIRY_OFFSET);
+    }
+
+    public static long getPublishId(final @NotNull ByteBuffer buffer) {
+        return buffer.getLong(buffer.position() + PUBLISH_ID_OFFSET);
+    }
+
+    public static @NotNull String getTopic(final @NotNull ByteBuffer buffer) {
+        final ByteBuffer in = buffer.duplicate();
+        in.position(in.position() + TOPIC_OFFSET);
+        return getString(in);
+    }
+
+    private static void putBytes(final @NotNull ByteBuffer buffer, final byte @NotNull [] bytes) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte @NotNull [] getBytes(final @NotNull ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static @NotNull String getString(final @NotNull ByteBuffer buffer) {
+        return new String(getBytes(buffer), UTF_8);
+    }
+}
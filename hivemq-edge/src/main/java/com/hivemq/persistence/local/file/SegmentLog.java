@@ -0,0 +1,419 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import com.google.common.base.Preconditions;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of records which is split into memory-mapped segment files.
+ * <p>
+ * Every record is framed by its body length, a CRC32 checksum and a type byte. A zero length marks the end of the
+ * written part of a segment, so a torn write at the tail of the log is detected on {@link #replay} and cut off.
+ * <p>
+ * A record is addressed by a position that combines the id of its segment (upper 32 bits) and its offset inside
+ * the segment (lower 32 bits). Users of the log {@link #retain} the positions of records that are still needed and
+ * {@link #release} them when they are not. Segments are deleted strictly from the head of the log once none of
+ * their records are retained anymore, so records which cancel out earlier records are never dropped before the
+ * records they cancel.
+ * <p>
+ * This class is not thread safe, each instance must only be accessed by a single thread (e.g. the single writer
+ * thread of a persistence bucket).
+ */
+@NotThreadSafe
+public class SegmentLog {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(SegmentLog.class);
+
+    public static final long NO_POSITION = -1;
+
+    static final int HEADER_SIZE = 4 + 4 + 1; // body length, crc, type
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".log";
+
+    private final @NotNull File directory;
+    private final int segmentSize;
+    private final @NotNull TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final @NotNull CRC32 crc = new CRC32();
+
+    private @NotNull Segment activeSegment;
+    private long totalBytes;
+    private boolean replaying;
+
+    /**
+     * Opens the log in the given directory. Existing segments are kept and can be read with {@link #replay}.
+     *
+     * @param directory   the directory the segment files are stored in, will be created if it does not exist
+     * @param segmentSize the size of a newly created segment file in bytes
+     * @throws IOException if the directory or the segment files can not be opened
+     */
+    public SegmentLog(final @NotNull File directory, final int segmentSize) throws IOException {
+        Preconditions.checkArgument(segmentSize > HEADER_SIZE, "Segment size must be greater than %s", HEADER_SIZE);
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory.getAbsolutePath());
+        }
+        final File[] files = directory.listFiles((dir, name) ->
+                name.startsWith(SEGMENT_FILE_PREFIX) && name.endsWith(SEGMENT_FILE_SUFFIX));
+        if (files != null) {
+            for (final File file : files) {
+                final int id = parseSegmentId(file.getName());
+                if (id < 0) {
+                    log.warn("Ignoring unexpected file {} in {}", file.getName(), directory.getAbsolutePath());
+                    continue;
+                }
+                final Segment segment = Segment.open(id, file, (int) file.length());
+                segments.put(id, segment);
+                totalBytes += segment.buffer.capacity();
+            }
+        }
+        if (segments.isEmpty()) {
+            activeSegment = createSegment(0, segmentSize);
+        } else {
+            activeSegment = segments.lastEntry().getValue();
+            // the tail of the active segment is determined by the replay, until then it is assumed to be full
+            activeSegment.writeOffset = activeSegment.buffer.capacity();
+        }
+    }
+
+    /**
+     * Reads all records of the log in the order they were written.
+     * <p>
+     * The replay must be done once before the first record is appended to an existing log, as it determines where
+     * new records are appended.
+     *
+     * @param consumer is called for every valid record
+     */
+    public void replay(final @NotNull RecordConsumer consumer) {
+        // segments must not be deleted while they are iterated or before all of their records are replayed
+        replaying = true;
+        for (final Segment segment : segments.values()) {
+            final ByteBuffer buffer = segment.buffer.duplicate();
+            int offset = 0;
+            while (offset + HEADER_SIZE <= buffer.capacity()) {
+                final int length = buffer.getInt(offset);
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || offset + HEADER_SIZE + length > buffer.capacity() ||
+                        buffer.getInt(offset + 4) != checksum(buffer, offset + 8, length + 1)) {
+                    log.warn("Found corrupted record in {} at offset {}, skipping the rest of the segment",
+                            segment.file.getAbsolutePath(), offset);
+                    // stale records behind the cut must never become valid again when new records end on them
+                    zero(segment.buffer, offset);
+                    break;
+                }
+                final byte type = buffer.get(offset + 8);
+                final ByteBuffer body = slice(buffer, offset + HEADER_SIZE, length);
+                consumer.accept(position(segment.id, offset), type, body);
+                offset += HEADER_SIZE + length;
+            }
+            segment.writeOffset = offset;
+        }
+        replaying = false;
+        deleteReleasedHeadSegments();
+    }
+
+    /**
+     * Continues an existing log without replaying it. This is only possible if the end of the log is known, e.g. from
+     * {@link #getEndPosition()} right before the log was closed. The records which are still needed must be
+     * {@link #retain retained} before, segments at the head of the log without retained records are deleted.
+     *
+     * @param endPosition the end of the log
+     * @return <code>false</code> if the position is not the end of the last segment, the log must be replayed then
+     */
+    public boolean resume(final long endPosition) {
+        final int offset = offset(endPosition);
+        if (segmentId(endPosition) != activeSegment.id || offset < 0 || offset > activeSegment.buffer.capacity()) {
+            return false;
+        }
+        activeSegment.writeOffset = offset;
+        deleteReleasedHeadSegments();
+        return true;
+    }
+
+    /**
+     * Appends a record to the log.
+     *
+     * @param type the type of the record
+     * @param body the body of the record, read from its position to its limit, must not be empty
+     * @return the position of the record
+     */
+    public long append(final byte type, final @NotNull ByteBuffer body) {
+        final int length = body.remaining();
+        Preconditions.checkArgument(length > 0, "Record body must not be empty");
+        final int recordSize = HEADER_SIZE + length;
+        if (activeSegment.writeOffset + recordSize > activeSegment.buffer.capacity()) {
+            activeSegment.buffer.force();
+            activeSegment = createSegment(activeSegment.id + 1, Math.max(segmentSize, recordSize));
+        }
+        final MappedByteBuffer buffer = activeSegment.buffer;
+        final int offset = activeSegment.writeOffset;
+
+        final ByteBuffer target = buffer.duplicate();
+        target.position(offset + 8);
+        target.put(type);
+        target.put(body.duplicate());
+        buffer.putInt(offset + 4, checksum(buffer, offset + 8, length + 1));
+        // the length is written last, so a partially written record is never seen as valid
+        buffer.putInt(offset, length);
+
+        activeSegment.writeOffset = offset + recordSize;
+        return position(activeSegment.id, offset);
+    }
+
+    /**
+     * @param position of a record
+     * @return a read-only view on the body of the record at the given position
+     */
+    public @NotNull ByteBuffer read(final long position) {
+        final Segment segment = segments.get(segmentId(position));
+        Preconditions.checkState(segment != null, "Segment for position %s does not exist", position);
+        final int offset = offset(position);
+        final int length = segment.buffer.getInt(offset);
+        return slice(segment.buffer, offset + HEADER_SIZE, length).asReadOnlyBuffer();
+    }
+
+    /**
+     * Marks the record at the given position as still needed. The segment of the record is not deleted before the
+     * record is released.
+     *
+     * @param position of the record
+     */
+    public void retain(final long position) {
+        final Segment segment = segments.get(segmentId(position));
+        if (segment != null) {
+            segment.retained++;
+        }
+    }
+
+    /**
+     * Marks the record at the given position as not needed anymore. Segments at the head of the log are deleted
+     * once they do not contain any retained records.
+     *
+     * @param position of the record
+     */
+    public void release(final long position) {
+        final Segment segment = segments.get(segmentId(position));
+        if (segment == null) {
+            return;
+        }
+        segment.retained--;
+        if (!replaying && segment.retained <= 0 && segment.id == segments.firstKey()) {
+            deleteReleasedHeadSegments();
+        }
+    }
+
+    /**
+     * Flushes all written records to the disk.
+     */
+    public void force() {
+        activeSegment.buffer.force();
+    }
+
+    /**
+     * Flushes and closes all segments. The log must not be used afterwards.
+     */
+    public void close() {
+        for (final Segment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    /**
+     * Closes and deletes all segments and the directory of the log. The log must not be used afterwards.
+     */
+    public void delete() {
+        for (final Segment segment : segments.values()) {
+            segment.delete();
+        }
+        segments.clear();
+        if (!directory.delete()) {
+            log.debug("Could not delete directory {}", directory.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @return the position the next record is appended at, if it fits into the current segment
+     */
+    public long getEndPosition() {
+        return position(activeSegment.id, activeSegment.writeOffset);
+    }
+
+    /**
+     * @return the amount of bytes the segments of this log occupy on disk
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * @return the amount of segments this log currently consists of
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    private void deleteReleasedHeadSegments() {
+        final Iterator<Map.Entry<Integer, Segment>> iterator = segments.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Segment segment = iterator.next().getValue();
+            if (segment == activeSegment || segment.retained > 0) {
+                return;
+            }
+            iterator.remove();
+            totalBytes -= segment.buffer.capacity();
+            segment.delete();
+        }
+    }
+
+    private @NotNull Segment createSegment(final int id, final int size) {
+        final File file = new File(directory, String.format("%s%010d%s", SEGMENT_FILE_PREFIX, id, SEGMENT_FILE_SUFFIX));
+        try {
+            final Segment segment = Segment.open(id, file, size);
+            segments.put(id, segment);
+            totalBytes += size;
+            return segment;
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not create segment " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private int checksum(final @NotNull ByteBuffer buffer, final int offset, final int length) {
+        crc.reset();
+        crc.update(slice(buffer, offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static void zero(final @NotNull MappedByteBuffer buffer, final int from) {
+        final int capacity = buffer.capacity();
+        int offset = from;
+        for (; offset + 8 <= capacity; offset += 8) {
+            buffer.putLong(offset, 0);
+        }
+        for (; offset < capacity; offset++) {
+            buffer.put(offset, (byte) 0);
+        }
+        buffer.force();
+    }
+
+    private static @NotNull ByteBuffer slice(final @NotNull ByteBuffer buffer, final int offset, final int length) {
+        final ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.limit(offset + length);
+        return duplicate.slice();
+    }
+
+    private static int parseSegmentId(final @NotNull String fileName) {
+        try {
+            return Integer.parseInt(fileName.substring(SEGMENT_FILE_PREFIX.length(),
+                    fileName.length() - SEGMENT_FILE_SUFFIX.length()));
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static long position(final int segmentId, final int offset) {
+        return ((long) segmentId << 32) | (offset & 0xFFFF_FFFFL);
+    }
+
+    static int segmentId(final long position) {
+        return (int) (position >>> 32);
+    }
+
+    static int offset(final long position) {
+        return (int) position;
+    }
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+
+        /**
+         * @param position of the record
+         * @param type     of the record
+         * @param body     of the record, only valid during the callback
+         */
+        void accept(long position, byte type, @NotNull ByteBuffer body);
+    }
+
+    private static class Segment {
+
+        private final int id;
+        private final @NotNull File file;
+        private final @NotNull MappedByteBuffer buffer;
+        private int writeOffset;
+        private int retained;
+
+        private Segment(
+                final int id,
+                final @NotNull File file,
+                final @NotNull MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        static @NotNull Segment open(final int id, final @NotNull File file, final int size) throws IOException {
+            try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                if (randomAccessFile.length() < size) {
+                    randomAccessFile.setLength(size);
+                }
+                final FileChannel channel = randomAccessFile.getChannel();
+                // the mapping stays valid after the channel is closed
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                return new Segment(id, file, buffer);
+            }
+        }
+
+        void close() {
+            buffer.force();
+            unmap();
+        }
+
+        void delete() {
+            unmap();
+            if (!file.delete()) {
+                log.debug("Could not delete segment {}", file.getAbsolutePath());
+            }
+        }
+
+        private void unmap() {
+            try {
+                PlatformDependent.freeDirectBuffer(buffer);
+            } catch (final Throwable t) {
+                log.trace("Could not unmap segment {}", file.getAbsolutePath(), t);
+            }
+        }
+    }
+}
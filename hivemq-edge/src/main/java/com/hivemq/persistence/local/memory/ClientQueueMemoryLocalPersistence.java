@@ -37,6 +37,9 @@ import com.hivemq.persistence.payload.PublishPayloadPersistence;
 import com.hivemq.util.MemoryEstimator;
 import com.hivemq.util.Strings;
 import com.hivemq.util.ThreadPreConditions;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +50,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -68,7 +72,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
     private final @NotNull Map<String, Messages> @NotNull [] sharedBuckets;
 
     private static class Messages {
-        final @NotNull LinkedList<MessageWithID> qos1Or2Messages = new LinkedList<>();
+        final @NotNull IndexedMessageQueue qos1Or2Messages = new IndexedMessageQueue();
         final @NotNull LinkedList<PublishWithRetained> qos0Messages = new LinkedList<>();
         int retainedQos1Or2Messages = 0;
         long qos0Memory = 0;
@@ -84,11 +88,39 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
     private final @NotNull AtomicLong qos0MessagesMemory;
     private final @NotNull AtomicLong totalMemorySize;
 
+    /* allocates the off heap payloads of qos 0 messages, null if the payloads stay on the heap */
+    private final @Nullable ByteBufAllocator qos0PayloadAllocator;
+    private final long qos0OffHeapMemoryLimit;
+    private final @NotNull AtomicLong qos0OffHeapMemory;
+    /* the off heap payload of a publish is shared by all queues it is added to, accessed by all single writer threads */
+    private final @NotNull Map<Long, OffHeapPayload> qos0OffHeapPayloads = new ConcurrentHashMap<>();
+
+    private static class OffHeapPayload {
+        final @NotNull ByteBuf buffer;
+        int queued = 1;
+
+        OffHeapPayload(final @NotNull ByteBuf buffer) {
+            this.buffer = buffer;
+        }
+    }
+
     @Inject
     ClientQueueMemoryLocalPersistence(
             final @NotNull PublishPayloadPersistence payloadPersistence,
             final @NotNull MessageDroppedService messageDroppedService,
             final @NotNull MetricRegistry metricRegistry) {
+        this(payloadPersistence,
+                messageDroppedService,
+                metricRegistry,
+                InternalConfigurations.QOS_0_OFF_HEAP_ENABLED.get() ? PooledByteBufAllocator.DEFAULT : null);
+    }
+
+    @VisibleForTesting
+    ClientQueueMemoryLocalPersistence(
+            final @NotNull PublishPayloadPersistence payloadPersistence,
+            final @NotNull MessageDroppedService messageDroppedService,
+            final @NotNull MetricRegistry metricRegistry,
+            final @Nullable ByteBufAllocator qos0PayloadAllocator) {
 
         final int bucketCount = InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get();
         //noinspection unchecked
@@ -103,16 +135,24 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         this.payloadPersistence = payloadPersistence;
         this.messageDroppedService = messageDroppedService;
 
+        this.qos0PayloadAllocator = qos0PayloadAllocator;
         qos0MemoryLimit = getQos0MemoryLimit();
+        qos0OffHeapMemoryLimit = InternalConfigurations.QOS_0_OFF_HEAP_MEMORY_LIMIT_BYTES.get();
         qos0ClientMemoryLimit = InternalConfigurations.QOS_0_MEMORY_LIMIT_PER_CLIENT_BYTES.get();
         retainedMessageMax = InternalConfigurations.RETAINED_MESSAGE_QUEUE_SIZE.get();
 
         qos0MessagesMemory = new AtomicLong();
         totalMemorySize = new AtomicLong();
+        qos0OffHeapMemory = new AtomicLong();
 
         metricRegistry.register(
                 HiveMQMetrics.QUEUED_MESSAGES_MEMORY_PERSISTENCE_TOTAL_SIZE.name(),
                 (Gauge<Long>) totalMemorySize::get);
+        if (qos0PayloadAllocator != null) {
+            metricRegistry.register(
+                    HiveMQMetrics.QUEUED_MESSAGES_MEMORY_PERSISTENCE_QOS_0_OFF_HEAP_SIZE.name(),
+                    (Gauge<Long>) qos0OffHeapMemory::get);
+        }
 
     }
 
@@ -213,7 +253,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
                 }
 
                 publishWithRetained.setPacketIdentifier(NO_PACKET_ID);
-                messages.qos1Or2Messages.add(publishWithRetained);
+                messages.qos1Or2Messages.addLast(publishWithRetained);
                 increaseMessagesMemory(publishWithRetained.getEstimatedSize());
             }
         }
@@ -246,10 +286,111 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             }
         }
 
-        messages.qos0Messages.add(publishWithRetained);
-        increaseQos0MessagesMemory(publishWithRetained.getEstimatedSize());
-        increaseClientQos0MessagesMemory(messages, publishWithRetained.getEstimatedSize());
-        increaseMessagesMemory(publishWithRetained.getEstimatedSize());
+        final PublishWithRetained queued;
+        if (qos0PayloadAllocator == null) {
+            queued = publishWithRetained;
+        } else {
+            queued = moveOffHeap(queueId, shared, publishWithRetained);
+            if (queued == null) {
+                return;
+            }
+        }
+        messages.qos0Messages.add(queued);
+        increaseQos0MessagesMemory(queued.getEstimatedSize());
+        increaseClientQos0MessagesMemory(messages, getClientQos0Size(queued));
+        increaseMessagesMemory(queued.getEstimatedSize());
+    }
+
+    /**
+     * Moves the payload of the publish to a direct buffer that is shared by all queues the publish is added to. The
+     * returned publish holds its own reference to the buffer, which is passed on to the reader of the queue.
+     *
+     * @return the publish with the payload in a direct buffer, the publish itself if the payload is empty or null if
+     *         the off heap memory limit is exceeded
+     */
+    private @Nullable PublishWithRetained moveOffHeap(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull PublishWithRetained publishWithRetained) {
+
+        final byte[] payload = publishWithRetained.getPayload();
+        if (payload == null || payload.length == 0) {
+            return publishWithRetained;
+        }
+        //noinspection ConstantConditions
+        final OffHeapPayload offHeapPayload =
+                qos0OffHeapPayloads.compute(publishWithRetained.getPublishId(), (publishId, current) -> {
+                    if (current != null) {
+                        current.queued++;
+                        return current;
+                    }
+                    if (qos0OffHeapMemory.get() >= qos0OffHeapMemoryLimit) {
+                        return null;
+                    }
+                    final ByteBuf buffer =
+                            qos0PayloadAllocator.directBuffer(payload.length, payload.length).writeBytes(payload);
+                    qos0OffHeapMemory.addAndGet(buffer.capacity());
+                    return new OffHeapPayload(buffer);
+                });
+        if (offHeapPayload == null) {
+            final long currentOffHeapMemory = qos0OffHeapMemory.get();
+            if (shared) {
+                messageDroppedService.qos0MemoryExceededShared(queueId,
+                        publishWithRetained.getTopic(),
+                        0,
+                        currentOffHeapMemory,
+                        qos0OffHeapMemoryLimit);
+            } else {
+                messageDroppedService.qos0MemoryExceeded(queueId,
+                        publishWithRetained.getTopic(),
+                        0,
+                        currentOffHeapMemory,
+                        qos0OffHeapMemoryLimit);
+            }
+            payloadPersistence.decrementReferenceCounter(publishWithRetained.getPublishId());
+            return null;
+        }
+        // the queued count keeps the buffer alive, so the duplicate can be retained outside of compute
+        return new PublishWithRetained(publishWithRetained,
+                publishWithRetained.retained,
+                offHeapPayload.buffer.retainedDuplicate());
+    }
+
+    /**
+     * Removes the queue's share of the off heap payload of the publish, the buffer is released when the publish is
+     * not queued anymore. The reference of the publish itself is not released.
+     */
+    private void dequeueOffHeap(final @NotNull PublishWithRetained publishWithRetained) {
+        if (publishWithRetained.getPayloadBuffer() == null) {
+            return;
+        }
+        qos0OffHeapPayloads.computeIfPresent(publishWithRetained.getPublishId(), (publishId, offHeapPayload) -> {
+            if (--offHeapPayload.queued > 0) {
+                return offHeapPayload;
+            }
+            qos0OffHeapMemory.addAndGet(-offHeapPayload.buffer.capacity());
+            offHeapPayload.buffer.release();
+            return null;
+        });
+    }
+
+    /**
+     * Removes the queue's share of the off heap payload and releases the reference of the publish, for publishes that
+     * are dropped instead of read.
+     */
+    private void releaseOffHeap(final @NotNull PublishWithRetained publishWithRetained) {
+        dequeueOffHeap(publishWithRetained);
+        publishWithRetained.releasePayloadBuffer();
+    }
+
+    private static int getClientQos0Size(final @NotNull PublishWithRetained publishWithRetained) {
+        final ByteBuf payloadBuffer = publishWithRetained.getPayloadBuffer();
+        return publishWithRetained.getEstimatedSize() + (payloadBuffer == null ? 0 : payloadBuffer.readableBytes());
+    }
+
+    private static int getReadSize(final @NotNull PUBLISH publish) {
+        final ByteBuf payloadBuffer = publish.getPayloadBuffer();
+        return publish.getEstimatedSizeInMemory() + (payloadBuffer == null ? 0 : payloadBuffer.readableBytes());
     }
 
     /**
@@ -285,9 +426,12 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         int bytes = 0;
         final ImmutableList.Builder<PUBLISH> publishes = ImmutableList.builder();
 
-        final Iterator<MessageWithID> iterator = messages.qos1Or2Messages.iterator();
-        while (iterator.hasNext()) {
-            final MessageWithID messageWithID = iterator.next();
+        // in-flight messages are never behind the first unsent message, so they do not have to be skipped
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        long position = queue.firstUnsent();
+        while (position < queue.tail()) {
+            final long current = position++;
+            final MessageWithID messageWithID = queue.get(current);
             if (!(messageWithID instanceof PublishWithRetained)) {
                 continue;
             }
@@ -298,7 +442,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             }
 
             if (publishWithRetained.hasExpired()) {
-                iterator.remove();
+                queue.remove(current);
                 payloadPersistence.decrementReferenceCounter(publishWithRetained.getPublishId());
                 if (publishWithRetained.retained) {
                     messages.retainedQos1Or2Messages--;
@@ -308,7 +452,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             } else {
 
                 final int packetId = packetIds.get(packetIdIndex);
-                publishWithRetained.setPacketIdentifier(packetId);
+                queue.setPacketId(current, packetId);
                 publishes.add(publishWithRetained);
                 packetIdIndex++;
                 messageCount++;
@@ -323,12 +467,13 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             if ((qos0Publish != null) && !qos0Publish.hasExpired()) {
                 publishes.add(qos0Publish);
                 messageCount++;
-                bytes += qos0Publish.getEstimatedSizeInMemory();
+                bytes += getReadSize(qos0Publish);
             }
             if ((messageCount == countLimit) || (bytes > bytesLimit)) {
                 break;
             }
         }
+        queue.setFirstUnsent(position);
         return publishes.build();
     }
 
@@ -346,7 +491,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             if (!qos0Publish.hasExpired()) {
                 publishes.add(qos0Publish);
                 qos0MessagesFound++;
-                qos0Bytes += qos0Publish.getEstimatedSizeInMemory();
+                qos0Bytes += getReadSize(qos0Publish);
             }
         }
 
@@ -360,9 +505,16 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         }
         final int estimatedSize = publishWithRetained.getEstimatedSize();
         increaseQos0MessagesMemory(-estimatedSize);
-        increaseClientQos0MessagesMemory(messages, -estimatedSize);
+        increaseClientQos0MessagesMemory(messages, -getClientQos0Size(publishWithRetained));
         increaseMessagesMemory(-estimatedSize);
         payloadPersistence.decrementReferenceCounter(publishWithRetained.getPublishId());
+        if (publishWithRetained.hasExpired()) {
+            // expired publishes are dropped by the caller, their payload is not needed anymore
+            releaseOffHeap(publishWithRetained);
+        } else {
+            // the reader releases the payload buffer once the publish is written
+            dequeueOffHeap(publishWithRetained);
+        }
         return publishWithRetained;
     }
 
@@ -388,7 +540,12 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         int bytes = 0;
         final ImmutableList.Builder<MessageWithID> publishes = ImmutableList.builder();
 
-        for (final MessageWithID messageWithID : messages.qos1Or2Messages) {
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.head(); position < queue.tail(); position++) {
+            final MessageWithID messageWithID = queue.get(position);
+            if (messageWithID == null) {
+                continue;
+            }
             // Stop at first non inflight message
             // This works because in-flight messages are always first in the queue
             if (messageWithID.getPacketIdentifier() == NO_PACKET_ID) {
@@ -428,40 +585,31 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return null;
         }
 
-        boolean packetIdFound = false;
         String replacedId = null;
         boolean retained = false;
 
-        int messageIndexInQueue = -1;
-
-        for (final MessageWithID messageWithID : messages.qos1Or2Messages) {
-            messageIndexInQueue++;
-            final int packetId = messageWithID.getPacketIdentifier();
-            if (packetId == NO_PACKET_ID) {
-                break;
-            }
-            if (packetId == pubrel.getPacketIdentifier()) {
-                packetIdFound = true;
-                if (messageWithID instanceof PublishWithRetained) {
-                    final PublishWithRetained publish = (PublishWithRetained) messageWithID;
-                    retained = publish.retained;
-                    payloadPersistence.decrementReferenceCounter(publish.getPublishId());
-                    increaseMessagesMemory(-publish.getEstimatedSize());
-                    pubrel.setMessageExpiryInterval(publish.getMessageExpiryInterval());
-                    pubrel.setPublishTimestamp(publish.getTimestamp());
-                    replacedId = publish.getUniqueId();
-                } else if (messageWithID instanceof PubrelWithRetained) {
-                    final PubrelWithRetained pubrelWithRetained = (PubrelWithRetained) messageWithID;
-                    pubrel.setMessageExpiryInterval(pubrelWithRetained.getMessageExpiryInterval());
-                    pubrel.setPublishTimestamp(pubrelWithRetained.getPublishTimestamp());
-                    retained = pubrelWithRetained.retained;
-                }
-                break;
+        final long position = messages.qos1Or2Messages.find(pubrel.getPacketIdentifier());
+        final boolean packetIdFound = position != IndexedMessageQueue.NOT_FOUND;
+        if (packetIdFound) {
+            final MessageWithID messageWithID = messages.qos1Or2Messages.get(position);
+            if (messageWithID instanceof PublishWithRetained) {
+                final PublishWithRetained publish = (PublishWithRetained) messageWithID;
+                retained = publish.retained;
+                payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+                increaseMessagesMemory(-publish.getEstimatedSize());
+                pubrel.setMessageExpiryInterval(publish.getMessageExpiryInterval());
+                pubrel.setPublishTimestamp(publish.getTimestamp());
+                replacedId = publish.getUniqueId();
+            } else if (messageWithID instanceof PubrelWithRetained) {
+                final PubrelWithRetained pubrelWithRetained = (PubrelWithRetained) messageWithID;
+                pubrel.setMessageExpiryInterval(pubrelWithRetained.getMessageExpiryInterval());
+                pubrel.setPublishTimestamp(pubrelWithRetained.getPublishTimestamp());
+                retained = pubrelWithRetained.retained;
             }
         }
         final PubrelWithRetained pubrelWithRetained = new PubrelWithRetained(pubrel, retained);
         if (packetIdFound) {
-            messages.qos1Or2Messages.set(messageIndexInQueue, pubrelWithRetained);
+            messages.qos1Or2Messages.set(position, pubrelWithRetained);
         } else {
             // Ensure unknown PUBRELs are always first in queue
             messages.qos1Or2Messages.addFirst(pubrelWithRetained);
@@ -496,28 +644,27 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return null;
         }
 
-        final Iterator<MessageWithID> iterator = messages.qos1Or2Messages.iterator();
-        while (iterator.hasNext()) {
-            final MessageWithID messageWithID = iterator.next();
-            if (messageWithID.getPacketIdentifier() == packetId) {
-                String removedId = null;
-                if (messageWithID instanceof PublishWithRetained) {
-                    final PublishWithRetained publish = (PublishWithRetained) messageWithID;
-                    if (uniqueId != null && !uniqueId.equals(publish.getUniqueId())) {
-                        break;
-                    }
-                    payloadPersistence.decrementReferenceCounter(publish.getPublishId());
-                    removedId = publish.getUniqueId();
-                }
-                if (isRetained(messageWithID)) {
-                    messages.retainedQos1Or2Messages--;
-                }
-                increaseMessagesMemory(-getMessageSize(messageWithID));
-                iterator.remove();
-                return removedId;
+        final long position = messages.qos1Or2Messages.find(packetId);
+        if (position == IndexedMessageQueue.NOT_FOUND) {
+            return null;
+        }
+        final MessageWithID messageWithID = messages.qos1Or2Messages.get(position);
+        String removedId = null;
+        if (messageWithID instanceof PublishWithRetained) {
+            final PublishWithRetained publish = (PublishWithRetained) messageWithID;
+            if (uniqueId != null && !uniqueId.equals(publish.getUniqueId())) {
+                return null;
             }
+            payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+            removedId = publish.getUniqueId();
         }
-        return null;
+        //noinspection ConstantConditions
+        if (isRetained(messageWithID)) {
+            messages.retainedQos1Or2Messages--;
+        }
+        increaseMessagesMemory(-getMessageSize(messageWithID));
+        messages.qos1Or2Messages.remove(position);
+        return removedId;
     }
 
 
@@ -564,7 +711,12 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return;
         }
 
-        for (final MessageWithID messageWithID : messages.qos1Or2Messages) {
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.head(); position < queue.tail(); position++) {
+            final MessageWithID messageWithID = queue.get(position);
+            if (messageWithID == null) {
+                continue;
+            }
             if (messageWithID instanceof PublishWithRetained) {
                 payloadPersistence.decrementReferenceCounter(((PublishWithRetained) messageWithID).getPublishId());
             }
@@ -573,6 +725,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
 
         for (final PublishWithRetained qos0Message : messages.qos0Messages) {
             payloadPersistence.decrementReferenceCounter(qos0Message.getPublishId());
+            releaseOffHeap(qos0Message);
             final int estimatedSize = qos0Message.getEstimatedSize();
             increaseQos0MessagesMemory(-estimatedSize);
             // increaseClientQos0MessagesMemory not necessary as messages are removed completely
@@ -597,6 +750,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
 
         for (final PublishWithRetained publishWithRetained : messages.qos0Messages) {
             payloadPersistence.decrementReferenceCounter(publishWithRetained.getPublishId());
+            releaseOffHeap(publishWithRetained);
             increaseQos0MessagesMemory(-publishWithRetained.getEstimatedSize());
             // increaseClientQos0MessagesMemory not necessary as messages.qos0Memory = 0 below
             increaseMessagesMemory(-publishWithRetained.getEstimatedSize());
@@ -640,9 +794,9 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return;
         }
 
-        final Iterator<MessageWithID> iterator = messages.qos1Or2Messages.iterator();
-        while (iterator.hasNext()) {
-            final MessageWithID messageWithID = iterator.next();
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.head(); position < queue.tail(); position++) {
+            final MessageWithID messageWithID = queue.get(position);
             if (messageWithID instanceof PublishWithRetained) {
                 final PublishWithRetained publish = (PublishWithRetained) messageWithID;
                 if (!uniqueId.equals(publish.getUniqueId())) {
@@ -653,7 +807,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
                     messages.retainedQos1Or2Messages--;
                 }
                 increaseMessagesMemory(-publish.getEstimatedSize());
-                iterator.remove();
+                queue.remove(position);
             }
         }
     }
@@ -676,13 +830,15 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return;
         }
 
-        for (final MessageWithID messageWithID : messages.qos1Or2Messages) {
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.head(); position < queue.tail(); position++) {
+            final MessageWithID messageWithID = queue.get(position);
             if (messageWithID instanceof PublishWithRetained) {
                 final PublishWithRetained publish = (PublishWithRetained) messageWithID;
                 if (!uniqueId.equals(publish.getUniqueId())) {
                     continue;
                 }
-                publish.setPacketIdentifier(NO_PACKET_ID);
+                queue.setPacketId(position, NO_PACKET_ID);
                 break;
             }
         }
@@ -692,6 +848,10 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
     @ExecuteInSingleWriter
     public void closeDB(final int bucketIndex) {
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+        if (qos0PayloadAllocator != null) {
+            releaseOffHeap(buckets[bucketIndex]);
+            releaseOffHeap(sharedBuckets[bucketIndex]);
+        }
         buckets[bucketIndex].clear();
         sharedBuckets[bucketIndex].clear();
         totalMemorySize.set(0L);
@@ -773,9 +933,10 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             final @NotNull Messages messages,
             final boolean retainedOnly) {
 
-        final Iterator<MessageWithID> iterator = messages.qos1Or2Messages.iterator();
-        while (iterator.hasNext()) {
-            final MessageWithID messageWithID = iterator.next();
+        // in-flight messages are not discarded, they are never behind the first unsent message
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.firstUnsent(); position < queue.tail(); position++) {
+            final MessageWithID messageWithID = queue.get(position);
             if (!(messageWithID instanceof PublishWithRetained)) {
                 continue;
             }
@@ -790,13 +951,21 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
                 continue;
             }
             logAndDecrementPayloadReference(publish, shared, queueId);
-            iterator.remove();
+            queue.remove(position);
             return true;
         }
         return false;
 
     }
 
+    private void releaseOffHeap(final @NotNull Map<String, Messages> bucket) {
+        for (final Messages messages : bucket.values()) {
+            for (final PublishWithRetained publishWithRetained : messages.qos0Messages) {
+                releaseOffHeap(publishWithRetained);
+            }
+        }
+    }
+
     private void logAndDecrementPayloadReference(
             final @NotNull PUBLISH publish, final boolean shared, final @NotNull String queueId) {
 
@@ -811,16 +980,17 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             final PublishWithRetained publishWithRetained = iterator.next();
             if (publishWithRetained.hasExpired()) {
                 increaseQos0MessagesMemory(-publishWithRetained.getEstimatedSize());
-                increaseClientQos0MessagesMemory(messages, -publishWithRetained.getEstimatedSize());
+                increaseClientQos0MessagesMemory(messages, -getClientQos0Size(publishWithRetained));
                 increaseMessagesMemory(-publishWithRetained.getEstimatedSize());
                 payloadPersistence.decrementReferenceCounter(publishWithRetained.getPublishId());
+                releaseOffHeap(publishWithRetained);
                 iterator.remove();
             }
         }
 
-        final Iterator<MessageWithID> qos12iterator = messages.qos1Or2Messages.iterator();
-        while (qos12iterator.hasNext()) {
-            final MessageWithID messageWithID = qos12iterator.next();
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.head(); position < queue.tail(); position++) {
+            final MessageWithID messageWithID = queue.get(position);
             if (messageWithID instanceof PubrelWithRetained) {
                 final PubrelWithRetained pubrel = (PubrelWithRetained) messageWithID;
                 if (!InternalConfigurations.EXPIRE_INFLIGHT_PUBRELS_ENABLED) {
@@ -836,7 +1006,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
                     messages.retainedQos1Or2Messages--;
                 }
                 increaseMessagesMemory(-pubrel.getEstimatedSize());
-                qos12iterator.remove();
+                queue.remove(position);
 
             } else if (messageWithID instanceof PublishWithRetained) {
                 final PublishWithRetained publish = (PublishWithRetained) messageWithID;
@@ -849,7 +1019,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
                         messages.retainedQos1Or2Messages--;
                     }
                     increaseMessagesMemory(-publish.getEstimatedSize());
-                    qos12iterator.remove();
+                    queue.remove(position);
                 }
             }
         }
@@ -865,6 +1035,12 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             this.retained = retained;
         }
 
+        PublishWithRetained(
+                final @NotNull PUBLISH publish, final boolean retained, final @NotNull ByteBuf payloadBuffer) {
+            super(publish, payloadBuffer);
+            this.retained = retained;
+        }
+
         int getEstimatedSize() {
             return getEstimatedSizeInMemory()  // publish
                     + MemoryEstimator.OBJECT_SHELL_SIZE // the object itself
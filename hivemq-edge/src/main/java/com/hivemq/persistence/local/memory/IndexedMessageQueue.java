@@ -0,0 +1,343 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.memory;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.message.MessageWithID;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.Arrays;
+
+/**
+ * The QoS 1 and 2 messages of a client queue in order, with a cursor to the first message which is not in-flight
+ * and an index of the in-flight messages by packet identifier.
+ * <p>
+ * Messages are stored in a ring of slots and are addressed by a position which does not change while the message is
+ * in the queue, so callers can iterate from {@link #head()} to {@link #tail()} and remove or replace messages on the
+ * way. Removed messages leave an empty slot behind, the slots are compacted when a message is added and more than
+ * half of the slots are empty.
+ * <p>
+ * The packet identifier of a queued message must only be changed with {@link #setPacketId(long, int)}.
+ */
+@NotThreadSafe
+class IndexedMessageQueue {
+
+    static final long NOT_FOUND = Long.MIN_VALUE;
+
+    private static final int NO_PACKET_ID = 0;
+    private static final int MIN_CAPACITY = 8;
+
+    private @Nullable MessageWithID @NotNull [] slots = new MessageWithID[MIN_CAPACITY];
+    private int mask = MIN_CAPACITY - 1;
+    /* position of the oldest slot, which is never empty unless the queue is empty */
+    private long head;
+    /* position after the newest slot */
+    private long tail;
+    /* all messages before this position have a packet identifier */
+    private long firstUnsent;
+    private int size;
+
+    private final @NotNull PacketIdIndex index = new PacketIdIndex();
+    /* messages with a packet identifier which is already indexed for an older message */
+    private int shadowed;
+
+    int size() {
+        return size;
+    }
+
+    long head() {
+        return head;
+    }
+
+    long tail() {
+        return tail;
+    }
+
+    /**
+     * @return the position of the first message which might not have a packet identifier yet
+     */
+    long firstUnsent() {
+        return firstUnsent;
+    }
+
+    /**
+     * @param position all messages before this position have a packet identifier or are no publishes
+     */
+    void setFirstUnsent(final long position) {
+        firstUnsent = Math.max(head, Math.min(position, tail));
+    }
+
+    /**
+     * @return the message at the position or <code>null</code> if the message at the position was removed
+     */
+    @Nullable MessageWithID get(final long position) {
+        if (position < head || position >= tail) {
+            return null;
+        }
+        return slots[slot(position)];
+    }
+
+    void addLast(final @NotNull MessageWithID message) {
+        ensureCapacity();
+        final long position = tail++;
+        slots[slot(position)] = message;
+        size++;
+        addToIndex(message.getPacketIdentifier(), position);
+    }
+
+    void addFirst(final @NotNull MessageWithID message) {
+        ensureCapacity();
+        final long position = --head;
+        slots[slot(position)] = message;
+        size++;
+        addToIndex(message.getPacketIdentifier(), position);
+    }
+
+    void set(final long position, final @NotNull MessageWithID message) {
+        final MessageWithID previous = slots[slot(position)];
+        if (previous == null) {
+            throw new IllegalStateException("No message at position " + position);
+        }
+        removeFromIndex(previous.getPacketIdentifier(), position);
+        slots[slot(position)] = message;
+        addToIndex(message.getPacketIdentifier(), position);
+    }
+
+    void setPacketId(final long position, final int packetId) {
+        final MessageWithID message = slots[slot(position)];
+        if (message == null) {
+            throw new IllegalStateException("No message at position " + position);
+        }
+        removeFromIndex(message.getPacketIdentifier(), position);
+        message.setPacketIdentifier(packetId);
+        addToIndex(packetId, position);
+        if (packetId == NO_PACKET_ID && position < firstUnsent) {
+            firstUnsent = position;
+        }
+    }
+
+    void remove(final long position) {
+        final int slot = slot(position);
+        final MessageWithID message = slots[slot];
+        if (message == null) {
+            return;
+        }
+        removeFromIndex(message.getPacketIdentifier(), position);
+        slots[slot] = null;
+        size--;
+        // empty slots at the head are dropped right away, as most messages are acknowledged in order
+        while (head < tail && slots[slot(head)] == null) {
+            head++;
+        }
+        if (firstUnsent < head) {
+            firstUnsent = head;
+        }
+    }
+
+    /**
+     * @return the position of the oldest message with the packet identifier or {@link #NOT_FOUND}, messages without
+     *         packet identifier are never found
+     */
+    long find(final int packetId) {
+        if (packetId == NO_PACKET_ID) {
+            return NOT_FOUND;
+        }
+        final int slot = index.get(packetId);
+        return slot < 0 ? NOT_FOUND : position(slot);
+    }
+
+    private void addToIndex(final int packetId, final long position) {
+        if (packetId == NO_PACKET_ID) {
+            return;
+        }
+        final int indexed = index.get(packetId);
+        if (indexed < 0) {
+            index.put(packetId, slot(position));
+            return;
+        }
+        shadowed++;
+        if (position < position(indexed)) {
+            index.put(packetId, slot(position));
+        }
+    }
+
+    private void removeFromIndex(final int packetId, final long position) {
+        if (packetId == NO_PACKET_ID) {
+            return;
+        }
+        final int indexed = index.get(packetId);
+        if (indexed != slot(position)) {
+            // this message was not indexed because an older message has the same packet identifier
+            if (indexed >= 0 && shadowed > 0) {
+                shadowed--;
+            }
+            return;
+        }
+        index.remove(packetId);
+        if (shadowed > 0) {
+            final long next = scan(packetId, position);
+            if (next != NOT_FOUND) {
+                shadowed--;
+                index.put(packetId, slot(next));
+            }
+        }
+    }
+
+    private long scan(final int packetId, final long excluded) {
+        for (long position = head; position < tail; position++) {
+            final MessageWithID message = slots[slot(position)];
+            if (message != null && position != excluded && message.getPacketIdentifier() == packetId) {
+                return position;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private void ensureCapacity() {
+        final long used = tail - head;
+        final long empty = used - size;
+        if (used < slots.length && (empty <= MIN_CAPACITY || empty <= size)) {
+            return;
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < (size + 1) * 2) {
+            capacity <<= 1;
+        }
+        final MessageWithID[] compacted = new MessageWithID[capacity];
+        final int newMask = capacity - 1;
+        long newFirstUnsent = -1;
+        long newPosition = head;
+        for (long position = head; position < tail; position++) {
+            if (position == firstUnsent) {
+                newFirstUnsent = newPosition;
+            }
+            final MessageWithID message = slots[slot(position)];
+            if (message != null) {
+                compacted[(int) (newPosition & newMask)] = message;
+                newPosition++;
+            }
+        }
+        slots = compacted;
+        mask = newMask;
+        tail = newPosition;
+        firstUnsent = newFirstUnsent == -1 ? tail : newFirstUnsent;
+
+        index.clear();
+        shadowed = 0;
+        for (long position = head; position < tail; position++) {
+            //noinspection ConstantConditions
+            addToIndex(slots[slot(position)].getPacketIdentifier(), position);
+        }
+    }
+
+    private int slot(final long position) {
+        return (int) (position & mask);
+    }
+
+    private long position(final int slot) {
+        return head + ((slot - head) & mask);
+    }
+
+    /**
+     * Open addressing map from packet identifier to slot. Packet identifiers are never 0, so 0 marks a free entry.
+     */
+    private static class PacketIdIndex {
+
+        private int @NotNull [] keys = new int[MIN_CAPACITY];
+        private int @NotNull [] values = new int[MIN_CAPACITY];
+        private int size;
+
+        int get(final int key) {
+            final int mask = keys.length - 1;
+            for (int i = hash(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(final int key, final int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            final int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != 0) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+
+        void remove(final int key) {
+            final int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != key) {
+                if (keys[i] == 0) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = 0;
+            size--;
+            // shift the following entries back, so no entry is separated from its hash slot by a free entry
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                final int home = hash(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    keys[j] = 0;
+                    i = j;
+                }
+            }
+        }
+
+        void clear() {
+            if (keys.length > MIN_CAPACITY) {
+                keys = new int[MIN_CAPACITY];
+                values = new int[MIN_CAPACITY];
+            } else {
+                Arrays.fill(keys, 0);
+            }
+            size = 0;
+        }
+
+        private void resize(final int capacity) {
+            final int[] oldKeys = keys;
+            final int[] oldValues = values;
+            keys = new int[capacity];
+            values = new int[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(final int key) {
+            final int hash = key * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
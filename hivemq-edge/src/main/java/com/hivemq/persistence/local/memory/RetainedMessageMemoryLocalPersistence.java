@@ -19,6 +19,7 @@ import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.hivemq.annotations.ExecuteInSingleWriter;
 import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
@@ -27,6 +28,7 @@ import com.hivemq.extensions.iteration.BucketChunkResult;
 import com.hivemq.metrics.HiveMQMetrics;
 import com.hivemq.persistence.RetainedMessage;
 import com.hivemq.persistence.local.xodus.PublishTopicTree;
+import com.hivemq.persistence.payload.PublishPayloadPersistence;
 import com.hivemq.persistence.retained.RetainedMessageLocalPersistence;
 import com.hivemq.util.ThreadPreConditions;
 import org.slf4j.Logger;
@@ -60,8 +62,13 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
 
     private final int bucketCount;
 
+    private final @NotNull PublishPayloadPersistence payloadPersistence;
+
     @Inject
-    public RetainedMessageMemoryLocalPersistence(@NotNull final MetricRegistry metricRegistry) {
+    public RetainedMessageMemoryLocalPersistence(
+            @NotNull final MetricRegistry metricRegistry,
+            @NotNull final PublishPayloadPersistence payloadPersistence) {
+        this.payloadPersistence = payloadPersistence;
         bucketCount = InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get();
 
         //noinspection unchecked
@@ -97,6 +104,7 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
         final Map<String, RetainedMessage> bucket = buckets[bucketIndex];
         for (final RetainedMessage retainedMessage : bucket.values()) {
             currentMemorySize.addAndGet(-retainedMessage.getEstimatedSizeInMemory());
+            payloadPersistence.decrementReferenceCounter(retainedMessage.getPublishId());
         }
         bucket.clear();
     }
@@ -112,6 +120,7 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
         final RetainedMessage retainedMessage = bucket.remove(topic);
         if (retainedMessage != null) {
             currentMemorySize.addAndGet(-retainedMessage.getEstimatedSizeInMemory());
+            payloadPersistence.decrementReferenceCounter(retainedMessage.getPublishId());
         }
     }
 
@@ -146,6 +155,7 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
         final RetainedMessage previousMessage = bucket.put(topic, retainedMessage);
         if (previousMessage != null) {
             currentMemorySize.addAndGet(-previousMessage.getEstimatedSizeInMemory());
+            payloadPersistence.decrementReferenceCounter(previousMessage.getPublishId());
         }
         currentMemorySize.addAndGet(retainedMessage.getEstimatedSizeInMemory());
         topicTrees[bucketIndex].add(topic);
@@ -161,6 +171,31 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
         return topicTrees[bucketIndex].get(subscription);
     }
 
+    // the topics are not kept in order, so the matching topics are sorted to page over them
+    @NotNull
+    @ExecuteInSingleWriter
+    @Override
+    public BucketChunkResult<Set<String>> getTopicsChunk(
+            @NotNull final String subscription,
+            final int bucketIndex,
+            @Nullable final String lastTopic,
+            final int maxTopics) {
+        checkArgument(bucketIndex >= 0 && bucketIndex < bucketCount, "Bucket index out of range");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final String[] topics = topicTrees[bucketIndex].get(subscription)
+                .stream()
+                .filter(topic -> lastTopic == null || topic.compareTo(lastTopic) > 0)
+                .toArray(String[]::new);
+        Arrays.sort(topics);
+        final int size = Math.min(topics.length, maxTopics);
+        final boolean finished = size == topics.length;
+        return new BucketChunkResult<>(ImmutableSet.copyOf(Arrays.asList(topics).subList(0, size)),
+                finished,
+                size > 0 ? topics[size - 1] : lastTopic,
+                bucketIndex);
+    }
+
     @ExecuteInSingleWriter
     @Override
     public void cleanUp(final int bucketIndex) {
@@ -176,6 +211,7 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
             final String topic = entry.getKey();
             if (retainedMessage.hasExpired()) {
                 currentMemorySize.addAndGet(-retainedMessage.getEstimatedSizeInMemory());
+                payloadPersistence.decrementReferenceCounter(retainedMessage.getPublishId());
                 topicTrees[bucketIndex].remove(topic);
                 return true;
             }
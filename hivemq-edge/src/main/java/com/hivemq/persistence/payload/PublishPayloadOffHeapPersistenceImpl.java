@@ -0,0 +1,257 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.payload;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.persistence.ioc.annotation.Persistence;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A payload persistence which stores every payload exactly once in pooled direct memory, keyed by the publish id.
+ * <p>
+ * Payloads are reference counted. A payload whose reference count dropped to zero is not removed immediately, as the
+ * persistences decrement the reference count of a message before its payload is dereferenced for sending. It is
+ * removed by a regular clean up once it was unreferenced for at least
+ * {@link InternalConfigurations#PAYLOAD_PERSISTENCE_REMOVE_DELAY_MSEC}.
+ */
+@Singleton
+public class PublishPayloadOffHeapPersistenceImpl implements PublishPayloadPersistence {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(PublishPayloadOffHeapPersistenceImpl.class);
+
+    private static final long NOT_UNREFERENCED = -1;
+
+    private final @NotNull ConcurrentHashMap<Long, PayloadEntry> payloads = new ConcurrentHashMap<>();
+    private final @NotNull ListeningScheduledExecutorService scheduledExecutorService;
+    private final @NotNull ByteBufAllocator allocator;
+    private final @NotNull AtomicLong totalSize = new AtomicLong();
+
+    private final long removeDelay;
+
+    private @Nullable ScheduledFuture<?> cleanUpFuture;
+
+    @Inject
+    public PublishPayloadOffHeapPersistenceImpl(
+            final @NotNull @Persistence ListeningScheduledExecutorService scheduledExecutorService,
+            final @NotNull MetricRegistry metricRegistry) {
+
+        this(scheduledExecutorService, metricRegistry, PooledByteBufAllocator.DEFAULT);
+    }
+
+    @VisibleForTesting
+    PublishPayloadOffHeapPersistenceImpl(
+            final @NotNull ListeningScheduledExecutorService scheduledExecutorService,
+            final @NotNull MetricRegistry metricRegistry,
+            final @NotNull ByteBufAllocator allocator) {
+
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.allocator = allocator;
+        removeDelay = InternalConfigurations.PAYLOAD_PERSISTENCE_REMOVE_DELAY_MSEC.get();
+
+        metricRegistry.register(
+                HiveMQMetrics.PAYLOAD_PERSISTENCE_OFF_HEAP_TOTAL_SIZE.name(), (Gauge<Long>) totalSize::get);
+        metricRegistry.register(
+                HiveMQMetrics.PAYLOAD_PERSISTENCE_OFF_HEAP_PAYLOAD_COUNT.name(), (Gauge<Integer>) payloads::size);
+    }
+
+    @Override
+    public synchronized void init() {
+        if (cleanUpFuture != null || scheduledExecutorService.isShutdown()) {
+            return;
+        }
+        final long schedule = InternalConfigurations.PAYLOAD_PERSISTENCE_CLEANUP_SCHEDULE_MSEC.get();
+        cleanUpFuture = scheduledExecutorService.scheduleWithFixedDelay(() -> {
+            try {
+                cleanUp(System.currentTimeMillis());
+            } catch (final Throwable t) {
+                log.error("Exception during payload persistence clean up", t);
+            }
+        }, schedule, schedule, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(final @NotNull byte[] payload, final long referenceCount, final long payloadId) {
+        checkNotNull(payload, "Payload must not be null");
+
+        payloads.compute(payloadId, (id, entry) -> {
+            if (entry == null) {
+                final ByteBuf buffer;
+                if (payload.length == 0) {
+                    buffer = Unpooled.EMPTY_BUFFER;
+                } else {
+                    buffer = allocator.directBuffer(payload.length, payload.length);
+                    buffer.writeBytes(payload);
+                }
+                totalSize.addAndGet(payload.length);
+                return new PayloadEntry(buffer, referenceCount);
+            }
+            entry.referenceCount += referenceCount;
+            if (entry.referenceCount > 0) {
+                entry.unreferencedSince = NOT_UNREFERENCED;
+            }
+            return entry;
+        });
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte @NotNull [] get(final long id) {
+        final byte[] payload = getPayloadOrNull(id);
+        if (payload == null) {
+            throw new PayloadPersistenceException(id);
+        }
+        return payload;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte @Nullable [] getPayloadOrNull(final long id) {
+        final byte[][] payload = new byte[1][];
+        // the copy is done while the entry is locked, so the buffer can not be released concurrently
+        payloads.computeIfPresent(id, (key, entry) -> {
+            final ByteBuf buffer = entry.buffer;
+            final byte[] bytes = new byte[buffer.readableBytes()];
+            buffer.getBytes(buffer.readerIndex(), bytes);
+            payload[0] = bytes;
+            return entry;
+        });
+        return payload[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrementReferenceCounterOnBootstrap(final long id) {
+        final PayloadEntry entry = payloads.computeIfPresent(id, (key, existing) -> {
+            existing.referenceCount++;
+            existing.unreferencedSince = NOT_UNREFERENCED;
+            return existing;
+        });
+        if (entry == null) {
+            log.debug("Could not increment the reference count of payload {} as it is not persisted", id);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void decrementReferenceCounter(final long id) {
+        payloads.computeIfPresent(id, (key, entry) -> {
+            if (entry.referenceCount <= 0) {
+                log.trace("Payload {} is not referenced anymore, ignoring decrement", id);
+                return entry;
+            }
+            entry.referenceCount--;
+            if (entry.referenceCount == 0) {
+                entry.unreferencedSince = System.currentTimeMillis();
+            }
+            return entry;
+        });
+    }
+
+    /**
+     * Removes all payloads which are unreferenced since the configured delay.
+     *
+     * @param now the current time in milliseconds
+     */
+    @VisibleForTesting
+    void cleanUp(final long now) {
+        for (final Map.Entry<Long, PayloadEntry> mapEntry : payloads.entrySet()) {
+            final PayloadEntry candidate = mapEntry.getValue();
+            if (candidate.unreferencedSince == NOT_UNREFERENCED) {
+                continue;
+            }
+            payloads.computeIfPresent(mapEntry.getKey(), (id, entry) -> {
+                if (entry.referenceCount > 0 || entry.unreferencedSince == NOT_UNREFERENCED ||
+                        now - entry.unreferencedSince < removeDelay) {
+                    return entry;
+                }
+                totalSize.addAndGet(-entry.buffer.readableBytes());
+                entry.buffer.release();
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public synchronized void closeDB() {
+        if (cleanUpFuture != null) {
+            cleanUpFuture.cancel(false);
+            cleanUpFuture = null;
+        }
+        for (final Long id : payloads.keySet()) {
+            payloads.computeIfPresent(id, (key, entry) -> {
+                totalSize.addAndGet(-entry.buffer.readableBytes());
+                entry.buffer.release();
+                return null;
+            });
+        }
+    }
+
+    @Override
+    @VisibleForTesting
+    public @NotNull ImmutableMap<Long, Integer> getReferenceCountersAsMap() {
+        final ImmutableMap.Builder<Long, Integer> builder = ImmutableMap.builder();
+        payloads.forEach((id, entry) -> builder.put(id, (int) entry.referenceCount));
+        return builder.build();
+    }
+
+    private static class PayloadEntry {
+
+        private final @NotNull ByteBuf buffer;
+        private long referenceCount;
+        private long unreferencedSince;
+
+        PayloadEntry(final @NotNull ByteBuf buffer, final long referenceCount) {
+            this.buffer = buffer;
+            this.referenceCount = referenceCount;
+            this.unreferencedSince = referenceCount > 0 ? NOT_UNREFERENCED : System.currentTimeMillis();
+        }
+    }
+}
@@ -81,6 +81,21 @@ public interface RetainedMessageLocalPersistence extends LocalPersistence {
     @ReadOnly
     Set<String> getAllTopics(@NotNull String subscription, int bucket);
 
+    /**
+     * Get a chunk of the topics of the retained messages for a subscription from a persistence bucket, in the order of
+     * the topics.
+     *
+     * @param subscription The filter to receive retained messages for.
+     * @param bucketIndex  The index of the bucket in which the retained messages are stored.
+     * @param lastTopic    the last topic of the previous chunk. Pass <code>null</code> to start at the beginning.
+     * @param maxTopics    the max amount of topics in the chunk.
+     * @return a {@link BucketChunkResult} with a readonly set of topic strings and the information if more chunks are
+     *         available
+     */
+    @ExecuteInSingleWriter
+    @NotNull BucketChunkResult<Set<String>> getTopicsChunk(
+            @NotNull String subscription, int bucketIndex, @Nullable String lastTopic, int maxTopics);
+
     /**
      * Trigger a cleanup for a specific bucket.
      *
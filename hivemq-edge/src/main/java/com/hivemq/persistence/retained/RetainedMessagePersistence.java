@@ -18,6 +18,8 @@ package com.hivemq.persistence.retained;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.hivemq.annotations.ReadOnly;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.extensions.iteration.BucketChunkResult;
 import com.hivemq.extensions.iteration.ChunkCursor;
 import com.hivemq.extensions.iteration.MultipleChunkResult;
 import com.hivemq.persistence.RetainedMessage;
@@ -68,6 +70,22 @@ public interface RetainedMessagePersistence {
     @ReadOnly
     ListenableFuture<Set<String>> getWithWildcards(@NotNull String topicWithWildcards);
 
+    /**
+     * Get a chunk of the topics matching the given wildcard topic, that have retained messages, from a persistence
+     * bucket.
+     *
+     * @param topicWithWildcards for the retained messages
+     * @param bucketIndex        the persistence bucket index
+     * @param lastTopic          the last topic of the previous chunk of the bucket or <code>null</code> for the first
+     *                           chunk of the bucket
+     * @param maxTopics          the max amount of topics in the chunk
+     * @return a result containing the topics of the chunk, the last topic of the chunk and whether the bucket is finished
+     */
+    @NotNull
+    @ReadOnly
+    ListenableFuture<BucketChunkResult<Set<String>>> getWithWildcardsChunk(
+            @NotNull String topicWithWildcards, int bucketIndex, @Nullable String lastTopic, int maxTopics);
+
     /**
      * Close the file persistence.
      *
@@ -21,6 +21,8 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.extensions.iteration.BucketChunkResult;
 import com.hivemq.extensions.iteration.ChunkCursor;
 import com.hivemq.extensions.iteration.Chunker;
 import com.hivemq.extensions.iteration.MultipleChunkResult;
@@ -155,6 +157,27 @@ public class RetainedMessagePersistenceImpl extends AbstractPersistence implemen
         }
     }
 
+    @NotNull
+    @Override
+    public ListenableFuture<BucketChunkResult<Set<String>>> getWithWildcardsChunk(
+            @NotNull final String subscription,
+            final int bucketIndex,
+            @Nullable final String lastTopic,
+            final int maxTopics) {
+        try {
+            checkNotNull(subscription, "Topic must not be null");
+            if (!subscription.contains("+") && !subscription.contains("#")) {
+                throw new IllegalArgumentException(
+                        "Topic does not contain wildcard characters. Call get method instead.");
+            }
+
+            return singleWriter.submit(bucketIndex,
+                    (bucketIndex1) -> localPersistence.getTopicsChunk(subscription, bucketIndex1, lastTopic, maxTopics));
+        } catch (final Throwable throwable) {
+            return Futures.immediateFailedFuture(throwable);
+        }
+    }
+
     @NotNull
     @Override
     public ListenableFuture<Void> cleanUp(final int bucketIndex) {
@@ -18,6 +18,7 @@ package com.hivemq.uns;
 import com.hivemq.client.mqtt.datatypes.MqttTopic;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.uns.config.ISA95;
+import com.hivemq.uns.config.ISA95Snapshot;
 
 import java.util.Map;
 
@@ -30,6 +31,12 @@ public interface UnifiedNamespaceService {
 
     void setISA95(ISA95 isa95);
 
+    /**
+     * @return the precomputed prefix and replacements of the current ISA-95 configuration, a new snapshot is only
+     *         created when the configuration changes
+     */
+    @NotNull ISA95Snapshot getISA95Snapshot();
+
     Map<String, String> getTopicReplacements(@NotNull ISA95 isa95);
 
     MqttTopic prefixISA95(MqttTopic topic);
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.uns.config;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+/**
+ * The values derived from an {@link ISA95} configuration which are needed for every message, computed once when the
+ * configuration changes.
+ */
+public class ISA95Snapshot {
+
+    private final @NotNull ISA95 isa95;
+    private final @NotNull ImmutableMap<String, String> topicReplacements;
+    private final @NotNull String topicPrefix;
+
+    public ISA95Snapshot(final @NotNull ISA95 isa95) {
+        this.isa95 = isa95;
+        this.topicReplacements = ImmutableMap.<String, String>builder()
+                .put(ISA95.ENTERPRISE, Strings.nullToEmpty(isa95.getEnterprise()))
+                .put(ISA95.SITE, Strings.nullToEmpty(isa95.getSite()))
+                .put(ISA95.AREA, Strings.nullToEmpty(isa95.getArea()))
+                .put(ISA95.WORK_CELL, Strings.nullToEmpty(isa95.getWorkCell()))
+                .put(ISA95.PRODUCTION_LINE, Strings.nullToEmpty(isa95.getProductionLine()))
+                .build();
+        final StringBuilder prefix = new StringBuilder();
+        appendLevel(prefix, isa95.getEnterprise());
+        appendLevel(prefix, isa95.getSite());
+        appendLevel(prefix, isa95.getArea());
+        appendLevel(prefix, isa95.getProductionLine());
+        appendLevel(prefix, isa95.getWorkCell());
+        this.topicPrefix = prefix.toString();
+    }
+
+    private static void appendLevel(final @NotNull StringBuilder prefix, final String level) {
+        if (!Strings.isNullOrEmpty(level)) {
+            prefix.append(level).append('/');
+        }
+    }
+
+    public @NotNull ISA95 getISA95() {
+        return isa95;
+    }
+
+    /**
+     * @return the values of the ISA-95 levels by their token, empty levels are replaced by an empty string
+     */
+    public @NotNull ImmutableMap<String, String> getTopicReplacements() {
+        return topicReplacements;
+    }
+
+    /**
+     * @return the non-empty ISA-95 levels, each followed by a slash, or an empty string if all levels are empty
+     */
+    public @NotNull String getTopicPrefix() {
+        return topicPrefix;
+    }
+
+    public @NotNull String prefix(final @NotNull String topic) {
+        return topicPrefix.isEmpty() ? topic : topicPrefix.concat(topic);
+    }
+}
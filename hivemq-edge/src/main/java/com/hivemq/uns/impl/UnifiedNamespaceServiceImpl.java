@@ -16,18 +16,16 @@
 package com.hivemq.uns.impl;
 
 import com.google.common.base.Preconditions;
-import com.google.common.base.Strings;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 import com.hivemq.client.mqtt.datatypes.MqttTopic;
 import com.hivemq.configuration.service.ConfigurationService;
 import com.hivemq.configuration.service.UnsConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.uns.UnifiedNamespaceService;
 import com.hivemq.uns.config.ISA95;
+import com.hivemq.uns.config.ISA95Snapshot;
 
 import javax.inject.Inject;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -42,6 +40,7 @@ import java.util.Map;
 public class UnifiedNamespaceServiceImpl implements UnifiedNamespaceService {
 
     private final @NotNull UnsConfigurationService configurationService;
+    private volatile @Nullable ISA95Snapshot snapshot;
 
     @Inject
     public UnifiedNamespaceServiceImpl(final @NotNull ConfigurationService configurationService) {
@@ -57,39 +56,33 @@ public class UnifiedNamespaceServiceImpl implements UnifiedNamespaceService {
     public void setISA95(final ISA95 isa95) {
         Preconditions.checkNotNull(isa95, "isa-95 must be set");
         configurationService.setISA95(isa95);
+        snapshot = new ISA95Snapshot(isa95);
+    }
+
+    @Override
+    public @NotNull ISA95Snapshot getISA95Snapshot() {
+        //-- the configuration can also be replaced without this service (config file), so the snapshot is checked
+        final ISA95 isa95 = configurationService.getISA95();
+        final ISA95Snapshot current = snapshot;
+        if (current != null && current.getISA95() == isa95) {
+            return current;
+        }
+        final ISA95Snapshot newSnapshot = new ISA95Snapshot(isa95);
+        snapshot = newSnapshot;
+        return newSnapshot;
     }
 
     public Map<String, String> getTopicReplacements(final @NotNull ISA95 isa95){
-        return ImmutableMap.<String, String>builder()
-                .put(ISA95.ENTERPRISE,  Strings.isNullOrEmpty(isa95.getEnterprise()) ? "" : isa95.getEnterprise())
-                .put(ISA95.SITE,        Strings.isNullOrEmpty(isa95.getSite()) ? "" : isa95.getSite())
-                .put(ISA95.AREA,        Strings.isNullOrEmpty(isa95.getArea()) ? "" : isa95.getArea())
-                .put(ISA95.WORK_CELL,   Strings.isNullOrEmpty(isa95.getWorkCell()) ? "" : isa95.getWorkCell())
-                .put(ISA95.PRODUCTION_LINE, Strings.isNullOrEmpty(isa95.getProductionLine()) ? "" : isa95.getProductionLine())
-                .build();
+        final ISA95Snapshot current = snapshot;
+        if (current != null && current.getISA95() == isa95) {
+            return current.getTopicReplacements();
+        }
+        return new ISA95Snapshot(isa95).getTopicReplacements();
     }
 
     @Override
     public MqttTopic prefixISA95(final @NotNull MqttTopic topic) {
         Preconditions.checkNotNull(topic);
-        ImmutableList.Builder<String> builder = ImmutableList.builder();
-        ISA95 isa95 = getISA95();
-        if(!Strings.isNullOrEmpty(isa95.getEnterprise())){
-            builder.add(isa95.getEnterprise());
-        }
-        if(!Strings.isNullOrEmpty(isa95.getSite())){
-            builder.add(isa95.getSite());
-        }
-        if(!Strings.isNullOrEmpty(isa95.getArea())){
-            builder.add(isa95.getArea());
-        }
-        if(!Strings.isNullOrEmpty(isa95.getProductionLine())){
-            builder.add(isa95.getProductionLine());
-        }
-        if(!Strings.isNullOrEmpty(isa95.getWorkCell())){
-            builder.add(isa95.getWorkCell());
-        }
-        List<String> parts = builder.addAll(topic.getLevels()).build();
-        return MqttTopic.of(String.join("/", parts));
+        return MqttTopic.of(getISA95Snapshot().prefix(topic.toString()));
     }
 }
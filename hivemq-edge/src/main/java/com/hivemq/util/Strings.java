@@ -80,6 +80,16 @@ public class Strings {
 
         buf.getBytes(buf.readerIndex(), bytes);
 
+        final String string = getValidatedString(bytes, validateShouldNotCharacters);
+        if (string == null) {
+            return null;
+        }
+        //The ByteBuf.getBytes method, doesn't move the read index, therefor we have to do this manually.
+        buf.skipBytes(utf8StringLength);
+        return string;
+    }
+
+    public static String getValidatedString(@NotNull final byte[] bytes, final boolean validateShouldNotCharacters) {
         if (Utf8Utils.containsMustNotCharacters(bytes)) {
             return null;
         }
@@ -87,8 +97,6 @@ public class Strings {
         if (validateShouldNotCharacters && Utf8Utils.hasControlOrNonCharacter(bytes)) {
             return null;
         }
-        //The ByteBuf.getBytes method, doesn't move the read index, therefor we have to do this manually.
-        buf.skipBytes(utf8StringLength);
         return new String(bytes, UTF_8);
     }
 
@@ -16,9 +16,14 @@
 package com.hivemq.bootstrap.netty.ioc;
 
 import com.hivemq.bootstrap.netty.NettyTcpConfiguration;
+import com.hivemq.configuration.service.InternalConfigurations;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -32,12 +37,14 @@ public class NettyTcpConfigurationProviderTest {
     @Before
     public void setUp() throws Exception {
 
+        InternalConfigurations.NETTY_NATIVE_TRANSPORT_ENABLED.set(false);
         final NettyTcpConfigurationProvider provider = new NettyTcpConfigurationProvider();
         nettyConfiguration = provider.get();
     }
 
     @After
     public void tearDown() throws Exception {
+        InternalConfigurations.NETTY_NATIVE_TRANSPORT_ENABLED.set(true);
         nettyConfiguration.getChildEventLoopGroup().shutdownGracefully();
         nettyConfiguration.getParentEventLoopGroup().shutdownGracefully();
     }
@@ -60,4 +67,23 @@ public class NettyTcpConfigurationProviderTest {
         final String parentThreadName = nettyConfiguration.getParentEventLoopGroup().submit(() -> Thread.currentThread().getName()).get();
         assertTrue(parentThreadName.startsWith("hivemq-eventloop-parent-"));
     }
+
+    @Test
+    public void test_epoll_is_used_if_available() throws Exception {
+        Assume.assumeTrue(Epoll.isAvailable());
+
+        InternalConfigurations.NETTY_NATIVE_TRANSPORT_ENABLED.set(true);
+        final NettyTcpConfiguration nativeConfiguration = new NettyTcpConfigurationProvider().get();
+        try {
+            assertThat(nativeConfiguration.getChildEventLoopGroup(), instanceOf(EpollEventLoopGroup.class));
+            assertThat(nativeConfiguration.getParentEventLoopGroup(), instanceOf(EpollEventLoopGroup.class));
+            assertEquals(EpollServerSocketChannel.class, nativeConfiguration.getServerSocketChannelClass());
+
+            final String childThreadName = nativeConfiguration.getChildEventLoopGroup().submit(() -> Thread.currentThread().getName()).get();
+            assertTrue(childThreadName.startsWith("hivemq-native-eventloop-child-"));
+        } finally {
+            nativeConfiguration.getChildEventLoopGroup().shutdownGracefully();
+            nativeConfiguration.getParentEventLoopGroup().shutdownGracefully();
+        }
+    }
 }
@@ -16,9 +16,14 @@
 package com.hivemq.bootstrap.netty.ioc;
 
 import com.hivemq.bootstrap.netty.NettyUdpConfiguration;
+import com.hivemq.configuration.service.InternalConfigurations;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioDatagramChannel;
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -32,12 +37,14 @@ public class NettyUdpConfigurationProviderTest {
     @Before
     public void setUp() throws Exception {
 
+        InternalConfigurations.NETTY_NATIVE_TRANSPORT_ENABLED.set(false);
         final NettyUdpConfigurationProvider provider = new NettyUdpConfigurationProvider();
         nettyConfiguration = provider.get();
     }
 
     @After
     public void tearDown() throws Exception {
+        InternalConfigurations.NETTY_NATIVE_TRANSPORT_ENABLED.set(true);
         nettyConfiguration.getChildEventLoopGroup().shutdownGracefully();
     }
 
@@ -47,6 +54,7 @@ public class NettyUdpConfigurationProviderTest {
         assertThat(nettyConfiguration.getChildEventLoopGroup(), instanceOf(NioEventLoopGroup.class));
 
         assertEquals(NioDatagramChannel.class, nettyConfiguration.getServerSocketChannelClass());
+        assertFalse(nettyConfiguration.isReusePort());
     }
 
     @Test
@@ -56,4 +64,20 @@ public class NettyUdpConfigurationProviderTest {
         assertTrue(childThreadName.startsWith("hivemq-eventloop-child-"));
 
     }
+
+    @Test
+    public void test_epoll_with_reuse_port_is_used_if_available() {
+        Assume.assumeTrue(Epoll.isAvailable());
+
+        InternalConfigurations.NETTY_NATIVE_TRANSPORT_ENABLED.set(true);
+        final NettyUdpConfiguration nativeConfiguration = new NettyUdpConfigurationProvider().get();
+        try {
+            assertThat(nativeConfiguration.getChildEventLoopGroup(), instanceOf(EpollEventLoopGroup.class));
+            assertEquals(EpollDatagramChannel.class, nativeConfiguration.getServerSocketChannelClass());
+            assertTrue(nativeConfiguration.isReusePort());
+        } finally {
+            nativeConfiguration.getChildEventLoopGroup().shutdownGracefully();
+            nativeConfiguration.getParentEventLoopGroup().shutdownGracefully();
+        }
+    }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.hivemq.configuration.HivemqId;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.topic.tree.LocalTopicTree;
+import com.hivemq.persistence.SingleWriterService;
+import com.hivemq.persistence.clientqueue.ClientQueuePersistence;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.hivemq.configuration.service.InternalConfigurations.FORWARDER_POLL_THRESHOLD_MESSAGES;
+import static com.hivemq.configuration.service.InternalConfigurations.PUBLISH_POLL_BATCH_SIZE_BYTES;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MessageForwarderImplTest {
+
+    private static final String QUEUE_A = MessageForwarderImpl.FORWARDER_PREFIX + "forwarder/a";
+    private static final String QUEUE_B = MessageForwarderImpl.FORWARDER_PREFIX + "forwarder/b";
+
+    private final ClientQueuePersistence queuePersistence = mock(ClientQueuePersistence.class);
+    private final MqttForwarder forwarder = mock(MqttForwarder.class);
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private MessageForwarderImpl messageForwarder;
+
+    @Before
+    public void setUp() {
+        final SingleWriterService singleWriterService = mock(SingleWriterService.class);
+        when(singleWriterService.callbackExecutor(anyString())).thenReturn(MoreExecutors.directExecutor());
+        when(queuePersistence.readShared(anyString(), anyInt(), anyLong())).thenReturn(Futures.immediateFuture(
+                ImmutableList.of()));
+        when(forwarder.getId()).thenReturn("forwarder");
+        when(forwarder.getTopics()).thenReturn(List.of("a", "b"));
+
+        messageForwarder = new MessageForwarderImpl(mock(LocalTopicTree.class),
+                new HivemqId(),
+                () -> queuePersistence,
+                singleWriterService,
+                metricRegistry);
+    }
+
+    @Test
+    public void test_addForwarder_pollsEveryQueueOnce() {
+        messageForwarder.addForwarder(forwarder);
+
+        verify(queuePersistence, timeout(5000)).readShared(eq(QUEUE_A), anyInt(), anyLong());
+        verify(queuePersistence, timeout(5000)).readShared(eq(QUEUE_B), anyInt(), anyLong());
+        verify(queuePersistence, after(200).times(2)).readShared(anyString(), anyInt(), anyLong());
+    }
+
+    @Test
+    public void test_messageAvailable_pollsOnlyThatQueue() {
+        messageForwarder.addForwarder(forwarder);
+        verify(queuePersistence, timeout(5000).times(2)).readShared(anyString(), anyInt(), anyLong());
+
+        final PUBLISH publish = mock(PUBLISH.class);
+        when(queuePersistence.readShared(eq(QUEUE_A), anyInt(), anyLong())).thenReturn(Futures.immediateFuture(
+                ImmutableList.of(publish)), Futures.immediateFuture(ImmutableList.of()));
+        messageForwarder.messageAvailable(QUEUE_A);
+
+        verify(forwarder, timeout(5000)).onMessage(publish, QUEUE_A);
+        //the non empty poll is followed by one more poll of the same queue
+        verify(queuePersistence, timeout(5000).times(3)).readShared(eq(QUEUE_A), anyInt(), anyLong());
+        verify(queuePersistence, after(200).times(1)).readShared(eq(QUEUE_B), anyInt(), anyLong());
+
+        assertEquals(4,
+                metricRegistry.counter(MetricRegistry.name(MessageForwarderImpl.FORWARDER_METRICS_PREFIX,
+                        "poll",
+                        "count")).getCount());
+        assertEquals(1,
+                metricRegistry.counter(MetricRegistry.name(MessageForwarderImpl.FORWARDER_METRICS_PREFIX,
+                        "poll.messages",
+                        "count")).getCount());
+    }
+
+    @Test
+    public void test_messageAvailable_withoutCredit_pollsAfterMessageProcessed() {
+        final PUBLISH publish = mock(PUBLISH.class);
+        when(publish.getQoS()).thenReturn(QoS.AT_MOST_ONCE);
+        final ImmutableList.Builder<PUBLISH> publishes = ImmutableList.builder();
+        for (int i = 0; i < FORWARDER_POLL_THRESHOLD_MESSAGES; i++) {
+            publishes.add(publish);
+        }
+        when(queuePersistence.readShared(eq(QUEUE_A), anyInt(), anyLong())).thenReturn(Futures.immediateFuture(
+                publishes.build()), Futures.immediateFuture(ImmutableList.of()));
+
+        messageForwarder.addForwarder(forwarder);
+        verify(queuePersistence, timeout(5000)).readShared(QUEUE_A,
+                FORWARDER_POLL_THRESHOLD_MESSAGES,
+                PUBLISH_POLL_BATCH_SIZE_BYTES);
+        messageForwarder.messageAvailable(QUEUE_B);
+        //all credit is in flight
+        verify(queuePersistence, after(200).times(1)).readShared(anyString(), anyInt(), anyLong());
+
+        messageForwarder.messageProcessed(publish, "forwarder", QUEUE_A, false);
+
+        verify(queuePersistence, timeout(5000)).readShared(QUEUE_A, 1, PUBLISH_POLL_BATCH_SIZE_BYTES);
+        verify(queuePersistence, timeout(5000)).readShared(QUEUE_B, 1, PUBLISH_POLL_BATCH_SIZE_BYTES);
+    }
+
+    @Test
+    public void test_concurrentPolls_shareCreditOfForwarder() {
+        final SettableFuture<ImmutableList<PUBLISH>> pollA = SettableFuture.create();
+        when(queuePersistence.readShared(eq(QUEUE_A), anyInt(), anyLong())).thenReturn(pollA,
+                Futures.immediateFuture(ImmutableList.of()));
+
+        messageForwarder.addForwarder(forwarder);
+        verify(queuePersistence, timeout(5000)).readShared(QUEUE_A,
+                FORWARDER_POLL_THRESHOLD_MESSAGES,
+                PUBLISH_POLL_BATCH_SIZE_BYTES);
+        //the running poll of queue a holds all credit of the forwarder
+        verify(queuePersistence, after(200).never()).readShared(eq(QUEUE_B), anyInt(), anyLong());
+
+        final PUBLISH publish = mock(PUBLISH.class);
+        pollA.set(ImmutableList.of(publish));
+
+        verify(forwarder, timeout(5000)).onMessage(publish, QUEUE_A);
+        verify(queuePersistence, timeout(5000)).readShared(eq(QUEUE_B), anyInt(), anyLong());
+        verify(queuePersistence, timeout(5000)).readShared(eq(QUEUE_A),
+                eq(FORWARDER_POLL_THRESHOLD_MESSAGES - 1),
+                anyLong());
+    }
+
+    @Test
+    public void test_removeForwarder_queueIsNotPolledAnymore() {
+        messageForwarder.addForwarder(forwarder);
+        verify(queuePersistence, timeout(5000).times(2)).readShared(anyString(), anyInt(), anyLong());
+
+        messageForwarder.removeForwarder(forwarder);
+        messageForwarder.messageAvailable(QUEUE_A);
+
+        verify(queuePersistence, after(200).times(2)).readShared(anyString(), anyInt(), anyLong());
+    }
+}
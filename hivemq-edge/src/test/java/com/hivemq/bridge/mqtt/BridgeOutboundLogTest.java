@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.mqtt;
+
+import com.google.common.collect.ImmutableList;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("NullabilityAnnotations")
+public class BridgeOutboundLogTest {
+
+    private static final long MAX_SIZE = 100 * 1024 * 1024;
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(1);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void test_next_acknowledge_inOrder() throws Exception {
+        final BridgeOutboundLog outboundLog = new BridgeOutboundLog(temporaryFolder.newFolder(), MAX_SIZE, MAX_AGE);
+        for (int i = 0; i < 5; i++) {
+            outboundLog.append(publish("topic/" + i, System.currentTimeMillis()));
+        }
+
+        final ImmutableList<PUBLISH> first = outboundLog.next(3);
+        assertEquals(3, first.size());
+        assertEquals("topic/0", first.get(0).getTopic());
+        assertEquals("topic/2", first.get(2).getTopic());
+        assertArrayEquals("payload".getBytes(), first.get(0).getPayload());
+
+        final ImmutableList<PUBLISH> second = outboundLog.next(3);
+        assertEquals(2, second.size());
+        assertEquals("topic/3", second.get(0).getTopic());
+
+        outboundLog.acknowledge(5);
+        assertTrue(outboundLog.isEmpty());
+        assertTrue(outboundLog.next(3).isEmpty());
+        outboundLog.close();
+    }
+
+    @Test
+    public void test_rewind_handsOutUnacknowledgedMessagesAgain() throws Exception {
+        final BridgeOutboundLog outboundLog = new BridgeOutboundLog(temporaryFolder.newFolder(), MAX_SIZE, MAX_AGE);
+        for (int i = 0; i < 3; i++) {
+            outboundLog.append(publish("topic/" + i, System.currentTimeMillis()));
+        }
+        outboundLog.next(3);
+        outboundLog.acknowledge(1);
+        outboundLog.rewind();
+
+        final ImmutableList<PUBLISH> again = outboundLog.next(10);
+        assertEquals(2, again.size());
+        assertEquals("topic/1", again.get(0).getTopic());
+        outboundLog.close();
+    }
+
+    @Test
+    public void test_reopen_restoresUnacknowledgedMessages() throws Exception {
+        final File directory = temporaryFolder.newFolder();
+        final BridgeOutboundLog outboundLog = new BridgeOutboundLog(directory, MAX_SIZE, MAX_AGE);
+        for (int i = 0; i < 10; i++) {
+            outboundLog.append(publish("topic/" + i, System.currentTimeMillis()));
+        }
+        outboundLog.next(4);
+        outboundLog.acknowledge(4);
+        outboundLog.next(2);
+        outboundLog.close();
+
+        final BridgeOutboundLog reopened = new BridgeOutboundLog(directory, MAX_SIZE, MAX_AGE);
+        assertEquals(6, reopened.size());
+        assertEquals("topic/4", reopened.next(1).get(0).getTopic());
+        reopened.close();
+    }
+
+    @Test
+    public void test_append_dropsMessagesOlderThanMaxAge() throws Exception {
+        final BridgeOutboundLog outboundLog = new BridgeOutboundLog(temporaryFolder.newFolder(), MAX_SIZE, 1000);
+        outboundLog.append(publish("old", System.currentTimeMillis() - 5000));
+        outboundLog.append(publish("new", System.currentTimeMillis()));
+
+        assertEquals(1, outboundLog.size());
+        assertEquals(1, outboundLog.getDroppedCount());
+        assertEquals("new", outboundLog.next(10).get(0).getTopic());
+        outboundLog.close();
+    }
+
+    @Test
+    public void test_append_dropsOldestMessagesWhenMaxSizeIsExceeded() throws Exception {
+        final long maxSize = 4 * BridgeOutboundLog.MIN_SEGMENT_SIZE;
+        final BridgeOutboundLog outboundLog = new BridgeOutboundLog(temporaryFolder.newFolder(), maxSize, MAX_AGE);
+        final byte[] payload = new byte[1024];
+        for (int i = 0; i < 1000; i++) {
+            outboundLog.append(new PUBLISHFactory.Mqtt5Builder().fromPublish(publish("topic/" + i,
+                    System.currentTimeMillis())).withPayload(payload).build());
+        }
+
+        assertTrue(outboundLog.getDroppedCount() > 0);
+        assertEquals(1000, outboundLog.size() + outboundLog.getDroppedCount());
+        // the newest messages are kept
+        final ImmutableList<PUBLISH> remaining = outboundLog.next(Integer.MAX_VALUE);
+        assertEquals("topic/999", remaining.get(remaining.size() - 1).getTopic());
+        outboundLog.close();
+    }
+
+    private static PUBLISH publish(final String topic, final long timestamp) {
+        return new PUBLISHFactory.Mqtt5Builder().withHivemqId("hivemqId")
+                .withTopic(topic)
+                .withQoS(QoS.AT_LEAST_ONCE)
+                .withOnwardQos(QoS.AT_LEAST_ONCE)
+                .withPayload("payload".getBytes())
+                .withTimestamp(timestamp)
+                .build();
+    }
+}
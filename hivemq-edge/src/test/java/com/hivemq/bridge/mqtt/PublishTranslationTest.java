@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.mqtt;
+
+import com.hivemq.bridge.config.CustomUserProperty;
+import com.hivemq.bridge.config.MqttBridge;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PublishTranslationTest {
+
+    @Test
+    void whenDefaultDestination_thenTopicIsKept() {
+        final PublishTranslation translation = translation(false, "{#}", List.of(), List.of());
+
+        final String topic = "a/b/c";
+        assertSame(topic, translation.translateTopic(topic));
+    }
+
+    @Test
+    void whenDestinationWithoutPlaceholders_thenBridgeNameIsResolvedOnce() {
+        final PublishTranslation translation = translation(false, "edge/${bridge.name}/all", List.of(), List.of());
+
+        assertEquals("edge/testbridge/all", translation.translateTopic("a/b"));
+        assertSame(translation.translateTopic("a/b"), translation.translateTopic("c/d"));
+    }
+
+    @Test
+    void whenDestinationWithPlaceholders_thenTopicIsRewritten() {
+        final PublishTranslation translation =
+                translation(false, "${bridge.name}/{2}/suffix", List.of(), List.of());
+
+        assertEquals("testbridge/b/suffix", translation.translateTopic("a/b/c"));
+    }
+
+    @Test
+    void whenExcludeMatches_thenTopicIsExcluded() {
+        final PublishTranslation translation = translation(false, null, List.of("a/+/c"), List.of());
+
+        assertTrue(translation.isExcluded("a/b/c"));
+        assertFalse(translation.isExcluded("a/b/d"));
+    }
+
+    @Test
+    void whenNothingToAdd_thenUserPropertiesAreShared() {
+        final PublishTranslation translation = translation(false, null, List.of(), List.of());
+        final Mqtt5UserProperties original = Mqtt5UserProperties.of(MqttUserProperty.of("key", "value"));
+
+        assertSame(original, translation.translateUserProperties(original, 0));
+    }
+
+    @Test
+    void whenLoopPrevention_thenHopCountIsReplacedAndCustomPropertiesAdded() {
+        final PublishTranslation translation =
+                translation(true, null, List.of(), List.of(CustomUserProperty.of("origin", "edge")));
+        final Mqtt5UserProperties original = Mqtt5UserProperties.of(MqttUserProperty.of("key", "value"),
+                MqttUserProperty.of("hmq-bridge-hop-count", "1"));
+
+        assertEquals(1, translation.extractHopCount(original));
+        final Mqtt5UserProperties translated = translation.translateUserProperties(original, 1);
+        assertEquals(List.of(MqttUserProperty.of("key", "value"),
+                MqttUserProperty.of("origin", "edge"),
+                MqttUserProperty.of("hmq-bridge-hop-count", "2")), translated.asList());
+        assertSame(original.asList().get(0), translated.asList().get(0));
+    }
+
+    @Test
+    void whenNoOriginalUserProperties_thenPrecomputedPropertiesAreUsed() {
+        final PublishTranslation translation =
+                translation(true, null, List.of(), List.of(CustomUserProperty.of("origin", "edge")));
+
+        final Mqtt5UserProperties first =
+                translation.translateUserProperties(Mqtt5UserProperties.NO_USER_PROPERTIES, 0);
+        assertSame(first, translation.translateUserProperties(Mqtt5UserProperties.NO_USER_PROPERTIES, 0));
+        assertEquals(List.of(MqttUserProperty.of("origin", "edge"), MqttUserProperty.of("hmq-bridge-hop-count", "1")),
+                first.asList());
+    }
+
+    @Test
+    void whenQoSAboveMaximum_thenQoSIsLimited() {
+        final PublishTranslation translation =
+                new PublishTranslation(bridge(false), null, List.of(), List.of(), false, 1);
+
+        assertEquals(QoS.AT_LEAST_ONCE, translation.translateQoS(2));
+        assertEquals(QoS.AT_MOST_ONCE, translation.translateQoS(0));
+    }
+
+    @Test
+    void whenClientPublish_thenPayloadIsShared() {
+        final byte[] payload = "payload".getBytes();
+        final byte[] correlationData = "correlation".getBytes();
+        final Mqtt5Publish mqtt5Publish =
+                Mqtt5Publish.builder().topic("a/b").payload(payload).correlationData(correlationData).build();
+
+        assertSame(payload, PublishTranslation.payloadOf(mqtt5Publish));
+        assertSame(correlationData, PublishTranslation.correlationDataOf(mqtt5Publish));
+    }
+
+    private static PublishTranslation translation(
+            final boolean loopPrevention,
+            final String destination,
+            final List<String> excludes,
+            final List<CustomUserProperty> customUserProperties) {
+        return new PublishTranslation(bridge(loopPrevention), destination, excludes, customUserProperties, false, 2);
+    }
+
+    private static MqttBridge bridge(final boolean loopPrevention) {
+        return new MqttBridge.Builder().withId("testbridge")
+                .withHost("localhost")
+                .withClientId("client")
+                .withLoopPreventionEnabled(loopPrevention)
+                .withLoopPreventionHopCount(2)
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec.decoder.mqtt;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.metrics.HiveMQMetrics;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public class TopicInternerTest {
+
+    private MetricRegistry metricRegistry;
+    private TopicInterner topicInterner;
+
+    @Before
+    public void setUp() {
+        metricRegistry = new MetricRegistry();
+        topicInterner = new TopicInterner(metricRegistry, true, 16, 64);
+    }
+
+    @Test
+    public void test_repeated_topic_same_instance() {
+        final ByteBuf first = buffer("sensors/temperature", "rest");
+        final String topic = topicInterner.getValidatedTopic(first, 19, true);
+        assertEquals("sensors/temperature", topic);
+        assertEquals(19, first.readerIndex());
+
+        final ByteBuf second = Unpooled.directBuffer().writeBytes("sensors/temperature".getBytes(UTF_8));
+        assertSame(topic, topicInterner.getValidatedTopic(second, 19, true));
+        assertEquals(19, second.readerIndex());
+
+        assertEquals(1, metricRegistry.counter(HiveMQMetrics.TOPIC_INTERNER_HIT_COUNT.name()).getCount());
+        assertEquals(1, metricRegistry.counter(HiveMQMetrics.TOPIC_INTERNER_MISS_COUNT.name()).getCount());
+        final Gauge<?> hitRate = metricRegistry.getGauges().get(HiveMQMetrics.TOPIC_INTERNER_HIT_RATE.name());
+        assertEquals(0.5, (Double) hitRate.getValue(), 0.0001);
+    }
+
+    @Test
+    public void test_topic_read_at_reader_index() {
+        final ByteBuf buf = buffer("xxtopic/a", "");
+        buf.skipBytes(2);
+        assertEquals("topic/a", topicInterner.getValidatedTopic(buf, 7, true));
+        assertEquals("topic/b", topicInterner.getValidatedTopic(buffer("topic/b", ""), 7, true));
+        assertEquals("topic", topicInterner.getValidatedTopic(buffer("topic/a", ""), 5, true));
+    }
+
+    @Test
+    public void test_bounded_slots_are_replaced() {
+        final TopicInterner single = new TopicInterner(new MetricRegistry(), true, 1, 64);
+        final String a = single.getValidatedTopic(buffer("a", ""), 1, true);
+        assertSame(a, single.getValidatedTopic(buffer("a", ""), 1, true));
+        assertEquals("b", single.getValidatedTopic(buffer("b", ""), 1, true));
+        final String a2 = single.getValidatedTopic(buffer("a", ""), 1, true);
+        assertEquals("a", a2);
+        assertNotSame(a, a2);
+    }
+
+    @Test
+    public void test_invalid_topic_not_cached() {
+        final ByteBuf buf = Unpooled.buffer().writeBytes(new byte[]{'a', 0, 'b'});
+        assertNull(topicInterner.getValidatedTopic(buf, 3, true));
+        assertEquals(0, buf.readerIndex());
+        assertNull(topicInterner.getValidatedTopic(buf, 3, true));
+        assertEquals(0, metricRegistry.counter(HiveMQMetrics.TOPIC_INTERNER_HIT_COUNT.name()).getCount());
+    }
+
+    @Test
+    public void test_control_characters_validated_if_cached_without_validation() {
+        final byte[] topic = {'a', 0x01, 'b'};
+        assertNotNull(topicInterner.getValidatedTopic(Unpooled.wrappedBuffer(topic), 3, false));
+        assertNotNull(topicInterner.getValidatedTopic(Unpooled.wrappedBuffer(topic), 3, false));
+        assertNull(topicInterner.getValidatedTopic(Unpooled.wrappedBuffer(topic), 3, true));
+    }
+
+    @Test
+    public void test_long_topic_and_short_buffer_not_cached() {
+        final String longTopic = "a".repeat(65);
+        final String first = topicInterner.getValidatedTopic(buffer(longTopic, ""), 65, true);
+        assertEquals(longTopic, first);
+        assertNotSame(first, topicInterner.getValidatedTopic(buffer(longTopic, ""), 65, true));
+
+        assertNull(topicInterner.getValidatedTopic(buffer("abc", ""), 4, true));
+        assertEquals(0, metricRegistry.counter(HiveMQMetrics.TOPIC_INTERNER_MISS_COUNT.name()).getCount());
+    }
+
+    @Test
+    public void test_disabled() {
+        final TopicInterner disabled = new TopicInterner(new MetricRegistry(), false, 16, 64);
+        final String first = disabled.getValidatedTopic(buffer("topic", ""), 5, true);
+        assertEquals("topic", first);
+        assertNotSame(first, disabled.getValidatedTopic(buffer("topic", ""), 5, true));
+    }
+
+    @Test
+    public void test_cache_per_thread() throws Exception {
+        final String topic = topicInterner.getValidatedTopic(buffer("topic", ""), 5, true);
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            final String other =
+                    executorService.submit(() -> topicInterner.getValidatedTopic(buffer("topic", ""), 5, true)).get();
+            assertEquals(topic, other);
+            assertNotSame(topic, other);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static ByteBuf buffer(final String topic, final String rest) {
+        return Unpooled.buffer().writeBytes(topic.getBytes(UTF_8)).writeBytes(rest.getBytes(UTF_8));
+    }
+}
@@ -138,6 +138,40 @@ public class Mqtt5PublishEncoderTest extends AbstractMqtt5EncoderTest {
         encodeTestBufferSize(expected, publish);
     }
 
+    @Test
+    public void test_encode_payload_buffer() {
+        final byte[] expected = {
+                // fixed header
+                //   type, flags
+                0b0011_0000,
+                //   remaining length
+                15,
+                // variable header
+                //   topic name
+                0, 5, 't', 'o', 'p', 'i', 'c',
+                //   properties
+                2,
+                //     payload format indicator
+                0x01, 0,
+                // payload
+                1, 2, 3, 4, 5
+        };
+
+        final PUBLISH heapPublish =
+                TestMessageUtil.createMqtt5Publish(hiveMQId.get(), "topic", new byte[]{1, 2, 3, 4, 5},
+                        QoS.AT_MOST_ONCE, QoS.AT_MOST_ONCE, false, MqttConfigurationDefaults.MAX_EXPIRY_INTERVAL_DEFAULT,
+                        Mqtt5PayloadFormatIndicator.UNSPECIFIED, null, null, null, NO_USER_PROPERTIES,
+                        -1, false, true, null);
+        final ByteBuf payloadBuffer = Unpooled.directBuffer().writeBytes(new byte[]{1, 2, 3, 4, 5});
+        final PUBLISH publish = new PUBLISH(heapPublish, payloadBuffer) {
+        };
+
+        encodeTestBufferSize(expected, publish);
+        assertEquals(5, payloadBuffer.readableBytes());
+        publish.releasePayloadBuffer();
+        assertEquals(0, payloadBuffer.refCnt());
+    }
+
     @Test
     public void test_encode_minimum() {
         final byte[] expected = {
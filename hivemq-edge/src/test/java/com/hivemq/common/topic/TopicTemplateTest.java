@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.common.topic;
+
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopicTemplateTest {
+
+    private static final List<String> DESTINATIONS = List.of("replacement/of/level",
+            "prefix/{2}/NEU/{4}/allData/{3}",
+            "prefix/{2-3}/NEU/{1-2}/{4-4}/allData/{1-4}",
+            "prefix/{#}/NEU/{#}/allData/",
+            "prefix/{2-#}/NEU/{4-#}/allData/{1-#}",
+            "prefix/{5-#}/NEU/{6-#}/allData/{7-#}",
+            "prefix/{3-2}/NEU/{2-1}/{4-1}/allData",
+            "prefix/{5-6}/NEU/{6-7}/{7-10}/allData",
+            "prefix/{2-6}/NEU/{1-7}/allData/{4-10}",
+            "prefix/{5}/NEU/{6}/allData/{7}",
+            "a{1}b{1}c/x{2}/{9}y",
+            "replacement/\\{2}/of/level",
+            "replacement/$\\{bridge.name}/of/level",
+            "replacement/${bridge.name}/of/${unknown}",
+            "${bridge.name}-{1}/{2-#}",
+            "prefix/${level}/suffix",
+            "prefix/$ENV{TopicTemplateTest}/{1}",
+            "prefix/$ENV{TopicTemplateTestMissing}/{1}",
+            "prefix/{unknown}/{1}",
+            "{#}",
+            "trailing/");
+
+    private static final List<String> TOPICS =
+            List.of("site/cell/department/machine", "a", "a/b", "a//c", "a/b/", "/leading/slash");
+
+    @Test
+    void compiledTemplate_sameAsInterpreter() {
+        System.setProperty("TopicTemplateTest", "env-value");
+        final List<Map<String, String>> tokenMaps =
+                List.of(Map.of(), Map.of("bridge.name", "test-bridge", "level", "{2}"));
+        for (final String destination : DESTINATIONS) {
+            final TopicTemplate template = TopicTemplate.compile(destination, Map.of());
+            for (final String topic : TOPICS) {
+                for (final Map<String, String> tokens : tokenMaps) {
+                    final MqttTopic inTopic = MqttTopic.of(topic);
+                    assertEquals(interpret(inTopic, destination, tokens),
+                            apply(template, inTopic, tokens),
+                            destination + " applied to " + topic + " with " + tokens);
+                }
+            }
+        }
+    }
+
+    @Test
+    void constantTokens_replacedWhileCompiling() {
+        final TopicTemplate template =
+                TopicTemplate.compile("edge/${bridge.name}/all", Map.of("bridge.name", "test-bridge"));
+
+        assertEquals("edge/test-bridge/all", template.getLiteral());
+        assertSame(template.apply("a/b", Map.of()), template.apply("c/d", Map.of()));
+    }
+
+    @Test
+    void wholeTopic_isIdentity() {
+        final TopicTemplate template = TopicTemplate.compile("{#}", Map.of());
+        final MqttTopic topic = MqttTopic.of("a/b");
+
+        assertTrue(template.isIdentity());
+        assertSame(topic, template.apply(topic, Map.of()));
+    }
+
+    @Test
+    void placeholders_noLiteral() {
+        assertNull(TopicTemplate.compile("prefix/{1}", Map.of()).getLiteral());
+        assertNull(TopicTemplate.compile("prefix/${token}", Map.of()).getLiteral());
+    }
+
+    @Test
+    void compile_cachesRecentTemplatesAfterManyTopics() {
+        for (int i = 0; i < 5000; i++) {
+            TopicFilterProcessor.compile("topic/" + i + "/{1}");
+        }
+
+        final TopicTemplate template = TopicFilterProcessor.compile("recent/{1}");
+        assertSame(template, TopicFilterProcessor.compile("recent/{1}"));
+    }
+
+    @Test
+    void replaceTokens_keepsUnknownTokens() {
+        assertEquals("a-b-${c}-${}",
+                TopicTemplate.replaceTokens("${a}-b-${c}-${}", Map.of("a", "a", "c-", "x")));
+    }
+
+    private static String interpret(
+            final MqttTopic topic, final String destination, final Map<String, String> tokens) {
+        try {
+            return TopicFilterProcessor.interpret(topic, destination, tokens).toString();
+        } catch (final RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    private static String apply(final TopicTemplate template, final MqttTopic topic, final Map<String, String> tokens) {
+        try {
+            return template.apply(topic, tokens).toString();
+        } catch (final RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+}
@@ -19,6 +19,7 @@ import com.hivemq.configuration.info.SystemInformation;
 import com.hivemq.configuration.info.SystemInformationImpl;
 import com.hivemq.configuration.service.ApiConfigurationService;
 import com.hivemq.configuration.service.BridgeConfigurationService;
+import com.hivemq.configuration.service.DataGovernanceConfigurationService;
 import com.hivemq.configuration.service.DynamicConfigurationService;
 import com.hivemq.configuration.service.MqttConfigurationService;
 import com.hivemq.configuration.service.MqttsnConfigurationService;
@@ -30,6 +31,7 @@ import com.hivemq.configuration.service.UnsConfigurationService;
 import com.hivemq.configuration.service.UsageTrackingConfigurationService;
 import com.hivemq.configuration.service.impl.ApiConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.BridgeConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.DataGovernanceConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.GatewayConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.MqttConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.MqttsnConfigurationServiceImpl;
@@ -65,6 +67,7 @@ public class AbstractConfigurationTest {
     BridgeConfigurationService bridgeConfigurationService;
     ApiConfigurationService apiConfigurationService;
     UnsConfigurationService unsConfigurationService;
+    DataGovernanceConfigurationService dataGovernanceConfigurationService;
     DynamicConfigurationService dynamicConfigurationService;
     UsageTrackingConfigurationService usageTrackingConfigurationService;
     ProtocolAdapterConfigurationService protocolAdapterConfigurationService;
@@ -84,6 +87,7 @@ public class AbstractConfigurationTest {
         bridgeConfigurationService = new BridgeConfigurationServiceImpl();
         apiConfigurationService = new ApiConfigurationServiceImpl();
         unsConfigurationService = new UnsConfigurationServiceImpl();
+        dataGovernanceConfigurationService = new DataGovernanceConfigurationServiceImpl();
         dynamicConfigurationService = new GatewayConfigurationServiceImpl();
         usageTrackingConfigurationService = new UsageTrackingConfigurationServiceImpl();
         protocolAdapterConfigurationService = new ProtocolAdapterConfigurationServiceImpl();
@@ -100,6 +104,7 @@ public class AbstractConfigurationTest {
                 new BridgeConfigurator(bridgeConfigurationService),
                 new ApiConfigurator(apiConfigurationService),
                 new UnsConfigurator(unsConfigurationService),
+                new DataGovernanceConfigurator(dataGovernanceConfigurationService),
                 new DynamicConfigConfigurator(dynamicConfigurationService),
                 new UsageTrackingConfigurator(usageTrackingConfigurationService),
                 new ProtocolAdapterConfigurator(protocolAdapterConfigurationService));
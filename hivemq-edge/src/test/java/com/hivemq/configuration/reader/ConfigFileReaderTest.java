@@ -55,6 +55,7 @@ public class ConfigFileReaderTest {
                 mock(BridgeConfigurator.class),
                 mock(ApiConfigurator.class),
                 mock(UnsConfigurator.class),
+                mock(DataGovernanceConfigurator.class),
                 mock(DynamicConfigConfigurator.class),
                 mock(UsageTrackingConfigurator.class),
                 mock(ProtocolAdapterConfigurator.class));
@@ -78,6 +79,7 @@ public class ConfigFileReaderTest {
                 mock(BridgeConfigurator.class),
                 mock(ApiConfigurator.class),
                 mock(UnsConfigurator.class),
+                mock(DataGovernanceConfigurator.class),
                 mock(DynamicConfigConfigurator.class),
                 mock(UsageTrackingConfigurator.class),
                 mock(ProtocolAdapterConfigurator.class));
@@ -101,6 +103,7 @@ public class ConfigFileReaderTest {
                 mock(BridgeConfigurator.class),
                 mock(ApiConfigurator.class),
                 mock(UnsConfigurator.class),
+                mock(DataGovernanceConfigurator.class),
                 mock(DynamicConfigConfigurator.class),
                 mock(UsageTrackingConfigurator.class),
                 mock(ProtocolAdapterConfigurator.class));
@@ -142,6 +145,7 @@ public class ConfigFileReaderTest {
                 mock(BridgeConfigurator.class),
                 mock(ApiConfigurator.class),
                 mock(UnsConfigurator.class),
+                mock(DataGovernanceConfigurator.class),
                 mock(DynamicConfigConfigurator.class),
                 mock(UsageTrackingConfigurator.class),
                 mock(ProtocolAdapterConfigurator.class));
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.configuration.reader;
+
+import com.google.common.io.Files;
+import com.hivemq.datagov.config.DataGovernancePolicyConfig;
+import com.hivemq.exceptions.UnrecoverableException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class DataGovernanceConfiguratorTest extends AbstractConfigurationTest {
+
+    @Test
+    public void test_policies_xml() throws IOException {
+        final String contents = "" +
+                "<hivemq>\n" +
+                "<data-governance>\n" +
+                "    <policies>\n" +
+                "        <policy>\n" +
+                "            <id>rewrite</id>\n" +
+                "            <type>topic-rewrite</type>\n" +
+                "            <topic-filter>a/#</topic-filter>\n" +
+                "            <destination>site/{#}</destination>\n" +
+                "        </policy>\n" +
+                "        <policy>\n" +
+                "            <id>limit</id>\n" +
+                "            <type>rate-limit</type>\n" +
+                "            <enabled>false</enabled>\n" +
+                "            <messages-per-second>10.5</messages-per-second>\n" +
+                "        </policy>\n" +
+                "        <policy>\n" +
+                "            <id>filter</id>\n" +
+                "            <type>field-filter</type>\n" +
+                "            <topic-filter>site/#</topic-filter>\n" +
+                "            <fields>\n" +
+                "                <field>secret</field>\n" +
+                "            </fields>\n" +
+                "            <field-filter-mode>exclude</field-filter-mode>\n" +
+                "        </policy>\n" +
+                "        <policy>\n" +
+                "            <id>schema</id>\n" +
+                "            <type>schema</type>\n" +
+                "            <schema>{\"type\":\"object\"}</schema>\n" +
+                "        </policy>\n" +
+                "    </policies>\n" +
+                "</data-governance>\n" +
+                "</hivemq>";
+
+        Files.write(contents.getBytes(UTF_8), xmlFile);
+
+        reader.applyConfig();
+
+        final List<DataGovernancePolicyConfig> policies = dataGovernanceConfigurationService.getPolicies();
+        assertEquals(4, policies.size());
+
+        assertEquals("rewrite", policies.get(0).getId());
+        assertEquals(DataGovernancePolicyConfig.Type.TOPIC_REWRITE, policies.get(0).getType());
+        assertEquals("a/#", policies.get(0).getTopicFilter());
+        assertEquals("site/{#}", policies.get(0).getDestination());
+        assertTrue(policies.get(0).isEnabled());
+
+        assertEquals(DataGovernancePolicyConfig.Type.RATE_LIMIT, policies.get(1).getType());
+        assertEquals("#", policies.get(1).getTopicFilter());
+        assertEquals(10.5, policies.get(1).getMessagesPerSecond(), 0);
+        assertFalse(policies.get(1).isEnabled());
+
+        assertEquals(DataGovernancePolicyConfig.Type.FIELD_FILTER, policies.get(2).getType());
+        assertEquals(Set.of("secret"), policies.get(2).getFields());
+        assertFalse(policies.get(2).isIncludeFields());
+
+        assertEquals(DataGovernancePolicyConfig.Type.SCHEMA, policies.get(3).getType());
+        assertEquals("{\"type\":\"object\"}", policies.get(3).getSchema());
+    }
+
+    @Test
+    public void test_no_policies_xml() throws IOException {
+        final String contents = "<hivemq></hivemq>";
+
+        Files.write(contents.getBytes(UTF_8), xmlFile);
+
+        reader.applyConfig();
+
+        assertTrue(dataGovernanceConfigurationService.getPolicies().isEmpty());
+    }
+
+    @Test
+    public void test_duplicate_policy_id_xml() throws IOException {
+        final String contents = "" +
+                "<hivemq>\n" +
+                "<data-governance>\n" +
+                "    <policies>\n" +
+                "        <policy>\n" +
+                "            <id>drop</id>\n" +
+                "            <type>drop</type>\n" +
+                "        </policy>\n" +
+                "        <policy>\n" +
+                "            <id>drop</id>\n" +
+                "            <type>drop</type>\n" +
+                "        </policy>\n" +
+                "    </policies>\n" +
+                "</data-governance>\n" +
+                "</hivemq>";
+
+        Files.write(contents.getBytes(UTF_8), xmlFile);
+
+        assertThrows(UnrecoverableException.class, () -> reader.applyConfig());
+    }
+
+    @Test
+    public void test_schema_not_json_xml() throws IOException {
+        final String contents = "" +
+                "<hivemq>\n" +
+                "<data-governance>\n" +
+                "    <policies>\n" +
+                "        <policy>\n" +
+                "            <id>schema</id>\n" +
+                "            <type>schema</type>\n" +
+                "            <schema>{</schema>\n" +
+                "        </policy>\n" +
+                "    </policies>\n" +
+                "</data-governance>\n" +
+                "</hivemq>";
+
+        Files.write(contents.getBytes(UTF_8), xmlFile);
+
+        assertThrows(UnrecoverableException.class, () -> reader.applyConfig());
+    }
+}
@@ -23,7 +23,9 @@ import org.junit.Test;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 public class MqttConfiguratorTest extends AbstractConfigurationTest {
 
@@ -73,6 +75,7 @@ public class MqttConfiguratorTest extends AbstractConfigurationTest {
                 "<queued-messages> " +
                 "<max-queue-size>100</max-queue-size> " +
                 "<strategy>discard-oldest</strategy> " +
+                "<qos-0-off-heap>true</qos-0-off-heap> " +
                 "</queued-messages> " +
                 "<shared-subscriptions> " +
                 "<enabled>false</enabled> " +
@@ -101,6 +104,7 @@ public class MqttConfiguratorTest extends AbstractConfigurationTest {
         assertEquals(2684, mqttConfigurationService.maxPacketSize());
         assertEquals(MqttConfigurationService.QueuedMessagesStrategy.DISCARD_OLDEST,
                 mqttConfigurationService.getQueuedMessagesStrategy());
+        assertEquals(true, mqttConfigurationService.qos0OffHeapEnabled());
         assertEquals(false, mqttConfigurationService.retainedMessagesEnabled());
         assertEquals(false, mqttConfigurationService.wildcardSubscriptionsEnabled());
         assertEquals(QoS.AT_LEAST_ONCE, mqttConfigurationService.maximumQos());
@@ -113,6 +117,24 @@ public class MqttConfiguratorTest extends AbstractConfigurationTest {
 
     }
 
+    @Test
+    public void test_topic_tree_copy_on_write_xml() throws Exception {
+        assertFalse(mqttConfigurationService.topicTreeCopyOnWriteEnabled());
+
+        final String contents = "<hivemq>" +
+                "<mqtt> " +
+                "<topic-tree> " +
+                "<copy-on-write>true</copy-on-write> " +
+                "</topic-tree> " +
+                "</mqtt> " +
+                "</hivemq>";
+        Files.write(contents.getBytes(UTF_8), xmlFile);
+
+        reader.applyConfig();
+
+        assertTrue(mqttConfigurationService.topicTreeCopyOnWriteEnabled());
+    }
+
     @Test
     public void test_topic_alias_min_values() throws Exception {
 
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.configuration.reader;
+
+import com.google.common.io.Files;
+import com.hivemq.configuration.service.PersistenceConfigurationService;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+@SuppressWarnings("UnstableApiUsage")
+public class PersistenceConfiguratorTest extends AbstractConfigurationTest {
+
+    @Test
+    public void test_persistence_xml() throws Exception {
+
+        final String contents =
+                "<hivemq>" +
+                        "<persistence>" +
+                        "<mode>file</mode>" +
+                        "<bucket-count>16</bucket-count>" +
+                        "<expected-clients>50</expected-clients>" +
+                        "</persistence>" +
+                        "</hivemq>";
+        Files.write(contents.getBytes(UTF_8), xmlFile);
+
+        reader.applyConfig();
+
+        assertEquals(PersistenceConfigurationService.PersistenceMode.FILE, persistenceConfigurationService.getMode());
+        assertEquals(16, persistenceConfigurationService.getBucketCount());
+        assertEquals(50, persistenceConfigurationService.getExpectedClients());
+    }
+
+    @Test
+    public void test_bucket_count_is_calculated_by_default() throws Exception {
+
+        final String contents = "<hivemq></hivemq>";
+        Files.write(contents.getBytes(UTF_8), xmlFile);
+
+        reader.applyConfig();
+
+        assertEquals(PersistenceConfigurationService.EXPECTED_CLIENTS_DEFAULT,
+                persistenceConfigurationService.getExpectedClients());
+        assertEquals(PersistenceConfigurator.calculateBucketCount(Runtime.getRuntime().availableProcessors(),
+                        PersistenceConfigurationService.EXPECTED_CLIENTS_DEFAULT),
+                persistenceConfigurationService.getBucketCount());
+    }
+
+    @Test
+    public void test_calculate_bucket_count_limited_by_processors() {
+        assertEquals(1, PersistenceConfigurator.calculateBucketCount(1, 1000));
+        assertEquals(4, PersistenceConfigurator.calculateBucketCount(4, 1000));
+        assertEquals(8, PersistenceConfigurator.calculateBucketCount(6, 1000));
+    }
+
+    @Test
+    public void test_calculate_bucket_count_limited_by_clients() {
+        assertEquals(1, PersistenceConfigurator.calculateBucketCount(16, 1));
+        assertEquals(1, PersistenceConfigurator.calculateBucketCount(16, PersistenceConfigurator.CLIENTS_PER_BUCKET));
+        assertEquals(2, PersistenceConfigurator.calculateBucketCount(16, PersistenceConfigurator.CLIENTS_PER_BUCKET + 1));
+        assertEquals(8, PersistenceConfigurator.calculateBucketCount(16, 60));
+    }
+
+    @Test
+    public void test_calculate_bucket_count_maximum() {
+        assertEquals(PersistenceConfigurationService.BUCKET_COUNT_MAXIMUM,
+                PersistenceConfigurator.calculateBucketCount(512, 1_000_000));
+    }
+}
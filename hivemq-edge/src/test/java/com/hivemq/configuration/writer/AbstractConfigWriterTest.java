@@ -19,6 +19,7 @@ import com.hivemq.configuration.reader.ApiConfigurator;
 import com.hivemq.configuration.reader.BridgeConfigurator;
 import com.hivemq.configuration.reader.ConfigFileReaderWriter;
 import com.hivemq.configuration.reader.ConfigurationFile;
+import com.hivemq.configuration.reader.DataGovernanceConfigurator;
 import com.hivemq.configuration.reader.DynamicConfigConfigurator;
 import com.hivemq.configuration.reader.ListenerConfigurator;
 import com.hivemq.configuration.reader.MqttConfigurator;
@@ -63,6 +64,7 @@ public abstract class AbstractConfigWriterTest {
                 new BridgeConfigurator(configurationService.bridgeConfiguration()),
                 mock(ApiConfigurator.class),
                 new UnsConfigurator(configurationService.unsConfiguration()),
+                new DataGovernanceConfigurator(configurationService.dataGovernanceConfiguration()),
                 new DynamicConfigConfigurator(configurationService.gatewayConfiguration()),
                 new UsageTrackingConfigurator(configurationService.usageTrackingConfiguration()),
                 new ProtocolAdapterConfigurator(configurationService.protocolAdapterConfigurationService()));
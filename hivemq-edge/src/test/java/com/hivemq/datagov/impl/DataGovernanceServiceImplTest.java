@@ -0,0 +1,335 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.hivemq.configuration.service.DataGovernanceConfigurationService;
+import com.hivemq.configuration.service.impl.DataGovernanceConfigurationServiceImpl;
+import com.hivemq.datagov.DataGovernanceContext;
+import com.hivemq.datagov.config.DataGovernancePolicyConfig;
+import com.hivemq.datagov.model.DataGovernanceData;
+import com.hivemq.datagov.model.DataGovernancePolicy;
+import com.hivemq.datagov.model.DataGovernancePolicyChain;
+import com.hivemq.datagov.model.DataGovernanceResult;
+import com.hivemq.datagov.model.impl.DataGovernanceDataImpl;
+import com.hivemq.datagov.model.impl.DataGovernancePolicyImpl;
+import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.services.InternalPublishService;
+import com.hivemq.uns.UnifiedNamespaceService;
+import com.hivemq.uns.config.ISA95;
+import com.hivemq.uns.config.ISA95Snapshot;
+import org.junit.Before;
+import org.junit.Test;
+import util.TestMessageUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class DataGovernanceServiceImplTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private InternalPublishService internalPublishService;
+    private ExecutorService executorService;
+    private DataGovernancePolicyProviderImpl policyProvider;
+    private DataGovernanceServiceImpl dataGovernanceService;
+
+    @Before
+    public void setUp() {
+        final UnifiedNamespaceService unifiedNamespaceService = mock(UnifiedNamespaceService.class);
+        when(unifiedNamespaceService.getISA95Snapshot()).thenReturn(new ISA95Snapshot(new ISA95.Builder().withEnabled(false)
+                .build()));
+        internalPublishService = mock(InternalPublishService.class);
+        when(internalPublishService.publish(any(PUBLISH.class), any(), anyString())).thenReturn(Futures.immediateFuture(
+                PublishReturnCode.DELIVERED));
+        executorService = mock(ExecutorService.class);
+        policyProvider =
+                new DataGovernancePolicyProviderImpl(new UnifiedNamespaceDataGovernancePolicy(unifiedNamespaceService));
+        dataGovernanceService = new DataGovernanceServiceImpl(new MetricRegistry(),
+                internalPublishService,
+                executorService,
+                policyProvider);
+    }
+
+    @Test
+    public void test_chain_matches_topic_filter_in_order() {
+        final DropDataGovernancePolicy drop = new DropDataGovernancePolicy("drop", "a/+/c");
+        final TopicRewriteDataGovernancePolicy rewrite = new TopicRewriteDataGovernancePolicy("rewrite", "a/#", "x/{#}");
+        policyProvider.addPolicy(drop);
+        policyProvider.addPolicy(rewrite);
+
+        final List<DataGovernancePolicy> policies = policyProvider.getPolicyChain("a/b/c").getPolicies();
+        assertEquals(3, policies.size());
+        assertEquals(UnifiedNamespaceDataGovernancePolicy.ID, policies.get(0).getId());
+        assertSame(drop, policies.get(1));
+        assertSame(rewrite, policies.get(2));
+        assertEquals(List.of(rewrite), policyProvider.getPolicyChain("a/b").getPolicies().subList(1, 2));
+        assertEquals(1, policyProvider.getPolicyChain("b").getPolicies().size());
+    }
+
+    @Test
+    public void test_chain_cached_until_policies_change() {
+        final DataGovernancePolicyChain chain = policyProvider.getPolicyChain("a/b");
+        assertSame(chain, policyProvider.getPolicyChain("a/b"));
+
+        policyProvider.addPolicy(new DropDataGovernancePolicy("drop", "a/b"));
+        final DataGovernancePolicyChain withDrop = policyProvider.getPolicyChain("a/b");
+        assertNotSame(chain, withDrop);
+        assertEquals(2, withDrop.getPolicies().size());
+
+        assertTrue(policyProvider.removePolicy("drop"));
+        assertEquals(1, policyProvider.getPolicyChain("a/b").getPolicies().size());
+    }
+
+    @Test
+    public void test_recent_chain_cached_after_many_topics() {
+        for (int i = 0; i < 20_000; i++) {
+            policyProvider.getPolicyChain("topic/" + i);
+        }
+
+        final DataGovernancePolicyChain chain = policyProvider.getPolicyChain("a/b");
+        assertSame(chain, policyProvider.getPolicyChain("a/b"));
+    }
+
+    @Test
+    public void test_non_blocking_chain_executed_inline() throws Exception {
+        policyProvider.addPolicy(new TopicRewriteDataGovernancePolicy("rewrite", "a/#", "x/{#}"));
+
+        final ListenableFuture<PublishReturnCode> future = dataGovernanceService.applyAndPublish(context("a/b", "{}"));
+
+        assertTrue(future.isDone());
+        assertEquals(PublishReturnCode.DELIVERED, future.get());
+        verifyNoInteractions(executorService);
+    }
+
+    @Test
+    public void test_blocking_chain_executed_on_executor() throws Exception {
+        final AtomicReference<Thread> executingThread = new AtomicReference<>();
+        policyProvider.addPolicy(new DataGovernancePolicyImpl("blocking", "blocking") {
+            @Override
+            public void execute(final DataGovernanceContext context, final DataGovernanceData input) {
+                executingThread.set(Thread.currentThread());
+            }
+
+            @Override
+            public boolean isBlocking() {
+                return true;
+            }
+        });
+        final DataGovernanceContext context = context("a/b", "{}");
+        final ExecutorService executor = java.util.concurrent.Executors.newSingleThreadExecutor();
+        context.setExecutorService(executor);
+        try {
+            assertEquals(DataGovernanceResult.STATUS.SUCCESS, dataGovernanceService.apply(context).get().getStatus());
+            assertNotSame(Thread.currentThread(), executingThread.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test_topic_rewrite() throws Exception {
+        policyProvider.addPolicy(new TopicRewriteDataGovernancePolicy("rewrite", "a/#", "site/{1}/{#}"));
+
+        final DataGovernanceResult result = dataGovernanceService.apply(context("a/b/c", "{}")).get();
+
+        assertEquals("site/a/a/b/c", result.getOutput().getPublish().getTopic());
+    }
+
+    @Test
+    public void test_rewritten_topic_continues_with_chain_of_new_topic() throws Exception {
+        policyProvider.addPolicy(new TopicRewriteDataGovernancePolicy("rewrite", "a/#", "x/{#}"));
+        policyProvider.addPolicy(new DropDataGovernancePolicy("drop", "x/#"));
+
+        final DataGovernanceContext context = context("a/b", "{}");
+        assertEquals(PublishReturnCode.NO_MATCHING_SUBSCRIBERS, dataGovernanceService.applyAndPublish(context).get());
+
+        assertEquals(DataGovernanceResult.STATUS.DROPPED, context.getResult().getStatus());
+        assertEquals("x/a/b", context.getResult().getOutput().getPublish().getTopic());
+        verify(internalPublishService, never()).publish(any(PUBLISH.class), any(), anyString());
+    }
+
+    @Test
+    public void test_policy_runs_once_when_rewritten_topic_matches_again() throws Exception {
+        policyProvider.addPolicy(new TopicRewriteDataGovernancePolicy("rewrite", "a/#", "a/{#}"));
+
+        final DataGovernanceResult result = dataGovernanceService.apply(context("a/b", "{}")).get();
+
+        assertEquals("a/a/b", result.getOutput().getPublish().getTopic());
+    }
+
+    @Test
+    public void test_blocking_policy_makes_all_chains_blocking() {
+        assertFalse(policyProvider.getPolicyChain("a").isBlocking());
+
+        policyProvider.addPolicy(new DataGovernancePolicyImpl("blocking", "blocking", "x/#") {
+            @Override
+            public void execute(final DataGovernanceContext context, final DataGovernanceData input) {
+            }
+
+            @Override
+            public boolean isBlocking() {
+                return true;
+            }
+        });
+
+        // a message of any topic may be rewritten to a topic of the blocking policy
+        assertTrue(policyProvider.getPolicyChain("a").isBlocking());
+    }
+
+    @Test
+    public void test_configured_policies_registered_in_order() {
+        final DataGovernanceConfigurationService configurationService = new DataGovernanceConfigurationServiceImpl();
+        configurationService.setPolicies(List.of(
+                new DataGovernancePolicyConfig.Builder().withId("drop")
+                        .withType(DataGovernancePolicyConfig.Type.DROP)
+                        .withTopicFilter("a/#")
+                        .withEnabled(false)
+                        .build(),
+                new DataGovernancePolicyConfig.Builder().withId("broken")
+                        .withType(DataGovernancePolicyConfig.Type.SCHEMA)
+                        .withTopicFilter("#")
+                        .withSchema("{")
+                        .build(),
+                new DataGovernancePolicyConfig.Builder().withId("filter")
+                        .withType(DataGovernancePolicyConfig.Type.FIELD_FILTER)
+                        .withTopicFilter("a/b")
+                        .withFields(Set.of("secret"))
+                        .withIncludeFields(false)
+                        .build()));
+        final UnifiedNamespaceService unifiedNamespaceService = mock(UnifiedNamespaceService.class);
+
+        final DataGovernancePolicyProviderImpl configuredProvider = new DataGovernancePolicyProviderImpl(
+                new UnifiedNamespaceDataGovernancePolicy(unifiedNamespaceService),
+                configurationService,
+                new DataGovernancePolicyFactory(objectMapper));
+
+        final List<DataGovernancePolicy> policies = configuredProvider.getPolicyChain("a/b").getPolicies();
+        assertEquals(3, policies.size());
+        assertEquals(UnifiedNamespaceDataGovernancePolicy.ID, policies.get(0).getId());
+        assertTrue(policies.get(1) instanceof DropDataGovernancePolicy);
+        assertFalse(policies.get(1).isEnabled());
+        assertTrue(policies.get(2) instanceof FieldFilterDataGovernancePolicy);
+        assertEquals(2, configuredProvider.getPolicyChain("a/c").getPolicies().size());
+    }
+
+    @Test
+    public void test_drop_stops_chain_and_is_not_published() throws Exception {
+        policyProvider.addPolicy(new DropDataGovernancePolicy("drop", "a/#"));
+        policyProvider.addPolicy(new TopicRewriteDataGovernancePolicy("rewrite", "a/#", "x/{#}"));
+
+        final DataGovernanceContext context = context("a/b", "{}");
+        assertEquals(PublishReturnCode.NO_MATCHING_SUBSCRIBERS, dataGovernanceService.applyAndPublish(context).get());
+
+        assertEquals(DataGovernanceResult.STATUS.DROPPED, context.getResult().getStatus());
+        assertEquals("a/b", context.getResult().getOutput().getPublish().getTopic());
+        verify(internalPublishService, never()).publish(any(PUBLISH.class), any(), anyString());
+    }
+
+    @Test
+    public void test_rate_limit_drops_excess() throws Exception {
+        policyProvider.addPolicy(new RateLimitDataGovernancePolicy("rate", "a/#", 0.001));
+
+        assertEquals(DataGovernanceResult.STATUS.SUCCESS,
+                dataGovernanceService.apply(context("a/b", "{}")).get().getStatus());
+        assertEquals(DataGovernanceResult.STATUS.DROPPED,
+                dataGovernanceService.apply(context("a/c", "{}")).get().getStatus());
+        assertEquals(DataGovernanceResult.STATUS.SUCCESS,
+                dataGovernanceService.apply(context("b", "{}")).get().getStatus());
+    }
+
+    @Test
+    public void test_field_filter() throws Exception {
+        policyProvider.addPolicy(FieldFilterDataGovernancePolicy.excluding("exclude", "a", objectMapper, Set.of("secret")));
+        policyProvider.addPolicy(FieldFilterDataGovernancePolicy.including("include", "b", objectMapper, Set.of("value")));
+
+        assertEquals("{\"value\":1}",
+                payload(dataGovernanceService.apply(context("a", "{\"value\":1,\"secret\":2}")).get()));
+        assertEquals("{\"value\":1}",
+                payload(dataGovernanceService.apply(context("b", "{\"value\":1,\"other\":2}")).get()));
+        assertEquals("not json", payload(dataGovernanceService.apply(context("a", "not json")).get()));
+    }
+
+    @Test
+    public void test_schema_check() throws Exception {
+        policyProvider.addPolicy(new SchemaDataGovernancePolicy("schema", "a", objectMapper, objectMapper.readTree(
+                "{\"type\":\"object\",\"required\":[\"value\"],\"properties\":{\"value\":{\"type\":\"number\"}}}")));
+
+        assertEquals(DataGovernanceResult.STATUS.SUCCESS,
+                dataGovernanceService.apply(context("a", "{\"value\":1}")).get().getStatus());
+
+        final DataGovernanceResult invalid = dataGovernanceService.apply(context("a", "{\"value\":\"x\"}")).get();
+        assertEquals(DataGovernanceResult.STATUS.FAILURE, invalid.getStatus());
+        assertTrue(invalid.getErrors().get(0).getMessage().isPresent());
+
+        assertEquals(DataGovernanceResult.STATUS.FAILURE,
+                dataGovernanceService.apply(context("a", "{")).get().getStatus());
+    }
+
+    @Test
+    public void test_batch_keeps_positions_of_dropped_and_failed() throws Exception {
+        when(internalPublishService.publish(anyList(), any(), anyString())).thenReturn(Futures.immediateFuture(List.of(
+                PublishReturnCode.DELIVERED)));
+        policyProvider.addPolicy(new DropDataGovernancePolicy("drop", "drop"));
+        policyProvider.addPolicy(new SchemaDataGovernancePolicy("schema", "fail", objectMapper, objectMapper.readTree(
+                "{\"type\":\"object\"}")));
+
+        final ListenableFuture<List<PublishReturnCode>> future = dataGovernanceService.applyAndPublish(List.of(
+                context("drop", "{}"),
+                context("publish", "{}"),
+                context("fail", "[]")));
+
+        assertTrue(future.isDone());
+        assertEquals(List.of(PublishReturnCode.NO_MATCHING_SUBSCRIBERS,
+                PublishReturnCode.DELIVERED,
+                PublishReturnCode.FAILED), future.get());
+        verifyNoInteractions(executorService);
+    }
+
+    private static DataGovernanceContext context(final String topic, final String payload) {
+        final PUBLISH publish =
+                TestMessageUtil.createMqtt3Publish(topic, payload.getBytes(StandardCharsets.UTF_8), QoS.AT_LEAST_ONCE);
+        return new DataGovernanceContextImpl(new DataGovernanceDataImpl.Builder().withClientId("client")
+                .withPublish(publish)
+                .build());
+    }
+
+    private static String payload(final DataGovernanceResult result) {
+        return new String(result.getOutput().getPublish().getPayload(), StandardCharsets.UTF_8);
+    }
+}
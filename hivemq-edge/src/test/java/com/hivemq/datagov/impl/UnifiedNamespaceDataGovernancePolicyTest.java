@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.impl;
+
+import com.hivemq.configuration.service.ConfigurationService;
+import com.hivemq.configuration.service.impl.UnsConfigurationServiceImpl;
+import com.hivemq.datagov.DataGovernanceContext;
+import com.hivemq.datagov.model.DataGovernanceResult;
+import com.hivemq.datagov.model.impl.DataGoveranceResultImpl;
+import com.hivemq.datagov.model.impl.DataGovernanceDataImpl;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.uns.config.ISA95;
+import com.hivemq.uns.config.ISA95Snapshot;
+import com.hivemq.uns.impl.UnifiedNamespaceServiceImpl;
+import org.junit.Before;
+import org.junit.Test;
+import util.TestMessageUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UnifiedNamespaceDataGovernancePolicyTest {
+
+    private UnsConfigurationServiceImpl unsConfigurationService;
+    private UnifiedNamespaceServiceImpl unifiedNamespaceService;
+    private UnifiedNamespaceDataGovernancePolicy policy;
+
+    @Before
+    public void setUp() {
+        unsConfigurationService = new UnsConfigurationServiceImpl();
+        unsConfigurationService.setISA95(isa95(true, true));
+        final ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.unsConfiguration()).thenReturn(unsConfigurationService);
+        unifiedNamespaceService = new UnifiedNamespaceServiceImpl(configurationService);
+        policy = new UnifiedNamespaceDataGovernancePolicy(unifiedNamespaceService);
+    }
+
+    @Test
+    public void test_snapshot_reused_until_configuration_changes() {
+        final ISA95Snapshot snapshot = unifiedNamespaceService.getISA95Snapshot();
+        assertSame(snapshot, unifiedNamespaceService.getISA95Snapshot());
+        assertEquals("ent/site/line/", snapshot.getTopicPrefix());
+        assertEquals("", snapshot.getTopicReplacements().get(ISA95.AREA));
+
+        unifiedNamespaceService.setISA95(isa95(true, false));
+        assertNotSame(snapshot, unifiedNamespaceService.getISA95Snapshot());
+
+        //-- the configuration service can be updated directly by the config reader
+        final ISA95Snapshot fromService = unifiedNamespaceService.getISA95Snapshot();
+        unsConfigurationService.setISA95(isa95(true, true));
+        assertNotSame(fromService, unifiedNamespaceService.getISA95Snapshot());
+    }
+
+    @Test
+    public void test_prefix_all_topics() {
+        assertEquals("ent/site/line/a/b", rewrite("a/b", Map.of()));
+        assertEquals("ent/site/line//a", rewrite("/a", Map.of()));
+    }
+
+    @Test
+    public void test_tokens_replaced() {
+        unifiedNamespaceService.setISA95(isa95(true, false));
+
+        assertEquals("ent/site/a", rewrite("${enterprise}/${site}/a", Map.of()));
+        assertEquals("ent/x/a", rewrite("${enterprise}/${token}/a", Map.of("token", "x")));
+    }
+
+    @Test
+    public void test_disabled_keeps_topic() {
+        unifiedNamespaceService.setISA95(isa95(false, true));
+
+        assertEquals("a/b", rewrite("a/b", Map.of()));
+        assertEquals("x/b", rewrite("${token}/b", Map.of("token", "x")));
+    }
+
+    @Test
+    public void test_memoized_rewrite_follows_configuration() {
+        assertEquals("ent/site/line/a", rewrite("a", Map.of()));
+        assertEquals("ent/site/line/a", rewrite("a", Map.of()));
+
+        unifiedNamespaceService.setISA95(isa95(true, false));
+        assertEquals("a", rewrite("a", Map.of()));
+    }
+
+    @Test
+    public void test_memoized_rewrite_per_tokens() {
+        unifiedNamespaceService.setISA95(isa95(true, false));
+
+        assertEquals("ent/x/a", rewrite("${enterprise}/${token}/a", Map.of("token", "x")));
+        assertEquals("ent/y/a", rewrite("${enterprise}/${token}/a", Map.of("token", "y")));
+        assertEquals("ent/x/a", rewrite("${enterprise}/${token}/a", new HashMap<>(Map.of("token", "x"))));
+        assertEquals("ent/y/b", rewrite("${enterprise}/${token}/b", Map.of("token", "y")));
+    }
+
+    private String rewrite(final String topic, final Map<String, String> tokens) {
+        final PUBLISH publish = TestMessageUtil.createMqtt3Publish(topic, new byte[0], QoS.AT_MOST_ONCE);
+        final DataGovernanceContext context = new DataGovernanceContextImpl(new DataGovernanceDataImpl.Builder()
+                .withClientId("client")
+                .withPublish(publish)
+                .build(), tokens);
+        final DataGovernanceResult result = new DataGoveranceResultImpl(new DataGovernanceDataImpl.Builder(context.getInput()).build());
+        result.setStatus(DataGovernanceResult.STATUS.SUCCESS);
+        context.setResult(result);
+        policy.execute(context, result.getOutput());
+        return result.getOutput().getPublish().getTopic();
+    }
+
+    private static ISA95 isa95(final boolean enabled, final boolean prefixAllTopics) {
+        return new ISA95.Builder().withEnabled(enabled)
+                .withPrefixAllTopics(prefixAllTopics)
+                .withEnterprise("ent")
+                .withSite("site")
+                .withProductionLine("line")
+                .build();
+    }
+}
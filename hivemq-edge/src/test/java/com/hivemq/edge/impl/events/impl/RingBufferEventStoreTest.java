@@ -0,0 +1,117 @@
+package com.hivemq.edge.impl.events.impl;
+
+import com.hivemq.edge.impl.events.RingBufferEventStore;
+import com.hivemq.edge.modules.api.events.model.Event;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferEventStoreTest {
+
+    @Test
+    public void test_read_newest_first() {
+        final RingBufferEventStore store = new RingBufferEventStore(10);
+        assertTrue(store.readEvents(null, null).isEmpty());
+
+        fill(store, 0, 5);
+        assertEquals(List.of("4", "3", "2", "1", "0"), messages(store.readEvents(null, null)));
+        assertEquals(List.of("4", "3"), messages(store.readEvents(null, 2)));
+        assertTrue(store.readEvents(null, 0).isEmpty());
+    }
+
+    @Test
+    public void test_overwrite_oldest() {
+        final RingBufferEventStore store = new RingBufferEventStore(10);
+        fill(store, 0, 25);
+
+        final List<String> messages = messages(store.readEvents(null, null));
+        assertEquals(10, messages.size());
+        assertEquals("24", messages.get(0));
+        assertEquals("15", messages.get(9));
+    }
+
+    @Test
+    public void test_since() {
+        final RingBufferEventStore store = new RingBufferEventStore(10);
+        fill(store, 0, 25);
+
+        // timestamps are 1000 + index
+        assertEquals(List.of("24", "23", "22"), messages(store.readEvents(1021L, null)));
+        assertEquals(List.of("24", "23"), messages(store.readEvents(1021L, 2)));
+        assertTrue(store.readEvents(1024L, null).isEmpty());
+        assertEquals(10, store.readEvents(0L, null).size());
+    }
+
+    @Test
+    public void test_since_with_out_of_order_timestamps() {
+        final RingBufferEventStore store = new RingBufferEventStore(10);
+        store.storeEvent(event("a", 100));
+        store.storeEvent(event("b", 300));
+        store.storeEvent(event("c", 200));
+        store.storeEvent(event("d", 400));
+
+        // c is older than b, it is found by the search but filtered by its own timestamp
+        assertEquals(List.of("d", "b"), messages(store.readEvents(250L, null)));
+        assertEquals(List.of("d", "c", "b"), messages(store.readEvents(150L, null)));
+    }
+
+    @Test(timeout = 10_000)
+    public void test_concurrent_writers() throws Exception {
+        final RingBufferEventStore store = new RingBufferEventStore(1000);
+        final int threads = 4;
+        final int perThread = 250;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * perThread;
+            executorService.execute(() -> {
+                try {
+                    start.await();
+                } catch (final InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    store.storeEvent(event(String.valueOf(offset + i), System.currentTimeMillis()));
+                    store.readEvents(0L, 10);
+                }
+            });
+        }
+        start.countDown();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        final Set<String> messages = new HashSet<>(messages(store.readEvents(null, null)));
+        assertEquals(threads * perThread, messages.size());
+    }
+
+    private static void fill(final RingBufferEventStore store, final int from, final int count) {
+        for (int i = from; i < from + count; i++) {
+            store.storeEvent(event(String.valueOf(i), 1000 + i));
+        }
+    }
+
+    private static Event event(final String message, final long timestamp) {
+        return new Event.Builder().withMessage(message)
+                .withSeverity(Event.SEVERITY.INFO)
+                .withTimestamp(timestamp)
+                .build();
+    }
+
+    private static List<String> messages(final List<Event> events) {
+        final List<String> messages = new ArrayList<>(events.size());
+        for (final Event event : events) {
+            messages.add(event.getMessage());
+        }
+        return messages;
+    }
+}
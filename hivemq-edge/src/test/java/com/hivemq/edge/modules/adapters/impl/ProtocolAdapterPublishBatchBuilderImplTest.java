@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.adapters.impl;
+
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapter;
+import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class ProtocolAdapterPublishBatchBuilderImplTest {
+
+    private final List<List<PUBLISH>> sentBatches = new ArrayList<>();
+    private final ProtocolAdapter adapter = mock(ProtocolAdapter.class);
+    private CompletableFuture<List<PublishReturnCode>> batchResult;
+    private ProtocolAdapterPublishBatchBuilderImpl batchBuilder;
+
+    @Before
+    public void setUp() {
+        batchResult = new CompletableFuture<>();
+        batchBuilder = new ProtocolAdapterPublishBatchBuilderImpl("hivemqId", (publishes, protocolAdapter, contexts) -> {
+            assertSame(adapter, protocolAdapter);
+            assertEquals(publishes.size(), contexts.size());
+            sentBatches.add(publishes);
+            return batchResult;
+        });
+        batchBuilder.withAdapter(adapter);
+    }
+
+    @Test
+    public void test_send_publishesAreSentAsOneBatchInOrder() {
+        final CompletableFuture<PublishReturnCode> first = add("a", "1");
+        final CompletableFuture<PublishReturnCode> second = add("b", "2");
+        assertEquals(2, batchBuilder.size());
+        assertTrue(sentBatches.isEmpty());
+        assertFalse(first.isDone());
+
+        final CompletableFuture<List<PublishReturnCode>> result = batchBuilder.send();
+
+        assertEquals(1, sentBatches.size());
+        assertEquals("a", sentBatches.get(0).get(0).getTopic());
+        assertEquals("b", sentBatches.get(0).get(1).getTopic());
+
+        batchResult.complete(List.of(PublishReturnCode.DELIVERED, PublishReturnCode.NO_MATCHING_SUBSCRIBERS));
+
+        assertEquals(List.of(PublishReturnCode.DELIVERED, PublishReturnCode.NO_MATCHING_SUBSCRIBERS), result.join());
+        assertEquals(PublishReturnCode.DELIVERED, first.join());
+        assertEquals(PublishReturnCode.NO_MATCHING_SUBSCRIBERS, second.join());
+    }
+
+    @Test
+    public void test_send_failedBatch_failsEveryPublish() {
+        final CompletableFuture<PublishReturnCode> publish = add("a", "1");
+        final CompletableFuture<List<PublishReturnCode>> result = batchBuilder.send();
+
+        batchResult.completeExceptionally(new IllegalStateException("failed"));
+
+        assertTrue(result.isCompletedExceptionally());
+        assertTrue(publish.isCompletedExceptionally());
+    }
+
+    @Test
+    public void test_send_emptyBatch_doesNotCallCallback() {
+        final AtomicInteger calls = new AtomicInteger();
+        final ProtocolAdapterPublishBatchBuilderImpl emptyBatch =
+                new ProtocolAdapterPublishBatchBuilderImpl("hivemqId", (publishes, protocolAdapter, contexts) -> {
+                    calls.incrementAndGet();
+                    return CompletableFuture.completedFuture(List.of());
+                });
+        emptyBatch.withAdapter(adapter);
+
+        assertEquals(List.of(), emptyBatch.send().join());
+        assertEquals(0, calls.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_add_afterSend_throws() {
+        batchBuilder.send();
+        batchBuilder.add();
+    }
+
+    private CompletableFuture<PublishReturnCode> add(final String topic, final String payload) {
+        return batchBuilder.add()
+                .withTopic(topic)
+                .withPayload(payload.getBytes(StandardCharsets.UTF_8))
+                .withQoS(1)
+                .send();
+    }
+}
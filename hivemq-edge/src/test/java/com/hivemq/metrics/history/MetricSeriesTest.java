@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.metrics.history;
+
+import com.hivemq.api.model.metrics.DataPoint;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.hivemq.metrics.history.MetricSeries.HOUR;
+import static com.hivemq.metrics.history.MetricSeries.MINUTE;
+import static com.hivemq.metrics.history.MetricSeries.SECOND;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricSeriesTest {
+
+    private static final long START = 100 * HOUR;
+
+    @Test
+    public void test_query_seconds() {
+        final MetricSeries series = new MetricSeries(60, 10, 10);
+        for (int i = 0; i < 30; i++) {
+            series.record(START + i * SECOND + 123, i);
+        }
+
+        final List<DataPoint> dataPoints = series.query(START + 10 * SECOND, START + 14 * SECOND, 0);
+        assertEquals(5, dataPoints.size());
+        assertEquals(START + 10 * SECOND, dataPoints.get(0).getSampleTime().longValue());
+        assertEquals(10L, dataPoints.get(0).getValue().longValue());
+        assertEquals(14L, dataPoints.get(4).getValue().longValue());
+    }
+
+    @Test
+    public void test_query_with_step_returns_last_value_per_step() {
+        final MetricSeries series = new MetricSeries(60, 10, 10);
+        for (int i = 0; i < 30; i++) {
+            series.record(START + i * SECOND, i);
+        }
+
+        final List<DataPoint> dataPoints = series.query(START, START + 29 * SECOND, 10 * SECOND);
+        assertEquals(3, dataPoints.size());
+        assertEquals(START, dataPoints.get(0).getSampleTime().longValue());
+        assertEquals(9L, dataPoints.get(0).getValue().longValue());
+        assertEquals(START + 20 * SECOND, dataPoints.get(2).getSampleTime().longValue());
+        assertEquals(29L, dataPoints.get(2).getValue().longValue());
+    }
+
+    @Test
+    public void test_query_falls_back_to_coarser_resolution() {
+        final MetricSeries series = new MetricSeries(60, 30, 10);
+        // 20 minutes, only the last minute is kept in seconds
+        for (int i = 0; i < 20 * 60; i++) {
+            series.record(START + i * SECOND, i);
+        }
+
+        final List<DataPoint> dataPoints = series.query(START, START + 20 * MINUTE, 0);
+        assertEquals(20, dataPoints.size());
+        assertEquals(START, dataPoints.get(0).getSampleTime().longValue());
+        assertEquals(59L, dataPoints.get(0).getValue().longValue());
+        assertEquals(START + 19 * MINUTE, dataPoints.get(19).getSampleTime().longValue());
+        assertEquals(20 * 60 - 1L, dataPoints.get(19).getValue().longValue());
+
+        // the last minute is still available in seconds
+        assertEquals(60, series.query(START + 19 * MINUTE, START + 20 * MINUTE, 0).size());
+    }
+
+    @Test
+    public void test_memory_is_bounded() {
+        final MetricSeries series = new MetricSeries(60, 30, 10);
+        for (int i = 0; i < 24 * 60 * 60; i += 7) {
+            series.record(START + i * SECOND, i);
+        }
+        assertEquals(60 + 30 + 10, series.size());
+
+        final List<DataPoint> dataPoints = series.query(0, Long.MAX_VALUE, 0);
+        assertEquals(10, dataPoints.size());
+        assertEquals(START + 14 * HOUR, dataPoints.get(0).getSampleTime().longValue());
+    }
+
+    @Test
+    public void test_query_outside_of_range() {
+        final MetricSeries series = new MetricSeries(60, 30, 10);
+        assertTrue(series.query(0, Long.MAX_VALUE, 0).isEmpty());
+
+        series.record(START, 1);
+        assertTrue(series.query(START + SECOND, START + MINUTE, 0).isEmpty());
+        assertTrue(series.query(0, START - 1, 0).isEmpty());
+    }
+}
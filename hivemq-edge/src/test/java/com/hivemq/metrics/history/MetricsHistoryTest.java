@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.metrics.history;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.api.model.metrics.DataPoint;
+import com.hivemq.common.shutdown.ShutdownHooks;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.hivemq.metrics.history.MetricSeries.HOUR;
+import static com.hivemq.metrics.history.MetricSeries.SECOND;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+public class MetricsHistoryTest {
+
+    private static final long START = 100 * HOUR;
+
+    private MetricRegistry metricRegistry;
+    private MetricsHistory metricsHistory;
+
+    @Before
+    public void before() {
+        metricRegistry = new MetricRegistry();
+        metricsHistory = new MetricsHistory(metricRegistry, mock(ShutdownHooks.class));
+    }
+
+    @Test
+    public void test_sample_counters_and_gauges() {
+        final Counter counter = metricRegistry.counter("counter");
+        metricRegistry.register("gauge", (Gauge<Double>) () -> 2.5);
+        metricRegistry.register("text", (Gauge<String>) () -> "text");
+
+        counter.inc(3);
+        metricsHistory.sample(START);
+        counter.inc(4);
+        metricsHistory.sample(START + SECOND);
+
+        final List<DataPoint> counterValues = metricsHistory.query("counter", START, START + SECOND, 0);
+        assertEquals(2, counterValues.size());
+        assertEquals(3L, counterValues.get(0).getValue().longValue());
+        assertEquals(7L, counterValues.get(1).getValue().longValue());
+
+        assertEquals(2L, metricsHistory.query("gauge", START, START + SECOND, 0).get(0).getValue().longValue());
+        assertNull(metricsHistory.query("text", START, START + SECOND, 0));
+        assertNull(metricsHistory.query("unknown", START, START + SECOND, 0));
+    }
+
+    @Test
+    public void test_removed_metrics_are_dropped() {
+        metricRegistry.counter("counter");
+        metricsHistory.sample(START);
+        assertEquals(1, metricsHistory.query("counter", START, START, 0).size());
+
+        metricRegistry.remove("counter");
+        metricsHistory.sample(START + SECOND);
+        assertNull(metricsHistory.query("counter", START, START, 0));
+    }
+}
@@ -24,13 +24,18 @@ import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.publish.PUBLISH;
 import com.hivemq.mqtt.message.publish.PUBLISHFactory;
 import com.hivemq.mqtt.message.publish.PublishWithFuture;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.EventLoop;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import java.util.List;
@@ -136,5 +141,101 @@ public class PublishFlushHandlerTest {
         assertEquals(PublishStatus.NOT_CONNECTED, publishWithFuture2.getFuture().get());
     }
 
+    @Test
+    public void whenPublishIsWritten_thenPayloadBufferIsReleased() {
+        when(channel.isWritable()).thenReturn(true);
+        when(channel.isActive()).thenReturn(true);
+        final ChannelFuture writeFuture = mock(ChannelFuture.class);
+        when(channelHandlerContext.write(any())).thenReturn(writeFuture);
+        publishFlushHandler.handlerAdded(channelHandlerContext);
+        final PublishWithFuture publishWithFuture = createPublishWithPayloadBuffer();
+        final ByteBuf payloadBuffer = publishWithFuture.getPayloadBuffer();
+        publishFlushHandler.sendPublishes(List.of(publishWithFuture));
+
+        final ArgumentCaptor<GenericFutureListener<Future<? super Void>>> listeners =
+                ArgumentCaptor.forClass(GenericFutureListener.class);
+        verify(writeFuture, times(2)).addListener(listeners.capture());
+        assertEquals(1, payloadBuffer.refCnt());
+        for (final GenericFutureListener<Future<? super Void>> listener : listeners.getAllValues()) {
+            try {
+                listener.operationComplete(writeFuture);
+            } catch (final Exception e) {
+                throw new AssertionError(e);
+            }
+        }
+        assertEquals(0, payloadBuffer.refCnt());
+    }
+
+    @Test
+    public void whenChannelInactive_thenPayloadBufferIsReleased() {
+        when(channel.isActive()).thenReturn(false);
+        publishFlushHandler.handlerAdded(channelHandlerContext);
+        final PublishWithFuture publishWithFuture = createPublishWithPayloadBuffer();
+        final ByteBuf payloadBuffer = publishWithFuture.getPayloadBuffer();
+        publishFlushHandler.sendPublishes(List.of(publishWithFuture));
 
+        assertEquals(0, payloadBuffer.refCnt());
+    }
+
+    @Test
+    public void whenChannelNotWritable_thenWritableTaskRunsAfterChannelIsWritable() {
+        when(channel.isWritable()).thenReturn(false);
+        when(channel.isActive()).thenReturn(true);
+        publishFlushHandler.handlerAdded(channelHandlerContext);
+        final Runnable task = mock(Runnable.class);
+        publishFlushHandler.runWhenWritable(task);
+        verify(task, never()).run();
+
+        when(channel.isWritable()).thenReturn(true);
+        publishFlushHandler.channelWritabilityChanged(channelHandlerContext);
+        verify(task).run();
+    }
+
+    @Test
+    public void whenPublishesAreQueued_thenWritableTaskRunsAfterPublishesAreWritten() {
+        when(channel.isWritable()).thenReturn(false);
+        when(channel.isActive()).thenReturn(true);
+        publishFlushHandler.handlerAdded(channelHandlerContext);
+        final PUBLISH publish = new PUBLISHFactory.Mqtt3Builder().withTopic("topic").withHivemqId("hivemqId").withQoS(QoS.AT_LEAST_ONCE).withOnwardQos(QoS.AT_LEAST_ONCE).withPayload(new byte[100]).build();
+        final PublishWithFuture publishWithFuture = new PublishWithFuture(publish, SettableFuture.create(), false);
+        publishFlushHandler.sendPublishes(List.of(publishWithFuture));
+        final Runnable task = mock(Runnable.class);
+        doAnswer(invocation -> {
+            verify(channelHandlerContext).write(publishWithFuture);
+            return null;
+        }).when(task).run();
+        publishFlushHandler.runWhenWritable(task);
+        verify(task, never()).run();
+
+        when(channel.isWritable()).thenReturn(true);
+        publishFlushHandler.channelWritabilityChanged(channelHandlerContext);
+        verify(task).run();
+    }
+
+    @Test
+    public void whenChannelInactive_thenWritableTaskIsDropped() throws Exception {
+        when(channel.isWritable()).thenReturn(false);
+        when(channel.isActive()).thenReturn(true);
+        publishFlushHandler.handlerAdded(channelHandlerContext);
+        final Runnable task = mock(Runnable.class);
+        publishFlushHandler.runWhenWritable(task);
+        publishFlushHandler.channelInactive(channelHandlerContext);
+
+        when(channel.isWritable()).thenReturn(true);
+        publishFlushHandler.channelWritabilityChanged(channelHandlerContext);
+        verify(task, never()).run();
+    }
+
+
+    private static @NotNull PublishWithFuture createPublishWithPayloadBuffer() {
+        final PUBLISH publish = new PUBLISHFactory.Mqtt3Builder().withTopic("topic")
+                .withHivemqId("hivemqId")
+                .withQoS(QoS.AT_MOST_ONCE)
+                .withOnwardQos(QoS.AT_MOST_ONCE)
+                .withPayload(new byte[100])
+                .build();
+        final PUBLISH offHeapPublish = new PUBLISH(publish, Unpooled.directBuffer().writeBytes(new byte[100])) {
+        };
+        return new PublishWithFuture(offHeapPublish, SettableFuture.create(), false);
+    }
 }
\ No newline at end of file
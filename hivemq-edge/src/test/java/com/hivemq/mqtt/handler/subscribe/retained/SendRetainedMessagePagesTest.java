@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.handler.subscribe.retained;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.hivemq.bootstrap.ClientConnection;
+import com.hivemq.configuration.HivemqId;
+import com.hivemq.configuration.entity.mqtt.MqttConfigurationDefaults;
+import com.hivemq.configuration.service.MqttConfigurationService;
+import com.hivemq.extensions.iteration.BucketChunkResult;
+import com.hivemq.mqtt.handler.publish.PublishStatus;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PublishWithFuture;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import com.hivemq.persistence.RetainedMessage;
+import com.hivemq.persistence.clientqueue.ClientQueuePersistence;
+import com.hivemq.persistence.payload.PublishPayloadPersistence;
+import com.hivemq.persistence.retained.RetainedMessagePersistence;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("NullabilityAnnotations")
+public class SendRetainedMessagePagesTest {
+
+    @Mock
+    private RetainedMessagePersistence retainedMessagePersistence;
+
+    @Mock
+    private ClientQueuePersistence queuePersistence;
+
+    @Mock
+    private PublishPayloadPersistence payloadPersistence;
+
+    @Mock
+    private MqttConfigurationService mqttConfigurationService;
+
+    private RetainedMessagesSender retainedMessagesSender;
+    private EmbeddedChannel channel;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        retainedMessagesSender = new RetainedMessagesSender(new HivemqId(), payloadPersistence,
+                retainedMessagePersistence, queuePersistence, mqttConfigurationService);
+        channel = new EmbeddedChannel();
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).set(new ClientConnection(channel, null));
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get().setClientId("client");
+
+        when(retainedMessagePersistence.get(anyString())).thenAnswer(invocation -> immediateFuture(
+                new RetainedMessage(invocation.getArgument(0, String.class).getBytes(UTF_8), QoS.EXACTLY_ONCE, 1L,
+                        MqttConfigurationDefaults.TTL_DISABLED)));
+        when(queuePersistence.add(anyString(), anyBoolean(), any(List.class), anyBoolean(), anyLong())).thenReturn(
+                immediateFuture(null));
+    }
+
+    @Test
+    public void test_pages_of_all_buckets_sent_in_order() {
+        when(retainedMessagePersistence.getWithWildcardsChunk("#", 0, null, 2)).thenReturn(
+                immediateFuture(new BucketChunkResult<>(ImmutableSet.of("a", "b"), false, "b", 0)));
+        when(retainedMessagePersistence.getWithWildcardsChunk("#", 0, "b", 2)).thenReturn(
+                immediateFuture(new BucketChunkResult<>(ImmutableSet.of("c"), true, "c", 0)));
+        when(retainedMessagePersistence.getWithWildcardsChunk("#", 1, null, 2)).thenReturn(
+                immediateFuture(new BucketChunkResult<>(ImmutableSet.of("d"), true, "d", 1)));
+
+        new SendRetainedMessagePages(new Topic("#", QoS.AT_MOST_ONCE), channel, retainedMessagePersistence,
+                retainedMessagesSender, 2, 2, 0).start();
+
+        assertEquals(List.of("a", "b", "c", "d"), deliverQos0Publishes());
+        verify(retainedMessagePersistence, times(3)).getWithWildcardsChunk(anyString(), anyInt(), any(), anyInt());
+        verify(queuePersistence, never()).size(anyString(), anyBoolean());
+    }
+
+    @Test
+    public void test_batches_limited_by_receive_maximum() {
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get().setClientReceiveMaximum(2);
+        when(retainedMessagePersistence.getWithWildcardsChunk("#", 0, null, 10)).thenReturn(
+                immediateFuture(new BucketChunkResult<>(ImmutableSet.of("a", "b", "c"), true, "c", 0)));
+
+        new SendRetainedMessagePages(new Topic("#", QoS.AT_MOST_ONCE), channel, retainedMessagePersistence,
+                retainedMessagesSender, 10, 1, 0).start();
+        channel.runPendingTasks();
+
+        // the next batch is only sent when the first batch is delivered
+        assertEquals(2, channel.outboundMessages().size());
+        assertEquals(List.of("a", "b", "c"), deliverQos0Publishes());
+    }
+
+    @Test
+    public void test_qos_1_waits_for_client_queue() {
+        when(retainedMessagePersistence.getWithWildcardsChunk("#", 0, null, 10)).thenReturn(
+                immediateFuture(new BucketChunkResult<>(ImmutableSet.of("a"), true, "a", 0)));
+        when(queuePersistence.size("client", false)).thenReturn(immediateFuture(1000), immediateFuture(0));
+
+        new SendRetainedMessagePages(new Topic("#", QoS.AT_LEAST_ONCE), channel, retainedMessagePersistence,
+                retainedMessagesSender, 10, 1, 0).start();
+        channel.runPendingTasks();
+
+        verify(queuePersistence, never()).add(anyString(), anyBoolean(), any(List.class), anyBoolean(), anyLong());
+
+        channel.runPendingTasks();
+
+        final ArgumentCaptor<List<PUBLISH>> captor =
+                ArgumentCaptor.forClass((Class<List<PUBLISH>>) (Class) ArrayList.class);
+        verify(queuePersistence).add(eq("client"), eq(false), captor.capture(), eq(true), anyLong());
+        assertEquals("a", captor.getValue().get(0).getTopic());
+        assertEquals(QoS.AT_LEAST_ONCE, captor.getValue().get(0).getQoS());
+        verify(queuePersistence, times(2)).size("client", false);
+    }
+
+    @Test
+    public void test_channel_inactive_no_more_pages() {
+        when(retainedMessagePersistence.getWithWildcardsChunk("#", 0, null, 1)).thenReturn(
+                immediateFuture(new BucketChunkResult<>(ImmutableSet.of("a"), false, "a", 0)));
+
+        new SendRetainedMessagePages(new Topic("#", QoS.AT_MOST_ONCE), channel, retainedMessagePersistence,
+                retainedMessagesSender, 1, 1, 0).start();
+        channel.runPendingTasks();
+        channel.close();
+        deliverQos0Publishes();
+
+        verify(retainedMessagePersistence).getWithWildcardsChunk(anyString(), anyInt(), any(), anyInt());
+    }
+
+    @Test
+    public void test_page_failed_disconnect() {
+        when(retainedMessagePersistence.getWithWildcardsChunk("#", 0, null, 1)).thenReturn(
+                Futures.immediateFailedFuture(new RuntimeException("test")));
+
+        new SendRetainedMessagePages(new Topic("#", QoS.AT_MOST_ONCE), channel, retainedMessagePersistence,
+                retainedMessagesSender, 1, 1, 0).start();
+        assertTrue(channel.isActive());
+        channel.runPendingTasks();
+
+        assertFalse(channel.isActive());
+    }
+
+    @Test
+    public void test_no_matching_topics() {
+        when(retainedMessagePersistence.getWithWildcardsChunk(eq("#"), anyInt(), isNull(), eq(1))).thenReturn(
+                immediateFuture(new BucketChunkResult<>(ImmutableSet.of(), true, null, 0)));
+
+        new SendRetainedMessagePages(new Topic("#", QoS.AT_MOST_ONCE), channel, retainedMessagePersistence,
+                retainedMessagesSender, 1, 4, 0).start();
+        channel.runPendingTasks();
+
+        assertEquals(0, channel.outboundMessages().size());
+        verify(retainedMessagePersistence, times(4)).getWithWildcardsChunk(anyString(), anyInt(), any(), anyInt());
+    }
+
+    private List<String> deliverQos0Publishes() {
+        final List<String> topics = new ArrayList<>();
+        channel.runPendingTasks();
+        while (!channel.outboundMessages().isEmpty()) {
+            while (!channel.outboundMessages().isEmpty()) {
+                final PublishWithFuture publish = (PublishWithFuture) channel.outboundMessages().poll();
+                topics.add(publish.getTopic());
+                publish.getFuture().set(PublishStatus.DELIVERED);
+            }
+            channel.runPendingTasks();
+        }
+        return topics;
+    }
+}
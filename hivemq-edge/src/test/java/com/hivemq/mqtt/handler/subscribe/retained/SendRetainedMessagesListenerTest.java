@@ -20,7 +20,9 @@ import com.google.common.util.concurrent.Futures;
 import com.hivemq.bootstrap.ClientConnection;
 import com.hivemq.configuration.HivemqId;
 import com.hivemq.configuration.entity.mqtt.MqttConfigurationDefaults;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.configuration.service.MqttConfigurationService;
+import com.hivemq.extensions.iteration.BucketChunkResult;
 import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.mqtt5.Mqtt5RetainHandling;
 import com.hivemq.mqtt.message.publish.PUBLISH;
@@ -33,6 +35,7 @@ import com.hivemq.persistence.retained.RetainedMessagePersistence;
 
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -74,6 +77,34 @@ public class SendRetainedMessagesListenerTest {
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
         ignoredTopics = new LinkedHashSet<>();
+        // the paged delivery is tested in SendRetainedMessagePagesTest
+        InternalConfigurations.RETAINED_MESSAGES_PAGED_DELIVERY_ENABLED.set(false);
+    }
+
+    @After
+    public void tearDown() {
+        InternalConfigurations.RETAINED_MESSAGES_PAGED_DELIVERY_ENABLED.set(true);
+    }
+
+    @Test
+    public void test_wildcard_subscription_paged_delivery() throws Exception {
+        InternalConfigurations.RETAINED_MESSAGES_PAGED_DELIVERY_ENABLED.set(true);
+
+        when(retainedMessagePersistence.getWithWildcardsChunk(eq("#"), anyInt(), isNull(), anyInt())).thenReturn(
+                Futures.immediateFuture(new BucketChunkResult<>(ImmutableSet.of(), true, null, 0)));
+
+        final Topic topic = new Topic("#", QoS.EXACTLY_ONCE, false, false, Mqtt5RetainHandling.SEND, 1);
+        final List<SubscriptionResult> subscriptions = newArrayList(subResult(topic, false));
+        final SendRetainedMessagesListener listener = createListener(subscriptions, ignoredTopics);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).set(new ClientConnection(channel, null));
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get().setClientId("client");
+
+        listener.operationComplete(channel.newSucceededFuture());
+        channel.runPendingTasks();
+
+        verify(retainedMessagePersistence).getWithWildcardsChunk(eq("#"), eq(0), isNull(), anyInt());
+        verify(retainedMessagePersistence, never()).getWithWildcards(anyString());
     }
 
     @Test
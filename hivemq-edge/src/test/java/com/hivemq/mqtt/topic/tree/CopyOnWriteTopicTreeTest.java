@@ -0,0 +1,230 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5RetainHandling;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
+import com.hivemq.mqtt.topic.SubscriptionFlag;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_MAP_CREATION_THRESHOLD;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CopyOnWriteTopicTreeTest {
+
+    private static final List<String> FILTERS = List.of("#", "a", "a/b", "a/+", "a/#", "+/b", "+/+/c", "a/b/c",
+            "a/b/#", "+", "+/#", "/a", "a//c", "b/+/c/#");
+
+    private static final List<String> TOPICS = List.of("a", "a/b", "a/b/c", "a/c", "b/b/c", "/a", "a//c", "b/x/c",
+            "b/x/c/d", "c", "");
+
+    private static final List<String> CLIENTS = List.of("client1", "client2", "client3");
+
+    private static final List<String> GROUPS = List.of("group1", "group2");
+
+    private MetricRegistry metricRegistry;
+    private CopyOnWriteTopicTree topicTree;
+
+    @Before
+    public void setUp() {
+        TOPIC_TREE_MAP_CREATION_THRESHOLD.set(1);
+        metricRegistry = new MetricRegistry();
+        topicTree = new CopyOnWriteTopicTree(new MetricsHolder(metricRegistry));
+    }
+
+    @Test
+    public void test_same_results_as_local_topic_tree() {
+        final LocalTopicTree localTopicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 2_000; i++) {
+            final String client = CLIENTS.get(random.nextInt(CLIENTS.size()));
+            final String filter = FILTERS.get(random.nextInt(FILTERS.size()));
+            final String group = random.nextInt(4) == 0 ? GROUPS.get(random.nextInt(GROUPS.size())) : null;
+
+            if (random.nextInt(3) == 0) {
+                localTopicTree.removeSubscriber(client, filter, group);
+                topicTree.removeSubscriber(client, filter, group);
+            } else {
+                final Topic topic = new Topic(filter, QoS.valueOf(random.nextInt(3)), false, false,
+                        Mqtt5RetainHandling.SEND, random.nextBoolean() ? random.nextInt(10) + 1 : null);
+                final byte flags = SubscriptionFlag.getDefaultFlags(group != null, false, false);
+                assertEquals(localTopicTree.addTopic(client, topic, flags, group),
+                        topicTree.addTopic(client, topic, flags, group));
+            }
+
+            assertEquals(localTopicTree.counters.getSubscriptionCounter().getCount(),
+                    topicTree.counters.getSubscriptionCounter().getCount());
+            assertSameLookups(localTopicTree, topicTree);
+        }
+    }
+
+    @Test
+    public void test_empty_nodes_removed() {
+        topicTree.addTopic("client", new Topic("a/b/c", QoS.AT_MOST_ONCE), (byte) 0, null);
+        topicTree.addTopic("client", new Topic("a/b/#", QoS.AT_MOST_ONCE), (byte) 0, null);
+        topicTree.addTopic("client", new Topic("#", QoS.AT_MOST_ONCE), (byte) 0, null);
+        assertFalse(topicTree.isEmpty());
+
+        topicTree.removeSubscriber("client", "a/b/c", null);
+        topicTree.removeSubscriber("client", "a/b/#", null);
+        topicTree.removeSubscriber("client", "#", null);
+
+        assertTrue(topicTree.isEmpty());
+        assertEquals(0, topicTree.counters.getSubscriptionCounter().getCount());
+    }
+
+    @Test
+    public void test_remove_unknown_subscription() {
+        topicTree.addTopic("client", new Topic("a/b", QoS.AT_MOST_ONCE), (byte) 0, null);
+
+        topicTree.removeSubscriber("client", "a/b/c", null);
+        topicTree.removeSubscriber("other", "a/b", null);
+        topicTree.removeSubscriber("client", "#", null);
+
+        assertEquals(1, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+        assertNull(topicTree.findSubscriber("client", "a/c"));
+    }
+
+    @Test
+    public void test_lookups_during_subscription_changes() throws Exception {
+        topicTree.addTopic("static", new Topic("a/b/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread reader = new Thread(() -> {
+            try {
+                while (done.getCount() > 0) {
+                    final SubscriberWithIdentifiers subscriber = topicTree.findSubscriber("static", "a/b/c");
+                    if (subscriber == null || subscriber.getQos() != 1) {
+                        throw new AssertionError("static subscription not found");
+                    }
+                }
+            } catch (final Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+
+        for (int i = 0; i < 5_000; i++) {
+            topicTree.addTopic("client" + (i % 50), new Topic("a/b/" + (i % 7), QoS.AT_MOST_ONCE), (byte) 0, null);
+            topicTree.removeSubscriber("client" + ((i + 25) % 50), "a/b/" + ((i + 3) % 7), null);
+        }
+        done.countDown();
+        reader.join();
+
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void test_root_wildcard_resubscribe_never_missing() throws Exception {
+        topicTree.addTopic("client", new Topic("#", QoS.AT_MOST_ONCE), (byte) 0, null);
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread reader = new Thread(() -> {
+            try {
+                while (done.getCount() > 0) {
+                    if (topicTree.findSubscriber("client", "a/b") == null) {
+                        throw new AssertionError("root wildcard subscription not found");
+                    }
+                }
+            } catch (final Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(topicTree.addTopic("client", new Topic("#", QoS.valueOf(i % 2 + 1)), (byte) 0, null));
+        }
+        done.countDown();
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(1, topicTree.rootWildcardSubscribers.size());
+        assertEquals(1, topicTree.counters.getSubscriptionCounter().getCount());
+    }
+
+    private static void assertSameLookups(final TopicTree expected, final TopicTree actual) {
+        for (final String topic : TOPICS) {
+            for (final boolean excludeRootLevelWildcard : new boolean[]{false, true}) {
+                final TopicSubscribers expectedSubscribers =
+                        expected.findTopicSubscribers(topic, excludeRootLevelWildcard);
+                final TopicSubscribers actualSubscribers = actual.findTopicSubscribers(topic, excludeRootLevelWildcard);
+                assertEquals(topic,
+                        describe(expectedSubscribers.getSubscribers()),
+                        describe(actualSubscribers.getSubscribers()));
+                assertEquals(topic,
+                        expectedSubscribers.getSharedSubscriptions(),
+                        actualSubscribers.getSharedSubscriptions());
+                assertEquals(topic,
+                        expected.getSubscribersForTopic(topic, s -> true, excludeRootLevelWildcard),
+                        actual.getSubscribersForTopic(topic, s -> true, excludeRootLevelWildcard));
+            }
+            for (final String client : CLIENTS) {
+                assertEquals(topic + " " + client,
+                        describe(expected.findSubscriber(client, topic)),
+                        describe(actual.findSubscriber(client, topic)));
+            }
+        }
+        for (final String filter : FILTERS) {
+            assertEquals(filter,
+                    expected.getSubscribersWithFilter(filter, s -> true),
+                    actual.getSubscribersWithFilter(filter, s -> true));
+            for (final String group : GROUPS) {
+                assertEquals(filter, expected.getSharedSubscriber(group, filter), actual.getSharedSubscriber(group, filter));
+            }
+        }
+    }
+
+    /**
+     * The order of merged subscription identifiers depends on the order in which the subscriptions were found.
+     */
+    private static Set<String> describe(final Set<SubscriberWithIdentifiers> subscribers) {
+        final Set<String> descriptions = new HashSet<>();
+        for (final SubscriberWithIdentifiers subscriber : subscribers) {
+            descriptions.add(describe(subscriber));
+        }
+        return descriptions;
+    }
+
+    private static String describe(final SubscriberWithIdentifiers subscriber) {
+        if (subscriber == null) {
+            return null;
+        }
+        final int[] subscriptionIdentifiers = subscriber.getSubscriptionIdentifier().toArray();
+        Arrays.sort(subscriptionIdentifiers);
+        return subscriber.getSubscriber() + "/" + subscriber.getQos() + "/" + subscriber.getSharedName() + "/" +
+                Arrays.toString(subscriptionIdentifiers);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableSet;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_SUBSCRIBERS_CACHE_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TopicSubscribersCacheTest {
+
+    private MetricRegistry metricRegistry;
+    private LocalTopicTree topicTree;
+
+    @Before
+    public void setUp() {
+        metricRegistry = new MetricRegistry();
+        topicTree = new LocalTopicTree(new MetricsHolder(metricRegistry));
+    }
+
+    @After
+    public void tearDown() {
+        TOPIC_TREE_SUBSCRIBERS_CACHE_SIZE.set(10000);
+    }
+
+    @Test
+    public void test_repeated_lookup_served_from_cache() {
+        topicTree.addTopic("sub", new Topic("a/b", QoS.AT_MOST_ONCE), (byte) 0, null);
+
+        final TopicSubscribers first = topicTree.findTopicSubscribers("a/b");
+        final TopicSubscribers second = topicTree.findTopicSubscribers("a/b");
+
+        assertSame(first, second);
+        assertEquals(1, hits());
+        assertEquals(1, misses());
+        assertEquals(0.5, (double) metricRegistry.getGauges()
+                .get(HiveMQMetrics.TOPIC_TREE_CACHE_HIT_RATE.name())
+                .getValue(), 0.0001);
+    }
+
+    @Test
+    public void test_exclude_root_wildcard_cached_separately() {
+        topicTree.addTopic("sub", new Topic("#", QoS.AT_MOST_ONCE), (byte) 0, null);
+
+        assertEquals(1, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+        assertEquals(0, topicTree.findTopicSubscribers("a/b", true).getSubscribers().size());
+        assertEquals(1, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+        assertEquals(0, topicTree.findTopicSubscribers("a/b", true).getSubscribers().size());
+    }
+
+    @Test
+    public void test_add_matching_filter_invalidates() {
+        final TopicSubscribers before = topicTree.findTopicSubscribers("a/b/c");
+
+        topicTree.addTopic("sub", new Topic("a/+/c", QoS.AT_MOST_ONCE), (byte) 0, null);
+
+        final TopicSubscribers after = topicTree.findTopicSubscribers("a/b/c");
+        assertNotSame(before, after);
+        assertEquals(ImmutableSet.of("sub"), subscriberIds(after));
+    }
+
+    @Test
+    public void test_add_other_filter_keeps_entries() {
+        topicTree.addTopic("sub", new Topic("a/b", QoS.AT_MOST_ONCE), (byte) 0, null);
+        final TopicSubscribers cached = topicTree.findTopicSubscribers("a/b");
+
+        topicTree.addTopic("other", new Topic("x/#", QoS.AT_MOST_ONCE), (byte) 0, null);
+        topicTree.addTopic("other", new Topic("a/c", QoS.AT_MOST_ONCE), (byte) 0, null);
+
+        assertSame(cached, topicTree.findTopicSubscribers("a/b"));
+    }
+
+    @Test
+    public void test_remove_subscriber_invalidates() {
+        topicTree.addTopic("sub", new Topic("a/#", QoS.AT_MOST_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub2", new Topic("#", QoS.AT_MOST_ONCE), (byte) 0, null);
+        assertEquals(2, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+
+        topicTree.removeSubscriber("sub", "a/#", null);
+        assertEquals(ImmutableSet.of("sub2"), subscriberIds(topicTree.findTopicSubscribers("a/b")));
+
+        topicTree.removeSubscriber("sub2", "#", null);
+        assertTrue(topicTree.findTopicSubscribers("a/b").getSubscribers().isEmpty());
+    }
+
+    @Test
+    public void test_put_after_concurrent_change_is_discarded() {
+        final TopicSubscribersCache cache = new TopicSubscribersCache(10, metricRegistry);
+        final TopicSubscribers subscribers = new TopicSubscribers(ImmutableSet.of(), ImmutableSet.of());
+
+        final long epoch = cache.epoch();
+        cache.invalidate("a/b");
+        cache.put("a/b", false, subscribers, epoch);
+
+        assertNull(cache.get("a/b", false));
+    }
+
+    @Test
+    public void test_cache_is_bounded() {
+        final TopicSubscribersCache cache = new TopicSubscribersCache(2, metricRegistry);
+        final TopicSubscribers subscribers = new TopicSubscribers(ImmutableSet.of(), ImmutableSet.of());
+
+        cache.put("a", false, subscribers, cache.epoch());
+        cache.put("b", false, subscribers, cache.epoch());
+        cache.put("c", false, subscribers, cache.epoch());
+
+        assertEquals(2, cache.size());
+        assertSame(subscribers, cache.get("c", false));
+    }
+
+    @Test
+    public void test_cache_disabled() {
+        TOPIC_TREE_SUBSCRIBERS_CACHE_SIZE.set(0);
+        topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+
+        assertNotSame(topicTree.findTopicSubscribers("a/b"), topicTree.findTopicSubscribers("a/b"));
+    }
+
+    @Test
+    public void test_matches() {
+        assertTrue(TopicSubscribersCache.matches("a/b", "a/b"));
+        assertTrue(TopicSubscribersCache.matches("a/+", "a/b"));
+        assertTrue(TopicSubscribersCache.matches("a/+", "a/"));
+        assertTrue(TopicSubscribersCache.matches("+/+", "/b"));
+        assertTrue(TopicSubscribersCache.matches("a/#", "a"));
+        assertTrue(TopicSubscribersCache.matches("a/#", "a/b/c"));
+        assertTrue(TopicSubscribersCache.matches("+/b/#", "a/b"));
+        assertTrue(TopicSubscribersCache.matches("a/+/c", "a/b/c"));
+
+        assertFalse(TopicSubscribersCache.matches("a/b", "a/bc"));
+        assertFalse(TopicSubscribersCache.matches("a/bc", "a/b"));
+        assertFalse(TopicSubscribersCache.matches("a/+", "a"));
+        assertFalse(TopicSubscribersCache.matches("a/+", "a/b/c"));
+        assertFalse(TopicSubscribersCache.matches("a/#", "ab"));
+        assertFalse(TopicSubscribersCache.matches("+/c", "a/b"));
+        assertFalse(TopicSubscribersCache.matches("a/b/#", "a"));
+    }
+
+    private long hits() {
+        return metricRegistry.counter(HiveMQMetrics.TOPIC_TREE_CACHE_HIT_COUNT.name()).getCount();
+    }
+
+    private long misses() {
+        return metricRegistry.counter(HiveMQMetrics.TOPIC_TREE_CACHE_MISS_COUNT.name()).getCount();
+    }
+
+    private static ImmutableSet<String> subscriberIds(final TopicSubscribers topicSubscribers) {
+        final ImmutableSet.Builder<String> ids = ImmutableSet.builder();
+        topicSubscribers.getSubscribers().forEach(subscriber -> ids.add(subscriber.getSubscriber()));
+        return ids.build();
+    }
+}
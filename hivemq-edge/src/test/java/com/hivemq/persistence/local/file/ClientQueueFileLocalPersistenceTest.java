@@ -0,0 +1,310 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.mqtt.message.MessageWithID;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.dropping.MessageDroppedService;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import com.hivemq.mqtt.message.pubrel.PUBREL;
+import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
+import com.hivemq.persistence.payload.PublishPayloadPersistence;
+import com.hivemq.util.LocalPersistenceFileUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.File;
+
+import static com.hivemq.configuration.service.MqttConfigurationService.QueuedMessagesStrategy.DISCARD;
+import static com.hivemq.configuration.service.MqttConfigurationService.QueuedMessagesStrategy.DISCARD_OLDEST;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("NullabilityAnnotations")
+public class ClientQueueFileLocalPersistenceTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private PublishPayloadPersistence payloadPersistence;
+
+    @Mock
+    private MessageDroppedService messageDroppedService;
+
+    @Mock
+    private LocalPersistenceFileUtil localPersistenceFileUtil;
+
+    private ClientQueueFileLocalPersistence persistence;
+
+    private final int bucketCount = 4;
+
+    private File persistenceFolder;
+
+    private MetricRegistry metricRegistry;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(bucketCount);
+        InternalConfigurations.QOS_0_MEMORY_HARD_LIMIT_DIVISOR.set(10000);
+        InternalConfigurations.QOS_0_MEMORY_LIMIT_PER_CLIENT_BYTES.set(1024);
+        InternalConfigurations.RETAINED_MESSAGE_QUEUE_SIZE.set(5);
+        InternalConfigurations.CLIENT_QUEUE_FILE_SEGMENT_SIZE_BYTES.set(4096);
+
+        persistenceFolder = temporaryFolder.newFolder();
+        when(localPersistenceFileUtil.getVersionedLocalPersistenceFolder(anyString(), anyString())).thenReturn(
+                persistenceFolder);
+        persistence = createPersistence();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (int i = 0; i < bucketCount; i++) {
+            persistence.closeDB(i);
+        }
+    }
+
+    @Test
+    public void test_add_and_readNew() {
+        final PUBLISH publish = createPublish(QoS.AT_LEAST_ONCE, "topic1", 1);
+        persistence.add("client", false, publish, 100L, DISCARD, false, 0);
+
+        final ImmutableList<PUBLISH> publishes =
+                persistence.readNew("client", false, ImmutableIntArray.of(2, 3), 256000, 0);
+        assertEquals(1, publishes.size());
+        assertEquals(2, publishes.get(0).getPacketIdentifier());
+        assertEquals("topic1", publishes.get(0).getTopic());
+        assertEquals(QoS.AT_LEAST_ONCE, publishes.get(0).getQoS());
+        assertArrayEquals("message".getBytes(), publishes.get(0).getPayload());
+        assertEquals(publish.getUniqueId(), publishes.get(0).getUniqueId());
+        verify(payloadPersistence).decrementReferenceCounter(1);
+    }
+
+    @Test
+    public void test_readInflight_after_readNew() {
+        persistence.add("client", false, createPublish(QoS.EXACTLY_ONCE, "topic", 1), 100L, DISCARD, false, 0);
+        persistence.readNew("client", false, ImmutableIntArray.of(1), 256000, 0);
+
+        final ImmutableList<MessageWithID> inflight = persistence.readInflight("client", false, 10, 256000, 0);
+        assertEquals(1, inflight.size());
+        assertEquals(1, inflight.get(0).getPacketIdentifier());
+        assertTrue(((PUBLISH) inflight.get(0)).isDuplicateDelivery());
+    }
+
+    @Test
+    public void test_replace_and_remove() {
+        final PUBLISH publish = createPublish(QoS.EXACTLY_ONCE, "topic", 1);
+        persistence.add("client", false, publish, 100L, DISCARD, false, 0);
+        persistence.readNew("client", false, ImmutableIntArray.of(1), 256000, 0);
+
+        final String replacedId = persistence.replace("client", new PUBREL(1), 0);
+        assertEquals(publish.getUniqueId(), replacedId);
+        assertEquals(1, persistence.size("client", false, 0));
+        assertTrue(persistence.readInflight("client", false, 10, 256000, 0).get(0) instanceof PUBREL);
+
+        assertNull(persistence.remove("client", 1, 0));
+        assertEquals(0, persistence.size("client", false, 0));
+    }
+
+    @Test
+    public void test_discard_oldest() {
+        for (int i = 1; i <= 3; i++) {
+            persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic" + i, i), 2L, DISCARD_OLDEST,
+                    false, 0);
+        }
+        assertEquals(2, persistence.size("client", false, 0));
+        verify(messageDroppedService).queueFull("client", "topic1", 1);
+
+        final ImmutableList<PUBLISH> publishes =
+                persistence.readNew("client", false, ImmutableIntArray.of(1, 2, 3), 256000, 0);
+        assertEquals("topic2", publishes.get(0).getTopic());
+        assertEquals("topic3", publishes.get(1).getTopic());
+    }
+
+    @Test
+    public void test_discard_new() {
+        for (int i = 1; i <= 3; i++) {
+            persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic" + i, i), 2L, DISCARD, false, 0);
+        }
+        assertEquals(2, persistence.size("client", false, 0));
+        verify(messageDroppedService).queueFull("client", "topic3", 1);
+    }
+
+    @Test
+    public void test_qos0_messages_stay_in_memory() {
+        persistence.add("client", false, createPublish(QoS.AT_MOST_ONCE, "topic", 1), 100L, DISCARD, false, 0);
+        assertEquals(1, persistence.qos0Size("client", false, 0));
+
+        persistence.removeAllQos0Messages("client", false, 0);
+        assertEquals(0, persistence.size("client", false, 0));
+    }
+
+    @Test
+    public void test_queue_survives_restart() {
+        final int bucket = BucketUtils.getBucket("client", bucketCount);
+        for (int i = 1; i <= 3; i++) {
+            persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic" + i, i), 100L, DISCARD, false,
+                    bucket);
+        }
+        persistence.add("group", true, createPublish(QoS.AT_LEAST_ONCE, "shared", 4), 100L, DISCARD, false, 0);
+        persistence.readNew("client", false, ImmutableIntArray.of(1), 256000, bucket);
+        persistence.remove("client", 1, bucket);
+
+        restart();
+
+        assertEquals(2, persistence.size("client", false, bucket));
+        assertEquals(1, persistence.size("group", true, BucketUtils.getBucket("group", bucketCount)));
+        final ImmutableList<PUBLISH> publishes =
+                persistence.readNew("client", false, ImmutableIntArray.of(1, 2), 256000, bucket);
+        assertEquals("topic2", publishes.get(0).getTopic());
+        assertEquals("topic3", publishes.get(1).getTopic());
+        assertTrue(PUBLISH.PUBLISH_COUNTER.get() > 4);
+    }
+
+    @Test
+    public void test_inflight_messages_are_sent_again_after_restart() {
+        persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic", 1), 100L, DISCARD, false, 0);
+        persistence.readNew("client", false, ImmutableIntArray.of(1), 256000, 0);
+
+        restart();
+
+        assertEquals(0, persistence.readInflight("client", false, 10, 256000, 0).size());
+        assertEquals(1, persistence.readNew("client", false, ImmutableIntArray.of(5), 256000, 0).size());
+    }
+
+    @Test
+    public void test_clear_survives_restart() {
+        persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic", 1), 100L, DISCARD, false, 0);
+        persistence.clear("client", false, 0);
+
+        restart();
+
+        assertEquals(0, persistence.size("client", false, 0));
+    }
+
+    @Test
+    public void test_removeShared() {
+        final PUBLISH publish = createPublish(QoS.AT_LEAST_ONCE, "topic", 1);
+        persistence.add("group", true, publish, 100L, DISCARD, false, 0);
+        persistence.add("group", true, createPublish(QoS.AT_LEAST_ONCE, "topic", 2), 100L, DISCARD, false, 0);
+
+        persistence.removeShared("group", publish.getUniqueId(), 0);
+        assertEquals(1, persistence.size("group", true, 0));
+    }
+
+    @Test
+    public void test_queues_are_moved_if_bucket_count_changes() {
+        for (int i = 0; i < 20; i++) {
+            final String client = "client" + i;
+            persistence.add(client, false, createPublish(QoS.AT_LEAST_ONCE, "topic" + i, i + 1), 100L, DISCARD,
+                    false, BucketUtils.getBucket(client, bucketCount));
+        }
+        for (int i = 0; i < bucketCount; i++) {
+            persistence.closeDB(i);
+        }
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(2);
+        persistence = createPersistence();
+
+        for (int i = 0; i < 20; i++) {
+            final String client = "client" + i;
+            final ImmutableList<PUBLISH> publishes = persistence.readNew(client, false, ImmutableIntArray.of(1),
+                    256000, BucketUtils.getBucket(client, 2));
+            assertEquals(1, publishes.size());
+            assertEquals("topic" + i, publishes.get(0).getTopic());
+        }
+        for (int i = 0; i < 2; i++) {
+            persistence.closeDB(i);
+        }
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(bucketCount);
+        persistence = createPersistence();
+        assertEquals(1, persistence.size("client0", false, BucketUtils.getBucket("client0", bucketCount)));
+    }
+
+    @Test
+    public void test_segments_are_deleted_when_released() {
+        for (int i = 1; i <= 100; i++) {
+            persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic", i), 1000L, DISCARD, false, 0);
+        }
+        final long sizeBefore = getTotalFileSize();
+        persistence.clear("client", false, 0);
+        assertTrue(getTotalFileSize() < sizeBefore);
+    }
+
+    @Test
+    public void test_expired_messages_are_cleaned_up() {
+        persistence.add("client", false, new PUBLISHFactory.Mqtt5Builder().withQoS(QoS.AT_LEAST_ONCE)
+                .withOnwardQos(QoS.AT_LEAST_ONCE)
+                .withPublishId(1L)
+                .withPayload("message".getBytes())
+                .withTopic("topic")
+                .withHivemqId("hivemqId")
+                .withPersistence(payloadPersistence)
+                .withMessageExpiryInterval(1)
+                .withTimestamp(System.currentTimeMillis() - 10_000)
+                .build(), 100L, DISCARD, false, 0);
+
+        persistence.cleanUp(0);
+        assertEquals(0, persistence.size("client", false, 0));
+    }
+
+    private long getTotalFileSize() {
+        return (Long) metricRegistry.getGauges()
+                .get(HiveMQMetrics.QUEUED_MESSAGES_FILE_PERSISTENCE_TOTAL_SIZE.name())
+                .getValue();
+    }
+
+    private void restart() {
+        for (int i = 0; i < bucketCount; i++) {
+            persistence.closeDB(i);
+        }
+        persistence = createPersistence();
+    }
+
+    private ClientQueueFileLocalPersistence createPersistence() {
+        metricRegistry = new MetricRegistry();
+        return new ClientQueueFileLocalPersistence(payloadPersistence, messageDroppedService, metricRegistry,
+                localPersistenceFileUtil);
+    }
+
+    private PUBLISH createPublish(final QoS qos, final String topic, final long publishId) {
+        return new PUBLISHFactory.Mqtt5Builder().withQoS(qos)
+                .withOnwardQos(qos)
+                .withPublishId(publishId)
+                .withPayload("message".getBytes())
+                .withTopic(topic)
+                .withHivemqId("hivemqId")
+                .withPersistence(payloadPersistence)
+                .build();
+    }
+}
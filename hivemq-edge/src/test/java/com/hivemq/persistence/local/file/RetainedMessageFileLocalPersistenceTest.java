@@ -0,0 +1,406 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.hivemq.codec.encoder.mqtt5.Mqtt5PayloadFormatIndicator;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extensions.iteration.BucketChunkResult;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
+import com.hivemq.persistence.RetainedMessage;
+import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
+import com.hivemq.persistence.payload.PublishPayloadPersistence;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+
+@SuppressWarnings("NullabilityAnnotations")
+public class RetainedMessageFileLocalPersistenceTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private PublishPayloadPersistence payloadPersistence;
+
+    private RetainedMessageFileLocalPersistence persistence;
+
+    private int bucketCount = 4;
+
+    private File persistenceFolder;
+
+    private MetricRegistry metricRegistry;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(bucketCount);
+        InternalConfigurations.RETAINED_MESSAGE_FILE_SEGMENT_SIZE_BYTES.set(4096);
+
+        persistenceFolder = temporaryFolder.newFolder();
+        persistence = createPersistence();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (int i = 0; i < bucketCount; i++) {
+            persistence.closeDB(i);
+        }
+    }
+
+    @Test
+    public void test_put_get_remove() {
+        final RetainedMessage message = createMessage("message", 1, 1000);
+        persistence.put(message, "topic", bucket("topic"));
+        verify(payloadPersistence).decrementReferenceCounter(1);
+
+        final RetainedMessage stored = persistence.get("topic", bucket("topic"));
+        assertNotNull(stored);
+        assertArrayEquals("message".getBytes(), stored.getMessage());
+        assertEquals(QoS.AT_LEAST_ONCE, stored.getQos());
+        assertEquals(1, stored.getPublishId());
+        assertEquals(1000, stored.getMessageExpiryInterval());
+        assertEquals(message.getTimestamp(), stored.getTimestamp());
+        assertEquals("response", stored.getResponseTopic());
+        assertEquals("type", stored.getContentType());
+        assertArrayEquals("correlation".getBytes(), stored.getCorrelationData());
+        assertEquals(Mqtt5PayloadFormatIndicator.UTF_8, stored.getPayloadFormatIndicator());
+        assertEquals(message.getUserProperties(), stored.getUserProperties());
+        assertEquals(1, persistence.size());
+
+        persistence.remove("topic", bucket("topic"));
+        assertNull(persistence.get("topic", bucket("topic")));
+        assertEquals(0, persistence.size());
+    }
+
+    @Test
+    public void test_put_replaces() {
+        persistence.put(createMessage("first", 1, 1000), "topic", bucket("topic"));
+        persistence.put(createMessage("second", 2, 1000), "topic", bucket("topic"));
+
+        assertArrayEquals("second".getBytes(), persistence.get("topic", bucket("topic")).getMessage());
+        assertEquals(1, persistence.size());
+    }
+
+    @Test
+    public void test_expired_message_not_returned() {
+        final RetainedMessage message = new RetainedMessage("message".getBytes(),
+                QoS.AT_MOST_ONCE,
+                1L,
+                1,
+                Mqtt5UserProperties.NO_USER_PROPERTIES,
+                null,
+                null,
+                null,
+                null,
+                System.currentTimeMillis() - 2000);
+        persistence.put(message, "topic", bucket("topic"));
+        assertNull(persistence.get("topic", bucket("topic")));
+
+        persistence.cleanUp(bucket("topic"));
+        assertEquals(0, persistence.size());
+        assertTrue(persistence.getAllTopics("#", bucket("topic")).isEmpty());
+    }
+
+    @Test
+    public void test_messages_survive_restart() {
+        for (int i = 0; i < 100; i++) {
+            persistence.put(createMessage("message" + i, i, 1000), "topic/" + i, bucket("topic/" + i));
+        }
+        persistence.remove("topic/5", bucket("topic/5"));
+
+        restart();
+
+        assertEquals(99, persistence.size());
+        assertNull(persistence.get("topic/5", bucket("topic/5")));
+        assertArrayEquals("message7".getBytes(), persistence.get("topic/7", bucket("topic/7")).getMessage());
+        assertEquals(99, getAllTopics("topic/#").size());
+    }
+
+    @Test
+    public void test_messages_survive_restart_without_index() {
+        for (int i = 0; i < 100; i++) {
+            persistence.put(createMessage("message" + i, i, 1000), "topic/" + i, bucket("topic/" + i));
+        }
+        persistence.remove("topic/5", bucket("topic/5"));
+        persistence.put(createMessage("replaced", 200, 1000), "topic/6", bucket("topic/6"));
+
+        restart();
+        // a crash leaves no index files behind, the logs are replayed
+        for (int i = 0; i < bucketCount; i++) {
+            persistence.get("topic", i);
+            assertFalse(new File(new File(persistenceFolder, "bucket-" + i), "index").exists());
+        }
+        persistence = createPersistence();
+
+        assertEquals(99, persistence.size());
+        assertNull(persistence.get("topic/5", bucket("topic/5")));
+        assertArrayEquals("replaced".getBytes(), persistence.get("topic/6", bucket("topic/6")).getMessage());
+        assertEquals(99, getAllTopics("topic/#").size());
+    }
+
+    @Test
+    public void test_size_read_from_index_before_buckets_are_loaded() {
+        for (int i = 0; i < 10; i++) {
+            persistence.put(createMessage("message", i, 1000), "topic/" + i, bucket("topic/" + i));
+        }
+        restart();
+        assertEquals(10, persistence.size());
+
+        persistence.get("topic/1", bucket("topic/1"));
+        assertEquals(10, persistence.size());
+    }
+
+    @Test
+    public void test_restored_messages_get_new_publish_ids() {
+        persistence.put(createMessage("message", 1, 1000), "topic", bucket("topic"));
+        restart();
+
+        final RetainedMessage restored = persistence.get("topic", bucket("topic"));
+        assertTrue(restored.getPublishId() > 1);
+    }
+
+    @Test
+    public void test_get_all_topics_with_wildcards() {
+        persistence.put(createMessage("message", 1, 1000), "a/b/c", bucket("a/b/c"));
+        persistence.put(createMessage("message", 2, 1000), "a/d/c", bucket("a/d/c"));
+        persistence.put(createMessage("message", 3, 1000), "a/b", bucket("a/b"));
+        persistence.put(createMessage("message", 4, 1000), "b", bucket("b"));
+
+        assertEquals(ImmutableSet.of("a/b/c", "a/d/c"), getAllTopics("a/+/c"));
+        assertEquals(ImmutableSet.of("a/b/c", "a/d/c", "a/b"), getAllTopics("a/#"));
+        assertEquals(ImmutableSet.of("b"), getAllTopics("b"));
+
+        restart();
+
+        assertEquals(ImmutableSet.of("a/b/c", "a/d/c"), getAllTopics("a/+/c"));
+        assertEquals(4, getAllTopics("#").size());
+    }
+
+    @Test
+    public void test_clear() {
+        persistence.put(createMessage("message", 1, 1000), "topic", bucket("topic"));
+        persistence.clear(bucket("topic"));
+
+        assertNull(persistence.get("topic", bucket("topic")));
+        assertEquals(0, persistence.size());
+
+        restart();
+        assertNull(persistence.get("topic", bucket("topic")));
+        assertEquals(0, persistence.size());
+    }
+
+    @Test
+    public void test_clean_up_compacts_log() {
+        // the first message keeps the oldest segment from being deleted
+        persistence.put(createMessage("first", 0, 1000), "first", 0);
+        for (int i = 1; i <= 500; i++) {
+            persistence.put(createMessage("message" + i, i, 1000), "topic", 0);
+        }
+        final long sizeBefore = totalFileSize();
+
+        persistence.cleanUp(0);
+
+        assertTrue(totalFileSize() < sizeBefore);
+        assertArrayEquals("first".getBytes(), persistence.get("first", 0).getMessage());
+        assertArrayEquals("message500".getBytes(), persistence.get("topic", 0).getMessage());
+
+        restart();
+        assertArrayEquals("first".getBytes(), persistence.get("first", 0).getMessage());
+        assertArrayEquals("message500".getBytes(), persistence.get("topic", 0).getMessage());
+    }
+
+    @Test
+    public void test_compacted_log_survives_restart_without_index() {
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(1);
+        bucketCount = 1;
+        persistence = createPersistence();
+        for (int i = 0; i < 100; i++) {
+            persistence.put(createMessage("message" + i, i, 1000), "topic/" + i % 10, 0);
+        }
+        persistence.remove("topic/3", 0);
+        persistence.cleanUp(0);
+        persistence.put(createMessage("new", 100, 1000), "topic/4", 0);
+
+        // the index is deleted when the bucket is loaded, so the log is replayed
+        persistence = createPersistence();
+
+        assertEquals(9, persistence.size());
+        assertNull(persistence.get("topic/3", 0));
+        assertArrayEquals("new".getBytes(), persistence.get("topic/4", 0).getMessage());
+        assertArrayEquals("message99".getBytes(), persistence.get("topic/9", 0).getMessage());
+    }
+
+    @Test
+    public void test_get_chunks() {
+        for (int i = 0; i < 10; i++) {
+            persistence.put(createMessage("message", i, 1000), "topic/" + i, 0);
+        }
+        final Set<String> topics = new HashSet<>();
+        String lastTopic = null;
+        int chunks = 0;
+        BucketChunkResult<Map<String, RetainedMessage>> chunk;
+        do {
+            chunk = persistence.getAllRetainedMessagesChunk(0, lastTopic, 1);
+            topics.addAll(chunk.getValue().keySet());
+            lastTopic = chunk.getLastKey();
+            chunks++;
+        } while (!chunk.isFinished());
+
+        assertEquals(10, topics.size());
+        assertEquals(10, chunks);
+    }
+
+    @Test
+    public void test_get_topics_chunks() {
+        for (int i = 0; i < 10; i++) {
+            persistence.put(createMessage("message", i, 1000), "a/" + i, 0);
+        }
+        persistence.put(createMessage("message", 10, 1000), "a", 0);
+        persistence.put(createMessage("message", 11, 1000), "ab/1", 0);
+        persistence.put(createMessage("message", 12, 1000), "b/1", 0);
+
+        final Set<String> topics = new HashSet<>();
+        String lastTopic = null;
+        int chunks = 0;
+        BucketChunkResult<Set<String>> chunk;
+        do {
+            chunk = persistence.getTopicsChunk("a/#", 0, lastTopic, 3);
+            assertTrue(chunk.getValue().size() <= 3);
+            topics.addAll(chunk.getValue());
+            lastTopic = chunk.getLastKey();
+            chunks++;
+        } while (!chunk.isFinished());
+
+        assertEquals(11, topics.size());
+        assertTrue(topics.contains("a"));
+        assertFalse(topics.contains("ab/1"));
+        assertFalse(topics.contains("b/1"));
+        assertEquals(4, chunks);
+
+        assertEquals(ImmutableSet.of("a/1"), persistence.getTopicsChunk("+/1", 0, "a/0", 1).getValue());
+        assertEquals(ImmutableSet.of("b/1"), persistence.getTopicsChunk("b/+", 0, null, 10).getValue());
+    }
+
+    @Test
+    public void test_get_topics_chunk_scanned_topics_bounded() {
+        for (int i = 0; i < 100; i++) {
+            persistence.put(createMessage("message", i, 1000), "topic/" + i + "/a", 0);
+        }
+        persistence.put(createMessage("message", 100, 1000), "topic/x/b", 0);
+
+        final BucketChunkResult<Set<String>> chunk = persistence.getTopicsChunk("topic/+/b", 0, null, 1);
+        assertTrue(chunk.getValue().isEmpty());
+        assertFalse(chunk.isFinished());
+
+        final Set<String> topics = new HashSet<>();
+        String lastTopic = null;
+        BucketChunkResult<Set<String>> next;
+        do {
+            next = persistence.getTopicsChunk("topic/+/b", 0, lastTopic, 1);
+            topics.addAll(next.getValue());
+            lastTopic = next.getLastKey();
+        } while (!next.isFinished());
+        assertEquals(ImmutableSet.of("topic/x/b"), topics);
+    }
+
+    @Test
+    public void test_bucket_count_change() {
+        for (int i = 0; i < 50; i++) {
+            persistence.put(createMessage("message" + i, i, 1000), "topic/" + i, bucket("topic/" + i));
+        }
+        restart();
+        for (int i = 0; i < bucketCount; i++) {
+            persistence.closeDB(i);
+        }
+
+        bucketCount = 7;
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(bucketCount);
+        persistence = createPersistence();
+
+        assertEquals(50, persistence.size());
+        for (int i = 0; i < 50; i++) {
+            assertArrayEquals(("message" + i).getBytes(), persistence.get("topic/" + i, bucket("topic/" + i)).getMessage());
+        }
+        assertEquals(50, getAllTopics("#").size());
+    }
+
+    private void restart() {
+        for (int i = 0; i < bucketCount; i++) {
+            persistence.closeDB(i);
+        }
+        persistence = createPersistence();
+    }
+
+    private RetainedMessageFileLocalPersistence createPersistence() {
+        metricRegistry = new MetricRegistry();
+        return new RetainedMessageFileLocalPersistence(payloadPersistence, metricRegistry, persistenceFolder);
+    }
+
+    private long totalFileSize() {
+        return (long) metricRegistry.getGauges()
+                .get(HiveMQMetrics.RETAINED_MESSAGES_FILE_PERSISTENCE_TOTAL_SIZE.name())
+                .getValue();
+    }
+
+    private Set<String> getAllTopics(final String subscription) {
+        final Set<String> topics = new HashSet<>();
+        for (int i = 0; i < bucketCount; i++) {
+            topics.addAll(persistence.getAllTopics(subscription, i));
+        }
+        return topics;
+    }
+
+    private int bucket(final String topic) {
+        return BucketUtils.getBucket(topic, bucketCount);
+    }
+
+    private static RetainedMessage createMessage(final String payload, final long publishId, final long expiry) {
+        return new RetainedMessage(payload.getBytes(),
+                QoS.AT_LEAST_ONCE,
+                publishId,
+                expiry,
+                Mqtt5UserProperties.of(ImmutableList.of(new MqttUserProperty("name", "value"))),
+                "response",
+                "type",
+                "correlation".getBytes(),
+                Mqtt5PayloadFormatIndicator.UTF_8,
+                System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("NullabilityAnnotations")
+public class SegmentLogTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void test_append_read() throws Exception {
+        final SegmentLog log = new SegmentLog(temporaryFolder.newFolder(), 1024);
+        final long first = log.append((byte) 1, wrap("first"));
+        final long second = log.append((byte) 2, wrap("second"));
+
+        assertEquals("first", read(log.read(first)));
+        assertEquals("second", read(log.read(second)));
+        log.close();
+    }
+
+    @Test
+    public void test_replay_after_reopen() throws Exception {
+        final File directory = temporaryFolder.newFolder();
+        final SegmentLog log = new SegmentLog(directory, 100);
+        for (int i = 0; i < 20; i++) {
+            log.append((byte) 1, wrap(String.format("record%02d", i)));
+        }
+        log.close();
+
+        final SegmentLog reopened = new SegmentLog(directory, 100);
+        final List<String> records = replay(reopened);
+        assertEquals(20, records.size());
+        assertEquals("record00", records.get(0));
+        assertEquals("record19", records.get(19));
+
+        reopened.append((byte) 1, wrap("record20"));
+        reopened.close();
+        assertEquals(21, replay(new SegmentLog(directory, 100)).size());
+    }
+
+    @Test
+    public void test_released_head_segments_are_deleted() throws Exception {
+        final SegmentLog log = new SegmentLog(temporaryFolder.newFolder(), 100);
+        final List<Long> positions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final long position = log.append((byte) 1, wrap(String.format("record%02d", i)));
+            log.retain(position);
+            positions.add(position);
+        }
+        assertEquals(4, log.getSegmentCount());
+        assertEquals(400, log.getTotalBytes());
+
+        // releasing records of a segment which is not the head does not delete anything
+        log.release(positions.get(19));
+        assertEquals(4, log.getSegmentCount());
+
+        for (int i = 0; i < 10; i++) {
+            log.release(positions.get(i));
+        }
+        assertEquals(2, log.getSegmentCount());
+        assertEquals(200, log.getTotalBytes());
+        log.close();
+    }
+
+    @Test
+    public void test_corrupted_tail_is_cut_off() throws Exception {
+        final File directory = temporaryFolder.newFolder();
+        final SegmentLog log = new SegmentLog(directory, 1024);
+        log.append((byte) 1, wrap("valid"));
+        final long corrupted = log.append((byte) 1, wrap("corrupted"));
+        log.close();
+
+        try (final RandomAccessFile file = new RandomAccessFile(directory.listFiles()[0], "rw")) {
+            file.seek(SegmentLog.offset(corrupted) + SegmentLog.HEADER_SIZE);
+            file.write('X');
+        }
+
+        final SegmentLog reopened = new SegmentLog(directory, 1024);
+        assertEquals(List.of("valid"), replay(reopened));
+        final long appended = reopened.append((byte) 1, wrap("appended"));
+        assertEquals(SegmentLog.offset(corrupted), SegmentLog.offset(appended));
+        reopened.close();
+    }
+
+    @Test
+    public void test_records_after_corrupted_record_not_replayed_after_append() throws Exception {
+        final File directory = temporaryFolder.newFolder();
+        final SegmentLog log = new SegmentLog(directory, 1024);
+        log.append((byte) 1, wrap("valid"));
+        final long corrupted = log.append((byte) 1, wrap("corrupted"));
+        log.append((byte) 1, wrap("stale"));
+        log.close();
+
+        try (final RandomAccessFile file = new RandomAccessFile(directory.listFiles()[0], "rw")) {
+            file.seek(SegmentLog.offset(corrupted) + SegmentLog.HEADER_SIZE);
+            file.write('X');
+        }
+
+        final SegmentLog reopened = new SegmentLog(directory, 1024);
+        assertEquals(List.of("valid"), replay(reopened));
+        // the appended record has the size of the corrupted record and ends where the stale record starts
+        reopened.append((byte) 1, wrap("appended!"));
+        reopened.close();
+
+        assertEquals(List.of("valid", "appended!"), replay(new SegmentLog(directory, 1024)));
+    }
+
+    @Test
+    public void test_segments_without_retained_records_are_deleted_after_replay() throws Exception {
+        final File directory = temporaryFolder.newFolder();
+        final SegmentLog log = new SegmentLog(directory, 100);
+        for (int i = 0; i < 20; i++) {
+            log.append((byte) 1, wrap(String.format("record%02d", i)));
+        }
+        log.close();
+
+        final SegmentLog reopened = new SegmentLog(directory, 100);
+        reopened.replay((position, type, body) -> {});
+        assertEquals(1, reopened.getSegmentCount());
+        reopened.close();
+    }
+
+    @Test
+    public void test_resume_without_replay() throws Exception {
+        final File directory = temporaryFolder.newFolder();
+        final SegmentLog log = new SegmentLog(directory, 100);
+        final List<Long> positions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            positions.add(log.append((byte) 1, wrap(String.format("record%02d", i))));
+        }
+        final long endPosition = log.getEndPosition();
+        log.close();
+
+        final SegmentLog reopened = new SegmentLog(directory, 100);
+        assertFalse(reopened.resume(positions.get(0)));
+        reopened.retain(positions.get(10));
+        assertTrue(reopened.resume(endPosition));
+        // the head segments without retained records are deleted
+        assertEquals(2, reopened.getSegmentCount());
+        assertEquals("record10", read(reopened.read(positions.get(10))));
+
+        reopened.append((byte) 1, wrap("record20"));
+        reopened.close();
+        final List<String> records = replay(new SegmentLog(directory, 100));
+        assertEquals(11, records.size());
+        assertEquals("record10", records.get(0));
+        assertEquals("record20", records.get(10));
+    }
+
+    private static List<String> replay(final SegmentLog log) {
+        final List<String> records = new ArrayList<>();
+        log.replay((position, type, body) -> {
+            records.add(read(body));
+            log.retain(position);
+        });
+        return records;
+    }
+
+    private static ByteBuffer wrap(final String string) {
+        return ByteBuffer.wrap(string.getBytes(UTF_8));
+    }
+
+    private static String read(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -32,6 +32,7 @@ import com.hivemq.persistence.local.memory.ClientQueueMemoryLocalPersistence.Pub
 import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
 import com.hivemq.persistence.payload.PublishPayloadPersistence;
 import com.hivemq.util.MemoryEstimator;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -1180,6 +1181,114 @@ public class ClientQueueMemoryLocalPersistenceTest {
 
     }
 
+    @Test
+    public void test_qos_0_off_heap_read() {
+        final UnpooledByteBufAllocator allocator = new UnpooledByteBufAllocator(true);
+        final MetricRegistry offHeapMetricRegistry = new MetricRegistry();
+        final ClientQueueMemoryLocalPersistence offHeapPersistence = new ClientQueueMemoryLocalPersistence(
+                payloadPersistence, messageDroppedService, offHeapMetricRegistry, allocator);
+
+        final byte[] payload = RandomStringUtils.randomAlphanumeric(100).getBytes();
+        final PUBLISH publish = createPublish(0, QoS.AT_MOST_ONCE, "topic", 1, payload);
+        offHeapPersistence.add("client", false, publish, 100L, DISCARD, false, 0);
+
+        final Gauge<Long> offHeapGauge = offHeapMetricRegistry.getGauges()
+                .get(HiveMQMetrics.QUEUED_MESSAGES_MEMORY_PERSISTENCE_QOS_0_OFF_HEAP_SIZE.name());
+        assertEquals(100L, offHeapGauge.getValue().longValue());
+        assertEquals(100L, allocator.metric().usedDirectMemory());
+
+        final ImmutableList<PUBLISH> publishes =
+                offHeapPersistence.readNew("client", false, ImmutableIntArray.of(1), 256000, 0);
+        assertEquals(1, publishes.size());
+        final PUBLISH read = publishes.get(0);
+        assertArrayEquals(payload, read.getPayload());
+        assertEquals(publish.getTopic(), read.getTopic());
+        assertEquals(publish.getQoS(), read.getQoS());
+        assertEquals(publish.getPublishId(), read.getPublishId());
+        assertEquals(publish.getTimestamp(), read.getTimestamp());
+        assertNotNull(read.getPayloadBuffer());
+
+        // the queue does not account the payload anymore, the reader releases it once it is written
+        assertEquals(0L, offHeapGauge.getValue().longValue());
+        assertEquals(100L, allocator.metric().usedDirectMemory());
+        read.releasePayloadBuffer();
+        assertEquals(0L, allocator.metric().usedDirectMemory());
+        final Gauge<Long> totalGauge = offHeapMetricRegistry.getGauges()
+                .get(HiveMQMetrics.QUEUED_MESSAGES_MEMORY_PERSISTENCE_TOTAL_SIZE.name());
+        assertEquals(0L, totalGauge.getValue().longValue());
+    }
+
+    @Test
+    public void test_qos_0_off_heap_released_when_dropped() {
+        final UnpooledByteBufAllocator allocator = new UnpooledByteBufAllocator(true);
+        final ClientQueueMemoryLocalPersistence offHeapPersistence = new ClientQueueMemoryLocalPersistence(
+                payloadPersistence, messageDroppedService, new MetricRegistry(), allocator);
+
+        offHeapPersistence.add("client1", false, createPublish(0, QoS.AT_MOST_ONCE, "topic", 2), 100L, DISCARD, false, 0);
+        offHeapPersistence.add("client2", false, createPublish(0, QoS.AT_MOST_ONCE, "topic", 3), 100L, DISCARD, false, 0);
+        offHeapPersistence.add("client3", false,
+                createPublish(0, QoS.AT_MOST_ONCE, 1, System.currentTimeMillis() - 10_000), 100L, DISCARD, false, 0);
+        offHeapPersistence.add("client4", false, createPublish(0, QoS.AT_MOST_ONCE, "topic", 4), 100L, DISCARD, false, 1);
+        assertEquals(4 * "message".length(), allocator.metric().usedDirectMemory());
+
+        offHeapPersistence.removeAllQos0Messages("client1", false, 0);
+        assertEquals(0, offHeapPersistence.qos0Size("client1", false, 0));
+        offHeapPersistence.clear("client2", false, 0);
+        assertTrue(offHeapPersistence.readNew("client3", false, ImmutableIntArray.of(1), 256000, 0).isEmpty());
+        assertEquals("message".length(), allocator.metric().usedDirectMemory());
+
+        offHeapPersistence.closeDB(1);
+        assertEquals(0L, allocator.metric().usedDirectMemory());
+    }
+
+    @Test
+    public void test_qos_0_off_heap_per_client_exceeded() {
+        final UnpooledByteBufAllocator allocator = new UnpooledByteBufAllocator(true);
+        final ClientQueueMemoryLocalPersistence offHeapPersistence = new ClientQueueMemoryLocalPersistence(
+                payloadPersistence, messageDroppedService, new MetricRegistry(), allocator);
+
+        // the payload is accounted with its exact size, two publishes with 600 bytes exceed the 1024 bytes limit
+        for (int i = 0; i < 3; i++) {
+            offHeapPersistence.add("client", false,
+                    createPublish(0, QoS.AT_MOST_ONCE, "topic", i + 1, RandomStringUtils.randomAlphanumeric(600).getBytes()),
+                    100L, DISCARD, false, 0);
+        }
+
+        verify(messageDroppedService).qos0MemoryExceeded(eq("client"), eq("topic"), eq(0), anyLong(), eq(1024L));
+        assertEquals(2, offHeapPersistence.qos0Size("client", false, 0));
+        assertEquals(1200L, allocator.metric().usedDirectMemory());
+    }
+
+    @Test
+    public void test_qos_0_off_heap_shared_by_queues() {
+        final UnpooledByteBufAllocator allocator = new UnpooledByteBufAllocator(true);
+        final MetricRegistry offHeapMetricRegistry = new MetricRegistry();
+        final ClientQueueMemoryLocalPersistence offHeapPersistence = new ClientQueueMemoryLocalPersistence(
+                payloadPersistence, messageDroppedService, offHeapMetricRegistry, allocator);
+
+        final PUBLISH publish = createPublish(0, QoS.AT_MOST_ONCE, "topic");
+        offHeapPersistence.add("client1", false, publish, 100L, DISCARD, false, 0);
+        offHeapPersistence.add("client2", false, publish, 100L, DISCARD, false, 0);
+        offHeapPersistence.add("shared", true, publish, 100L, DISCARD, false, 1);
+
+        final Gauge<Long> offHeapGauge = offHeapMetricRegistry.getGauges()
+                .get(HiveMQMetrics.QUEUED_MESSAGES_MEMORY_PERSISTENCE_QOS_0_OFF_HEAP_SIZE.name());
+        assertEquals("message".length(), offHeapGauge.getValue().longValue());
+        assertEquals("message".length(), allocator.metric().usedDirectMemory());
+
+        final PUBLISH read1 = offHeapPersistence.readNew("client1", false, ImmutableIntArray.of(1), 256000, 0).get(0);
+        final PUBLISH read2 = offHeapPersistence.readNew("client2", false, ImmutableIntArray.of(1), 256000, 0).get(0);
+        final PUBLISH read3 = offHeapPersistence.readNew("shared", true, ImmutableIntArray.of(1), 256000, 1).get(0);
+        assertEquals(0L, offHeapGauge.getValue().longValue());
+
+        read1.releasePayloadBuffer();
+        read2.releasePayloadBuffer();
+        assertArrayEquals("message".getBytes(), read3.getPayload());
+        assertEquals("message".length(), allocator.metric().usedDirectMemory());
+        read3.releasePayloadBuffer();
+        assertEquals(0L, allocator.metric().usedDirectMemory());
+    }
+
     private ImmutableIntArray createPacketIds(final int start, final int size) {
         final ImmutableIntArray.Builder builder = ImmutableIntArray.builder();
         for (int i = start; i < (size + start); i++) {
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.memory;
+
+import com.hivemq.mqtt.message.MessageWithID;
+import com.hivemq.mqtt.message.pubrel.PUBREL;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hivemq.persistence.local.memory.IndexedMessageQueue.NOT_FOUND;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class IndexedMessageQueueTest {
+
+    @Test
+    public void test_add_and_iterate_in_order() {
+        final IndexedMessageQueue queue = new IndexedMessageQueue();
+        final List<MessageWithID> added = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final MessageWithID message = new PUBREL(0);
+            added.add(message);
+            queue.addLast(message);
+        }
+        final PUBREL first = new PUBREL(7);
+        queue.addFirst(first);
+        added.add(0, first);
+
+        assertEquals(101, queue.size());
+        assertEquals(added, contents(queue));
+        assertSame(first, queue.get(queue.find(7)));
+    }
+
+    @Test
+    public void test_find_after_set_packet_id() {
+        final IndexedMessageQueue queue = new IndexedMessageQueue();
+        for (int i = 0; i < 10; i++) {
+            queue.addLast(new PUBREL(0));
+        }
+        queue.setPacketId(queue.head() + 3, 42);
+        assertEquals(queue.head() + 3, queue.find(42));
+        assertEquals(NOT_FOUND, queue.find(43));
+        assertEquals(NOT_FOUND, queue.find(0));
+
+        queue.setPacketId(queue.head() + 3, 0);
+        assertEquals(NOT_FOUND, queue.find(42));
+    }
+
+    @Test
+    public void test_first_unsent() {
+        final IndexedMessageQueue queue = new IndexedMessageQueue();
+        for (int i = 0; i < 10; i++) {
+            queue.addLast(new PUBREL(0));
+        }
+        for (int i = 0; i < 5; i++) {
+            queue.setPacketId(queue.head() + i, i + 1);
+        }
+        queue.setFirstUnsent(queue.head() + 5);
+        assertEquals(queue.head() + 5, queue.firstUnsent());
+
+        // a message which is no longer in-flight moves the cursor back
+        queue.setPacketId(queue.head() + 2, 0);
+        assertEquals(queue.head() + 2, queue.firstUnsent());
+
+        // removing the head never leaves the cursor behind the head
+        queue.setFirstUnsent(queue.head() + 1);
+        queue.remove(queue.find(1));
+        assertEquals(queue.head(), queue.firstUnsent());
+    }
+
+    @Test
+    public void test_remove_and_compact_keeps_index() {
+        final IndexedMessageQueue queue = new IndexedMessageQueue();
+        for (int i = 1; i <= 1000; i++) {
+            queue.addLast(new PUBREL(i));
+        }
+        // remove every message but every 10th, out of order
+        for (int i = 1000; i >= 1; i--) {
+            if (i % 10 != 0) {
+                queue.remove(queue.find(i));
+            }
+        }
+        assertEquals(100, queue.size());
+        // adding compacts the slots
+        queue.addLast(new PUBREL(2000));
+        assertEquals(101, queue.tail() - queue.head());
+
+        for (int i = 10; i <= 1000; i += 10) {
+            assertEquals(i, queue.get(queue.find(i)).getPacketIdentifier());
+        }
+        assertEquals(NOT_FOUND, queue.find(11));
+        assertEquals(2000, queue.get(queue.tail() - 1).getPacketIdentifier());
+    }
+
+    @Test
+    public void test_remove_head_advances_head() {
+        final IndexedMessageQueue queue = new IndexedMessageQueue();
+        for (int i = 1; i <= 5; i++) {
+            queue.addLast(new PUBREL(i));
+        }
+        final long head = queue.head();
+        queue.remove(head + 1);
+        queue.remove(head);
+        assertEquals(head + 2, queue.head());
+        assertNull(queue.get(head));
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    public void test_duplicate_packet_ids() {
+        final IndexedMessageQueue queue = new IndexedMessageQueue();
+        final PUBREL first = new PUBREL(5);
+        final PUBREL second = new PUBREL(5);
+        queue.addLast(first);
+        queue.addLast(new PUBREL(6));
+        queue.addLast(second);
+
+        assertSame(first, queue.get(queue.find(5)));
+        queue.remove(queue.find(5));
+        assertSame(second, queue.get(queue.find(5)));
+        queue.remove(queue.find(5));
+        assertEquals(NOT_FOUND, queue.find(5));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void test_set_replaces_message() {
+        final IndexedMessageQueue queue = new IndexedMessageQueue();
+        queue.addLast(new PUBREL(1));
+        queue.addLast(new PUBREL(2));
+        final PUBREL replacement = new PUBREL(2);
+        queue.set(queue.find(2), replacement);
+        assertSame(replacement, queue.get(queue.find(2)));
+        assertEquals(2, queue.size());
+    }
+
+    private static List<MessageWithID> contents(final IndexedMessageQueue queue) {
+        final List<MessageWithID> contents = new ArrayList<>();
+        for (long position = queue.head(); position < queue.tail(); position++) {
+            final MessageWithID message = queue.get(position);
+            if (message != null) {
+                contents.add(message);
+            }
+        }
+        return contents;
+    }
+}
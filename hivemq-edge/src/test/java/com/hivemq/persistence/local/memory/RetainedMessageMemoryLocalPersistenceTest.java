@@ -26,6 +26,7 @@ import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
 import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
 import com.hivemq.persistence.RetainedMessage;
 import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
+import com.hivemq.persistence.payload.PublishPayloadPersistence;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -33,6 +34,8 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 /**
  * @author Lukas Brandl
@@ -41,11 +44,30 @@ public class RetainedMessageMemoryLocalPersistenceTest {
 
     private @NotNull RetainedMessageMemoryLocalPersistence persistence;
 
+    private @NotNull PublishPayloadPersistence payloadPersistence;
+
     private final int bucketCount = InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get();
 
     @Before
     public void setUp() throws Exception {
-        persistence = new RetainedMessageMemoryLocalPersistence(new MetricRegistry());
+        payloadPersistence = mock(PublishPayloadPersistence.class);
+        persistence = new RetainedMessageMemoryLocalPersistence(new MetricRegistry(), payloadPersistence);
+    }
+
+    @Test
+    public void test_payload_reference_released_on_overwrite_and_remove() {
+        final RetainedMessage first =
+                new RetainedMessage("message1".getBytes(), QoS.AT_MOST_ONCE, 1L, MqttConfigurationDefaults.TTL_DISABLED);
+        final RetainedMessage second =
+                new RetainedMessage("message2".getBytes(), QoS.AT_MOST_ONCE, 2L, MqttConfigurationDefaults.TTL_DISABLED);
+        final int bucket = BucketUtils.getBucket("topic", bucketCount);
+
+        persistence.put(first, "topic", bucket);
+        persistence.put(second, "topic", bucket);
+        verify(payloadPersistence).decrementReferenceCounter(first.getPublishId());
+
+        persistence.remove("topic", bucket);
+        verify(payloadPersistence).decrementReferenceCounter(second.getPublishId());
     }
 
     @Test
@@ -108,6 +130,28 @@ public class RetainedMessageMemoryLocalPersistenceTest {
         assertTrue(allTopics1.contains("topic"));
     }
 
+    @Test
+    public void test_getTopicsChunk_pages_sorted_topics() {
+        for (int i = 0; i < 5; i++) {
+            persistence.put(new RetainedMessage(new byte[]{1, 2, 3}, QoS.AT_MOST_ONCE, (long) i,
+                    MqttConfigurationDefaults.TTL_DISABLED), "topic/" + i, 0);
+        }
+
+        final BucketChunkResult<Set<String>> first = persistence.getTopicsChunk("topic/+", 0, null, 2);
+        assertFalse(first.isFinished());
+        assertEquals(Set.of("topic/0", "topic/1"), first.getValue());
+        assertEquals("topic/1", first.getLastKey());
+
+        final BucketChunkResult<Set<String>> second = persistence.getTopicsChunk("topic/+", 0, first.getLastKey(), 2);
+        assertFalse(second.isFinished());
+        assertEquals(Set.of("topic/2", "topic/3"), second.getValue());
+
+        final BucketChunkResult<Set<String>> third = persistence.getTopicsChunk("topic/+", 0, second.getLastKey(), 2);
+        assertTrue(third.isFinished());
+        assertEquals(Set.of("topic/4"), third.getValue());
+        assertEquals("topic/4", third.getLastKey());
+    }
+
     @Test
     public void decrement_payload_reference_count_remove() {
         persistence.put(
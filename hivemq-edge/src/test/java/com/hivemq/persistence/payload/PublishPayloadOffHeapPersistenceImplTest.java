@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.payload;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.metrics.HiveMQMetrics;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@SuppressWarnings("NullabilityAnnotations")
+public class PublishPayloadOffHeapPersistenceImplTest {
+
+    private PublishPayloadOffHeapPersistenceImpl persistence;
+
+    private MetricRegistry metricRegistry;
+
+    @Before
+    public void setUp() throws Exception {
+        InternalConfigurations.PAYLOAD_PERSISTENCE_REMOVE_DELAY_MSEC.set(1000);
+        metricRegistry = new MetricRegistry();
+        persistence = new PublishPayloadOffHeapPersistenceImpl(mock(ListeningScheduledExecutorService.class),
+                metricRegistry, new UnpooledByteBufAllocator(true));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        persistence.closeDB();
+    }
+
+    @Test
+    public void test_add_get() {
+        assertTrue(persistence.add("payload".getBytes(), 1, 1L));
+        assertArrayEquals("payload".getBytes(), persistence.get(1L));
+        assertEquals(7L, getGaugeValue(HiveMQMetrics.PAYLOAD_PERSISTENCE_OFF_HEAP_TOTAL_SIZE.name()));
+    }
+
+    @Test
+    public void test_payload_is_stored_once() {
+        for (int i = 0; i < 500; i++) {
+            persistence.add("payload".getBytes(), 1, 1L);
+        }
+        assertEquals(500, (int) persistence.getReferenceCountersAsMap().get(1L));
+        assertEquals(7L, getGaugeValue(HiveMQMetrics.PAYLOAD_PERSISTENCE_OFF_HEAP_TOTAL_SIZE.name()));
+        assertEquals(1, getGaugeValue(HiveMQMetrics.PAYLOAD_PERSISTENCE_OFF_HEAP_PAYLOAD_COUNT.name()));
+    }
+
+    @Test
+    public void test_empty_payload() {
+        persistence.add(new byte[0], 1, 1L);
+        assertEquals(0, persistence.get(1L).length);
+    }
+
+    @Test(expected = PayloadPersistenceException.class)
+    public void test_get_unknown() {
+        persistence.get(1L);
+    }
+
+    @Test
+    public void test_unreferenced_payload_is_removed_after_delay() {
+        persistence.add("payload".getBytes(), 2, 1L);
+        persistence.decrementReferenceCounter(1L);
+        persistence.decrementReferenceCounter(1L);
+
+        // still readable right after the last reference was released
+        assertArrayEquals("payload".getBytes(), persistence.get(1L));
+
+        persistence.cleanUp(System.currentTimeMillis());
+        assertArrayEquals("payload".getBytes(), persistence.get(1L));
+
+        persistence.cleanUp(System.currentTimeMillis() + 1000);
+        assertNull(persistence.getPayloadOrNull(1L));
+        assertEquals(0L, getGaugeValue(HiveMQMetrics.PAYLOAD_PERSISTENCE_OFF_HEAP_TOTAL_SIZE.name()));
+    }
+
+    @Test
+    public void test_referenced_again_before_removal() {
+        persistence.add("payload".getBytes(), 1, 1L);
+        persistence.decrementReferenceCounter(1L);
+        persistence.add("payload".getBytes(), 1, 1L);
+
+        persistence.cleanUp(System.currentTimeMillis() + 1000);
+        assertArrayEquals("payload".getBytes(), persistence.get(1L));
+    }
+
+    @Test
+    public void test_decrement_is_not_negative() {
+        persistence.add("payload".getBytes(), 1, 1L);
+        persistence.decrementReferenceCounter(1L);
+        persistence.decrementReferenceCounter(1L);
+        persistence.decrementReferenceCounter(2L);
+
+        assertEquals(0, (int) persistence.getReferenceCountersAsMap().get(1L));
+    }
+
+    @Test
+    public void test_increment_on_bootstrap() {
+        persistence.add("payload".getBytes(), 1, 1L);
+        persistence.incrementReferenceCounterOnBootstrap(1L);
+        persistence.incrementReferenceCounterOnBootstrap(2L);
+
+        assertEquals(2, (int) persistence.getReferenceCountersAsMap().get(1L));
+        assertNull(persistence.getReferenceCountersAsMap().get(2L));
+    }
+
+    @Test
+    public void test_closeDB_releases_payloads() {
+        persistence.add("payload".getBytes(), 1, 1L);
+        persistence.closeDB();
+
+        assertNull(persistence.getPayloadOrNull(1L));
+        assertEquals(0L, getGaugeValue(HiveMQMetrics.PAYLOAD_PERSISTENCE_OFF_HEAP_TOTAL_SIZE.name()));
+    }
+
+    private Number getGaugeValue(final String name) {
+        return (Number) metricRegistry.getGauges().get(name).getValue();
+    }
+}
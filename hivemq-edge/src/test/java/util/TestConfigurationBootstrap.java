@@ -18,6 +18,7 @@ package util;
 import com.hivemq.configuration.service.ApiConfigurationService;
 import com.hivemq.configuration.service.BridgeConfigurationService;
 import com.hivemq.configuration.service.ConfigurationService;
+import com.hivemq.configuration.service.DataGovernanceConfigurationService;
 import com.hivemq.configuration.service.DynamicConfigurationService;
 import com.hivemq.configuration.service.PersistenceConfigurationService;
 import com.hivemq.configuration.service.ProtocolAdapterConfigurationService;
@@ -27,6 +28,7 @@ import com.hivemq.configuration.service.UsageTrackingConfigurationService;
 import com.hivemq.configuration.service.impl.ApiConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.BridgeConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.ConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.DataGovernanceConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.GatewayConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.MqttConfigurationServiceImpl;
 import com.hivemq.configuration.service.impl.MqttsnConfigurationServiceImpl;
@@ -53,6 +55,7 @@ public class TestConfigurationBootstrap {
     private final BridgeConfigurationService bridgeConfigurationService;
     private final ApiConfigurationService apiConfigurationService;
     private final UnsConfigurationService unsConfigurationService;
+    private final DataGovernanceConfigurationService dataGovernanceConfigurationService;
     private final DynamicConfigurationService dynamicConfigurationService;
     private final UsageTrackingConfigurationService usageTrackingConfigurationService;
     private final ProtocolAdapterConfigurationService protocolAdapterConfigurationService;
@@ -67,6 +70,7 @@ public class TestConfigurationBootstrap {
         bridgeConfigurationService = new BridgeConfigurationServiceImpl();
         apiConfigurationService = new ApiConfigurationServiceImpl();
         unsConfigurationService = new UnsConfigurationServiceImpl();
+        dataGovernanceConfigurationService = new DataGovernanceConfigurationServiceImpl();
         dynamicConfigurationService = new GatewayConfigurationServiceImpl();
 
         //-- Ensure usage reporting is disabled during tests
@@ -87,6 +91,7 @@ public class TestConfigurationBootstrap {
                 bridgeConfigurationService,
                 apiConfigurationService,
                 unsConfigurationService,
+                dataGovernanceConfigurationService,
                 dynamicConfigurationService,
                 usageTrackingConfigurationService,
                 protocolAdapterConfigurationService);
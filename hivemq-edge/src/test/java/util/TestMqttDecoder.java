@@ -19,6 +19,7 @@ import com.codahale.metrics.MetricRegistry;
 import com.hivemq.codec.decoder.MQTTMessageDecoder;
 import com.hivemq.codec.decoder.mqtt.MqttConnectDecoder;
 import com.hivemq.codec.decoder.mqtt.MqttDecoders;
+import com.hivemq.codec.decoder.mqtt.TopicInterner;
 import com.hivemq.codec.decoder.MqttPingreqDecoder;
 import com.hivemq.codec.decoder.mqtt.mqtt3.*;
 import com.hivemq.codec.decoder.mqtt.mqtt5.*;
@@ -58,6 +59,7 @@ public class TestMqttDecoder {
         final MqttServerDisconnector disconnector = new MqttServerDisconnectorImpl(eventLog);
         final MqttConnacker mqttConnacker = new MqttConnackerImpl(eventLog);
         final MetricsHolder metricsHolder = new MetricsHolder(new MetricRegistry());
+        final TopicInterner topicInterner = new TopicInterner(new MetricRegistry());
 
         final MqttConnectDecoder mqttConnectDecoder = new MqttConnectDecoder(mqttConnacker,
                 fullConfigurationService,
@@ -68,7 +70,7 @@ public class TestMqttDecoder {
                 mqttConnectDecoder,
                 mqttConnacker, fullConfigurationService.mqttConfiguration(),
                 new MqttDecoders(
-                        new Mqtt3PublishDecoder(hiveMQId, disconnector, fullConfigurationService),
+                        new Mqtt3PublishDecoder(hiveMQId, disconnector, fullConfigurationService, topicInterner),
                         new Mqtt3PubackDecoder(disconnector, fullConfigurationService),
                         new Mqtt3PubrecDecoder(disconnector, fullConfigurationService),
                         new Mqtt3PubcompDecoder(disconnector, fullConfigurationService),
@@ -77,7 +79,7 @@ public class TestMqttDecoder {
                         new Mqtt3SubscribeDecoder(disconnector, fullConfigurationService),
                         new Mqtt3UnsubscribeDecoder(disconnector, fullConfigurationService),
                         new MqttPingreqDecoder(disconnector),
-                        new Mqtt5PublishDecoder(disconnector, hiveMQId, fullConfigurationService, new TopicAliasLimiterImpl()),
+                        new Mqtt5PublishDecoder(disconnector, hiveMQId, fullConfigurationService, new TopicAliasLimiterImpl(), topicInterner),
                         new Mqtt5DisconnectDecoder(disconnector, fullConfigurationService),
                         new Mqtt5SubscribeDecoder(disconnector, fullConfigurationService),
                         new Mqtt5PubackDecoder(disconnector, fullConfigurationService),
@@ -30,9 +30,9 @@ public interface IModbusClient {
 
     Boolean[] readCoils(int startIdx, int count) throws ProtocolAdapterException ;
 
-    Short[] readHoldingRegisters(int startIdx, int count) throws ProtocolAdapterException;
+    short[] readHoldingRegisters(int startIdx, int count) throws ProtocolAdapterException;
 
-    Short[] readInputRegisters(int startIdx, int count) throws ProtocolAdapterException;
+    short[] readInputRegisters(int startIdx, int count) throws ProtocolAdapterException;
 
     boolean disconnect() throws ProtocolAdapterException ;
 }
@@ -17,7 +17,9 @@ package com.hivemq.edge.adapters.modbus;
 
 import com.codahale.metrics.MetricRegistry;
 import com.hivemq.edge.adapters.modbus.impl.ModbusClient;
+import com.hivemq.edge.adapters.modbus.impl.ModbusReadPlan;
 import com.hivemq.edge.adapters.modbus.model.ModBusData;
+import com.hivemq.edge.modules.adapters.ProtocolAdapterException;
 import com.hivemq.edge.modules.adapters.impl.AbstractPollingPerSubscriptionAdapter;
 import com.hivemq.edge.modules.adapters.model.NodeTree;
 import com.hivemq.edge.modules.adapters.model.NodeType;
@@ -33,16 +35,18 @@ import com.hivemq.mqtt.handler.publish.PublishReturnCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
 public class ModbusProtocolAdapter extends AbstractPollingPerSubscriptionAdapter<ModbusAdapterConfig, ModBusData> {
     private static final Logger log = LoggerFactory.getLogger(ModbusProtocolAdapter.class);
     private final @NotNull Object lock = new Object();
     private volatile @Nullable IModbusClient modbusClient;
-    private @Nullable Map<ModBusData.TYPE, ModBusData> lastSamples = new HashMap<>();
+    private final @NotNull Map<String, ModBusData> lastSamples = new HashMap<>();
 
     public ModbusProtocolAdapter(
             final @NotNull ProtocolAdapterInformation adapterInformation,
@@ -77,8 +81,14 @@ public class ModbusProtocolAdapter extends AbstractPollingPerSubscriptionAdapter
 
     protected void subscribeAllInternal(@NotNull final IModbusClient client) throws RuntimeException {
         if (adapterConfig.getSubscriptions() != null) {
-            for (ModbusAdapterConfig.Subscription subscription : adapterConfig.getSubscriptions()) {
-                subscribeInternal(client, subscription);
+            //-- All subscriptions share the polling interval of the adapter, so their registers are read together
+            final ModbusReadPlan readPlan = ModbusReadPlan.create(adapterConfig.getSubscriptions());
+            if (readPlan.getBlockCount() > 0) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Reading registers of {} subscription(s) with {} request(s) per poll",
+                            readPlan.getSubscriptions().size(), readPlan.getBlockCount());
+                }
+                startPolling(new RegisterBlockSampler(this.adapterConfig, readPlan));
             }
         }
     }
@@ -108,18 +118,31 @@ public class ModbusProtocolAdapter extends AbstractPollingPerSubscriptionAdapter
 
     @Override
     protected CompletableFuture<PublishReturnCode> captureDataSample(@NotNull final ModBusData data) {
-        boolean publishData = true;
+        if (hasChanged(data)) {
+            return super.captureDataSample(data);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    protected CompletableFuture<List<PublishReturnCode>> captureDataSamples(@NotNull final List<ModBusData> samples) {
+        final List<ModBusData> changedSamples = new ArrayList<>(samples.size());
+        for (ModBusData sample : samples) {
+            if (hasChanged(sample)) {
+                changedSamples.add(sample);
+            }
+        }
+        return super.captureDataSamples(changedSamples);
+    }
+
+    private boolean hasChanged(@NotNull final ModBusData data) {
         if (adapterConfig.getPublishChangedDataOnly()) {
-            ModBusData previousSample = lastSamples.put(data.getType(), data);
+            ModBusData previousSample = lastSamples.put(data.getTopic(), data);
             if (previousSample != null) {
-                Object[][] objects = (Object[][]) previousSample.getData();
-                publishData = !Arrays.deepEquals(objects, (Object[][]) data.getData());
+                return !Objects.equals(previousSample.getData(), data.getData());
             }
         }
-        if (publishData) {
-            return super.captureDataSample(data);
-        }
-        return CompletableFuture.completedFuture(null);
+        return true;
     }
 
 
@@ -161,11 +184,57 @@ public class ModbusProtocolAdapter extends AbstractPollingPerSubscriptionAdapter
         }
     }
 
+    protected CompletableFuture<List<ModBusData>> onRegisterBlocksSamplerInvoked(final @NotNull ModbusReadPlan readPlan) {
+        try {
+            if(modbusClient != null){
+                if (!modbusClient.isConnected()) {
+                    modbusClient.connect().thenRun(() ->
+                                setConnectionStatus(ConnectionStatus.CONNECTED)).get();
+                }
+                return CompletableFuture.supplyAsync(() -> readRegisterBlocks(readPlan));
+            } else {
+                return CompletableFuture.failedFuture(new IllegalStateException("client not initialised"));
+            }
+        } catch(Exception e){
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Reads all blocks of the plan and hands out the registers of each subscription as a sample.
+     */
+    protected List<ModBusData> readRegisterBlocks(@NotNull final ModbusReadPlan readPlan) {
+        try {
+            final short[][] blocks = new short[readPlan.getBlockCount()][];
+            for (int block = 0; block < blocks.length; block++) {
+                final int count = readPlan.getBlockRegisterCount(block);
+                blocks[block] = modbusClient.readHoldingRegisters(readPlan.getBlockStart(block), count);
+                if (blocks[block].length < count) {
+                    throw new ProtocolAdapterException(String.format(
+                            "Device returned %d instead of %d registers starting at %d",
+                            blocks[block].length, count, readPlan.getBlockStart(block)));
+                }
+            }
+            final List<ModbusAdapterConfig.Subscription> subscriptions = readPlan.getSubscriptions();
+            final List<ModBusData> samples = new ArrayList<>(subscriptions.size());
+            for (int i = 0; i < subscriptions.size(); i++) {
+                final ModbusAdapterConfig.Subscription subscription = subscriptions.get(i);
+                final ModBusData data = new ModBusData(null, subscription.getDestination(), subscription.getQos(),
+                        ModBusData.TYPE.HOLDING_REGISTERS);
+                data.setData(subscription.getAddressRange().startIdx, readPlan.valuesOf(i, blocks));
+                samples.add(data);
+            }
+            return samples;
+        } catch(Exception e){
+            throw new RuntimeException(e);
+        }
+    }
+
     protected ModBusData readRegisters(@NotNull final AbstractProtocolAdapterConfig.Subscription sub) {
         try {
             ModbusAdapterConfig.Subscription subscription = (ModbusAdapterConfig.Subscription) sub;
             ModbusAdapterConfig.AddressRange addressRange = subscription.getAddressRange();
-            Short[] registers = modbusClient.readHoldingRegisters(addressRange.startIdx,
+            short[] registers = modbusClient.readHoldingRegisters(addressRange.startIdx,
                     addressRange.endIdx - addressRange.startIdx);
             ModBusData data = new ModBusData(null,subscription.getDestination(), subscription.getQos(),
                     ModBusData.TYPE.HOLDING_REGISTERS);
@@ -192,4 +261,28 @@ public class ModbusProtocolAdapter extends AbstractPollingPerSubscriptionAdapter
             }
         }
     }
+
+    /**
+     * Samples the registers of all subscriptions with the block reads of a {@link ModbusReadPlan}.
+     */
+    protected class RegisterBlockSampler extends Sampler {
+
+        protected final @NotNull ModbusReadPlan readPlan;
+
+        public RegisterBlockSampler(final @NotNull ModbusAdapterConfig config, final @NotNull ModbusReadPlan readPlan) {
+            super(config);
+            this.readPlan = readPlan;
+        }
+
+        @Override
+        public CompletableFuture<ModBusData> execute() {
+            if(Thread.currentThread().isInterrupted()){
+                return CompletableFuture.failedFuture(new InterruptedException());
+            }
+            return onRegisterBlocksSamplerInvoked(readPlan).thenApply(samples -> {
+                captureDataSamples(samples);
+                return null;
+            });
+        }
+    }
 }
@@ -109,57 +109,56 @@ public class ModbusClient implements IModbusClient {
     }
 
     @Override
-    public Short[] readHoldingRegisters(int startIdx, int count) throws ProtocolAdapterException {
+    public short[] readHoldingRegisters(int startIdx, int count) throws ProtocolAdapterException {
         try {
             ModbusTcpMaster client = getOrCreateClient();
-            CompletableFuture<ReadHoldingRegistersResponse> future =
-                    client.sendRequest(new ReadHoldingRegistersRequest(startIdx, Math.min(count, 125)), 0);
-            Short[] val = new Short[count];
-            future.thenAccept(response -> {
+            CompletableFuture<ReadHoldingRegistersResponse> future = client.sendRequest(
+                    new ReadHoldingRegistersRequest(startIdx, Math.min(count, ModbusReadPlan.MAX_REGISTERS_PER_READ)), 0);
+            return future.thenApply(response -> {
                 try {
-                    ByteBuf buf = response.getRegisters();
-                    //2 bytes per register BE
-                    int idx = 0;
-                    while (buf.isReadable()) {
-                        val[idx++] = buf.readShort();
-                    }
+                    return readRegisters(response.getRegisters());
                 } finally {
                     ReferenceCountUtil.release(response);
                 }
             }).get();
-            return val;
         } catch (Exception e) {
             throw new ProtocolAdapterException(e);
         }
     }
 
     @Override
-    public Short[] readInputRegisters(int startIdx, int count) throws ProtocolAdapterException {
+    public short[] readInputRegisters(int startIdx, int count) throws ProtocolAdapterException {
 
         try {
             ModbusTcpMaster client = getOrCreateClient();
-            CompletableFuture<ModbusResponse> future =
-                    client.sendRequest(new ReadInputRegistersRequest(startIdx, Math.min(count, 125)), 0);
-            Short[] val = new Short[count];
-            future.thenAccept(response -> {
+            CompletableFuture<ModbusResponse> future = client.sendRequest(
+                    new ReadInputRegistersRequest(startIdx, Math.min(count, ModbusReadPlan.MAX_REGISTERS_PER_READ)), 0);
+            return future.thenApply(response -> {
                 try {
-                    ReadInputRegistersResponse coilsResponse = (ReadInputRegistersResponse) response;
-                    ByteBuf buf = coilsResponse.getRegisters();
-                    //2 bytes per register BE
-                    int idx = 0;
-                    while (buf.isReadable()) {
-                        val[idx++] = buf.readShort();
-                    }
+                    ReadInputRegistersResponse registersResponse = (ReadInputRegistersResponse) response;
+                    return readRegisters(registersResponse.getRegisters());
                 } finally {
                     ReferenceCountUtil.release(response);
                 }
             }).get();
-            return val;
         } catch (Exception e) {
             throw new ProtocolAdapterException(e);
         }
     }
 
+    /**
+     * Copies the registers (2 bytes per register, big endian) of a response into a primitive array, the buffer is
+     * released with the response.
+     */
+    private static short[] readRegisters(final @NotNull ByteBuf buf) {
+        final short[] val = new short[buf.readableBytes() / 2];
+        final int readerIndex = buf.readerIndex();
+        for (int idx = 0; idx < val.length; idx++) {
+            val[idx] = buf.getShort(readerIndex + idx * 2);
+        }
+        return val;
+    }
+
     @Override
     public boolean disconnect() {
         //-- If the client is manually disconnected before connection established ensure we still call into the client
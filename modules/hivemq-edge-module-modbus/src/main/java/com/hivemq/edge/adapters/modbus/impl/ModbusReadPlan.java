@@ -0,0 +1,175 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.modbus.impl;
+
+import com.hivemq.edge.adapters.modbus.ModbusAdapterConfig;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plans the register reads for a set of subscriptions. Overlapping and adjacent address ranges are merged and the
+ * merged ranges are split into the fewest blocks that fit into a single Modbus read request, so every register is read
+ * at most once per polling tick.
+ * <p>
+ * The plan is computed once, copying the values of a subscription out of the blocks of a tick does not need to search
+ * for the blocks again.
+ */
+public class ModbusReadPlan {
+
+    /**
+     * The maximum amount of registers a single Read Holding Registers request can return.
+     */
+    public static final int MAX_REGISTERS_PER_READ = 125;
+
+    private final @NotNull List<ModbusAdapterConfig.Subscription> subscriptions;
+    private final int @NotNull [] blockStarts;
+    private final int @NotNull [] blockCounts;
+    /* per subscription: {block index, offset in block, offset in subscription, count} for each block it spans */
+    private final int @NotNull [] @NotNull [] segments;
+
+    private ModbusReadPlan(
+            final @NotNull List<ModbusAdapterConfig.Subscription> subscriptions,
+            final int @NotNull [] blockStarts,
+            final int @NotNull [] blockCounts,
+            final int @NotNull [] @NotNull [] segments) {
+        this.subscriptions = subscriptions;
+        this.blockStarts = blockStarts;
+        this.blockCounts = blockCounts;
+        this.segments = segments;
+    }
+
+    public static @NotNull ModbusReadPlan create(final @NotNull List<ModbusAdapterConfig.Subscription> subscriptions) {
+        return create(subscriptions, MAX_REGISTERS_PER_READ);
+    }
+
+    public static @NotNull ModbusReadPlan create(
+            final @NotNull List<ModbusAdapterConfig.Subscription> subscriptions, final int maxRegistersPerRead) {
+
+        final List<ModbusAdapterConfig.Subscription> readable = new ArrayList<>(subscriptions.size());
+        for (final ModbusAdapterConfig.Subscription subscription : subscriptions) {
+            final ModbusAdapterConfig.AddressRange range = subscription.getAddressRange();
+            if (range != null && range.endIdx > range.startIdx) {
+                readable.add(subscription);
+            }
+        }
+
+        //-- merge the overlapping and adjacent ranges
+        final int[][] ranges = new int[readable.size()][];
+        for (int i = 0; i < ranges.length; i++) {
+            final ModbusAdapterConfig.AddressRange range = readable.get(i).getAddressRange();
+            ranges[i] = new int[]{range.startIdx, range.endIdx};
+        }
+        Arrays.sort(ranges, (a, b) -> Integer.compare(a[0], b[0]));
+        final List<int[]> merged = new ArrayList<>();
+        for (final int[] range : ranges) {
+            final int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1]) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(new int[]{range[0], range[1]});
+            }
+        }
+
+        //-- split the merged ranges into blocks that fit into a single read
+        final List<int[]> blocks = new ArrayList<>();
+        for (final int[] range : merged) {
+            for (int start = range[0]; start < range[1]; start += maxRegistersPerRead) {
+                blocks.add(new int[]{start, Math.min(maxRegistersPerRead, range[1] - start)});
+            }
+        }
+        final int[] blockStarts = new int[blocks.size()];
+        final int[] blockCounts = new int[blocks.size()];
+        for (int i = 0; i < blockStarts.length; i++) {
+            blockStarts[i] = blocks.get(i)[0];
+            blockCounts[i] = blocks.get(i)[1];
+        }
+
+        final int[][] segments = new int[readable.size()][];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = segmentsFor(readable.get(i).getAddressRange(), blockStarts, blockCounts);
+        }
+        return new ModbusReadPlan(List.copyOf(readable), blockStarts, blockCounts, segments);
+    }
+
+    private static int @NotNull [] segmentsFor(
+            final @NotNull ModbusAdapterConfig.AddressRange range,
+            final int @NotNull [] blockStarts,
+            final int @NotNull [] blockCounts) {
+        int first = Arrays.binarySearch(blockStarts, range.startIdx);
+        if (first < 0) {
+            //-- the range starts inside the block before the insertion point
+            first = -first - 2;
+        }
+        final List<Integer> segments = new ArrayList<>();
+        for (int block = first; block < blockStarts.length && blockStarts[block] < range.endIdx; block++) {
+            final int from = Math.max(range.startIdx, blockStarts[block]);
+            final int to = Math.min(range.endIdx, blockStarts[block] + blockCounts[block]);
+            segments.add(block);
+            segments.add(from - blockStarts[block]);
+            segments.add(from - range.startIdx);
+            segments.add(to - from);
+        }
+        final int[] result = new int[segments.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = segments.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return the subscriptions with a readable address range, in the order the values are returned by
+     *         {@link #valuesOf(int, short[][])}
+     */
+    public @NotNull List<ModbusAdapterConfig.Subscription> getSubscriptions() {
+        return subscriptions;
+    }
+
+    public int getBlockCount() {
+        return blockStarts.length;
+    }
+
+    public int getBlockStart(final int block) {
+        return blockStarts[block];
+    }
+
+    public int getBlockRegisterCount(final int block) {
+        return blockCounts[block];
+    }
+
+    /**
+     * Copies the registers of a subscription out of the blocks read in a tick.
+     *
+     * @param subscription the index of the subscription in {@link #getSubscriptions()}
+     * @param blocks       the registers read for each block, in block order
+     * @return the registers of the address range of the subscription
+     */
+    public short @NotNull [] valuesOf(final int subscription, final short @NotNull [] @NotNull [] blocks) {
+        final ModbusAdapterConfig.AddressRange range = subscriptions.get(subscription).getAddressRange();
+        final short[] values = new short[range.endIdx - range.startIdx];
+        final int[] subscriptionSegments = segments[subscription];
+        for (int i = 0; i < subscriptionSegments.length; i += 4) {
+            System.arraycopy(blocks[subscriptionSegments[i]],
+                    subscriptionSegments[i + 1],
+                    values,
+                    subscriptionSegments[i + 2],
+                    subscriptionSegments[i + 3]);
+        }
+        return values;
+    }
+}
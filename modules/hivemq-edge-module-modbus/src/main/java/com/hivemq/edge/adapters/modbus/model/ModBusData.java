@@ -19,8 +19,6 @@ import com.hivemq.edge.modules.adapters.data.ProtocolAdapterDataSample;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.mqtt.message.QoS;
 
-import java.util.Arrays;
-
 /**
  * @author Simon L Johnson
  */
@@ -43,12 +41,7 @@ public class ModBusData extends ProtocolAdapterDataSample {
         return type;
     }
 
-    public void setData(int startIdx, Object[] data) {
-        Object[][] arr = new Object[data.length][2];
-        for(int i = 0; i < data.length; i++){
-            arr[i][0] = startIdx + i;
-            arr[i][1] = data[i];
-        }
-        this.data = arr;
+    public void setData(int startIdx, short[] data) {
+        this.data = new ModBusRegisters(startIdx, data);
     }
 }
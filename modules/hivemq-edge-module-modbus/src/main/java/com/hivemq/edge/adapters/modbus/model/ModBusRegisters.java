@@ -0,0 +1,89 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.modbus.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The values of a consecutive range of registers. The values are kept as primitives and are written directly as
+ * {@code [[address, value], ...]} pairs when the sample is serialized to JSON.
+ */
+@JsonSerialize(using = ModBusRegisters.Serializer.class)
+public class ModBusRegisters {
+
+    private final int startIdx;
+    private final short @NotNull [] values;
+
+    public ModBusRegisters(final int startIdx, final short @NotNull [] values) {
+        this.startIdx = startIdx;
+        this.values = values;
+    }
+
+    public int getStartIdx() {
+        return startIdx;
+    }
+
+    public short @NotNull [] getValues() {
+        return values;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ModBusRegisters that = (ModBusRegisters) o;
+        return startIdx == that.startIdx && Arrays.equals(values, that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * startIdx + Arrays.hashCode(values);
+    }
+
+    public static class Serializer extends StdSerializer<ModBusRegisters> {
+
+        public Serializer() {
+            super(ModBusRegisters.class);
+        }
+
+        @Override
+        public void serialize(
+                final @NotNull ModBusRegisters registers,
+                final @NotNull JsonGenerator gen,
+                final @NotNull SerializerProvider provider) throws IOException {
+            final short[] values = registers.values;
+            gen.writeStartArray(registers, values.length);
+            for (int i = 0; i < values.length; i++) {
+                gen.writeStartArray(null, 2);
+                gen.writeNumber(registers.startIdx + i);
+                gen.writeNumber(values[i]);
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
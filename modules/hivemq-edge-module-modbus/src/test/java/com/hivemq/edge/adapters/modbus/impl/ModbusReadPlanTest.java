@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.modbus.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hivemq.edge.adapters.modbus.ModbusAdapterConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ModbusReadPlanTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void create_overlappingAndAdjacentRanges_mergedIntoOneBlock() {
+        final ModbusReadPlan plan =
+                ModbusReadPlan.create(List.of(subscription(0, 10), subscription(5, 20), subscription(20, 30)));
+
+        assertEquals(1, plan.getBlockCount());
+        assertEquals(0, plan.getBlockStart(0));
+        assertEquals(30, plan.getBlockRegisterCount(0));
+    }
+
+    @Test
+    void create_rangesWithGap_separateBlocks() {
+        final ModbusReadPlan plan = ModbusReadPlan.create(List.of(subscription(100, 110), subscription(0, 10)));
+
+        assertEquals(2, plan.getBlockCount());
+        assertEquals(0, plan.getBlockStart(0));
+        assertEquals(10, plan.getBlockRegisterCount(0));
+        assertEquals(100, plan.getBlockStart(1));
+        assertEquals(10, plan.getBlockRegisterCount(1));
+    }
+
+    @Test
+    void create_rangeLargerThanMaximum_splitIntoFewestBlocks() {
+        final ModbusReadPlan plan = ModbusReadPlan.create(List.of(subscription(0, 300)));
+
+        assertEquals(3, plan.getBlockCount());
+        assertEquals(0, plan.getBlockStart(0));
+        assertEquals(ModbusReadPlan.MAX_REGISTERS_PER_READ, plan.getBlockRegisterCount(0));
+        assertEquals(125, plan.getBlockStart(1));
+        assertEquals(ModbusReadPlan.MAX_REGISTERS_PER_READ, plan.getBlockRegisterCount(1));
+        assertEquals(250, plan.getBlockStart(2));
+        assertEquals(50, plan.getBlockRegisterCount(2));
+    }
+
+    @Test
+    void create_emptyRange_ignored() {
+        final ModbusReadPlan plan = ModbusReadPlan.create(List.of(subscription(5, 5), subscription(0, 2)));
+
+        assertEquals(1, plan.getBlockCount());
+        assertEquals(1, plan.getSubscriptions().size());
+    }
+
+    @Test
+    void valuesOf_rangeSpanningBlocks_copiedInOrder() {
+        final ModbusReadPlan plan = ModbusReadPlan.create(List.of(subscription(2, 6), subscription(0, 8)), 4);
+        final short[][] blocks = {{0, 1, 2, 3}, {4, 5, 6, 7}};
+
+        assertEquals(2, plan.getBlockCount());
+        assertArrayEquals(new short[]{2, 3, 4, 5}, plan.valuesOf(0, blocks));
+        assertArrayEquals(new short[]{0, 1, 2, 3, 4, 5, 6, 7}, plan.valuesOf(1, blocks));
+    }
+
+    private static ModbusAdapterConfig.Subscription subscription(final int startIdx, final int endIdx) {
+        return MAPPER.convertValue(Map.of("destination",
+                "registers/" + startIdx,
+                "addressRange",
+                Map.of("startIdx", startIdx, "endIdx", endIdx)), ModbusAdapterConfig.Subscription.class);
+    }
+}
@@ -39,23 +39,23 @@ import org.eclipse.milo.opcua.sdk.client.SessionActivityListener;
 import org.eclipse.milo.opcua.sdk.client.api.ServiceFaultListener;
 import org.eclipse.milo.opcua.sdk.client.api.UaSession;
 import org.eclipse.milo.opcua.sdk.client.dtd.DataTypeDictionarySessionInitializer;
-import org.eclipse.milo.opcua.stack.core.AttributeId;
 import org.eclipse.milo.opcua.stack.core.Identifiers;
 import org.eclipse.milo.opcua.stack.core.UaException;
 import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
 import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
-import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.BrowseDirection;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.BrowseResultMask;
 import org.eclipse.milo.opcua.stack.core.types.structured.BrowseDescription;
 import org.eclipse.milo.opcua.stack.core.types.structured.BrowseResult;
-import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
 import org.eclipse.milo.opcua.stack.core.types.structured.ReferenceDescription;
 import org.eclipse.milo.opcua.stack.core.types.structured.ServiceFault;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -70,7 +70,8 @@ import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.
 public class OpcUaProtocolAdapter extends AbstractProtocolAdapter<OpcUaAdapterConfig> {
     private static final Logger log = LoggerFactory.getLogger(OpcUaProtocolAdapter.class);
     private @Nullable OpcUaClient opcUaClient;
-    private final @NotNull Map<UInteger, OpcUaAdapterConfig.Subscription> subscriptionMap = new ConcurrentHashMap<>();
+    private final @NotNull Map<UInteger, List<OpcUaAdapterConfig.Subscription>> subscriptionMap =
+            new ConcurrentHashMap<>();
 
     public OpcUaProtocolAdapter(
             final @NotNull ProtocolAdapterInformation adapterInformation,
@@ -170,14 +171,16 @@ public class OpcUaProtocolAdapter extends AbstractProtocolAdapter<OpcUaAdapterCo
     @NotNull
     private OpcUaSubscriptionListener createSubscriptionListener() {
         return new OpcUaSubscriptionListener(protocolAdapterMetricsHelper, adapterConfig.getId(), (subscription) -> {
-            //re-create a subscription on failure
-            final OpcUaAdapterConfig.Subscription subscriptionConfig =
-                    subscriptionMap.get(subscription.getSubscriptionId());
-            if (subscriptionConfig != null) {
+            //re-create a subscription with all of its monitored items on failure
+            final List<OpcUaAdapterConfig.Subscription> subscriptionConfigs =
+                    subscriptionMap.remove(subscription.getSubscriptionId());
+            if (subscriptionConfigs != null) {
                 try {
-                    subscribeToNode(subscriptionConfig).get();
+                    subscribeToNodes(subscriptionConfigs.get(0).getPublishingInterval(), subscriptionConfigs).get();
                 } catch (InterruptedException | ExecutionException e) {
-                    log.error("Not able to recreate OPC-UA subscription after transfer failure", e);
+                    log.error("Not able to recreate OPC-UA subscription with {} monitored items after transfer failure",
+                            subscriptionConfigs.size(),
+                            e);
                 }
             }
         });
@@ -192,9 +195,10 @@ public class OpcUaProtocolAdapter extends AbstractProtocolAdapter<OpcUaAdapterCo
         final CompletableFuture<Void> resultFuture = new CompletableFuture<>();
         final ImmutableList.Builder<CompletableFuture<Void>> subscribeFutures = ImmutableList.builder();
 
-        for (OpcUaAdapterConfig.Subscription subscription : adapterConfig.getSubscriptions()) {
-            subscribeFutures.add(subscribeToNode(subscription));
-        }
+        //-- one subscription on the server per publishing interval, the nodes are added as monitored items
+        groupByPublishingInterval(adapterConfig.getSubscriptions()).forEach((publishingInterval, subscriptions) -> {
+            subscribeFutures.add(subscribeToNodes(publishingInterval, subscriptions));
+        });
 
         CompletableFuture.allOf(subscribeFutures.build().toArray(new CompletableFuture[]{})).thenApply(unused -> {
             resultFuture.complete(null);
@@ -236,29 +240,37 @@ public class OpcUaProtocolAdapter extends AbstractProtocolAdapter<OpcUaAdapterCo
         setRuntimeStatus(RuntimeStatus.STARTED);
     }
 
-    private @NotNull CompletableFuture<Void> subscribeToNode(final @NotNull OpcUaAdapterConfig.Subscription subscription) {
+    static @NotNull Map<Integer, List<OpcUaAdapterConfig.Subscription>> groupByPublishingInterval(
+            final @NotNull List<OpcUaAdapterConfig.Subscription> subscriptions) {
+        final Map<Integer, List<OpcUaAdapterConfig.Subscription>> groups = new LinkedHashMap<>();
+        for (OpcUaAdapterConfig.Subscription subscription : subscriptions) {
+            groups.computeIfAbsent(subscription.getPublishingInterval(), interval -> new ArrayList<>())
+                    .add(subscription);
+        }
+        return groups;
+    }
+
+    private @NotNull CompletableFuture<Void> subscribeToNodes(
+            final double publishingInterval, final @NotNull List<OpcUaAdapterConfig.Subscription> subscriptions) {
         try {
 
             final CompletableFuture<Void> resultFuture = new CompletableFuture<>();
 
-            ReadValueId readValueId = new ReadValueId(NodeId.parse(subscription.getNode()),
-                    AttributeId.Value.uid(),
-                    null,
-                    QualifiedName.NULL_VALUE);
-
             Objects.requireNonNull(opcUaClient)
                     .getSubscriptionManager()
-                    .createSubscription(subscription.getPublishingInterval())
-                    .thenAccept(new OpcUaSubscriptionConsumer(subscription,
-                            readValueId,
+                    .createSubscription(publishingInterval)
+                    .thenAccept(new OpcUaSubscriptionConsumer(subscriptions,
                             adapterPublishService,
                             eventService,
                             resultFuture,
                             opcUaClient,
                             subscriptionMap,
                             protocolAdapterMetricsHelper,
-                            adapterConfig.getId()));
-
+                            adapterConfig.getId()))
+                    .exceptionally(throwable -> {
+                        resultFuture.completeExceptionally(throwable);
+                        return null;
+                    });
 
             return resultFuture;
         } catch (Exception e) {
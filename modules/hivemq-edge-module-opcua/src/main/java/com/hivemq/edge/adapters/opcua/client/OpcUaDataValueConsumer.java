@@ -27,7 +27,6 @@ import com.hivemq.edge.modules.api.events.EventUtils;
 import com.hivemq.edge.modules.api.events.model.Event;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.mqtt.handler.publish.PublishReturnCode;
-import com.hivemq.util.Bytes;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
 import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
@@ -131,15 +130,15 @@ public class OpcUaDataValueConsumer implements Consumer<DataValue> {
         }
 
         if (payloadMode == null) {
-            return Bytes.fromReadOnlyBuffer(OpcUaJsonPayloadConverter.convertPayload(opcUaClient, dataValue));
+            return OpcUaJsonPayloadConverter.convertPayload(opcUaClient, dataValue);
         }
         //option to choose different encoding types here -> string vs. json ...
         switch (payloadMode) {
             case STRING:
-                return Bytes.fromReadOnlyBuffer(OpcUaStringPayloadConverter.convertPayload(dataValue));
+                return OpcUaStringPayloadConverter.convertPayload(dataValue);
             case JSON:
             default:
-                return Bytes.fromReadOnlyBuffer(OpcUaJsonPayloadConverter.convertPayload(opcUaClient, dataValue));
+                return OpcUaJsonPayloadConverter.convertPayload(opcUaClient, dataValue);
         }
     }
 }
@@ -25,6 +25,9 @@ import com.hivemq.extension.sdk.api.annotations.Nullable;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
 import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
@@ -34,6 +37,7 @@ import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -41,31 +45,39 @@ import java.util.function.Consumer;
 
 import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
 
+/**
+ * Creates the monitored items for all configured subscriptions that share the publishing interval of an
+ * {@link UaSubscription}. The items are created in batches, so a large number of nodes needs only a few requests and a
+ * single subscription on the server.
+ */
 public class OpcUaSubscriptionConsumer implements Consumer<UaSubscription> {
     private static final Logger log = LoggerFactory.getLogger(OpcUaSubscriptionConsumer.class);
 
-    private final @NotNull OpcUaAdapterConfig.@NotNull Subscription subscription;
-    private final @NotNull ReadValueId readValueId;
+    /**
+     * The maximum amount of monitored items per CreateMonitoredItems request, servers commonly limit the operations
+     * per call to a value in this range.
+     */
+    public static final int MAX_MONITORED_ITEMS_PER_REQUEST = 500;
+
+    private final @NotNull List<OpcUaAdapterConfig.Subscription> subscriptions;
     private final @NotNull ProtocolAdapterPublishService adapterPublishService;
     private final @NotNull EventService eventService;
     private final @NotNull CompletableFuture<Void> resultFuture;
     private final @NotNull OpcUaClient opcUaClient;
-    private final @NotNull Map<UInteger, OpcUaAdapterConfig.Subscription> subscriptionMap;
+    private final @NotNull Map<UInteger, List<OpcUaAdapterConfig.Subscription>> subscriptionMap;
     private final @NotNull ProtocolAdapterMetricsHelper metricsHelper;
     private final @NotNull String adapterId;
 
     public OpcUaSubscriptionConsumer(
-            final @NotNull OpcUaAdapterConfig.Subscription subscription,
-            final @NotNull ReadValueId readValueId,
+            final @NotNull List<OpcUaAdapterConfig.Subscription> subscriptions,
             final @NotNull ProtocolAdapterPublishService adapterPublishService,
             final @Nullable EventService eventService,
             final @NotNull CompletableFuture<Void> resultFuture,
             final @NotNull OpcUaClient opcUaClient,
-            final @NotNull Map<UInteger, OpcUaAdapterConfig.Subscription> subscriptionMap,
+            final @NotNull Map<UInteger, List<OpcUaAdapterConfig.Subscription>> subscriptionMap,
             final @NotNull ProtocolAdapterMetricsHelper metricsHelper,
             final @NotNull String adapterId) {
-        this.subscription = subscription;
-        this.readValueId = readValueId;
+        this.subscriptions = subscriptions;
         this.adapterPublishService = adapterPublishService;
         this.eventService = eventService;
         this.resultFuture = resultFuture;
@@ -78,30 +90,56 @@ public class OpcUaSubscriptionConsumer implements Consumer<UaSubscription> {
     @Override
     public void accept(final UaSubscription uaSubscription) {
 
-        subscriptionMap.put(uaSubscription.getSubscriptionId(), subscription);
-        // create a new client handle, these have to be unique for each handle.
-        UInteger clientHandle = uaSubscription.nextClientHandle();
+        subscriptionMap.put(uaSubscription.getSubscriptionId(), subscriptions);
+
+        //-- create the batches one after another, so we do not flood the server with requests
+        CompletableFuture<Void> batchesFuture = CompletableFuture.completedFuture(null);
+        for (int from = 0; from < subscriptions.size(); from += MAX_MONITORED_ITEMS_PER_REQUEST) {
+            final List<OpcUaAdapterConfig.Subscription> batch =
+                    subscriptions.subList(from, Math.min(from + MAX_MONITORED_ITEMS_PER_REQUEST, subscriptions.size()));
+            batchesFuture = batchesFuture.thenCompose(unused -> createMonitoredItems(uaSubscription, batch));
+        }
+        batchesFuture.thenAccept(unused -> resultFuture.complete(null)).exceptionally(monitorThrowable -> {
+            resultFuture.completeExceptionally(monitorThrowable);
+            return null;
+        });
+    }
+
+    private @NotNull CompletableFuture<Void> createMonitoredItems(
+            final @NotNull UaSubscription uaSubscription, final @NotNull List<OpcUaAdapterConfig.Subscription> batch) {
+
+        final List<MonitoredItemCreateRequest> requests = new ArrayList<>(batch.size());
+        for (final OpcUaAdapterConfig.Subscription subscription : batch) {
+            final ReadValueId readValueId = new ReadValueId(NodeId.parse(subscription.getNode()),
+                    AttributeId.Value.uid(),
+                    null,
+                    QualifiedName.NULL_VALUE);
 
-        MonitoringParameters parameters = new MonitoringParameters(clientHandle,
-                (double) subscription.getPublishingInterval(),
-                null,
-                uint(subscription.getServerQueueSize()),
-                true);
+            // create a new client handle, these have to be unique for each handle.
+            final UInteger clientHandle = uaSubscription.nextClientHandle();
 
-        MonitoredItemCreateRequest request =
-                new MonitoredItemCreateRequest(readValueId, MonitoringMode.Reporting, parameters);
+            final MonitoringParameters parameters = new MonitoringParameters(clientHandle,
+                    (double) subscription.getPublishingInterval(),
+                    null,
+                    uint(subscription.getServerQueueSize()),
+                    true);
 
-        UaSubscription.ItemCreationCallback onItemCreated =
-                (item, id) -> item.setValueConsumer(new OpcUaDataValueConsumer(subscription,
+            requests.add(new MonitoredItemCreateRequest(readValueId, MonitoringMode.Reporting, parameters));
+        }
+
+        //-- the index passed to the callback is the index of the request in the batch
+        final UaSubscription.ItemCreationCallback onItemCreated =
+                (item, index) -> item.setValueConsumer(new OpcUaDataValueConsumer(batch.get(index),
                         adapterPublishService,
                         opcUaClient,
-                        readValueId.getNodeId(),
+                        item.getReadValueId().getNodeId(),
                         metricsHelper,
                         adapterId,
                         eventService));
 
-        uaSubscription.createMonitoredItems(TimestampsToReturn.Both, List.of(request), onItemCreated)
+        return uaSubscription.createMonitoredItems(TimestampsToReturn.Both, requests, onItemCreated)
                 .thenAccept(items -> {
+                    final List<String> failedNodes = new ArrayList<>();
                     for (UaMonitoredItem item : items) {
                         if (item.getStatusCode().isGood()) {
                             if (log.isDebugEnabled()) {
@@ -112,18 +150,17 @@ public class OpcUaSubscriptionConsumer implements Consumer<UaSubscription> {
                             log.warn("OPC-UA subscription failed for nodeId={} (status={})",
                                     item.getReadValueId().getNodeId(),
                                     item.getStatusCode());
-                            throw new OpcUaException("OPC-UA subscription failed for nodeId `" +
+                            failedNodes.add("`" +
                                     item.getReadValueId().getNodeId() +
                                     "` (status '" +
                                     item.getStatusCode() +
                                     "')");
                         }
                     }
-                    resultFuture.complete(null);
-                })
-                .exceptionally(monitorThrowable -> {
-                    resultFuture.completeExceptionally(monitorThrowable);
-                    return null;
+                    if (!failedNodes.isEmpty()) {
+                        throw new OpcUaException("OPC-UA subscription failed for nodeId " +
+                                String.join(", ", failedNodes));
+                    }
                 });
     }
 }
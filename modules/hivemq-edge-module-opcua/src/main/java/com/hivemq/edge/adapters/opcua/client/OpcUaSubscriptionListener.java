@@ -24,6 +24,11 @@ import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
 
 import java.util.function.Consumer;
 
+/**
+ * Tracks the state of the subscriptions of an adapter. A subscription carries the monitored items of all nodes with
+ * the same publishing interval, so a failed transfer hands the whole subscription to the callback to recreate its
+ * monitored items together.
+ */
 public class OpcUaSubscriptionListener implements UaSubscriptionManager.SubscriptionListener {
 
     private final @NotNull ProtocolAdapterMetricsHelper protocolAdapterMetricsHelper;
@@ -16,8 +16,11 @@
 package com.hivemq.edge.adapters.opcua.payload;
 
 import com.google.common.io.BaseEncoding;
-import com.google.gson.*;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import org.eclipse.milo.opcua.binaryschema.Struct;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.eclipse.milo.opcua.stack.core.StatusCodes;
@@ -29,13 +32,17 @@ import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UShort;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Converts OPC UA values to the JSON payload of the adapter. The JSON is streamed into a per thread buffer that is
+ * reused for every payload, scalar values skip the JSON writer completely.
+ */
 //see also https://reference.opcfoundation.org/Core/Part6/v105/docs/5.4
 public class OpcUaJsonPayloadConverter {
 
@@ -43,147 +50,197 @@ public class OpcUaJsonPayloadConverter {
 
     private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
 
-    public static @NotNull ByteBuffer convertPayload(
+    private static final ThreadLocal<Utf8ByteArrayWriter> BUFFER =
+            ThreadLocal.withInitial(() -> new Utf8ByteArrayWriter(256));
+
+    public static byte @NotNull [] convertPayload(
             final @NotNull OpcUaClient opcUaClient, @NotNull final DataValue dataValue) {
         final Object value = dataValue.getValue().getValue();
         final boolean reversibleMode = false;
-        final JsonObject jsonObject = new JsonObject();
-        if (reversibleMode) {
-            addDataValueFields(dataValue, jsonObject, reversibleMode);
+        final Utf8ByteArrayWriter buffer = BUFFER.get();
+        try {
+            if (!reversibleMode && writeScalarPayload(value, buffer)) {
+                return buffer.toByteArray();
+            }
+            final JsonWriter jsonWriter = new JsonWriter(buffer);
+            jsonWriter.setHtmlSafe(false);
+            //-- lenient like Gson when writing a tree, so NaN and Infinity are written instead of failing
+            jsonWriter.setLenient(true);
+            jsonWriter.beginObject();
+            if (reversibleMode) {
+                addDataValueFields(dataValue, jsonWriter, reversibleMode);
+            }
+            convertValue(value, jsonWriter, reversibleMode, "value", opcUaClient);
+            jsonWriter.endObject();
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            //the buffer does not throw on write
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.reset();
+        }
+    }
+
+    /**
+     * Writes {@code {"value":<number or boolean>}} for the scalar types that need no escaping.
+     *
+     * @return <code>false</code> if the value is not such a scalar and nothing was written
+     */
+    private static boolean writeScalarPayload(final @Nullable Object value, final @NotNull Utf8ByteArrayWriter buffer) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            buffer.writeAscii("{\"value\":");
+            buffer.writeLong(((Number) value).longValue());
+        } else if (value instanceof UByte || value instanceof UShort || value instanceof UInteger) {
+            buffer.writeAscii("{\"value\":");
+            buffer.writeLong(((Number) value).longValue());
+        } else if (value instanceof Double && Double.isFinite((Double) value)) {
+            buffer.writeAscii("{\"value\":");
+            buffer.writeAscii(value.toString());
+        } else if (value instanceof Float && Float.isFinite((Float) value)) {
+            buffer.writeAscii("{\"value\":");
+            buffer.writeAscii(value.toString());
+        } else if (value instanceof Boolean) {
+            buffer.writeAscii((Boolean) value ? "{\"value\":true" : "{\"value\":false");
+        } else {
+            return false;
         }
-        convertValue(value, jsonObject, reversibleMode, "value", opcUaClient);
-        return ByteBuffer.wrap(GSON.toJson(jsonObject).getBytes(StandardCharsets.UTF_8));
+        buffer.writeAscii("}");
+        return true;
     }
 
     private static void convertValue(
-            final @NotNull Object value,
-            final @NotNull JsonObject holder,
+            final @Nullable Object value,
+            final @NotNull JsonWriter writer,
             final boolean reversibleMode,
             final @NotNull String fieldName,
-            final @NotNull OpcUaClient opcUaClient) {
-        if (value instanceof DataValue) {
-            addDataValueFields((DataValue) value, holder, reversibleMode);
-            convertValue(((DataValue) value).getValue(), holder, reversibleMode, fieldName, opcUaClient);
+            final @NotNull OpcUaClient opcUaClient) throws IOException {
+        if (value == null) {
+            //-- e.g. an empty Variant or an unset optional member of a Struct
+            writer.name(fieldName).nullValue();
+        } else if (value instanceof DataValue) {
+            addDataValueFields((DataValue) value, writer, reversibleMode);
+            convertValue(((DataValue) value).getValue(), writer, reversibleMode, fieldName, opcUaClient);
         } else if (value instanceof Boolean) {
-            holder.add(fieldName, new JsonPrimitive((Boolean) value));
+            writer.name(fieldName).value((Boolean) value);
         } else if (value instanceof Byte) {
-            holder.add(fieldName, new JsonPrimitive((Byte) value));
+            writer.name(fieldName).value((long) (Byte) value);
         } else if (value instanceof UByte) {
-            holder.add(fieldName, new JsonPrimitive(((UByte) value).intValue()));
+            writer.name(fieldName).value(((UByte) value).intValue());
         } else if (value instanceof Short) {
-            holder.add(fieldName, new JsonPrimitive((Short) value));
+            writer.name(fieldName).value((long) (Short) value);
         } else if (value instanceof UShort) {
-            holder.add(fieldName, new JsonPrimitive(((UShort) value).intValue()));
+            writer.name(fieldName).value(((UShort) value).intValue());
         } else if (value instanceof Integer) {
-            holder.add(fieldName, new JsonPrimitive(((Integer) value)));
+            writer.name(fieldName).value((long) (Integer) value);
         } else if (value instanceof UInteger) {
-            holder.add(fieldName, new JsonPrimitive((((UInteger) value).longValue())));
+            writer.name(fieldName).value(((UInteger) value).longValue());
         } else if (value instanceof Long) {
-            holder.add(fieldName, new JsonPrimitive(((Long) value)));
+            writer.name(fieldName).value((long) (Long) value);
         } else if (value instanceof ULong) {
-            holder.add(fieldName, new JsonPrimitive((((ULong) value).toBigInteger())));
+            writer.name(fieldName).value(((ULong) value).toBigInteger());
         } else if (value instanceof Float) {
-            holder.add(fieldName, new JsonPrimitive(((Float) value)));
+            //-- as a Number, so the float is not widened to a double with more digits
+            writer.name(fieldName).value((Number) value);
         } else if (value instanceof Double) {
-            holder.add(fieldName, new JsonPrimitive(((Double) value)));
+            writer.name(fieldName).value((Number) value);
         } else if (value instanceof String) {
-            holder.add(fieldName, new JsonPrimitive(((String) value)));
+            writer.name(fieldName).value((String) value);
         } else if (value instanceof DateTime) {
-            holder.add(fieldName,
-                    new JsonPrimitive((DateTimeFormatter.ISO_INSTANT.format(((DateTime) value).getJavaInstant()))));
+            writer.name(fieldName).value(DateTimeFormatter.ISO_INSTANT.format(((DateTime) value).getJavaInstant()));
         } else if (value instanceof UUID) {
-            holder.add(fieldName, new JsonPrimitive(value.toString()));
+            writer.name(fieldName).value(value.toString());
         } else if (value instanceof ByteString) {
-            final JsonPrimitive base64value = convertByteString((ByteString) value);
-            holder.add(fieldName, base64value);
+            writer.name(fieldName);
+            convertByteString((ByteString) value, writer);
         } else if (value instanceof XmlElement) {
             final String fragment = ((XmlElement) value).getFragment();
             if (fragment != null) {
-                holder.add(fieldName, new JsonPrimitive(fragment));
+                writer.name(fieldName).value(fragment);
             }
         } else if (value instanceof NodeId) {
-            final JsonObject nodeIdObj = convertNodeId((NodeId) value, reversibleMode, fieldName);
-            holder.add(fieldName, nodeIdObj);
+            writer.name(fieldName);
+            convertNodeId((NodeId) value, writer, reversibleMode);
         } else if (value instanceof ExpandedNodeId) {
-            holder.add(fieldName, new JsonPrimitive(((ExpandedNodeId) value).toParseableString()));
+            writer.name(fieldName).value(((ExpandedNodeId) value).toParseableString());
         } else if (value instanceof StatusCode) {
-            holder.add(fieldName, convertStatusCode((StatusCode) value, reversibleMode));
+            writer.name(fieldName);
+            convertStatusCode((StatusCode) value, writer, reversibleMode);
         } else if (value instanceof QualifiedName) {
-            final JsonObject qualifiedName = new JsonObject();
+            writer.name(fieldName).beginObject();
             final String name = ((QualifiedName) value).getName();
             if (name != null) {
-                qualifiedName.add("name", new JsonPrimitive(name));
+                writer.name("name").value(name);
             }
             final int nsIdx = ((QualifiedName) value).getNamespaceIndex().intValue();
             if (nsIdx > 0) {
-                qualifiedName.add("uri", new JsonPrimitive(nsIdx));
+                writer.name("uri").value(nsIdx);
             }
-            holder.add(fieldName, qualifiedName);
+            writer.endObject();
         } else if (value instanceof LocalizedText) {
-            final JsonObject localizedText = new JsonObject();
+            writer.name(fieldName).beginObject();
             final String locale = ((LocalizedText) value).getLocale();
             if (locale != null) {
-                localizedText.add("locale", new JsonPrimitive(locale));
+                writer.name("locale").value(locale);
             }
             final String text = ((LocalizedText) value).getText();
             if (text != null) {
-                localizedText.add("text", new JsonPrimitive(text));
+                writer.name("text").value(text);
             }
-            holder.add(fieldName, localizedText);
+            writer.endObject();
         } else if (value instanceof ExtensionObject) {
             if (!reversibleMode) {
+                Object decodedValue;
                 try {
-                    final Object decodedValue =
-                            ((ExtensionObject) value).decode(opcUaClient.getDynamicSerializationContext());
-                    convertValue(decodedValue, holder, reversibleMode, fieldName, opcUaClient);
+                    decodedValue = ((ExtensionObject) value).decode(opcUaClient.getDynamicSerializationContext());
                 } catch (Throwable t) {
                     log.debug("Not able to decode body of OPC-UA ExtensionObject, using undecoded body value instead",
                             t);
-                    convertValue(((ExtensionObject) value).getBody(), holder, reversibleMode, fieldName, opcUaClient);
+                    decodedValue = ((ExtensionObject) value).getBody();
                 }
+                convertValue(decodedValue, writer, reversibleMode, fieldName, opcUaClient);
 
             } else {
-                final JsonObject extensionObject = new JsonObject();
-                extensionObject.add("typeId",
-                        new JsonPrimitive(((ExtensionObject) value).getEncodingId().toParseableString()));
+                final Object decodedValue =
+                        ((ExtensionObject) value).decode(opcUaClient.getDynamicSerializationContext());
+                writer.name(fieldName).beginObject();
+                writer.name("typeId").value(((ExtensionObject) value).getEncodingId().toParseableString());
                 final ExtensionObject.BodyType bodyType = ((ExtensionObject) value).getBodyType();
                 if (bodyType != null) {
                     switch (bodyType) {
                         case ByteString:
-                            extensionObject.add("encoding", new JsonPrimitive(1));
+                            writer.name("encoding").value(1);
+                            break;
                         case XmlElement:
-                            extensionObject.add("encoding", new JsonPrimitive(2));
+                            writer.name("encoding").value(2);
+                            break;
                     }
                 }
-
-                final Object decodedValue =
-                        ((ExtensionObject) value).decode(opcUaClient.getDynamicSerializationContext());
-                convertValue(decodedValue, extensionObject, reversibleMode, "body", opcUaClient);
-                holder.add(fieldName, extensionObject);
+                convertValue(decodedValue, writer, reversibleMode, "body", opcUaClient);
+                writer.endObject();
             }
         } else if (value instanceof Variant) {
             if (!reversibleMode) {
-                convertValue(((Variant) value).getValue(), holder, reversibleMode, fieldName, opcUaClient);
+                convertValue(((Variant) value).getValue(), writer, reversibleMode, fieldName, opcUaClient);
             } else {
-                final JsonObject variant = new JsonObject();
+                writer.name(fieldName).beginObject();
                 final Optional<ExpandedNodeId> dataType = ((Variant) value).getDataType();
                 if (dataType.isPresent()) {
                     final Number typeId = dataType.get().getNamespaceIndex();
-                    variant.add("type", new JsonPrimitive(typeId));
+                    writer.name("type").value(typeId);
                 }
-                convertValue(((Variant) value).getValue(), variant, reversibleMode, "body", opcUaClient);
-                holder.add(fieldName, variant);
+                convertValue(((Variant) value).getValue(), writer, reversibleMode, "body", opcUaClient);
+                writer.endObject();
             }
         } else if (value instanceof DiagnosticInfo) {
-            final JsonObject diagnosticInfo = convertDiagnosticInfo((DiagnosticInfo) value, reversibleMode);
-            holder.add(fieldName, diagnosticInfo);
+            writer.name(fieldName);
+            convertDiagnosticInfo((DiagnosticInfo) value, writer, reversibleMode);
         } else if (value instanceof Struct) {
             final Struct struct = (Struct) value;
-            final JsonObject structRoot = new JsonObject();
+            writer.name(fieldName).beginObject();
             for (Struct.Member member : struct.getMembers().values()) {
-                convertValue(member.getValue(), structRoot, reversibleMode, member.getName(), opcUaClient);
+                convertValue(member.getValue(), writer, reversibleMode, member.getName(), opcUaClient);
             }
-            holder.add(fieldName, structRoot);
+            writer.endObject();
         } else {
             //fallback, best effort
             if (log.isTraceEnabled()) {
@@ -191,147 +248,115 @@ public class OpcUaJsonPayloadConverter {
                         value.getClass().getSimpleName() +
                         " falling back to best effort json");
             }
-            holder.add(fieldName, GSON.toJsonTree(value));
+            writer.name(fieldName);
+            GSON.toJson(value, value.getClass(), writer);
         }
     }
 
-    @NotNull
-    private static JsonElement convertStatusCode(final @NotNull StatusCode value, final boolean reversibleMode) {
+    private static void convertStatusCode(
+            final @NotNull StatusCode value, final @NotNull JsonWriter writer, final boolean reversibleMode)
+            throws IOException {
         if (reversibleMode) {
-            return new JsonPrimitive(value.getValue());
+            writer.value(value.getValue());
+            return;
         }
 
-        final JsonObject statusCode = new JsonObject();
+        writer.beginObject();
         final long statusCodeNr = value.getValue();
-        statusCode.add("code", new JsonPrimitive(statusCodeNr));
+        writer.name("code").value(statusCodeNr);
         final Optional<String[]> statusNamingOptional = StatusCodes.lookup(statusCodeNr);
         if (statusNamingOptional.isPresent()) {
-            statusCode.add("symbol", new JsonPrimitive(statusNamingOptional.get()[0]));
+            writer.name("symbol").value(statusNamingOptional.get()[0]);
         }
-        return statusCode;
+        writer.endObject();
     }
 
-    @NotNull
-    private static JsonPrimitive convertByteString(final @NotNull ByteString value) {
+    private static void convertByteString(final @NotNull ByteString value, final @NotNull JsonWriter writer)
+            throws IOException {
         final byte[] bytes = value.bytesOrEmpty();
-        return new JsonPrimitive(BaseEncoding.base64().encode(bytes));
-    }
-
-    @NotNull
-    private static JsonObject convertNodeId(
-            final @NotNull NodeId nodeId, boolean reversibleMode, @NotNull String fieldName) {
-        final JsonObject nodeIdObj = new JsonObject();
-
-        switch (nodeId.getType()) {
-            case Numeric:
-                nodeIdObj.add("id", new JsonPrimitive((Number) nodeId.getIdentifier()));
-                break;
-            case String:
-                nodeIdObj.add("idType", new JsonPrimitive(1));
-                nodeIdObj.add("id", new JsonPrimitive((String) nodeId.getIdentifier()));
-                break;
-            case Guid:
-                nodeIdObj.add("idType", new JsonPrimitive(2));
-                nodeIdObj.add("id", new JsonPrimitive(nodeId.getIdentifier().toString())); //UUID.toString()
-                break;
-            case Opaque: //ByteString
-                nodeIdObj.add("idType", new JsonPrimitive(3));
-                nodeIdObj.add("id", convertByteString((ByteString) nodeId.getIdentifier())); //UUID.toString()
-                break;
-        }
-
-        final int namespaceIndex = nodeId.getNamespaceIndex().intValue();
-        if (reversibleMode) {
-            if (namespaceIndex != 0) {
-                nodeIdObj.add("namespace", new JsonPrimitive(namespaceIndex));
-            }
-        } else {
-            if (namespaceIndex == 1) { // 1 is always encoded as a number
-                nodeIdObj.add("namespace", new JsonPrimitive(namespaceIndex));
-            } else {
-                nodeIdObj.add("namespace", new JsonPrimitive(nodeId.toParseableString()));
-            }
-        }
-        return nodeIdObj;
+        writer.value(BaseEncoding.base64().encode(bytes));
     }
 
-    @NotNull
-    private static JsonObject convertExpandedNodeId(
-            final @NotNull ExpandedNodeId nodeId, boolean reversibleMode, @NotNull String fieldName) {
-        final JsonObject nodeIdObj = new JsonObject();
-
+    private static void convertNodeId(
+            final @NotNull NodeId nodeId, final @NotNull JsonWriter writer, boolean reversibleMode)
+            throws IOException {
+        writer.beginObject();
         switch (nodeId.getType()) {
             case Numeric:
-                nodeIdObj.add("id", new JsonPrimitive((Number) nodeId.getIdentifier()));
+                writer.name("id").value((Number) nodeId.getIdentifier());
                 break;
             case String:
-                nodeIdObj.add("idType", new JsonPrimitive(1));
-                nodeIdObj.add("id", new JsonPrimitive((String) nodeId.getIdentifier()));
+                writer.name("idType").value(1);
+                writer.name("id").value((String) nodeId.getIdentifier());
                 break;
             case Guid:
-                nodeIdObj.add("idType", new JsonPrimitive(2));
-                nodeIdObj.add("id", new JsonPrimitive(nodeId.getIdentifier().toString())); //UUID.toString()
+                writer.name("idType").value(2);
+                writer.name("id").value(nodeId.getIdentifier().toString()); //UUID.toString()
                 break;
             case Opaque: //ByteString
-                nodeIdObj.add("idType", new JsonPrimitive(3));
-                nodeIdObj.add("id", convertByteString((ByteString) nodeId.getIdentifier())); //UUID.toString()
+                writer.name("idType").value(3);
+                writer.name("id");
+                convertByteString((ByteString) nodeId.getIdentifier(), writer);
                 break;
         }
 
         final int namespaceIndex = nodeId.getNamespaceIndex().intValue();
         if (reversibleMode) {
             if (namespaceIndex != 0) {
-                nodeIdObj.add("namespace", new JsonPrimitive(namespaceIndex));
+                writer.name("namespace").value(namespaceIndex);
             }
         } else {
             if (namespaceIndex == 1) { // 1 is always encoded as a number
-                nodeIdObj.add("namespace", new JsonPrimitive(namespaceIndex));
+                writer.name("namespace").value(namespaceIndex);
             } else {
-                nodeIdObj.add("namespace", new JsonPrimitive(nodeId.toParseableString()));
+                writer.name("namespace").value(nodeId.toParseableString());
             }
         }
-
-        nodeIdObj.add("serverUri", new JsonPrimitive(nodeId.getServerIndex().longValue()));
-        return nodeIdObj;
+        writer.endObject();
     }
 
-    private static @NotNull JsonObject convertDiagnosticInfo(DiagnosticInfo value, final boolean reversibleMode) {
-        final JsonObject diagnosticInfo = new JsonObject();
-        diagnosticInfo.add("symbolicId", new JsonPrimitive(value.getSymbolicId()));
-        diagnosticInfo.add("namespaceUri", new JsonPrimitive(value.getNamespaceUri()));
-        diagnosticInfo.add("locale", new JsonPrimitive(value.getLocale()));
-        diagnosticInfo.add("localizedText", new JsonPrimitive(value.getLocalizedText()));
+    private static void convertDiagnosticInfo(
+            final @NotNull DiagnosticInfo value, final @NotNull JsonWriter writer, final boolean reversibleMode)
+            throws IOException {
+        writer.beginObject();
+        writer.name("symbolicId").value(value.getSymbolicId());
+        writer.name("namespaceUri").value(value.getNamespaceUri());
+        writer.name("locale").value(value.getLocale());
+        writer.name("localizedText").value(value.getLocalizedText());
         if (value.getAdditionalInfo() != null) {
-            diagnosticInfo.add("additionalInfo", new JsonPrimitive(value.getAdditionalInfo()));
+            writer.name("additionalInfo").value(value.getAdditionalInfo());
         }
         if (value.getInnerStatusCode() != null) {
-            diagnosticInfo.add("innerStatusCode", convertStatusCode(value.getInnerStatusCode(), reversibleMode));
+            writer.name("innerStatusCode");
+            convertStatusCode(value.getInnerStatusCode(), writer, reversibleMode);
         }
         if (value.getInnerDiagnosticInfo() != null) {
-            diagnosticInfo.add("innerDiagnosticInfo",
-                    convertDiagnosticInfo(value.getInnerDiagnosticInfo(), reversibleMode));
+            writer.name("innerDiagnosticInfo");
+            convertDiagnosticInfo(value.getInnerDiagnosticInfo(), writer, reversibleMode);
         }
-        return diagnosticInfo;
+        writer.endObject();
     }
 
     private static void addDataValueFields(
-            final @NotNull DataValue dataValue, final @NotNull JsonObject jsonObject, final boolean reversibleMode) {
+            final @NotNull DataValue dataValue, final @NotNull JsonWriter writer, final boolean reversibleMode)
+            throws IOException {
         if (dataValue.getServerTime() != null) {
             final Instant javaInstant = dataValue.getServerTime().getJavaInstant();
-            jsonObject.add("serverTimestamp", new JsonPrimitive(DateTimeFormatter.ISO_INSTANT.format(javaInstant)));
+            writer.name("serverTimestamp").value(DateTimeFormatter.ISO_INSTANT.format(javaInstant));
         }
         if (dataValue.getSourceTime() != null) {
             final Instant javaInstant = dataValue.getSourceTime().getJavaInstant();
-            jsonObject.add("sourceTimestamp", new JsonPrimitive(DateTimeFormatter.ISO_INSTANT.format(javaInstant)));
+            writer.name("sourceTimestamp").value(DateTimeFormatter.ISO_INSTANT.format(javaInstant));
         }
         if (dataValue.getServerPicoseconds() != null) {
-            jsonObject.add("serverPicoSeconds", new JsonPrimitive(dataValue.getServerPicoseconds().intValue()));
+            writer.name("serverPicoSeconds").value(dataValue.getServerPicoseconds().intValue());
         }
         if (dataValue.getSourcePicoseconds() != null) {
-            jsonObject.add("sourcePicoSeconds", new JsonPrimitive(dataValue.getServerPicoseconds().intValue()));
+            writer.name("sourcePicoSeconds").value(dataValue.getServerPicoseconds().intValue());
         }
         if (dataValue.getStatusCode() != null && dataValue.getStatusCode().getValue() > 0) {
-            jsonObject.add("status", convertStatusCode(dataValue.getStatusCode(), reversibleMode));
+            writer.name("status");
+            convertStatusCode(dataValue.getStatusCode(), writer, reversibleMode);
         }
     }
 }
@@ -30,16 +30,15 @@ import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
 import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
 import org.eclipse.milo.opcua.stack.core.types.builtin.XmlElement;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
 import java.util.UUID;
 
 public class OpcUaStringPayloadConverter {
 
-    public static @NotNull ByteBuffer convertPayload(@NotNull final DataValue dataValue) {
+    public static byte @NotNull [] convertPayload(@NotNull final DataValue dataValue) {
         final String payload = convertPayloadToString(dataValue.getValue().getValue());
-        return StandardCharsets.UTF_8.encode(payload != null ? payload : "");
+        return payload != null ? payload.getBytes(StandardCharsets.UTF_8) : new byte[0];
     }
 
     public static @Nullable String convertPayloadToString(@NotNull final Object value) {
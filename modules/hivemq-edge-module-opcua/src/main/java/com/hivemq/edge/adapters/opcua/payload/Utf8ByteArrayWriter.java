@@ -0,0 +1,179 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.opcua.payload;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * A {@link Writer} that encodes the written characters as UTF-8 directly into a growable byte array. The array is kept
+ * between payloads, so encoding a payload only allocates the resulting byte array.
+ * <p>
+ * Not thread safe, every thread uses its own instance.
+ */
+class Utf8ByteArrayWriter extends Writer {
+
+    /**
+     * Buffers that grew beyond this size for a large payload are not kept for the next payload.
+     */
+    static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private final int initialCapacity;
+    private byte @NotNull [] buffer;
+    private int count;
+    private char highSurrogate;
+
+    Utf8ByteArrayWriter(final int initialCapacity) {
+        this.initialCapacity = initialCapacity;
+        this.buffer = new byte[initialCapacity];
+    }
+
+    @Override
+    public void write(final int c) {
+        writeChar((char) c);
+    }
+
+    @Override
+    public void write(final char @NotNull [] chars, final int off, final int len) {
+        for (int i = off; i < off + len; i++) {
+            writeChar(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(final @NotNull String str, final int off, final int len) {
+        for (int i = off; i < off + len; i++) {
+            writeChar(str.charAt(i));
+        }
+    }
+
+    /**
+     * Writes characters that are known to be ASCII, like numbers, without going through the UTF-8 encoding.
+     */
+    void writeAscii(final @NotNull String str) {
+        final int len = str.length();
+        ensureCapacity(len);
+        for (int i = 0; i < len; i++) {
+            buffer[count++] = (byte) str.charAt(i);
+        }
+    }
+
+    void writeLong(final long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        long remaining = value;
+        if (remaining < 0) {
+            ensureCapacity(1);
+            buffer[count++] = '-';
+            remaining = -remaining;
+        }
+        int digits = 1;
+        for (long bound = 10; digits < 19 && remaining >= bound; bound *= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = count + digits - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + (remaining % 10));
+            remaining /= 10;
+        }
+        count += digits;
+    }
+
+    private void writeChar(final char c) {
+        if (highSurrogate != 0) {
+            final char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                final int codePoint = Character.toCodePoint(high, c);
+                ensureCapacity(4);
+                buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+            //-- unpaired high surrogate, replaced like the JDK encoder does
+            writeReplacement();
+        }
+        if (c < 0x80) {
+            ensureCapacity(1);
+            buffer[count++] = (byte) c;
+        } else if (c < 0x800) {
+            ensureCapacity(2);
+            buffer[count++] = (byte) (0xC0 | (c >> 6));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            writeReplacement();
+        } else {
+            ensureCapacity(3);
+            buffer[count++] = (byte) (0xE0 | (c >> 12));
+            buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void writeReplacement() {
+        ensureCapacity(1);
+        buffer[count++] = '?';
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (count + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + additional));
+        }
+    }
+
+    /**
+     * @return a copy of the bytes written since the last {@link #reset()}
+     */
+    byte @NotNull [] toByteArray() {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            writeReplacement();
+        }
+        return Arrays.copyOf(buffer, count);
+    }
+
+    void reset() {
+        count = 0;
+        highSurrogate = 0;
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[initialCapacity];
+        }
+    }
+
+    int size() {
+        return count;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -91,6 +91,7 @@ class OpcUaConfigConverterTest {
                 mock(BridgeConfigurator.class),
                 mock(ApiConfigurator.class),
                 mock(UnsConfigurator.class),
+                mock(DataGovernanceConfigurator.class),
                 mock(DynamicConfigConfigurator.class),
                 mock(UsageTrackingConfigurator.class),
                 mock(ProtocolAdapterConfigurator.class));
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.opcua;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hivemq.edge.modules.adapters.model.ProtocolAdapterStartInput;
+import com.hivemq.edge.modules.adapters.model.ProtocolAdapterStartOutput;
+import com.hivemq.edge.modules.api.adapters.ModuleServices;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapter;
+import com.hivemq.edge.modules.api.events.EventService;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import util.EmbeddedOpcUaServerExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("NullabilityAnnotations")
+class OpcUaProtocolAdapterSubscriptionTest {
+
+    private static final @NotNull ObjectMapper MAPPER = new ObjectMapper();
+
+    @RegisterExtension
+    public final @NotNull EmbeddedOpcUaServerExtension opcUaServerExtension = new EmbeddedOpcUaServerExtension();
+
+    @Test
+    public void whenSubscriptionsWithDifferentIntervals_thenGroupedByInterval() {
+        final List<OpcUaAdapterConfig.Subscription> subscriptions = List.of(subscription("ns=1;i=1", 1000),
+                subscription("ns=1;i=2", 500),
+                subscription("ns=1;i=3", 1000));
+
+        final Map<Integer, List<OpcUaAdapterConfig.Subscription>> groups =
+                OpcUaProtocolAdapter.groupByPublishingInterval(subscriptions);
+
+        assertEquals(List.of(1000, 500), new ArrayList<>(groups.keySet()));
+        assertEquals(List.of(subscriptions.get(0), subscriptions.get(2)), groups.get(1000));
+        assertEquals(List.of(subscriptions.get(1)), groups.get(500));
+    }
+
+    @Test
+    @Timeout(10)
+    public void whenManyNodesWithSameInterval_thenOneServerSubscription() throws Exception {
+        final List<OpcUaAdapterConfig.Subscription> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final String nodeId = opcUaServerExtension.getTestNamespace()
+                    .addNode("TestSharedNode" + i, Identifiers.Int32, () -> 42, 1000 + i);
+            subscriptions.add(subscription(nodeId, 100));
+        }
+        final OpcUaAdapterConfig config = new OpcUaAdapterConfig("test", opcUaServerExtension.getServerUri());
+        config.setSubscriptions(subscriptions);
+        final OpcUaProtocolAdapter protocolAdapter =
+                new OpcUaProtocolAdapter(OpcUaProtocolAdapterInformation.INSTANCE, config, new MetricRegistry());
+
+        final ModuleServices moduleServices = mock(ModuleServices.class);
+        when(moduleServices.eventService()).thenReturn(mock(EventService.class));
+        final ProtocolAdapterStartInput in = () -> moduleServices;
+        protocolAdapter.start(in, mock(ProtocolAdapterStartOutput.class)).get();
+
+        assertEquals(ProtocolAdapter.ConnectionStatus.CONNECTED, protocolAdapter.getConnectionStatus());
+        assertEquals(1, opcUaServerExtension.getOpcUaServer().getSubscriptions().size());
+        protocolAdapter.stop();
+    }
+
+    private static @NotNull OpcUaAdapterConfig.Subscription subscription(
+            final @NotNull String nodeId, final int publishingInterval) {
+        return MAPPER.convertValue(Map.of("node",
+                nodeId,
+                "mqtt-topic",
+                "topic/" + nodeId,
+                "publishing-interval",
+                publishingInterval), OpcUaAdapterConfig.Subscription.class);
+    }
+}
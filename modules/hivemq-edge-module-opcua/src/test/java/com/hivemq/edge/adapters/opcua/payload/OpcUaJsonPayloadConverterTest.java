@@ -20,22 +20,30 @@ import com.hivemq.edge.adapters.opcua.OpcUaProtocolAdapter;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapter;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.mqtt.message.publish.PUBLISH;
+import org.eclipse.milo.opcua.binaryschema.Struct;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.eclipse.milo.opcua.stack.core.Identifiers;
 import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
 import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
 
 @SuppressWarnings("NullabilityAnnotations")
 class OpcUaJsonPayloadConverterTest extends AbstractOpcUaPayloadConverterTest {
@@ -104,4 +112,17 @@ class OpcUaJsonPayloadConverterTest extends AbstractOpcUaPayloadConverterTest {
         assertThat(new String(publish.getPayload())).contains("\"value\":" + jsonValue);
     }
 
+    @Test
+    public void whenStructMemberNull_thenJsonNull() {
+        final LinkedHashMap<String, Struct.Member> members = new LinkedHashMap<>();
+        members.put("present", new Struct.Member("present", 1));
+        members.put("missing", new Struct.Member("missing", null));
+        members.put("empty", new Struct.Member("empty", new Variant(null)));
+        final DataValue dataValue = new DataValue(new Variant(new Struct("TestStruct", members)));
+
+        final byte[] payload = OpcUaJsonPayloadConverter.convertPayload(mock(OpcUaClient.class), dataValue);
+
+        assertEquals("{\"value\":{\"present\":1,\"missing\":null,\"empty\":null}}",
+                new String(payload, StandardCharsets.UTF_8));
+    }
 }
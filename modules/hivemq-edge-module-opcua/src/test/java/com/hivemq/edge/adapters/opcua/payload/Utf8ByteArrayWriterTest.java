@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.opcua.payload;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Utf8ByteArrayWriterTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "ascii", "\u00e4\u00f6\u00fc \u00df", "\u20ac \u4e2d\u6587", "emoji \uD83D\uDE00 end",
+            "unpaired \uD83D end", "\uDE00"})
+    public void whenStringWritten_thenSameBytesAsJdkEncoder(final String value) {
+        final Utf8ByteArrayWriter writer = new Utf8ByteArrayWriter(4);
+        writer.write(value, 0, value.length());
+
+        assertArrayEquals(value.getBytes(StandardCharsets.UTF_8), writer.toByteArray());
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 7, -7, 10, 99, 100, 4294967295L, Long.MAX_VALUE, Long.MIN_VALUE, -1000000000000000000L})
+    public void whenLongWritten_thenSameAsToString(final long value) {
+        final Utf8ByteArrayWriter writer = new Utf8ByteArrayWriter(1);
+        writer.writeLong(value);
+
+        assertEquals(Long.toString(value), new String(writer.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void whenReset_thenBufferReused() {
+        final Utf8ByteArrayWriter writer = new Utf8ByteArrayWriter(16);
+        writer.writeAscii("{\"value\":");
+        writer.writeLong(1);
+        writer.reset();
+        writer.writeAscii("x");
+
+        assertEquals(1, writer.size());
+        assertEquals("x", new String(writer.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void whenLargePayloadReset_thenLargeBufferReleased() {
+        final Utf8ByteArrayWriter writer = new Utf8ByteArrayWriter(16);
+        final char[] chars = new char[Utf8ByteArrayWriter.MAX_RETAINED_CAPACITY + 1];
+        writer.write(chars, 0, chars.length);
+        assertEquals(chars.length, writer.size());
+        assertTrue(writer.capacity() > Utf8ByteArrayWriter.MAX_RETAINED_CAPACITY);
+
+        writer.reset();
+        assertEquals(0, writer.size());
+        assertEquals(16, writer.capacity());
+    }
+}
@@ -14,9 +14,11 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.apache.plc4x.java.api.PlcDriverManager;
 import org.apache.plc4x.java.api.messages.PlcReadResponse;
 import org.apache.plc4x.java.api.messages.PlcSubscriptionEvent;
+import org.apache.plc4x.java.api.types.PlcResponseCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -80,6 +82,17 @@ public abstract class AbstractPlc4xAdapter<T extends Plc4xAdapterConfig>
 
     protected void subscribeAllInternal(@NotNull final Plc4xConnection<T> connection) throws RuntimeException {
         if (adapterConfig.getSubscriptions() != null) {
+            if (getReadType() == ReadType.Read) {
+                //-- All subscriptions share the polling interval of the adapter, so they are read with one request per tick
+                if (!adapterConfig.getSubscriptions().isEmpty()) {
+                    if(log.isDebugEnabled()){
+                        log.debug("Scheduling batched read of {} tag(s) on connection",
+                                adapterConfig.getSubscriptions().size());
+                    }
+                    startPolling(new BatchedReadSampler(this.adapterConfig, adapterConfig.getSubscriptions()));
+                }
+                return;
+            }
             for (T.Subscription subscription : adapterConfig.getSubscriptions()) {
                 try {
                     subscribeInternal(connection, subscription);
@@ -142,6 +155,18 @@ public abstract class AbstractPlc4xAdapter<T extends Plc4xAdapterConfig>
         return CompletableFuture.completedFuture(null);
     }
 
+    protected CompletableFuture<List<ProtocolAdapterDataSample>> onBatchedSamplerInvoked(final @NotNull List<? extends T.Subscription> subscriptions) {
+        if (connection.isConnected()) {
+            try {
+                CompletableFuture<? extends PlcReadResponse> request = connection.read(subscriptions);
+                return request.thenApply(response -> processBatchedReadResponse(subscriptions, response));
+            } catch(Exception e){
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.completedFuture(List.of());
+    }
+
     /**
      * The protocol Handler is the prefix of the JNDI Connection URI used to instantiate the connection from the factory
      * @return the prefix to use, for example "opcua"
@@ -188,6 +213,31 @@ public abstract class AbstractPlc4xAdapter<T extends Plc4xAdapterConfig>
                 Plc4xDataUtils.readDataFromReadResponse(readEvent));
     }
 
+    /**
+     * Fans the response of a multi-tag read out to one data sample per subscription, the value of a subscription is
+     * looked up by its index in the request. Tags the device could not read are skipped, so a single faulty tag does
+     * not prevent the publishes of the other tags.
+     */
+    protected List<ProtocolAdapterDataSample> processBatchedReadResponse(final @NotNull List<? extends T.Subscription> subscriptions,
+                                                                         final @NotNull PlcReadResponse readEvent){
+        final List<ProtocolAdapterDataSample> samples = new ArrayList<>(subscriptions.size());
+        for (int i = 0; i < subscriptions.size(); i++) {
+            final T.Subscription subscription = subscriptions.get(i);
+            final String tagName = subscription.getTagName();
+            final String tagKey = Plc4xConnection.batchTagKey(i);
+            final PlcResponseCode responseCode = readEvent.getResponseCode(tagKey);
+            if (responseCode != PlcResponseCode.OK) {
+                if(log.isDebugEnabled()){
+                    log.debug("Unable to read tag [{}] from plc4x-connection -> {}", tagName, responseCode);
+                }
+                continue;
+            }
+            final byte[] value = Plc4xDataUtils.readTagFromReadResponse(readEvent, tagKey);
+            samples.add(processPlcFieldData(subscription, List.of(Pair.of(tagName, value))));
+        }
+        return samples;
+    }
+
     protected ProtocolAdapterDataSample processPlcFieldData(final @NotNull T.Subscription subscription, final @NotNull List<Pair<String, byte[]>> l){
 
         ProtocolAdapterDataSample data = new ProtocolAdapterDataSample(null,
@@ -220,4 +270,35 @@ public abstract class AbstractPlc4xAdapter<T extends Plc4xAdapterConfig>
         data.setData(dataValue);
         return data;
     }
+
+    /**
+     * Samples all subscriptions of the adapter with a single read request per polling tick and publishes the value of
+     * each tag on the destination of its subscription.
+     */
+    protected class BatchedReadSampler extends Sampler {
+
+        protected final @NotNull List<? extends T.Subscription> subscriptions;
+
+        public BatchedReadSampler(final @NotNull T config, final @NotNull List<? extends T.Subscription> subscriptions) {
+            super(config);
+            this.subscriptions = List.copyOf(subscriptions);
+        }
+
+        @Override
+        public CompletableFuture<ProtocolAdapterDataSample> execute() {
+            if(Thread.currentThread().isInterrupted()){
+                return CompletableFuture.failedFuture(new InterruptedException());
+            }
+            return onBatchedSamplerInvoked(subscriptions).thenApply(samples -> {
+                final List<ProtocolAdapterDataSample> readSamples = new ArrayList<>(samples.size());
+                for (ProtocolAdapterDataSample sample : samples) {
+                    if (sample.getData() != null) {
+                        readSamples.add(sample);
+                    }
+                }
+                captureDataSamples(readSamples);
+                return null;
+            });
+        }
+    }
 }
@@ -16,6 +16,7 @@ import org.apache.plc4x.java.api.model.PlcSubscriptionHandle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
@@ -112,6 +113,32 @@ public abstract class Plc4xConnection<T extends Plc4xAdapterConfig> {
         return readRequest.execute();
     }
 
+    /**
+     * Reads all supplied subscriptions with a single multi-tag request. Tag names do not have to be unique, so the
+     * value of each subscription is contained in the response under the key {@link #batchTagKey} of its index.
+     */
+    public CompletableFuture<? extends PlcReadResponse> read(final @NotNull List<? extends T.Subscription> subscriptions) {
+        if (!plcConnection.getMetadata().canRead()) {
+            return CompletableFuture.failedFuture(new Plc4xException("connection type read-blocking"));
+        }
+        if(log.isDebugEnabled()){
+            log.debug("Sending direct-read request to connection for {} tag(s)", subscriptions.size());
+        }
+        PlcReadRequest.Builder builder = plcConnection.readRequestBuilder();
+        for (int i = 0; i < subscriptions.size(); i++) {
+            builder.addTagAddress(batchTagKey(i), initializeQueryForSubscription(subscriptions.get(i)));
+        }
+        PlcReadRequest readRequest = builder.build();
+        return readRequest.execute();
+    }
+
+    /**
+     * @return the key of the subscription at the index in the response of a multi-tag read
+     */
+    static @NotNull String batchTagKey(final int index) {
+        return "tag-" + index;
+    }
+
     public CompletableFuture<? extends PlcSubscriptionResponse> subscribe(final @NotNull T.Subscription subscription, final @NotNull Consumer<PlcSubscriptionEvent> consumer) {
 
         if (!plcConnection.getMetadata().canSubscribe()) {
@@ -63,25 +63,33 @@ public class Plc4xDataUtils {
         List<Pair<String, byte[]>> output = new ArrayList<>();
         Collection<String> s = evt.getTagNames();
         for (String field : s) {
-            byte[] arr = null;
-            if (evt.isValidDouble(field)) {
-                arr = ByteBuffer.allocate(8).putDouble(evt.getDouble(field)).array();
-            } else if (evt.isValidInteger(field)) {
-                arr = ByteBuffer.allocate(4).putInt(evt.getInteger(field)).array();
-            } else if (evt.isValidLong(field)) {
-                arr = ByteBuffer.allocate(8).putLong(evt.getLong(field)).array();
-            } else if (evt.isValidShort(field)) {
-                arr = ByteBuffer.allocate(2).putShort(evt.getShort(field)).array();
-            } else if (evt.isValidByte(field) || evt.isValidBoolean(field)) {
-                arr = ByteBuffer.allocate(1).put(evt.getByte(field)).array();
-            } else if(evt.isValidString(field)){
-                arr = evt.getString(field).getBytes(StandardCharsets.UTF_8);
-            }
-            output.add(Pair.of(field,arr));
+            output.add(Pair.of(field, readTagFromReadResponse(evt, field)));
         }
         return output;
     }
 
+    /**
+     * Reads the value of a single tag from a (possibly multi-tag) read response.
+     * @return the raw value or null if the tag did not contain a value of a supported type
+     */
+    public static byte[] readTagFromReadResponse(@NotNull final PlcReadResponse evt, @NotNull final String field){
+        byte[] arr = null;
+        if (evt.isValidDouble(field)) {
+            arr = ByteBuffer.allocate(8).putDouble(evt.getDouble(field)).array();
+        } else if (evt.isValidInteger(field)) {
+            arr = ByteBuffer.allocate(4).putInt(evt.getInteger(field)).array();
+        } else if (evt.isValidLong(field)) {
+            arr = ByteBuffer.allocate(8).putLong(evt.getLong(field)).array();
+        } else if (evt.isValidShort(field)) {
+            arr = ByteBuffer.allocate(2).putShort(evt.getShort(field)).array();
+        } else if (evt.isValidByte(field) || evt.isValidBoolean(field)) {
+            arr = ByteBuffer.allocate(1).put(evt.getByte(field)).array();
+        } else if(evt.isValidString(field)){
+            arr = evt.getString(field).getBytes(StandardCharsets.UTF_8);
+        }
+        return arr;
+    }
+
 
     public static final String createQueryString(final @NotNull Map<String, String> map, boolean includeKeysForNullValues){
         StringBuilder res = new StringBuilder();
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.plc4x.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hivemq.edge.adapters.plc4x.model.Plc4xAdapterConfig;
+import com.hivemq.edge.modules.adapters.data.ProtocolAdapterDataSample;
+import com.hivemq.edge.modules.adapters.model.ProtocolAdapterPollingSampler;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapterInformation;
+import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.types.PlcResponseCode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("NullabilityAnnotations")
+class AbstractPlc4xAdapterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void subscribeAllInternal_readType_allSubscriptionsInOneSampler() {
+        final TestPlc4xAdapter adapter =
+                new TestPlc4xAdapter(config(subscription("temperature", 1), subscription("pressure", 0)));
+
+        adapter.subscribeAllInternal(mock(Plc4xConnection.class));
+
+        assertEquals(1, adapter.samplers.size());
+        final AbstractPlc4xAdapter<Plc4xAdapterConfig>.BatchedReadSampler sampler =
+                (AbstractPlc4xAdapter<Plc4xAdapterConfig>.BatchedReadSampler) adapter.samplers.get(0);
+        assertEquals(List.of("temperature", "pressure"), tagNames(sampler.subscriptions));
+    }
+
+    @Test
+    void subscribeAllInternal_noSubscriptions_noSampler() {
+        final TestPlc4xAdapter adapter = new TestPlc4xAdapter(config());
+
+        adapter.subscribeAllInternal(mock(Plc4xConnection.class));
+
+        assertTrue(adapter.samplers.isEmpty());
+    }
+
+    @Test
+    void processBatchedReadResponse_oneSamplePerSubscription() {
+        final Plc4xAdapterConfig config = config(subscription("temperature", 1), subscription("state", 2));
+        final TestPlc4xAdapter adapter = new TestPlc4xAdapter(config);
+
+        final List<ProtocolAdapterDataSample> samples =
+                adapter.processBatchedReadResponse(config.getSubscriptions(), readResponse(config));
+
+        assertEquals(2, samples.size());
+        assertEquals("topic/temperature", samples.get(0).getTopic());
+        assertEquals(1, samples.get(0).getQos());
+        assertArrayEquals(ByteBuffer.allocate(4).putInt(42).array(), (byte[]) samples.get(0).getData());
+        assertEquals("topic/state", samples.get(1).getTopic());
+        assertEquals(2, samples.get(1).getQos());
+        assertArrayEquals("running".getBytes(StandardCharsets.UTF_8), (byte[]) samples.get(1).getData());
+    }
+
+    @Test
+    void processBatchedReadResponse_failedTag_skipped() {
+        final Plc4xAdapterConfig config =
+                config(subscription("pressure", 0), subscription("temperature", 0), subscription("state", 0));
+        final TestPlc4xAdapter adapter = new TestPlc4xAdapter(config);
+
+        final List<ProtocolAdapterDataSample> samples =
+                adapter.processBatchedReadResponse(config.getSubscriptions(), readResponse(config));
+
+        assertEquals(List.of("topic/temperature", "topic/state"), topics(samples));
+    }
+
+    @Test
+    void processBatchedReadResponse_sameTagName_sampleForEachSubscription() {
+        final Map<String, Object> otherDestination = Map.of("tagName",
+                "temperature",
+                "tagAddress",
+                "%DB2:0:INT",
+                "destination",
+                "other/temperature",
+                "qos",
+                0);
+        final Plc4xAdapterConfig config = config(subscription("temperature", 0), otherDestination);
+        final TestPlc4xAdapter adapter = new TestPlc4xAdapter(config);
+
+        final List<ProtocolAdapterDataSample> samples =
+                adapter.processBatchedReadResponse(config.getSubscriptions(), readResponse(config));
+
+        assertEquals(List.of("topic/temperature", "other/temperature"), topics(samples));
+    }
+
+    @Test
+    void batchedReadSampler_execute_publishesReadTagsOnly() {
+        final Plc4xAdapterConfig config = config(subscription("temperature", 0),
+                subscription("pressure", 0),
+                subscription("blob", 0),
+                subscription("state", 0));
+        final TestPlc4xAdapter adapter = new TestPlc4xAdapter(config);
+        adapter.response = readResponse(config);
+        adapter.subscribeAllInternal(mock(Plc4xConnection.class));
+
+        adapter.samplers.get(0).execute().join();
+
+        //-- one read for all tags, the not found tag and the tag without a supported value are not published
+        assertEquals(1, adapter.reads.size());
+        assertEquals(List.of("temperature", "pressure", "blob", "state"), tagNames(adapter.reads.get(0)));
+        assertEquals(1, adapter.published.size());
+        assertEquals(List.of("topic/temperature", "topic/state"), topics(adapter.published.get(0)));
+    }
+
+    @Test
+    void batchedReadSampler_execute_readFailed_futureFailed() {
+        final TestPlc4xAdapter adapter = new TestPlc4xAdapter(config(subscription("temperature", 0)));
+        adapter.subscribeAllInternal(mock(Plc4xConnection.class));
+
+        final CompletableFuture<ProtocolAdapterDataSample> future = adapter.samplers.get(0).execute();
+
+        assertTrue(future.isCompletedExceptionally());
+        assertTrue(adapter.published.isEmpty());
+    }
+
+    private static Plc4xAdapterConfig config(final Map<String, Object>... subscriptions) {
+        return MAPPER.convertValue(Map.of("id",
+                "test-plc4x",
+                "host",
+                "localhost",
+                "port",
+                102,
+                "subscriptions",
+                List.of(subscriptions)), Plc4xAdapterConfig.class);
+    }
+
+    private static Map<String, Object> subscription(final String tagName, final int qos) {
+        return Map.of("tagName",
+                tagName,
+                "tagAddress",
+                "%DB1:0:INT",
+                "destination",
+                "topic/" + tagName,
+                "qos",
+                qos);
+    }
+
+    /**
+     * Mocks the response of a multi-tag read of the subscriptions, the value of a tag depends on its name.
+     */
+    private static PlcReadResponse readResponse(final Plc4xAdapterConfig config) {
+        final PlcReadResponse response = mock(PlcReadResponse.class);
+        final List<? extends Plc4xAdapterConfig.Subscription> subscriptions = config.getSubscriptions();
+        for (int i = 0; i < subscriptions.size(); i++) {
+            final String tagKey = Plc4xConnection.batchTagKey(i);
+            switch (subscriptions.get(i).getTagName()) {
+                case "temperature":
+                    when(response.getResponseCode(tagKey)).thenReturn(PlcResponseCode.OK);
+                    when(response.isValidInteger(tagKey)).thenReturn(true);
+                    when(response.getInteger(tagKey)).thenReturn(42);
+                    break;
+                case "pressure":
+                    when(response.getResponseCode(tagKey)).thenReturn(PlcResponseCode.NOT_FOUND);
+                    break;
+                case "state":
+                    when(response.getResponseCode(tagKey)).thenReturn(PlcResponseCode.OK);
+                    when(response.isValidString(tagKey)).thenReturn(true);
+                    when(response.getString(tagKey)).thenReturn("running");
+                    break;
+                default:
+                    //-- read, but no value of a supported type
+                    when(response.getResponseCode(tagKey)).thenReturn(PlcResponseCode.OK);
+            }
+        }
+        return response;
+    }
+
+    private static List<String> tagNames(final List<? extends Plc4xAdapterConfig.Subscription> subscriptions) {
+        final List<String> tagNames = new ArrayList<>();
+        for (final Plc4xAdapterConfig.Subscription subscription : subscriptions) {
+            tagNames.add(subscription.getTagName());
+        }
+        return tagNames;
+    }
+
+    private static List<String> topics(final List<ProtocolAdapterDataSample> samples) {
+        final List<String> topics = new ArrayList<>();
+        for (final ProtocolAdapterDataSample sample : samples) {
+            topics.add(sample.getTopic());
+        }
+        return topics;
+    }
+
+    private static class TestPlc4xAdapter extends AbstractPlc4xAdapter<Plc4xAdapterConfig> {
+
+        private final List<ProtocolAdapterPollingSampler<ProtocolAdapterDataSample>> samplers = new ArrayList<>();
+        private final List<List<? extends Plc4xAdapterConfig.Subscription>> reads = new ArrayList<>();
+        private final List<List<ProtocolAdapterDataSample>> published = new ArrayList<>();
+        private PlcReadResponse response;
+
+        TestPlc4xAdapter(final Plc4xAdapterConfig config) {
+            super(adapterInformation(), config, new MetricRegistry());
+        }
+
+        private static ProtocolAdapterInformation adapterInformation() {
+            final ProtocolAdapterInformation adapterInformation = mock(ProtocolAdapterInformation.class);
+            when(adapterInformation.getProtocolId()).thenReturn("test");
+            return adapterInformation;
+        }
+
+        @Override
+        protected String getProtocolHandler() {
+            return "test";
+        }
+
+        @Override
+        protected ReadType getReadType() {
+            return ReadType.Read;
+        }
+
+        @Override
+        protected void startPolling(final Sampler sampler) {
+            samplers.add(sampler);
+        }
+
+        @Override
+        protected CompletableFuture<List<ProtocolAdapterDataSample>> onBatchedSamplerInvoked(
+                final List<? extends Plc4xAdapterConfig.Subscription> subscriptions) {
+            reads.add(subscriptions);
+            if (response == null) {
+                return CompletableFuture.failedFuture(new RuntimeException("read failed"));
+            }
+            return CompletableFuture.completedFuture(processBatchedReadResponse(subscriptions, response));
+        }
+
+        @Override
+        protected CompletableFuture<List<PublishReturnCode>> captureDataSamples(
+                final List<ProtocolAdapterDataSample> samples) {
+            published.add(samples);
+            return CompletableFuture.completedFuture(List.of());
+        }
+    }
+}
@@ -9,6 +9,10 @@ includeBuild("./modules/hivemq-edge-module-http")
 includeBuild("./modules/hivemq-edge-module-modbus")
 includeBuild("./modules/hivemq-edge-module-opcua")
 
+// ** benchmarks ** //
+
+includeBuild("./hivemq-edge-benchmarks")
+
 
 
 